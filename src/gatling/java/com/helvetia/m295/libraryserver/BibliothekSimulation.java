@@ -0,0 +1,159 @@
+package com.helvetia.m295.libraryserver;
+
+import static io.gatling.javaapi.core.CoreDsl.StringBody;
+import static io.gatling.javaapi.core.CoreDsl.constantUsersPerSec;
+import static io.gatling.javaapi.core.CoreDsl.exec;
+import static io.gatling.javaapi.core.CoreDsl.forAll;
+import static io.gatling.javaapi.core.CoreDsl.global;
+import static io.gatling.javaapi.core.CoreDsl.nothingFor;
+import static io.gatling.javaapi.core.CoreDsl.rampUsersPerSec;
+import static io.gatling.javaapi.core.CoreDsl.scenario;
+import static io.gatling.javaapi.core.CoreDsl.stressPeakUsers;
+import static io.gatling.javaapi.http.HttpDsl.http;
+import static io.gatling.javaapi.http.HttpDsl.status;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Stream;
+
+import io.gatling.javaapi.core.OpenInjectionStep;
+import io.gatling.javaapi.core.ScenarioBuilder;
+import io.gatling.javaapi.core.Simulation;
+import io.gatling.javaapi.http.HttpProtocolBuilder;
+
+/**
+ * Lasttest der REST-Schnittstellen mit dem Verkehr einer Bibliothek gegen einen lokal gestarteten Server.
+ * Der Server wird mit {@code ./gradlew -Pperf bootRun} gestartet, die Ids der Medien und Kunden entsprechen den
+ * Mengen aus {@code application-perf.properties}. Die Szenarien sind:
+ * <ul>
+ * <li>Katalog: Medium mit Empfehlungen anzeigen, nach Titel suchen und prüfen, ob es ausgeliehen ist</li>
+ * <li>Ausleihe: Stossweise Ausleihen, wie bei Öffnung der Bibliothek, mit anschliessender Rückgabe</li>
+ * <li>Kunden: Kunde anzeigen und E-Mail ändern</li>
+ * <li>Adressen: Typ-ahead, bei dem jeder Tastenanschlag die Adressen mit diesem Anfang abfragt</li>
+ * </ul>
+ * Jede Anfrage trägt den Namen ihres Endpunkts, der Bericht zeigt Perzentile und Fehlerrate pro Endpunkt.
+ * Die SLOs aus {@code slo.*} werden pro Endpunkt geprüft, bei einer Verletzung schlägt {@code gatlingRun} fehl.
+ *
+ * @version 1.0.0
+ * @author Simon Fäs
+ */
+public class BibliothekSimulation extends Simulation {
+
+	private static final String BASE_URL = System.getProperty("baseUrl", "http://localhost:8080/bibliothek");
+	private static final long MEDIEN = Long.getLong("medien", 1000000);
+	private static final long KUNDEN = Long.getLong("kunden", 500000);
+	private static final Duration DAUER = Duration.ofSeconds(Long.getLong("dauer", 120));
+	private static final Duration ANLAUF = Duration.ofSeconds(Long.getLong("anlauf", 20));
+	private static final double KATALOG_PRO_SEKUNDE = Double.parseDouble(System.getProperty("rate.katalog", "40"));
+	private static final double KUNDEN_PRO_SEKUNDE = Double.parseDouble(System.getProperty("rate.kunden", "5"));
+	private static final double ADRESSEN_PRO_SEKUNDE = Double.parseDouble(System.getProperty("rate.adressen", "10"));
+	private static final int AUSLEIHE_STOSS = Integer.getInteger("stoss.ausleihen", 200);
+	private static final Duration AUSLEIHE_ABSTAND = Duration.ofSeconds(Long.getLong("stoss.abstand", 30));
+
+	private static final int SLO_P95 = Integer.getInteger("slo.p95", 200);
+	private static final int SLO_P99 = Integer.getInteger("slo.p99", 500);
+	private static final double SLO_FEHLER = Double.parseDouble(System.getProperty("slo.fehler", "1"));
+
+	// Dieselben Werte wie im PerfDatenGenerator, damit Titel und Adressen Treffer haben
+	private static final String[] ADJEKTIVE = { "Die dunkle", "Die letzte", "Die verlorene", "Die stille", "Die kalte",
+			"Die geheime", "Die ferne", "Die alte", "Die rote", "Die vergessene" };
+	private static final String[] NOMEN = { "Stadt", "Insel", "Reise", "Nacht", "Grenze", "Brücke", "Erbin", "Quelle",
+			"Spur", "Zeit", "Küste", "Mühle", "Kammer", "Wahrheit", "Stimme" };
+	private static final String[] STRASSEN = { "Bahnhofstrasse", "Hauptstrasse", "Dorfstrasse", "Kirchweg",
+			"Schulstrasse", "Zürcherstrasse", "Bernstrasse", "Seestrasse", "Gartenstrasse", "Industriestrasse" };
+
+	private final HttpProtocolBuilder httpProtocol = http.baseUrl(BASE_URL)
+			.acceptHeader("application/json")
+			.contentTypeHeader("application/json");
+
+	private final Iterator<Map<String, Object>> zufall = Stream.generate(BibliothekSimulation::zufall).iterator();
+
+	private final ScenarioBuilder katalog = scenario("Katalog").feed(zufall)
+			.exec(http("GET /medium/{id}").get("/medium/#{mediumId}").check(status().is(200)))
+			.exec(http("GET /medium/{id}/empfehlungen").get("/medium/#{mediumId}/empfehlungen").check(status().is(200)))
+			.pause(Duration.ofMillis(200), Duration.ofMillis(1000))
+			.exec(http("GET /medium/titel/{titel}").get("/medium/titel/#{titel}").check(status().is(200)))
+			.pause(Duration.ofMillis(200), Duration.ofMillis(1000))
+			.exec(http("GET /ausleihe/{id}").get("/ausleihe/#{mediumId}").check(status().is(200)));
+
+	// 409 ist kein Fehler, das Medium ist bereits ausgeliehen. Die Rückgabe hält die Anzahl Ausleihen konstant.
+	private final ScenarioBuilder ausleihe = scenario("Ausleihe").feed(zufall)
+			.exec(http("POST /ausleihe").post("/ausleihe")
+					.body(StringBody("{\"kunde\":{\"id\":#{kundeId}},\"medium\":{\"id\":#{mediumId}}}"))
+					.check(status().in(200, 409).saveAs("status")))
+			.pause(Duration.ofMillis(500), Duration.ofMillis(2000))
+			.doIf(session -> session.getInt("status") == 200).then(
+					exec(http("DELETE /ausleihe/{id}").delete("/ausleihe/#{mediumId}").check(status().is(200))));
+
+	private final ScenarioBuilder kunden = scenario("Kunden").feed(zufall)
+			.exec(http("GET /kunde/{id}").get("/kunde/#{kundeId}").check(status().is(200)))
+			.pause(Duration.ofSeconds(1), Duration.ofSeconds(3))
+			.exec(http("PUT /kunde/{id}").put("/kunde/#{kundeId}")
+					.body(StringBody("{\"email\":\"lasttest.#{kundeId}@example.ch\"}"))
+					.check(status().is(200)));
+
+	private final ScenarioBuilder adressen = scenario("Adressen").feed(zufall)
+			.foreach("#{eingaben}", "eingabe").on(
+					exec(http("GET /adresse/strasse/{adresse}").get("/adresse/strasse/#{eingabe}").check(status().is(200)))
+							.pause(Duration.ofMillis(150), Duration.ofMillis(400)));
+
+	{
+		setUp(
+				katalog.injectOpen(rampUsersPerSec(1).to(KATALOG_PRO_SEKUNDE).during(ANLAUF),
+						constantUsersPerSec(KATALOG_PRO_SEKUNDE).during(DAUER)),
+				ausleihe.injectOpen(stoesse()),
+				kunden.injectOpen(constantUsersPerSec(KUNDEN_PRO_SEKUNDE).during(ANLAUF.plus(DAUER))),
+				adressen.injectOpen(constantUsersPerSec(ADRESSEN_PRO_SEKUNDE).during(ANLAUF.plus(DAUER))))
+				.protocols(httpProtocol)
+				.assertions(
+						forAll().responseTime().percentile(95.0).lt(SLO_P95),
+						forAll().responseTime().percentile(99.0).lt(SLO_P99),
+						forAll().failedRequests().percent().lte(SLO_FEHLER),
+						global().failedRequests().percent().lte(SLO_FEHLER));
+	}
+
+	/**
+	 * Ausleihen in Stössen: nach dem Anlauf alle {@code stoss.abstand} Sekunden {@code stoss.ausleihen} Kunden
+	 * innerhalb von fünf Sekunden
+	 */
+	private static List<OpenInjectionStep> stoesse() {
+		var schritte = new ArrayList<OpenInjectionStep>();
+		schritte.add(nothingFor(ANLAUF));
+		for (var zeit = Duration.ZERO; zeit.compareTo(DAUER) < 0; zeit = zeit.plus(AUSLEIHE_ABSTAND)) {
+			schritte.add(stressPeakUsers(AUSLEIHE_STOSS).during(Duration.ofSeconds(5)));
+			schritte.add(nothingFor(AUSLEIHE_ABSTAND.minusSeconds(5)));
+		}
+		return schritte;
+	}
+
+	/**
+	 * Zufällige Werte für eine virtuelle Person. Kleine Ids werden häufiger gewählt, damit es wie im Betrieb
+	 * beliebte Medien und aktive Kunden gibt.
+	 */
+	private static Map<String, Object> zufall() {
+		var random = ThreadLocalRandom.current();
+		var strasse = STRASSEN[random.nextInt(STRASSEN.length)];
+		var adresse = strasse + " " + random.nextInt(1, 200);
+		var eingaben = new ArrayList<String>();
+		for (int laenge = 4; laenge < adresse.length(); laenge += 4) {
+			eingaben.add(adresse.substring(0, laenge));
+		}
+		eingaben.add(adresse);
+		return Map.of(
+				"mediumId", beliebt(random, MEDIEN),
+				"kundeId", beliebt(random, KUNDEN),
+				"titel", ADJEKTIVE[random.nextInt(ADJEKTIVE.length)] + " " + NOMEN[random.nextInt(NOMEN.length)] + " "
+						+ random.nextInt(1, 98),
+				"eingaben", eingaben);
+	}
+
+	private static long beliebt(ThreadLocalRandom random, long anzahl) {
+		double zufall = random.nextDouble();
+		return (long) (anzahl * zufall * zufall) + 1;
+	}
+
+}
@@ -0,0 +1,118 @@
+package com.helvetia.m295.libraryserver;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+import com.helvetia.m295.libraryserver.common.Adresse;
+import com.helvetia.m295.libraryserver.common.Ausleihe;
+import com.helvetia.m295.libraryserver.common.AusleiheDto;
+import com.helvetia.m295.libraryserver.common.Kunde;
+import com.helvetia.m295.libraryserver.common.Medium;
+import com.helvetia.m295.libraryserver.common.MediumDto;
+
+/**
+ * Vergleicht die Serialisierung der Listen-Antworten mit Entities und mit DTOs.
+ * Die DTO-Varianten enthalten das Umwandeln der Entities, wie es die Controller machen.
+ * Geschrieben wird direkt in einen Stream, wie bei einer Antwort des Servers.
+ * Mit dem gc-Profiler zeigt {@code gc.alloc.rate.norm} die allozierten Bytes pro Antwort.
+ *
+ * @version 1.0.0
+ * @author Simon Fäs
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class JsonSerialisierungBenchmark {
+
+	@Param({ "20", "1000" })
+	private int anzahl;
+
+	private final OutputStream out = OutputStream.nullOutputStream();
+	private ObjectMapper reflection;
+	private ObjectMapper blackbird;
+	private List<Medium> medien;
+	private List<Ausleihe> ausleihen;
+
+	/**
+	 * Erstellt die Testdaten und die beiden ObjectMapper mit denselben Einstellungen wie Spring Boot
+	 */
+	@Setup
+	public void setup() {
+		reflection = new ObjectMapper().disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+		blackbird = new ObjectMapper().disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+				.registerModule(new BlackbirdModule());
+		medien = new ArrayList<>();
+		ausleihen = new ArrayList<>();
+		var adresse = new Adresse(1L, "Bahnhofstrasse 10", "Zürich", "8001");
+		for (long i = 1; i <= anzahl; i++) {
+			var medium = new Medium(i, "Der Herr der Ringe " + i, "J.R.R Tolkien", "Fantasy", (short) 12,
+					9783608938289L + i, "A" + i);
+			var kunde = new Kunde(i, "Max", "Muster", new Date(0), adresse, "max" + i + "@example.com");
+			var ausleihe = new Ausleihe(i, kunde, medium);
+			medien.add(medium);
+			ausleihen.add(ausleihe);
+		}
+	}
+
+	/**
+	 * Bisherige Antwort: Medium-Entities über Reflection
+	 * @throws IOException Wenn nicht geschrieben werden kann
+	 */
+	@Benchmark
+	public void medienEntity() throws IOException {
+		reflection.writeValue(out, medien);
+	}
+
+	/**
+	 * DTOs ohne Blackbird, um den Anteil der DTOs vom Anteil des Moduls zu trennen
+	 * @throws IOException Wenn nicht geschrieben werden kann
+	 */
+	@Benchmark
+	public void medienDto() throws IOException {
+		reflection.writeValue(out, MediumDto.von(medien));
+	}
+
+	/**
+	 * Neue Antwort: DTOs mit Blackbird
+	 * @throws IOException Wenn nicht geschrieben werden kann
+	 */
+	@Benchmark
+	public void medienDtoBlackbird() throws IOException {
+		blackbird.writeValue(out, MediumDto.von(medien));
+	}
+
+	/**
+	 * Bisherige Antwort: verschachtelte Ausleihe-Entities über Reflection
+	 * @throws IOException Wenn nicht geschrieben werden kann
+	 */
+	@Benchmark
+	public void ausleihenEntity() throws IOException {
+		reflection.writeValue(out, ausleihen);
+	}
+
+	/**
+	 * Neue Antwort: verschachtelte DTOs mit Blackbird
+	 * @throws IOException Wenn nicht geschrieben werden kann
+	 */
+	@Benchmark
+	public void ausleihenDtoBlackbird() throws IOException {
+		blackbird.writeValue(out, AusleiheDto.von(ausleihen));
+	}
+
+}
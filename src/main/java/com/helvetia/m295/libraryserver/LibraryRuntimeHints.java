@@ -0,0 +1,38 @@
+package com.helvetia.m295.libraryserver;
+
+import org.springframework.aot.hint.BindingReflectionHintsRegistrar;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+
+import com.helvetia.m295.libraryserver.common.Adresse;
+import com.helvetia.m295.libraryserver.common.Ausleihe;
+import com.helvetia.m295.libraryserver.common.Kunde;
+import com.helvetia.m295.libraryserver.common.Medium;
+
+/**
+ * Klasse mit den Reachability-Metadaten für das Native Image.
+ * Die JPA-Repositories werden von Spring Data AOT registriert, hier werden zusätzlich die Entities
+ * für Hibernate und die Jackson-Serialisierung registriert.
+ *
+ * @version 1.0.0
+ * @author Simon Fäs
+ */
+public class LibraryRuntimeHints implements RuntimeHintsRegistrar {
+
+	private static final Class<?>[] ENTITIES = { Adresse.class, Ausleihe.class, Kunde.class, Medium.class };
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+		var bindingHints = new BindingReflectionHintsRegistrar();
+		for (Class<?> entity : ENTITIES) {
+			hints.reflection().registerType(entity, MemberCategory.DECLARED_FIELDS,
+					MemberCategory.INVOKE_DECLARED_CONSTRUCTORS, MemberCategory.INVOKE_PUBLIC_METHODS);
+			bindingHints.registerReflectionHints(hints.reflection(), entity);
+		}
+	}
+
+}
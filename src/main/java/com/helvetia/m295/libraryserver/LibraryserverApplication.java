@@ -2,6 +2,7 @@ package com.helvetia.m295.libraryserver;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.context.annotation.ImportRuntimeHints;
 
 /**
  * Klasse mit Einstiegsmethode main
@@ -10,6 +11,7 @@ import org.springframework.boot.autoconfigure.SpringBootApplication;
  * @author Simon Fäs
  */
 @SpringBootApplication
+@ImportRuntimeHints(LibraryRuntimeHints.class)
 public class LibraryserverApplication {
 
 	/**
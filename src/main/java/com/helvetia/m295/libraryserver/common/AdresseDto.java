@@ -0,0 +1,51 @@
+package com.helvetia.m295.libraryserver.common;
+
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonInclude.Include;
+import com.helvetia.m295.libraryserver.service.AdresseController;
+
+/**
+ * Antwort mit den Daten einer {@link Adresse}. Liefert dasselbe JSON wie die Entity.
+ * <strong>Attribute:</strong>
+ * <ul>
+ * <li>{@link #id}: Eindeutiges Attribut der Adresse</li>
+ * <li>{@link #adresse}: Strasse und Hausnummer</li>
+ * <li>{@link #ort}: Ort</li>
+ * <li>{@link #zip}: Postleitzahl</li>
+ * </ul>
+ *
+ * @version 1.0.0
+ * @author Simon Fäs
+ * @see AdresseController
+ */
+@JsonInclude(Include.NON_NULL)
+public record AdresseDto(Long id, String adresse, String ort, String zip) {
+
+	/**
+	 * Erstellt die Antwort zu einer Adresse
+	 * @param adresse Adresse oder null
+	 * @return Antwort mit den Daten der Adresse oder null
+	 */
+	public static AdresseDto von(Adresse adresse) {
+		if (adresse == null) {
+			return null;
+		}
+		return new AdresseDto(adresse.getId(), adresse.getAdresse(), adresse.getOrt(), adresse.getZip());
+	}
+
+	/**
+	 * Erstellt die Antworten zu einer Liste von Adressen
+	 * @param adressen Adressen
+	 * @return Antworten in derselben Reihenfolge
+	 */
+	public static List<AdresseDto> von(List<Adresse> adressen) {
+		var dtos = new AdresseDto[adressen.size()];
+		for (int i = 0; i < dtos.length; i++) {
+			dtos[i] = von(adressen.get(i));
+		}
+		return List.of(dtos);
+	}
+
+}
@@ -67,6 +67,18 @@ public class Ausleihe {
 		this.kunde = kunde;
 		this.medium = medium;
 	}
+	
+	/**
+	 * Copy-Constructor, um den Zustand einer Ausleihe vor einer Änderung festzuhalten
+	 * @param other Zu kopierende Ausleihe
+	 */
+	public Ausleihe(Ausleihe other) {
+		this.id = other.id;
+		this.ausleihedatum = other.ausleihedatum;
+		this.ausleihedauer = other.ausleihedauer;
+		this.kunde = other.kunde;
+		this.medium = other.medium;
+	}
 
 	public Long getId() {
 		return id;
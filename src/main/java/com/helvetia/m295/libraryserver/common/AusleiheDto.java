@@ -0,0 +1,52 @@
+package com.helvetia.m295.libraryserver.common;
+
+import java.util.Date;
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonInclude.Include;
+import com.helvetia.m295.libraryserver.service.AusleiheController;
+
+/**
+ * Antwort mit den Daten einer {@link Ausleihe}. Liefert dasselbe JSON wie die Entity.
+ * <strong>Attribute:</strong>
+ * <ul>
+ * <li>{@link #id}: Eindeutiges Attribut der Ausleihe</li>
+ * <li>{@link #ausleihedatum}: Erstellungsdatum der Ausleihe</li>
+ * <li>{@link #ausleihedauer}: Dauer bis die Ausleihe abläuft</li>
+ * <li>{@link #kunde}: Kunde, der die Ausleihe betrifft</li>
+ * <li>{@link #medium}: Medium, das die Ausleihe betrifft</li>
+ * </ul>
+ *
+ * @version 1.0.0
+ * @author Simon Fäs
+ * @see AusleiheController
+ */
+@JsonInclude(Include.NON_NULL)
+public record AusleiheDto(Long id, Date ausleihedatum, Long ausleihedauer, KundeDto kunde, MediumDto medium) {
+
+	/**
+	 * Erstellt die Antwort zu einer Ausleihe
+	 * @param ausleihe Ausleihe
+	 * @return Antwort mit den Daten der Ausleihe
+	 */
+	public static AusleiheDto von(Ausleihe ausleihe) {
+		var medium = ausleihe.getMedium();
+		return new AusleiheDto(ausleihe.getId(), ausleihe.getAusleihedatum(), ausleihe.getAusleihedauer(),
+				KundeDto.von(ausleihe.getKunde()), medium == null ? null : MediumDto.von(medium));
+	}
+
+	/**
+	 * Erstellt die Antworten zu einer Liste von Ausleihen
+	 * @param ausleihen Ausleihen
+	 * @return Antworten in derselben Reihenfolge
+	 */
+	public static List<AusleiheDto> von(List<Ausleihe> ausleihen) {
+		var dtos = new AusleiheDto[ausleihen.size()];
+		for (int i = 0; i < dtos.length; i++) {
+			dtos[i] = von(ausleihen.get(i));
+		}
+		return List.of(dtos);
+	}
+
+}
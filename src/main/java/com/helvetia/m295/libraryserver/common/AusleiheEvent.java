@@ -0,0 +1,37 @@
+package com.helvetia.m295.libraryserver.common;
+
+import com.helvetia.m295.libraryserver.service.AusleiheController;
+
+/**
+ * Event, das nach jeder Änderung einer Ausleihe publiziert wird.
+ * <strong>Attribute:</strong>
+ * <ul>
+ * <li>{@link #vorher}: Zustand vor der Änderung, null wenn neu erstellt</li>
+ * <li>{@link #nachher}: Zustand nach der Änderung, null wenn gelöscht</li>
+ * </ul>
+ *
+ * @version 1.0.0
+ * @author Simon Fäs
+ * @see AusleiheController
+ */
+public record AusleiheEvent(Ausleihe vorher, Ausleihe nachher) {
+
+	/**
+	 * Event für ein neu erstelltes Objekt
+	 * @param ausleihe Erstelltes Objekt
+	 * @return Event ohne Zustand vorher
+	 */
+	public static AusleiheEvent erstellt(Ausleihe ausleihe) {
+		return new AusleiheEvent(null, ausleihe);
+	}
+
+	/**
+	 * Event für ein gelöschtes Objekt
+	 * @param ausleihe Gelöschtes Objekt
+	 * @return Event ohne Zustand nachher
+	 */
+	public static AusleiheEvent geloescht(Ausleihe ausleihe) {
+		return new AusleiheEvent(ausleihe, null);
+	}
+
+}
@@ -0,0 +1,26 @@
+package com.helvetia.m295.libraryserver.common;
+
+import com.helvetia.m295.libraryserver.model.AusleiheRepository;
+
+/**
+ * Resultat der Zählabfrage {@link AusleiheRepository#findZaehlerByKundeId}.
+ * <strong>Attribute:</strong>
+ * <ul>
+ * <li>{@link #aktiv}: Anzahl laufender Ausleihen</li>
+ * <li>{@link #ueberfaellig}: Anzahl überfälliger Ausleihen</li>
+ * </ul>
+ *
+ * @version 1.0.0
+ * @author Simon Fäs
+ */
+public record AusleiheZaehler(Long aktiv, Long ueberfaellig) {
+
+	/**
+	 * Constructor, der fehlende Summen als 0 interpretiert. SUM liefert null, wenn es keine Ausleihen gibt.
+	 */
+	public AusleiheZaehler {
+		aktiv = aktiv == null ? 0L : aktiv;
+		ueberfaellig = ueberfaellig == null ? 0L : ueberfaellig;
+	}
+
+}
@@ -0,0 +1,23 @@
+package com.helvetia.m295.libraryserver.common;
+
+import com.helvetia.m295.libraryserver.service.EmpfehlungController;
+import com.helvetia.m295.libraryserver.service.EmpfehlungsIndex;
+
+/**
+ * Medium, das von Kunden zusammen mit einem anderen {@link Medium} ausgeliehen wurde.
+ * <strong>Attribute:</strong>
+ * <ul>
+ * <li>{@link #id}: Eindeutiges Attribut des Mediums</li>
+ * <li>{@link #titel}: Titel des Mediums</li>
+ * <li>{@link #autor}: Autor des Mediums</li>
+ * <li>{@link #kunden}: Anzahl Kunden, die beide Medien ausgeliehen haben, höher ist besser</li>
+ * </ul>
+ *
+ * @version 1.0.0
+ * @author Simon Fäs
+ * @see EmpfehlungController#getEmpfehlungen(Long, int)
+ * @see EmpfehlungsIndex
+ */
+public record Empfehlung(Long id, String titel, String autor, int kunden) {
+
+}
@@ -0,0 +1,50 @@
+package com.helvetia.m295.libraryserver.common;
+
+import java.util.Date;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonInclude.Include;
+import com.helvetia.m295.libraryserver.service.ExportController;
+
+/**
+ * Zustand eines Katalog-Exports.
+ * <strong>Attribute:</strong>
+ * <ul>
+ * <li>{@link #id}: Eindeutige Id des Exports, wird für den Download verwendet</li>
+ * <li>{@link #status}: Zustand des Exports</li>
+ * <li>{@link #erstellt}: Zeitpunkt, an dem der Export gestartet wurde</li>
+ * <li>{@link #medien}: Anzahl bereits exportierter Medien</li>
+ * <li>{@link #fehler}: Meldung, falls der Export fehlgeschlagen ist</li>
+ * </ul>
+ *
+ * @version 1.0.0
+ * @author Simon Fäs
+ * @see ExportController
+ */
+@JsonInclude(Include.NON_NULL)
+public record ExportJob(String id, Status status, Date erstellt, long medien, String fehler) {
+
+	/**
+	 * Mögliche Zustände eines Exports
+	 */
+	public enum Status {
+		/** Export läuft */
+		LAUFEND,
+		/** Datei kann heruntergeladen werden */
+		FERTIG,
+		/** Export ist fehlgeschlagen */
+		FEHLER
+	}
+
+	/**
+	 * Gibt denselben Export mit neuem Zustand zurück
+	 * @param status Neuer Zustand
+	 * @param medien Anzahl exportierter Medien
+	 * @param fehler Fehlermeldung oder null
+	 * @return Export mit neuem Zustand
+	 */
+	public ExportJob mit(Status status, long medien, String fehler) {
+		return new ExportJob(id, status, erstellt, medien, fehler);
+	}
+
+}
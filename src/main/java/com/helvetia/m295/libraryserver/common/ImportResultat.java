@@ -0,0 +1,19 @@
+package com.helvetia.m295.libraryserver.common;
+
+import java.util.List;
+
+/**
+ * Zusammenfassung eines Massenimports. Wird nach dem Import auch als Event publiziert.
+ * <strong>Attribute:</strong>
+ * <ul>
+ * <li>{@link #eingefuegt}: Anzahl neu erfasster Elemente</li>
+ * <li>{@link #aktualisiert}: Anzahl aktualisierter Elemente</li>
+ * <li>{@link #abgelehnt}: Anzahl ungültiger Elemente, die nicht gespeichert wurden</li>
+ * <li>{@link #fehler}: Meldungen zu den ersten abgelehnten Elementen</li>
+ * </ul>
+ *
+ * @version 1.0.0
+ * @author Simon Fäs
+ */
+public record ImportResultat(long eingefuegt, long aktualisiert, long abgelehnt, List<String> fehler) {
+}
@@ -0,0 +1,28 @@
+package com.helvetia.m295.libraryserver.common;
+
+import com.helvetia.m295.libraryserver.service.InvalidierungsBus;
+
+/**
+ * Meldung einer anderen Instanz, dass ein Objekt geändert wurde und lokale Caches es verwerfen müssen.
+ * Wird vom {@link InvalidierungsBus} als Event publiziert.
+ * <strong>Attribute:</strong>
+ * <ul>
+ * <li>{@link #typ}: Art des geänderten Objekts</li>
+ * <li>{@link #id}: Id des geänderten Objekts, null wenn alle Objekte dieser Art betroffen sind. Bei Ausleihen und
+ * Reservierungen ist es die Id des Mediums.</li>
+ * </ul>
+ *
+ * @version 1.0.0
+ * @author Simon Fäs
+ * @see InvalidierungsBus
+ */
+public record Invalidierung(Typ typ, Long id) {
+
+	/**
+	 * Art des geänderten Objekts
+	 */
+	public enum Typ {
+		MEDIUM, KUNDE, ADRESSE, AUSLEIHE, RESERVIERUNG
+	}
+
+}
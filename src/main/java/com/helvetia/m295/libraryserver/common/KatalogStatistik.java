@@ -0,0 +1,23 @@
+package com.helvetia.m295.libraryserver.common;
+
+import java.util.Map;
+
+import com.helvetia.m295.libraryserver.service.StatistikController;
+
+/**
+ * Kennzahlen des Katalogs für die Management-Dashboards.
+ * <strong>Attribute:</strong>
+ * <ul>
+ * <li>{@link #medienProGenre}: Anzahl Medien pro Genre</li>
+ * <li>{@link #medienProAltersfreigabe}: Anzahl Medien pro Altersfreigabe</li>
+ * <li>{@link #ausleihenProGenre}: Anzahl laufender Ausleihen pro Genre</li>
+ * <li>{@link #kundenProZip}: Anzahl Kunden pro ZIP-Code</li>
+ * </ul>
+ *
+ * @version 1.0.0
+ * @author Simon Fäs
+ * @see StatistikController
+ */
+public record KatalogStatistik(Map<String, Long> medienProGenre, Map<String, Long> medienProAltersfreigabe,
+		Map<String, Long> ausleihenProGenre, Map<String, Long> kundenProZip) {
+}
@@ -70,6 +70,14 @@ public class Kunde {
 		this.adresse = adresse;
 		this.email = email;
 	}
+	
+	/**
+	 * Copy-Constructor, um den Zustand eines Kunden vor einer Änderung festzuhalten
+	 * @param other Zu kopierender Kunde
+	 */
+	public Kunde(Kunde other) {
+		this(other.id, other.vorname, other.nachname, other.geburtstag, other.adresse, other.email);
+	}
 
 	public Long getId() {
 		return id;
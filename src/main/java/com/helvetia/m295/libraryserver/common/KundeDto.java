@@ -0,0 +1,55 @@
+package com.helvetia.m295.libraryserver.common;
+
+import java.util.Date;
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonInclude.Include;
+import com.helvetia.m295.libraryserver.service.KundeController;
+
+/**
+ * Antwort mit den Daten eines {@link Kunde}n. Liefert dasselbe JSON wie die Entity.
+ * <strong>Attribute:</strong>
+ * <ul>
+ * <li>{@link #id}: Eindeutiges Attribut des Kunden</li>
+ * <li>{@link #vorname}: Vorname des Kunden</li>
+ * <li>{@link #nachname}: Nachname des Kunden</li>
+ * <li>{@link #geburtstag}: Geburtstag des Kunden</li>
+ * <li>{@link #adresse}: Adresse des Kunden</li>
+ * <li>{@link #email}: Email des Kunden</li>
+ * </ul>
+ *
+ * @version 1.0.0
+ * @author Simon Fäs
+ * @see KundeController
+ */
+@JsonInclude(Include.NON_NULL)
+public record KundeDto(Long id, String vorname, String nachname, Date geburtstag, AdresseDto adresse, String email) {
+
+	/**
+	 * Erstellt die Antwort zu einem Kunden
+	 * @param kunde Kunde oder null
+	 * @return Antwort mit den Daten des Kunden oder null
+	 */
+	public static KundeDto von(Kunde kunde) {
+		if (kunde == null) {
+			return null;
+		}
+		return new KundeDto(kunde.getId(), kunde.getVorname(), kunde.getNachname(), kunde.getGeburtstag(),
+				AdresseDto.von(kunde.getAdresse()), kunde.getEmail());
+	}
+
+	/**
+	 * Erstellt die Antworten zu einer Liste von Kunden
+	 * @param kunden Kunden
+	 * @return Antworten in derselben Reihenfolge
+	 */
+	public static List<KundeDto> von(List<Kunde> kunden) {
+		var dtos = new KundeDto[kunden.size()];
+		for (int i = 0; i < dtos.length; i++) {
+			dtos[i] = von(kunden.get(i));
+		}
+		return List.of(dtos);
+	}
+
+}
@@ -0,0 +1,37 @@
+package com.helvetia.m295.libraryserver.common;
+
+import com.helvetia.m295.libraryserver.service.KundeController;
+
+/**
+ * Event, das nach jeder Änderung eines Kunden publiziert wird.
+ * <strong>Attribute:</strong>
+ * <ul>
+ * <li>{@link #vorher}: Zustand vor der Änderung, null wenn neu erstellt</li>
+ * <li>{@link #nachher}: Zustand nach der Änderung, null wenn gelöscht</li>
+ * </ul>
+ *
+ * @version 1.0.0
+ * @author Simon Fäs
+ * @see KundeController
+ */
+public record KundeEvent(Kunde vorher, Kunde nachher) {
+
+	/**
+	 * Event für ein neu erstelltes Objekt
+	 * @param kunde Erstelltes Objekt
+	 * @return Event ohne Zustand vorher
+	 */
+	public static KundeEvent erstellt(Kunde kunde) {
+		return new KundeEvent(null, kunde);
+	}
+
+	/**
+	 * Event für ein gelöschtes Objekt
+	 * @param kunde Gelöschtes Objekt
+	 * @return Event ohne Zustand nachher
+	 */
+	public static KundeEvent geloescht(Kunde kunde) {
+		return new KundeEvent(kunde, null);
+	}
+
+}
@@ -0,0 +1,23 @@
+package com.helvetia.m295.libraryserver.common;
+
+import com.helvetia.m295.libraryserver.service.KundeController;
+import com.helvetia.m295.libraryserver.service.KundenSuchindex;
+
+/**
+ * Treffer der Namenssuche nach {@link Kunde}n.
+ * <strong>Attribute:</strong>
+ * <ul>
+ * <li>{@link #id}: Eindeutiges Attribut des Kunden</li>
+ * <li>{@link #vorname}: Vorname des Kunden</li>
+ * <li>{@link #nachname}: Nachname des Kunden</li>
+ * <li>{@link #punkte}: Bewertung des Treffers, höher ist besser</li>
+ * </ul>
+ *
+ * @version 1.0.0
+ * @author Simon Fäs
+ * @see KundeController#searchKunden(String, int)
+ * @see KundenSuchindex
+ */
+public record KundeTreffer(Long id, String vorname, String nachname, int punkte) {
+
+}
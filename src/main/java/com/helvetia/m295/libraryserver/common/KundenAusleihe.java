@@ -0,0 +1,42 @@
+package com.helvetia.m295.libraryserver.common;
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonInclude.Include;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.helvetia.m295.libraryserver.model.AusleiheRepository;
+
+/**
+ * Projektion einer Ausleihe für die Ausleihübersicht eines Kunden.
+ * Wird direkt in der Abfrage {@link AusleiheRepository#findUebersichtByKundeId} erstellt.
+ * <strong>Attribute:</strong>
+ * <ul>
+ * <li>{@link #ausleiheId}: Id der Ausleihe</li>
+ * <li>{@link #mediumId}: Id des ausgeliehenen Mediums</li>
+ * <li>{@link #titel}: Titel des ausgeliehenen Mediums</li>
+ * <li>{@link #ausleihedatum}: Erstellungsdatum der Ausleihe</li>
+ * <li>{@link #ausleihedauer}: Dauer der Ausleihe in Tagen</li>
+ * </ul>
+ *
+ * @version 1.0.0
+ * @author Simon Fäs
+ * @see KundenAusleihen
+ */
+@JsonInclude(Include.NON_NULL)
+public record KundenAusleihe(Long ausleiheId, Long mediumId, String titel, Date ausleihedatum, Long ausleihedauer) {
+
+	/**
+	 * Berechnet das Datum, an dem die Ausleihe abläuft
+	 * @return Fälligkeitsdatum oder null, wenn Ausleihedatum oder -dauer fehlen
+	 */
+	@JsonProperty("faelligAm")
+	public Date faelligAm() {
+		if (ausleihedatum == null || ausleihedauer == null) {
+			return null;
+		}
+		return new Date(ausleihedatum.getTime() + TimeUnit.DAYS.toMillis(ausleihedauer));
+	}
+
+}
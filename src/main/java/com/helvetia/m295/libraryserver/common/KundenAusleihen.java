@@ -0,0 +1,25 @@
+package com.helvetia.m295.libraryserver.common;
+
+import java.util.List;
+
+import com.helvetia.m295.libraryserver.service.KundeController;
+
+/**
+ * Ausleihübersicht eines Kunden, wie sie von {@link KundeController#getAusleihenByKunde} zurückgegeben wird.
+ * <strong>Attribute:</strong>
+ * <ul>
+ * <li>{@link #kundeId}: Id des Kunden</li>
+ * <li>{@link #aktiv}: Anzahl aller laufenden Ausleihen des Kunden</li>
+ * <li>{@link #ueberfaellig}: Anzahl der Ausleihen, deren Dauer abgelaufen ist</li>
+ * <li>{@link #seite}: Nummer der zurückgegebenen Seite, beginnend bei 0</li>
+ * <li>{@link #groesse}: Maximale Anzahl Ausleihen pro Seite</li>
+ * <li>{@link #ausleihen}: Ausleihen auf dieser Seite</li>
+ * </ul>
+ *
+ * @version 1.0.0
+ * @author Simon Fäs
+ * @see KundenAusleihe
+ */
+public record KundenAusleihen(Long kundeId, long aktiv, long ueberfaellig, int seite, int groesse,
+		List<KundenAusleihe> ausleihen) {
+}
@@ -69,6 +69,14 @@ public class Medium {
 		this.isbn = isbn;
 		this.standortcode = standortcode;
 	}
+	
+	/**
+	 * Copy-Constructor, um den Zustand eines Mediums vor einer Änderung festzuhalten
+	 * @param other Zu kopierendes Medium
+	 */
+	public Medium(Medium other) {
+		this(other.id, other.titel, other.autor, other.genre, other.altersfreigabe, other.isbn, other.standortcode);
+	}
 
 	public Long getId() {
 		return id;
@@ -0,0 +1,64 @@
+package com.helvetia.m295.libraryserver.common;
+
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonInclude.Include;
+import com.helvetia.m295.libraryserver.service.MediumController;
+
+/**
+ * Antwort mit den Daten eines {@link Medium}s. Liefert dasselbe JSON wie die Entity, ist aber unveränderlich
+ * und hat keine Verbindung zu Hibernate, womit Jackson beim Serialisieren keine Proxies und Setter prüfen muss.
+ * <strong>Attribute:</strong>
+ * <ul>
+ * <li>{@link #id}: Eindeutiges Attribut des Mediums</li>
+ * <li>{@link #titel}: Titel des Mediums</li>
+ * <li>{@link #autor}: Autor des Mediums</li>
+ * <li>{@link #genre}: Genre des Mediums</li>
+ * <li>{@link #altersfreigabe}: Altersfreigabe des Mediums</li>
+ * <li>{@link #isbn}: ISBN des Mediums</li>
+ * <li>{@link #standortcode}: Standort des Mediums in der Bibliothek</li>
+ * <li>{@link #ausgeliehen}: Ob das Medium laut dem Index der Instanz ausgeliehen ist, nur in Katalogabfragen</li>
+ * </ul>
+ *
+ * @version 1.0.0
+ * @author Simon Fäs
+ * @see MediumController
+ */
+@JsonInclude(Include.NON_NULL)
+public record MediumDto(Long id, String titel, String autor, String genre, Short altersfreigabe, Long isbn,
+		String standortcode, Boolean ausgeliehen) {
+
+	/**
+	 * Erstellt die Antwort zu einem Medium
+	 * @param medium Medium
+	 * @return Antwort mit den Daten des Mediums
+	 */
+	public static MediumDto von(Medium medium) {
+		return new MediumDto(medium.getId(), medium.getTitel(), medium.getAutor(), medium.getGenre(),
+				medium.getAltersfreigabe(), medium.getIsbn(), medium.getStandortcode(), null);
+	}
+
+	/**
+	 * Erstellt eine Kopie mit dem Ausleihestatus
+	 * @param ausgeliehen Ob das Medium ausgeliehen ist
+	 * @return Antwort mit den Daten des Mediums und dem Ausleihestatus
+	 */
+	public MediumDto mitAusgeliehen(boolean ausgeliehen) {
+		return new MediumDto(id, titel, autor, genre, altersfreigabe, isbn, standortcode, ausgeliehen);
+	}
+
+	/**
+	 * Erstellt die Antworten zu einer Liste von Medien
+	 * @param medien Medien
+	 * @return Antworten in derselben Reihenfolge
+	 */
+	public static List<MediumDto> von(List<Medium> medien) {
+		var dtos = new MediumDto[medien.size()];
+		for (int i = 0; i < dtos.length; i++) {
+			dtos[i] = von(medien.get(i));
+		}
+		return List.of(dtos);
+	}
+
+}
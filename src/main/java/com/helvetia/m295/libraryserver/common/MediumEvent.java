@@ -0,0 +1,37 @@
+package com.helvetia.m295.libraryserver.common;
+
+import com.helvetia.m295.libraryserver.service.MediumController;
+
+/**
+ * Event, das nach jeder Änderung eines Mediums publiziert wird.
+ * <strong>Attribute:</strong>
+ * <ul>
+ * <li>{@link #vorher}: Zustand vor der Änderung, null wenn neu erstellt</li>
+ * <li>{@link #nachher}: Zustand nach der Änderung, null wenn gelöscht</li>
+ * </ul>
+ *
+ * @version 1.0.0
+ * @author Simon Fäs
+ * @see MediumController
+ */
+public record MediumEvent(Medium vorher, Medium nachher) {
+
+	/**
+	 * Event für ein neu erstelltes Objekt
+	 * @param medium Erstelltes Objekt
+	 * @return Event ohne Zustand vorher
+	 */
+	public static MediumEvent erstellt(Medium medium) {
+		return new MediumEvent(null, medium);
+	}
+
+	/**
+	 * Event für ein gelöschtes Objekt
+	 * @param medium Gelöschtes Objekt
+	 * @return Event ohne Zustand nachher
+	 */
+	public static MediumEvent geloescht(Medium medium) {
+		return new MediumEvent(medium, null);
+	}
+
+}
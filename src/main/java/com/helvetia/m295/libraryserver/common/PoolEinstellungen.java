@@ -0,0 +1,24 @@
+package com.helvetia.m295.libraryserver.common;
+
+import com.helvetia.m295.libraryserver.service.PoolController;
+
+/**
+ * Änderung der Einstellungen eines Verbindungspools zur Laufzeit. Nicht gesendete Attribute bleiben unverändert.
+ * <strong>Attribute:</strong>
+ * <ul>
+ * <li>{@link #maximumPoolSize}: Maximale Anzahl Verbindungen</li>
+ * <li>{@link #minimumIdle}: Minimale Anzahl unbenutzter Verbindungen</li>
+ * <li>{@link #connectionTimeout}: Maximale Wartezeit auf eine Verbindung in Millisekunden</li>
+ * <li>{@link #idleTimeout}: Zeit in Millisekunden, nach der unbenutzte Verbindungen geschlossen werden</li>
+ * <li>{@link #maxLifetime}: Maximale Lebensdauer einer Verbindung in Millisekunden</li>
+ * <li>{@link #leckSchwelle}: Zeit in Millisekunden, nach der eine gehaltene Verbindung als Leck gemeldet wird</li>
+ * </ul>
+ *
+ * @version 1.0.0
+ * @author Simon Fäs
+ * @see PoolController
+ */
+public record PoolEinstellungen(Integer maximumPoolSize, Integer minimumIdle, Long connectionTimeout,
+		Long idleTimeout, Long maxLifetime, Long leckSchwelle) {
+
+}
@@ -0,0 +1,24 @@
+package com.helvetia.m295.libraryserver.common;
+
+import java.util.Date;
+
+import com.helvetia.m295.libraryserver.service.PoolMetriken;
+
+/**
+ * Verbindung, die länger als erlaubt aus einem Pool bezogen war.
+ * <strong>Attribute:</strong>
+ * <ul>
+ * <li>{@link #pool}: Name des Verbindungspools</li>
+ * <li>{@link #handler}: Controller-Methode, welche die Verbindung bezogen hat, sonst der Name des Threads</li>
+ * <li>{@link #seit}: Zeitpunkt, an dem die Verbindung bezogen wurde</li>
+ * <li>{@link #gehaltenMillis}: Dauer, während der die Verbindung bei der Meldung gehalten wurde</li>
+ * <li>{@link #freigegeben}: true, wenn die Verbindung bei der Meldung bereits zurückgegeben war</li>
+ * </ul>
+ *
+ * @version 1.0.0
+ * @author Simon Fäs
+ * @see PoolMetriken
+ */
+public record PoolLeck(String pool, String handler, Date seit, long gehaltenMillis, boolean freigegeben) {
+
+}
@@ -0,0 +1,31 @@
+package com.helvetia.m295.libraryserver.common;
+
+import java.util.List;
+import java.util.Map;
+
+import com.helvetia.m295.libraryserver.service.PoolController;
+
+/**
+ * Zustand und Einstellungen eines Verbindungspools.
+ * <strong>Attribute:</strong>
+ * <ul>
+ * <li>{@link #pool}: Name des Verbindungspools</li>
+ * <li>{@link #aktiv}: Anzahl bezogener Verbindungen</li>
+ * <li>{@link #idle}: Anzahl unbenutzter Verbindungen</li>
+ * <li>{@link #total}: Anzahl offener Verbindungen</li>
+ * <li>{@link #wartend}: Anzahl Threads, die auf eine Verbindung warten</li>
+ * <li>{@link #bezuege}: Anzahl bezogener Verbindungen seit dem Start</li>
+ * <li>{@link #timeouts}: Anzahl Bezüge, die wegen {@code connectionTimeout} abgebrochen wurden</li>
+ * <li>{@link #wartezeitMillis}: Histogramm der Wartezeit auf eine Verbindung, obere Grenze in Millisekunden auf Anzahl</li>
+ * <li>{@link #einstellungen}: Aktuelle Einstellungen des Pools</li>
+ * <li>{@link #lecks}: Zuletzt gemeldete Verbindungen, die zu lange gehalten wurden</li>
+ * </ul>
+ *
+ * @version 1.0.0
+ * @author Simon Fäs
+ * @see PoolController
+ */
+public record PoolStatistik(String pool, int aktiv, int idle, int total, int wartend, long bezuege, long timeouts,
+		Map<String, Long> wartezeitMillis, PoolEinstellungen einstellungen, List<PoolLeck> lecks) {
+
+}
@@ -0,0 +1,98 @@
+package com.helvetia.m295.libraryserver.common;
+
+import java.util.Date;
+
+import org.hibernate.annotations.DynamicInsert;
+import org.hibernate.annotations.DynamicUpdate;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonInclude.Include;
+import com.helvetia.m295.libraryserver.model.ReservierungRepository;
+import com.helvetia.m295.libraryserver.service.ReservierungController;
+
+import jakarta.persistence.*;
+
+/**
+ * Klasse für die DB-Entity Reservierung. Ein Kunde wartet auf ein ausgeliehenes Medium.
+ * Die Reihenfolge der Warteschlange ergibt sich aus der Id.
+ * <strong>Attribute:</strong>
+ * <ul>
+ * <li>{@link #id}: Eindeutiges Attribut der Reservierung</li>
+ * <li>{@link #erstellt}: Zeitpunkt, an dem sich der Kunde angemeldet hat</li>
+ * <li>{@link #kunde}: Kunde, der auf das Medium wartet</li>
+ * <li>{@link #medium}: Medium, auf das gewartet wird</li>
+ * </ul>
+ * 
+ * @version 1.0.0
+ * @author Simon Fäs
+ * @see ReservierungRepository
+ * @see ReservierungController
+ */
+@Entity
+@DynamicInsert
+@DynamicUpdate
+@JsonInclude(Include.NON_NULL)
+public class Reservierung {
+
+	@Id
+	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	private Long id;
+	private Date erstellt;
+	@ManyToOne
+	@JoinColumn(name = "kundenid", nullable = false)
+	private Kunde kunde;
+	@ManyToOne
+	@JoinColumn(name = "medienid", nullable = false)
+	private Medium medium;
+
+	/**
+	 * Standard constructor
+	 */
+	public Reservierung() {}
+
+	/**
+	 * Constructor mit id, kunde und medium als Parameter
+	 * @param id
+	 * @param kunde
+	 * @param medium
+	 */
+	public Reservierung(Long id, Kunde kunde, Medium medium) {
+		this.id = id;
+		this.erstellt = new Date();
+		this.kunde = kunde;
+		this.medium = medium;
+	}
+
+	public Long getId() {
+		return id;
+	}
+
+	public void setId(Long id) {
+		this.id = id;
+	}
+
+	public Date getErstellt() {
+		return erstellt;
+	}
+
+	public void setErstellt(Date erstellt) {
+		this.erstellt = erstellt;
+	}
+
+	public Kunde getKunde() {
+		return kunde;
+	}
+
+	public void setKunde(Kunde kunde) {
+		this.kunde = kunde;
+	}
+
+	public Medium getMedium() {
+		return medium;
+	}
+
+	public void setMedium(Medium medium) {
+		this.medium = medium;
+	}
+
+}
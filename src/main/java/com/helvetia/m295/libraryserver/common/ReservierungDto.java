@@ -0,0 +1,27 @@
+package com.helvetia.m295.libraryserver.common;
+
+import java.util.Date;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonInclude.Include;
+import com.helvetia.m295.libraryserver.service.ReservierungController;
+
+/**
+ * Antwort mit einer {@link Reservierung} und ihrer Position in der Warteschlange.
+ * <strong>Attribute:</strong>
+ * <ul>
+ * <li>{@link #id}: Eindeutiges Attribut der Reservierung</li>
+ * <li>{@link #mediumId}: Id des Mediums, auf das gewartet wird</li>
+ * <li>{@link #kundeId}: Id des wartenden Kunden</li>
+ * <li>{@link #erstellt}: Zeitpunkt, an dem sich der Kunde angemeldet hat</li>
+ * <li>{@link #position}: Position in der Warteschlange, beginnend bei 1</li>
+ * </ul>
+ *
+ * @version 1.0.0
+ * @author Simon Fäs
+ * @see ReservierungController
+ */
+@JsonInclude(Include.NON_NULL)
+public record ReservierungDto(Long id, Long mediumId, Long kundeId, Date erstellt, int position) {
+
+}
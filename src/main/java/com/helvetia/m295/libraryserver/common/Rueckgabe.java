@@ -0,0 +1,21 @@
+package com.helvetia.m295.libraryserver.common;
+
+import java.util.List;
+
+import com.helvetia.m295.libraryserver.service.Reservierungen;
+
+/**
+ * Resultat der Rückgabe eines Mediums.
+ * <strong>Attribute:</strong>
+ * <ul>
+ * <li>{@link #beendet}: Beendete Ausleihen des Mediums</li>
+ * <li>{@link #weitergegeben}: Neue Ausleihe des ersten wartenden Kunden, null wenn niemand gewartet hat</li>
+ * </ul>
+ *
+ * @version 1.0.0
+ * @author Simon Fäs
+ * @see Reservierungen#gibZurueck(long)
+ */
+public record Rueckgabe(List<Ausleihe> beendet, Ausleihe weitergegeben) {
+
+}
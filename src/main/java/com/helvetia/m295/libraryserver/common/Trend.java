@@ -0,0 +1,24 @@
+package com.helvetia.m295.libraryserver.common;
+
+import com.helvetia.m295.libraryserver.service.TrendController;
+import com.helvetia.m295.libraryserver.service.TrendZaehler;
+
+/**
+ * Häufig ausgeliehenes {@link Medium} im aktuellen Zeitfenster.
+ * <strong>Attribute:</strong>
+ * <ul>
+ * <li>{@link #id}: Eindeutiges Attribut des Mediums</li>
+ * <li>{@link #titel}: Titel des Mediums</li>
+ * <li>{@link #autor}: Autor des Mediums</li>
+ * <li>{@link #ausleihen}: Geschätzte Anzahl Ausleihen im Zeitfenster</li>
+ * <li>{@link #mindestens}: Anzahl Ausleihen, die das Medium sicher hatte</li>
+ * </ul>
+ *
+ * @version 1.0.0
+ * @author Simon Fäs
+ * @see TrendController#getTrending(int)
+ * @see TrendZaehler
+ */
+public record Trend(Long id, String titel, String autor, long ausleihen, long mindestens) {
+
+}
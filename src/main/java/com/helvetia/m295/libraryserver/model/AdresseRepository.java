@@ -5,6 +5,7 @@ import java.util.List;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
 import com.helvetia.m295.libraryserver.common.Adresse;
 import com.helvetia.m295.libraryserver.service.AdresseController;
@@ -19,10 +20,19 @@ import com.helvetia.m295.libraryserver.service.AdresseController;
 public interface AdresseRepository extends JpaRepository<Adresse, Long> {
 	
 	/**
-	 * Methode, um Adressen nach ZIP zu suchen
+	 * Methode, um alle Adressen zu holen. Wird von der Replika gelesen, falls eine konfiguriert ist.
+	 * @return Resultat aus Datenbankabfrage
+	 */
+	@Override
+	@Transactional(readOnly = true)
+	public List<Adresse> findAll();
+	
+	/**
+	 * Methode, um Adressen nach ZIP zu suchen. Wird von der Replika gelesen, falls eine konfiguriert ist.
 	 * @param zip
 	 * @return Resultat aus Datenbankabfrage
 	 */
+	@Transactional(readOnly = true)
 	public List<Adresse> findByZip(String zip);
 
 	/**
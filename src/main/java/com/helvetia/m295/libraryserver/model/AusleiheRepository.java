@@ -1,10 +1,19 @@
 package com.helvetia.m295.libraryserver.model;
 
+import java.util.Collection;
+import java.util.Date;
 import java.util.List;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
 import com.helvetia.m295.libraryserver.common.Ausleihe;
+import com.helvetia.m295.libraryserver.common.AusleiheZaehler;
+import com.helvetia.m295.libraryserver.common.KundenAusleihe;
 import com.helvetia.m295.libraryserver.service.AusleiheController;
 
 /**
@@ -16,17 +25,103 @@ import com.helvetia.m295.libraryserver.service.AusleiheController;
  */
 public interface AusleiheRepository extends JpaRepository<Ausleihe, Long> {
 	
+	/**
+	 * Methode, um alle Ausleihen zu holen. Wird von der Replika gelesen, falls eine konfiguriert ist.
+	 * @return Liste aller Ausleihen
+	 */
+	@Override
+	@Transactional(readOnly = true)
+	public List<Ausleihe> findAll();
+	
 	/**
 	 * Methode, um Ausleihe nach der Medium-ID zu suchen
 	 * @param id
 	 * @return Liste aller Ausleihen mit der gegebenen Medium-Id
 	 */
 	public List<Ausleihe> findByMediumId(Long id);
+
+	/**
+	 * Methode, um zu prüfen, ob ein Kunde laufende Ausleihen hat
+	 * @param kundeId Id des Kunden
+	 * @return true, wenn mindestens eine Ausleihe des Kunden existiert
+	 */
+	public boolean existsByKundeId(Long kundeId);
 	
 	/**
-	 * Methode, um Ausleihe nach der Medium-ID zu löschen
+	 * Methode, um die Ausleihen mehrerer Medien samt Kunde, Adresse und Medium in einer Abfrage zu holen
+	 * @param mediumIds Ids der Medien
+	 * @return Ausleihen der Medien
+	 */
+	@Query("SELECT a FROM Ausleihe a JOIN FETCH a.kunde k JOIN FETCH k.adresse JOIN FETCH a.medium "
+			+ "WHERE a.medium.id IN :mediumIds")
+	public List<Ausleihe> findByMediumIdIn(@Param("mediumIds") Collection<Long> mediumIds);
+
+	/**
+	 * Methode, um Ausleihen ohne vorheriges Laden in einer Anweisung zu löschen
+	 * @param ids Ids der Ausleihen
+	 * @return Anzahl gelöschter Ausleihen
+	 */
+	@Modifying
+	@Transactional
+	@Query("DELETE FROM Ausleihe a WHERE a.id IN :ids")
+	public int removeByIdIn(@Param("ids") Collection<Long> ids);
+
+	/**
+	 * Methode, um die Ausleihen mehrerer Medien zu löschen.
+	 * Unabhängig von der Anzahl Medien werden zwei Anweisungen ausgeführt: eine Abfrage für die Events und ein
+	 * Delete auf die gelesenen Ids. Eine gleichzeitig erstellte Ausleihe wird dadurch nicht ohne Event gelöscht.
+	 * @param mediumIds Ids der Medien
+	 * @return Gelöschte Ausleihen
+	 */
+	@Transactional
+	public default List<Ausleihe> deleteByMediumIdIn(Collection<Long> mediumIds) {
+		var ausleihen = findByMediumIdIn(mediumIds);
+		if (!ausleihen.isEmpty()) {
+			removeByIdIn(ausleihen.stream().map(Ausleihe::getId).toList());
+		}
+		return ausleihen;
+	}
+
+	/**
+	 * Methode, um Ausleihe nach der Medium-ID zu löschen, siehe {@link #deleteByMediumIdIn(Collection)}
 	 * @param id
+	 * @return Gelöschte Ausleihen
+	 */
+	@Transactional
+	public default List<Ausleihe> deleteByMediumId(Long id) {
+		return deleteByMediumIdIn(List.of(id));
+	}
+	
+	/**
+	 * Methode, um die Ausleihen eines Kunden samt Titel des Mediums seitenweise zu holen.
+	 * Medium wird in derselben Abfrage gejoint, die Suche verwendet den Index auf kundenid.
+	 * @param kundeId Id des Kunden
+	 * @param pageable Seite und Seitengrösse
+	 * @return Ausleihen des Kunden, sortiert nach Ausleihedatum
+	 */
+	@Query("SELECT new com.helvetia.m295.libraryserver.common.KundenAusleihe(a.id, m.id, m.titel, a.ausleihedatum, a.ausleihedauer) "
+			+ "FROM Ausleihe a JOIN a.medium m WHERE a.kunde.id = :kundeId ORDER BY a.ausleihedatum, a.id")
+	@Transactional(readOnly = true)
+	public List<KundenAusleihe> findUebersichtByKundeId(@Param("kundeId") Long kundeId, Pageable pageable);
+	
+	/**
+	 * Methode, um die laufenden und die überfälligen Ausleihen eines Kunden in einer Abfrage zu zählen
+	 * @param kundeId Id des Kunden
+	 * @param stichtag Zeitpunkt, ab dem eine Ausleihe als überfällig gilt
+	 * @return Anzahl laufender und überfälliger Ausleihen
+	 */
+	@Query("SELECT new com.helvetia.m295.libraryserver.common.AusleiheZaehler(COUNT(a), "
+			+ "SUM(CASE WHEN timestampadd(day, a.ausleihedauer, a.ausleihedatum) < :stichtag THEN 1L ELSE 0L END)) "
+			+ "FROM Ausleihe a WHERE a.kunde.id = :kundeId")
+	@Transactional(readOnly = true)
+	public AusleiheZaehler findZaehlerByKundeId(@Param("kundeId") Long kundeId, @Param("stichtag") Date stichtag);
+
+	/**
+	 * Methode, um die laufenden Ausleihen pro Genre des Mediums zu zählen
+	 * @return Pro Genre ein Array mit Genre und Anzahl
 	 */
-	public void deleteByMediumId(Long id);
+	@Query("SELECT m.genre, COUNT(a) FROM Ausleihe a JOIN a.medium m GROUP BY m.genre")
+	@Transactional(readOnly = true)
+	public List<Object[]> countGroupByGenre();
 	
 }
@@ -3,6 +3,8 @@ package com.helvetia.m295.libraryserver.model;
 import java.util.List;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
 
 import com.helvetia.m295.libraryserver.common.Kunde;
 import com.helvetia.m295.libraryserver.service.KundeController;
@@ -17,12 +19,23 @@ import com.helvetia.m295.libraryserver.service.KundeController;
  */
 public interface KundeRepository extends JpaRepository<Kunde, Long> {
 
+	/**
+	 * Methode, um alle Kunden zu holen. Wird von der Replika gelesen, falls eine konfiguriert ist.
+	 *
+	 * @return Eine Liste aller Kunden.
+	 */
+	@Override
+	@Transactional(readOnly = true)
+	public List<Kunde> findAll();
+
 	/**
 	 * Methode, um Kunden anhand ihres Nachnamens zu suchen.
+	 * Wird von der Replika gelesen, falls eine konfiguriert ist.
 	 *
 	 * @param nachname Der Nachname, nach dem gesucht werden soll.
 	 * @return Eine Liste von Kunden mit dem angegebenen Nachnamen.
 	 */
+	@Transactional(readOnly = true)
 	public List<Kunde> findByNachname(String nachname);
 
 	/**
@@ -33,6 +46,15 @@ public interface KundeRepository extends JpaRepository<Kunde, Long> {
 	 */
 	public List<Kunde> findByAdresseId(Long id);
 
+	/**
+	 * Methode, um zu prüfen, ob eine Adresse noch von einem Kunden verwendet wird.
+	 * Liest höchstens eine Zeile, statt alle Kunden der Adresse zu laden.
+	 *
+	 * @param id Die ID der Adresse.
+	 * @return true, wenn mindestens ein Kunde die Adresse hat.
+	 */
+	public boolean existsByAdresseId(Long id);
+
 	/**
 	 * Methode, um Kunden anhand ihrer Adresse zu suchen.
 	 *
@@ -41,4 +63,13 @@ public interface KundeRepository extends JpaRepository<Kunde, Long> {
 	 */
 	public List<Kunde> findByAdresseAdresse(String adresse);
 
+	/**
+	 * Methode, um die Kunden pro ZIP-Code ihrer Adresse zu zählen.
+	 *
+	 * @return Pro ZIP-Code ein Array mit ZIP-Code und Anzahl.
+	 */
+	@Query("SELECT a.zip, COUNT(k) FROM Kunde k JOIN k.adresse a GROUP BY a.zip")
+	@Transactional(readOnly = true)
+	public List<Object[]> countGroupByZip();
+
 }
@@ -3,6 +3,8 @@ package com.helvetia.m295.libraryserver.model;
 import java.util.List;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
 
 import com.helvetia.m295.libraryserver.common.Medium;
 import com.helvetia.m295.libraryserver.service.MediumController;
@@ -16,12 +18,41 @@ import com.helvetia.m295.libraryserver.service.MediumController;
  */
 public interface MediumRepository extends JpaRepository<Medium, Long> {
 
+	/**
+	 * Methode, um alle Medien zu holen. Wird von der Replika gelesen, falls eine konfiguriert ist.
+	 *
+	 * @return Eine Liste aller Medien.
+	 */
+	@Override
+	@Transactional(readOnly = true)
+	public List<Medium> findAll();
+
 	/**
 	 * Methode, um nach Medien anhand ihres Titels zu suchen.
+	 * Wird von der Replika gelesen, falls eine konfiguriert ist.
 	 *
 	 * @param titel Der Titel, nach dem gesucht werden soll.
 	 * @return Eine Liste von Medien, die den angegebenen Titel enthalten.
 	 */
+	@Transactional(readOnly = true)
 	public List<Medium> findByTitel(String titel);
-		
+
+	/**
+	 * Methode, um die Medien pro Genre zu zählen.
+	 *
+	 * @return Pro Genre ein Array mit Genre und Anzahl.
+	 */
+	@Query("SELECT m.genre, COUNT(m) FROM Medium m GROUP BY m.genre")
+	@Transactional(readOnly = true)
+	public List<Object[]> countGroupByGenre();
+
+	/**
+	 * Methode, um die Medien pro Altersfreigabe zu zählen.
+	 *
+	 * @return Pro Altersfreigabe ein Array mit Altersfreigabe und Anzahl.
+	 */
+	@Query("SELECT m.altersfreigabe, COUNT(m) FROM Medium m GROUP BY m.altersfreigabe")
+	@Transactional(readOnly = true)
+	public List<Object[]> countGroupByAltersfreigabe();
+
 }
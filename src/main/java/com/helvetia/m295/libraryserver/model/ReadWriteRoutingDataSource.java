@@ -0,0 +1,56 @@
+package com.helvetia.m295.libraryserver.model;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * DataSource, welche Verbindungen je nach Transaktion auf die Primär- oder die Replika-Datenbank verteilt.
+ * <ul>
+ * <li>Transaktionen mit {@code readOnly = true} lesen von der Replika</li>
+ * <li>Alle anderen Zugriffe gehen an die Primär-Datenbank</li>
+ * <li>Ist für den aktuellen Request "Read-your-writes" aktiv, lesen auch readOnly-Transaktionen von der Primär-Datenbank</li>
+ * </ul>
+ * Die DataSource muss in einen {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy} eingepackt werden,
+ * damit die Verbindung erst bezogen wird, wenn das readOnly-Flag der Transaktion bekannt ist.
+ *
+ * @version 1.0.0
+ * @author Simon Fäs
+ */
+public class ReadWriteRoutingDataSource extends AbstractRoutingDataSource {
+
+	/**
+	 * Schlüssel der Ziel-DataSources
+	 */
+	public enum Ziel {
+		PRIMARY, REPLICA
+	}
+
+	private static final ThreadLocal<Boolean> READ_YOUR_WRITES = new ThreadLocal<>();
+
+	/**
+	 * Erzwingt für den aktuellen Thread, dass auch lesende Zugriffe an die Primär-Datenbank gehen.
+	 * Muss mit {@link #clearReadYourWrites()} wieder aufgehoben werden.
+	 */
+	public static void enableReadYourWrites() {
+		READ_YOUR_WRITES.set(Boolean.TRUE);
+	}
+
+	/**
+	 * Hebt {@link #enableReadYourWrites()} für den aktuellen Thread wieder auf.
+	 */
+	public static void clearReadYourWrites() {
+		READ_YOUR_WRITES.remove();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	protected Object determineCurrentLookupKey() {
+		if (TransactionSynchronizationManager.isCurrentTransactionReadOnly() && READ_YOUR_WRITES.get() == null) {
+			return Ziel.REPLICA;
+		}
+		return Ziel.PRIMARY;
+	}
+
+}
@@ -0,0 +1,47 @@
+package com.helvetia.m295.libraryserver.model;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.helvetia.m295.libraryserver.common.Reservierung;
+import com.helvetia.m295.libraryserver.service.Reservierungen;
+
+/**
+ * Interface für DB-Zugang der Entity Reservierung
+ * 
+ * @version 1.0.0
+ * @author Simon Fäs
+ * @see Reservierung
+ * @see Reservierungen
+ */
+public interface ReservierungRepository extends JpaRepository<Reservierung, Long> {
+
+	/**
+	 * Methode, um eine Reservierung ohne vorheriges Laden zu löschen.
+	 * Die Anzahl zeigt, ob die Reservierung noch bestanden hat, zum Beispiel wenn eine andere Instanz
+	 * sie gleichzeitig weitergibt.
+	 * 
+	 * @param id Id der Reservierung
+	 * @return Anzahl gelöschter Reservierungen, 0 oder 1
+	 */
+	@Modifying
+	@Transactional
+	@Query("DELETE FROM Reservierung r WHERE r.id = :id")
+	public int removeById(@Param("id") Long id);
+
+	/**
+	 * Methode, um die Reservierung eines Kunden für ein Medium ohne vorheriges Laden zu löschen
+	 * 
+	 * @param mediumId Id des Mediums
+	 * @param kundeId Id des Kunden
+	 * @return Anzahl gelöschter Reservierungen, 0 oder 1
+	 */
+	@Modifying
+	@Transactional
+	@Query("DELETE FROM Reservierung r WHERE r.medium.id = :mediumId AND r.kunde.id = :kundeId")
+	public int removeByMediumIdAndKundeId(@Param("mediumId") Long mediumId, @Param("kundeId") Long kundeId);
+
+}
@@ -13,6 +13,8 @@ import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.server.ResponseStatusException;
 
 import com.helvetia.m295.libraryserver.common.Adresse;
+import com.helvetia.m295.libraryserver.common.AdresseDto;
+import com.helvetia.m295.libraryserver.common.Invalidierung;
 import com.helvetia.m295.libraryserver.model.AdresseRepository;
 import com.helvetia.m295.libraryserver.model.KundeRepository;
 
@@ -20,6 +22,7 @@ import com.helvetia.m295.libraryserver.model.KundeRepository;
  * Klasse um Serveranfragen rund um die Entity Adresse zu bearbeiten.
  * Es gibt keine POST- und PUT-Methode, da eine Adresse von mehreren Kunden unabhängig voneinander bewohnt werden kann. 
  * Im Falle eines Umzugs wird automatisch die Adressänderung vorgenommen.
+ * Im Snapshot-Modus ({@link SnapshotConfiguration}) wird aus dem {@link KatalogSnapshot} gelesen.
  * @version 1.0.0
  * @author Simon Fäs
  * @see Adresse 
@@ -35,14 +38,22 @@ public class AdresseController {
 	@Autowired
 	private KundeRepository kundeRepository;
 	
+	@Autowired
+	private InvalidierungsBus invalidierungsBus;
+	
+	@Autowired(required = false)
+	private KatalogSnapshot snapshot;
+	
 	/**
 	 * Get-Mapping, um Adressen nach ZIP-Code zu finden
 	 * @param zip
 	 * @return Response mit allen Adressen, deren ZIP-Code mit dem Parameter entsprechen
 	 */
 	@GetMapping("/zip/{zip}")
-	public @ResponseBody List<Adresse> getAdressenByZip(@PathVariable("zip") String zip) {
-		return adresseRepository.findByZip(zip);
+	public @ResponseBody List<AdresseDto> getAdressenByZip(@PathVariable("zip") String zip) {
+		if (snapshot != null)
+			return AdresseDto.von(snapshot.findAdressenByZip(zip));
+		return AdresseDto.von(adresseRepository.findByZip(zip));
 	}
 	
 	/**
@@ -51,8 +62,10 @@ public class AdresseController {
 	 * @return Response mit allen Adressen, deren Adresse mit dem Parameter entsprechen
 	 */
 	@GetMapping("/strasse/{adresse}")
-	public @ResponseBody List<Adresse> getAdressenByAdresse(@PathVariable("adresse") String adresse) {
-		return adresseRepository.findByAdresse(adresse);
+	public @ResponseBody List<AdresseDto> getAdressenByAdresse(@PathVariable("adresse") String adresse) {
+		if (snapshot != null)
+			return AdresseDto.von(snapshot.findAdressenByAdresse(adresse));
+		return AdresseDto.von(adresseRepository.findByAdresse(adresse));
 	}
 	
 	/**
@@ -60,20 +73,26 @@ public class AdresseController {
 	 * @return Response mit allen Adressen
 	 */
 	@GetMapping("")
-	public @ResponseBody List<Adresse> getAllAdressen() {
-		return adresseRepository.findAll();
+	public @ResponseBody List<AdresseDto> getAllAdressen() {
+		if (snapshot != null)
+			return AdresseDto.von(snapshot.findAllAdressen());
+		return AdresseDto.von(adresseRepository.findAll());
 	}
 	
 	/**
 	 * Delete-Mapping, um Adresse nach Id zu löschen.
 	 * Vor dem Löschen wird kontrolliert, dass keine Referenzen zum Objekt bestehen.
-	 * Falls welche bestehen, wird 409(CONFLICT) zurückgeschickt
+	 * Falls welche bestehen, wird 409(CONFLICT) zurückgeschickt, im Snapshot-Modus 405(METHOD_NOT_ALLOWED)
 	 * @param id
 	 */
 	@DeleteMapping("/{id}")
 	public @ResponseBody void deleteAdresse(@PathVariable("id") Long id) {
-		if (kundeRepository.findByAdresseId(id).size() == 0) {
+		if (snapshot != null) {
+			throw new ResponseStatusException(HttpStatus.METHOD_NOT_ALLOWED, "Snapshot mode is read-only");
+		}
+		if (!kundeRepository.existsByAdresseId(id)) {
 			adresseRepository.deleteById(id);
+			invalidierungsBus.publiziere(Invalidierung.Typ.ADRESSE, id);
 			return;
 		}
 		throw new ResponseStatusException(HttpStatus.CONFLICT);
@@ -0,0 +1,70 @@
+package com.helvetia.m295.libraryserver.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.helvetia.m295.libraryserver.common.Invalidierung;
+
+/**
+ * Hintergrundjob, der Adressen ohne Kunden löscht. Solche Adressen entstehen, wenn ein Kunde gelöscht wird oder
+ * eine neue Adresse erhält. Gelöscht wird mit einer einzigen Anweisung, unabhängig von der Anzahl Adressen.
+ * <p>
+ * Ein Kunde mit neuer Adresse wird nach der Adresse gespeichert. Damit eine solche Adresse nicht dazwischen gelöscht
+ * wird, löscht jeder Lauf nur Adressen bis zur höchsten Id des vorherigen Laufs. Neue Adressen bleiben also
+ * mindestens ein Intervall ({@code library.adressen.cleanup-millis}) stehen. Der Job läuft nur auf dem Leader
+ * und prüft dessen Fencing-Token in derselben Anweisung.
+ *
+ * @version 1.0.0
+ * @author Simon Fäs
+ * @see LeaderWahl
+ * @see AdresseController#deleteAdresse(Long)
+ */
+@Component
+@Profile("!kiosk")
+public class AdressenBereinigung {
+
+	private static final Logger LOG = LoggerFactory.getLogger(AdressenBereinigung.class);
+
+	private static final String DELETE = "DELETE FROM adresse WHERE id <= ? "
+			+ "AND NOT EXISTS (SELECT 1 FROM kunde k WHERE k.addressid = adresse.id) AND " + LeaderWahl.FENCING;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private LeaderWahl leaderWahl;
+
+	@Autowired
+	private InvalidierungsBus invalidierungsBus;
+
+	private long bisId = -1;
+
+	/**
+	 * Löscht die Adressen ohne Kunden, die schon beim vorherigen Lauf bestanden haben.
+	 * Der erste Lauf nach dem Start merkt sich nur die höchste Id.
+	 */
+	@LeaderOnly
+	@Scheduled(fixedDelayString = "${library.adressen.cleanup-millis:3600000}",
+			initialDelayString = "${library.adressen.cleanup-millis:3600000}")
+	public synchronized void aufraeumen() {
+		long token;
+		try {
+			token = leaderWahl.getToken();
+		} catch (IllegalStateException e) {
+			// Die Führung ist seit dem Aufruf abgelaufen
+			return;
+		}
+		int geloescht = bisId < 0 ? 0 : jdbcTemplate.update(DELETE, bisId, token);
+		bisId = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM adresse", Long.class);
+		if (geloescht > 0) {
+			LOG.info("Deleted {} addresses without customers", geloescht);
+			invalidierungsBus.publiziere(Invalidierung.Typ.ADRESSE, null);
+		}
+	}
+
+}
@@ -1,13 +1,20 @@
 package com.helvetia.m295.libraryserver.service;
 
+import java.util.ArrayList;
 import java.util.List;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Profile;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
 
 import com.helvetia.m295.libraryserver.common.Ausleihe;
+import com.helvetia.m295.libraryserver.common.AusleiheDto;
+import com.helvetia.m295.libraryserver.common.AusleiheEvent;
+import com.helvetia.m295.libraryserver.common.Invalidierung;
+import com.helvetia.m295.libraryserver.common.Rueckgabe;
 import com.helvetia.m295.libraryserver.model.*;
 
 /**
@@ -20,8 +27,14 @@ import com.helvetia.m295.libraryserver.model.*;
  */
 @RestController
 @RequestMapping(path = "/ausleihe")
+@Profile("!kiosk")
 public class AusleiheController {
 
+	/**
+	 * Maximale Anzahl Medien, die mit {@link #deleteAusleihen(List)} auf einmal zurückgegeben werden
+	 */
+	public static final int MAX_BATCH = 1000;
+
 	@Autowired
 	private AusleiheRepository ausleiheRepository;
 
@@ -31,16 +44,27 @@ public class AusleiheController {
 	@Autowired
 	private MediumRepository mediumRepository;
 
+	@Autowired
+	private ApplicationEventPublisher eventPublisher;
+
+	@Autowired
+	private Reservierungen reservierungen;
+
+	@Autowired
+	private InvalidierungsBus invalidierungsBus;
+
 	/**
 	 * Gibt Ausleihen basierend auf der angegebenen Medien-ID zurück.
+	 * Die Antwort kommt aus der Datenbank, da der {@link AusleiheIndex} dieser Instanz eine Ausleihe auf einer anderen
+	 * Instanz erst nach deren Invalidierung kennt.
 	 *
 	 * @param id Die ID der Ausleihe, die abgerufen werden soll.
 	 * @return Die Ausleihe, die der angegebenen ID entspricht.
 	 * @throws ResponseStatusException Wenn nichts gefunden wurde.
 	 */
 	@GetMapping("/{id}")
-	public @ResponseBody List<Ausleihe> getAusleiheById(@PathVariable("id") Long id) {
-		return ausleiheRepository.findByMediumId(id);
+	public @ResponseBody List<AusleiheDto> getAusleiheById(@PathVariable("id") Long id) {
+		return AusleiheDto.von(ausleiheRepository.findByMediumId(id));
 	}
 
 	/**
@@ -71,9 +95,13 @@ public class AusleiheController {
 
 		if (ausleihe.isPresent()) {
 			original = ausleihe.get();
+			var vorher = new Ausleihe(original);
 			if (data.getAusleihedauer() != null)
 				original.setAusleihedauer(data.getAusleihedauer());
-			return ausleiheRepository.save(original);
+			var saved = ausleiheRepository.save(original);
+			eventPublisher.publishEvent(new AusleiheEvent(vorher, saved));
+			invalidierungsBus.publiziere(Invalidierung.Typ.AUSLEIHE, saved.getMedium().getId());
+			return saved;
 		} else {
 			return supportAddNewAusleihe(data);
 		}
@@ -82,6 +110,7 @@ public class AusleiheController {
 
 	/**
 	 * Fügt Ausleihe hinzu und handhabt Fehler, welche entstehten können.
+	 * Ob das Medium frei ist und ob jemand darauf wartet, entscheidet {@link Reservierungen#leiheAus(Ausleihe)}.
 	 * 
 	 * @param data Ausleihe, die gespeichert werden sollte
 	 * @return Ausleihe Gespeicherte Ausleihe
@@ -90,22 +119,18 @@ public class AusleiheController {
 		try {
 			var medium = mediumRepository.findById(data.getMedium().getId());
 			var kunde = kundeRepository.findById(data.getKunde().getId());
-			var ausleihe = ausleiheRepository.findByMediumId(data.getMedium().getId());
-			// Überprüft, ob Medium und Kunde existieren und kontrolliert, ob es bereits
-			// eine Ausleihe mit dem Medium gibt
-			if (medium.isPresent() && kunde.isPresent() && ausleihe.size() < 1) {
-				// Erstellung der Ausleihe
-				data.setKunde(kunde.get());
-				data.setMedium(medium.get());
-				return ausleiheRepository.save(data);
-			} else if (ausleihe.size() < 1) {
-				// Wenn Medium oder Kunde nicht existieren, dann wird 404 zurückgegeben
+			// Überprüft, ob Medium und Kunde existieren
+			if (medium.isEmpty() || kunde.isEmpty()) {
 				throw new ResponseStatusException(HttpStatus.NOT_FOUND);
-			} else {
-				// Wenn es bereits eine Ausleihe mit dem Medium gibt, dann wird 409
-				// zurückgegeben
-				throw new ResponseStatusException(HttpStatus.CONFLICT);
 			}
+			// Erstellung der Ausleihe, 409 wenn das Medium ausgeliehen ist oder ein anderer Kunde darauf wartet.
+			// Der Kunde kann das Medium stattdessen reservieren.
+			data.setKunde(kunde.get());
+			data.setMedium(medium.get());
+			var saved = reservierungen.leiheAus(data);
+			eventPublisher.publishEvent(AusleiheEvent.erstellt(saved));
+			invalidierungsBus.publiziere(Invalidierung.Typ.AUSLEIHE, saved.getMedium().getId());
+			return saved;
 		} catch (NullPointerException e) {
 			throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Sent data is incomplete");
 		}
@@ -113,13 +138,50 @@ public class AusleiheController {
 	}
 
 	/**
-	 * Delete-Mapping für Ausleihe. Löscht Ausleihe mithilfe der Medium-ID
+	 * Delete-Mapping für Ausleihe. Löscht Ausleihe mithilfe der Medium-ID.
+	 * Wartet ein Kunde auf das Medium, wird es in derselben Transaktion an ihn ausgeliehen, siehe
+	 * {@link Reservierungen#gibZurueck(long)}.
 	 * 
 	 * @param id Medium-Id
 	 */
 	@DeleteMapping("/{id}")
 	public @ResponseBody void deleteKunde(@PathVariable Long id) {
-		ausleiheRepository.deleteByMediumId(id);
+		publiziere(reservierungen.gibZurueck(id));
+	}
+
+	/**
+	 * Delete-Mapping, um mehrere Medien auf einmal zurückzugeben, zum Beispiel aus der Rückgabebox.
+	 * Medien ohne Warteschlange werden unabhängig von ihrer Anzahl mit vier Anweisungen zurückgegeben,
+	 * siehe {@link Reservierungen#gibZurueck(java.util.Collection)}.
+	 *
+	 * @param ids Medium-Ids, höchstens {@value #MAX_BATCH}
+	 * @return Beendete Ausleihen
+	 * @throws ResponseStatusException Wenn die Liste leer, zu lang oder unvollständig ist.
+	 */
+	@DeleteMapping("/batch")
+	public @ResponseBody List<AusleiheDto> deleteAusleihen(@RequestBody List<Long> ids) {
+		if (ids == null || ids.isEmpty() || ids.size() > MAX_BATCH || ids.contains(null)) {
+			throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid batch");
+		}
+		var beendet = new ArrayList<Ausleihe>();
+		for (var rueckgabe : reservierungen.gibZurueck(ids.stream().distinct().toList())) {
+			publiziere(rueckgabe);
+			beendet.addAll(rueckgabe.beendet());
+		}
+		return AusleiheDto.von(beendet);
+	}
+
+	/**
+	 * Publiziert die Events einer Rückgabe und meldet die zurückgegebenen Medien den anderen Instanzen
+	 *
+	 * @param rueckgabe Beendete Ausleihen und gegebenenfalls die Ausleihe an den nächsten Kunden
+	 */
+	private void publiziere(Rueckgabe rueckgabe) {
+		rueckgabe.beendet().forEach(ausleihe -> eventPublisher.publishEvent(AusleiheEvent.geloescht(ausleihe)));
+		if (rueckgabe.weitergegeben() != null)
+			eventPublisher.publishEvent(AusleiheEvent.erstellt(rueckgabe.weitergegeben()));
+		rueckgabe.beendet().stream().map(ausleihe -> ausleihe.getMedium().getId()).distinct()
+				.forEach(mediumId -> invalidierungsBus.publiziere(Invalidierung.Typ.AUSLEIHE, mediumId));
 	}
 
 }
@@ -0,0 +1,213 @@
+package com.helvetia.m295.libraryserver.service;
+
+import java.util.ArrayList;
+import java.util.concurrent.locks.StampedLock;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.helvetia.m295.libraryserver.common.Ausleihe;
+import com.helvetia.m295.libraryserver.common.AusleiheEvent;
+import com.helvetia.m295.libraryserver.common.Invalidierung;
+
+/**
+ * Index der laufenden Ausleihen im Speicher: Medium-Id auf Ausleihe-Id, Kunde-Id auf Ausleihe-Ids und Ausleihe-Id
+ * auf Kunde-Id.
+ * Die Ids werden in {@link LongLongMultiMap}s ohne Boxing gehalten. Abfragen lesen optimistisch mit einem
+ * {@link StampedLock} und allozieren keinen Speicher.
+ * Der Index wird beim Start aus der Datenbank aufgebaut und danach über die {@link AusleiheEvent}s nachgeführt.
+ * Ändert eine andere Instanz die Ausleihen eines Mediums ({@link Invalidierung.Typ#AUSLEIHE}), werden sie neu
+ * gelesen. Zusätzlich wird er regelmässig neu aufgebaut ({@code library.ausleihe-index.rebuild-millis}).
+ * Da die Invalidierungen verzögert ankommen, ist der Index nur ein Hinweis: Eine gefundene Ausleihe kann bereits
+ * zurückgegeben sein, eine fehlende auf einer anderen Instanz bestehen. Er liefert deshalb nur den Ausleihestatus
+ * in den Katalogabfragen des {@link MediumController}s, Entscheidungen fallen in der Datenbank.
+ *
+ * @version 1.0.0
+ * @author Simon Fäs
+ * @see MediumController
+ * @see KundeController
+ */
+@Component
+@Profile("!kiosk")
+public class AusleiheIndex {
+
+	/**
+	 * Rückgabewert, wenn ein Medium nicht ausgeliehen ist
+	 */
+	public static final long KEINE_AUSLEIHE = -1L;
+
+	private static final String SELECT = "SELECT id, medienid, kundenid FROM ausleihe";
+	private static final String SELECT_MEDIUM = "SELECT id, kundenid FROM ausleihe WHERE medienid = ?";
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	private final StampedLock lock = new StampedLock();
+	private LongLongMultiMap medienAusleihen = new LongLongMultiMap(16);
+	private LongLongMultiMap kundenAusleihen = new LongLongMultiMap(16);
+	private LongLongMultiMap ausleiheKunden = new LongLongMultiMap(16);
+
+	/**
+	 * Baut den Index beim Start der Applikation auf
+	 */
+	@EventListener(ApplicationReadyEvent.class)
+	public void initialize() {
+		rebuild();
+	}
+
+	/**
+	 * Baut den Index neu aus der Datenbank auf und tauscht ihn auf einmal aus.
+	 */
+	@Scheduled(fixedDelayString = "${library.ausleihe-index.rebuild-millis:600000}",
+			initialDelayString = "${library.ausleihe-index.rebuild-millis:600000}")
+	public void rebuild() {
+		var medien = new LongLongMultiMap(1024);
+		var kunden = new LongLongMultiMap(1024);
+		var ausleihen = new LongLongMultiMap(1024);
+		jdbcTemplate.query(SELECT, rs -> {
+			long id = rs.getLong(1);
+			medien.put(rs.getLong(2), id);
+			kunden.put(rs.getLong(3), id);
+			ausleihen.put(id, rs.getLong(3));
+		});
+		long stamp = lock.writeLock();
+		try {
+			medienAusleihen = medien;
+			kundenAusleihen = kunden;
+			ausleiheKunden = ausleihen;
+		} finally {
+			lock.unlockWrite(stamp);
+		}
+	}
+
+	/**
+	 * Gibt die laufende Ausleihe eines Mediums zurück
+	 * @param mediumId Id des Mediums
+	 * @return Id der Ausleihe oder {@link #KEINE_AUSLEIHE}
+	 */
+	public long getAusleiheVonMedium(long mediumId) {
+		long stamp = lock.tryOptimisticRead();
+		long ausleihe = medienAusleihen.first(mediumId, KEINE_AUSLEIHE);
+		if (!lock.validate(stamp)) {
+			stamp = lock.readLock();
+			try {
+				ausleihe = medienAusleihen.first(mediumId, KEINE_AUSLEIHE);
+			} finally {
+				lock.unlockRead(stamp);
+			}
+		}
+		return ausleihe;
+	}
+
+	/**
+	 * Prüft, ob ein Medium ausgeliehen ist
+	 * @param mediumId Id des Mediums
+	 * @return true, wenn es eine laufende Ausleihe gibt
+	 */
+	public boolean istAusgeliehen(long mediumId) {
+		return getAusleiheVonMedium(mediumId) != KEINE_AUSLEIHE;
+	}
+
+	/**
+	 * Zählt die laufenden Ausleihen eines Kunden
+	 * @param kundeId Id des Kunden
+	 * @return Anzahl laufender Ausleihen
+	 */
+	public int getAnzahlAusleihen(long kundeId) {
+		long stamp = lock.tryOptimisticRead();
+		int anzahl = kundenAusleihen.count(kundeId);
+		if (!lock.validate(stamp)) {
+			stamp = lock.readLock();
+			try {
+				anzahl = kundenAusleihen.count(kundeId);
+			} finally {
+				lock.unlockRead(stamp);
+			}
+		}
+		return anzahl;
+	}
+
+	/**
+	 * Führt den Index nach einer Änderung einer Ausleihe nach
+	 * @param event Änderung der Ausleihe
+	 */
+	@EventListener
+	public void onAusleihe(AusleiheEvent event) {
+		long stamp = lock.writeLock();
+		try {
+			if (event.vorher() != null && event.vorher().getId() != null) {
+				aendere(event.vorher(), false);
+			}
+			if (event.nachher() != null && event.nachher().getId() != null) {
+				aendere(event.nachher(), true);
+			}
+		} finally {
+			lock.unlockWrite(stamp);
+		}
+	}
+
+	/**
+	 * Liest die Ausleihen eines Mediums neu, nachdem eine andere Instanz sie geändert hat
+	 * @param invalidierung Das Medium, dessen Ausleihen geändert wurden
+	 */
+	@EventListener
+	public void onInvalidierung(Invalidierung invalidierung) {
+		if (invalidierung.typ() != Invalidierung.Typ.AUSLEIHE) {
+			return;
+		}
+		if (invalidierung.id() == null) {
+			rebuild();
+			return;
+		}
+		long mediumId = invalidierung.id();
+		var ausleihen = jdbcTemplate.query(SELECT_MEDIUM, (rs, i) -> new long[] { rs.getLong(1), rs.getLong(2) },
+				mediumId);
+		long stamp = lock.writeLock();
+		try {
+			var alt = new ArrayList<Long>();
+			medienAusleihen.forEach(mediumId, alt::add);
+			for (long id : alt) {
+				medienAusleihen.remove(mediumId, id);
+				long kundeId = ausleiheKunden.first(id, -1);
+				if (kundeId >= 0) {
+					kundenAusleihen.remove(kundeId, id);
+					ausleiheKunden.remove(id, kundeId);
+				}
+			}
+			for (var ausleihe : ausleihen) {
+				medienAusleihen.put(mediumId, ausleihe[0]);
+				kundenAusleihen.put(ausleihe[1], ausleihe[0]);
+				ausleiheKunden.put(ausleihe[0], ausleihe[1]);
+			}
+		} finally {
+			lock.unlockWrite(stamp);
+		}
+	}
+
+	private void aendere(Ausleihe ausleihe, boolean hinzufuegen) {
+		long id = ausleihe.getId();
+		if (ausleihe.getMedium() != null && ausleihe.getMedium().getId() != null) {
+			long mediumId = ausleihe.getMedium().getId();
+			if (hinzufuegen)
+				medienAusleihen.put(mediumId, id);
+			else
+				medienAusleihen.remove(mediumId, id);
+		}
+		if (ausleihe.getKunde() != null && ausleihe.getKunde().getId() != null) {
+			long kundeId = ausleihe.getKunde().getId();
+			if (hinzufuegen) {
+				kundenAusleihen.put(kundeId, id);
+				ausleiheKunden.put(id, kundeId);
+			} else {
+				kundenAusleihen.remove(kundeId, id);
+				ausleiheKunden.remove(id, kundeId);
+			}
+		}
+	}
+
+}
@@ -0,0 +1,124 @@
+package com.helvetia.m295.libraryserver.service;
+
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import com.helvetia.m295.libraryserver.model.ReadWriteRoutingDataSource;
+import com.helvetia.m295.libraryserver.model.ReadWriteRoutingDataSource.Ziel;
+import com.zaxxer.hikari.HikariDataSource;
+
+/**
+ * Klasse für die Konfiguration der Datenbankverbindungen mit Lese-Replika.
+ * Wird nur aktiv, wenn {@code library.datasource.replica.url} gesetzt ist. Ansonsten verwendet die Applikation
+ * wie bisher die einzelne DataSource aus {@code spring.datasource.*}.
+ * <ul>
+ * <li>{@code spring.datasource.*}: Primär-Datenbank für alle Schreibzugriffe</li>
+ * <li>{@code library.datasource.replica.*}: Replika für Transaktionen mit {@code readOnly = true}</li>
+ * </ul>
+ *
+ * @version 1.0.0
+ * @author Simon Fäs
+ * @see ReadWriteRoutingDataSource
+ * @see ReadYourWritesFilter
+ */
+@Configuration
+@ConditionalOnProperty(name = "library.datasource.replica.url")
+public class DataSourceConfiguration {
+
+	/**
+	 * Verbindungsdaten der Primär-Datenbank
+	 * @return DataSourceProperties aus {@code spring.datasource.*}
+	 */
+	@Bean
+	@Primary
+	@ConfigurationProperties("spring.datasource")
+	public DataSourceProperties primaryDataSourceProperties() {
+		return new DataSourceProperties();
+	}
+
+	/**
+	 * Verbindungspool der Primär-Datenbank
+	 * @param properties Verbindungsdaten der Primär-Datenbank
+	 * @return Verbindungspool, konfigurierbar über {@code spring.datasource.hikari.*}
+	 */
+	@Bean
+	@ConfigurationProperties("spring.datasource.hikari")
+	public HikariDataSource primaryDataSource(@Qualifier("primaryDataSourceProperties") DataSourceProperties properties) {
+		var dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+		dataSource.setPoolName("primary");
+		return dataSource;
+	}
+
+	/**
+	 * Verbindungsdaten der Replika
+	 * @return DataSourceProperties aus {@code library.datasource.replica.*}
+	 */
+	@Bean
+	@ConfigurationProperties("library.datasource.replica")
+	public DataSourceProperties replicaDataSourceProperties() {
+		return new DataSourceProperties();
+	}
+
+	/**
+	 * Verbindungspool der Replika
+	 * @param properties Verbindungsdaten der Replika
+	 * @return Verbindungspool, konfigurierbar über {@code library.datasource.replica.hikari.*}
+	 */
+	@Bean
+	@ConfigurationProperties("library.datasource.replica.hikari")
+	public HikariDataSource replicaDataSource(@Qualifier("replicaDataSourceProperties") DataSourceProperties properties) {
+		var dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+		dataSource.setPoolName("replica");
+		return dataSource;
+	}
+
+	/**
+	 * DataSource, welche von JPA und den Repositories verwendet wird
+	 * @param primary Primär-Datenbank
+	 * @param replica Replika
+	 * @return Routende DataSource
+	 */
+	@Bean
+	@Primary
+	public DataSource dataSource(@Qualifier("primaryDataSource") DataSource primary,
+			@Qualifier("replicaDataSource") DataSource replica) {
+		return routingDataSource(primary, replica);
+	}
+
+	/**
+	 * Registriert den {@link ReadYourWritesFilter} für alle Requests
+	 * @return Registrierung des Filters
+	 */
+	@Bean
+	public FilterRegistrationBean<ReadYourWritesFilter> readYourWritesFilter() {
+		return new FilterRegistrationBean<>(new ReadYourWritesFilter());
+	}
+
+	/**
+	 * Erstellt die routende DataSource aus Primär-Datenbank und Replika.
+	 * Die Verbindung wird erst beim ersten Statement bezogen, damit das readOnly-Flag der Transaktion
+	 * bereits gesetzt ist.
+	 * @param primary Primär-Datenbank
+	 * @param replica Replika
+	 * @return Routende DataSource
+	 */
+	public static DataSource routingDataSource(DataSource primary, DataSource replica) {
+		var routing = new ReadWriteRoutingDataSource();
+		routing.setTargetDataSources(Map.<Object, Object>of(Ziel.PRIMARY, primary, Ziel.REPLICA, replica));
+		routing.setDefaultTargetDataSource(primary);
+		routing.afterPropertiesSet();
+		return new LazyConnectionDataSourceProxy(routing);
+	}
+
+}
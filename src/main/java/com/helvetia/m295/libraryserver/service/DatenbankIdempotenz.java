@@ -0,0 +1,106 @@
+package com.helvetia.m295.libraryserver.service;
+
+import java.sql.Timestamp;
+
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+
+/**
+ * Speicher für Idempotency-Keys in der Tabelle {@code idempotenz}, für mehrere Instanzen.
+ * Reserviert wird mit einem Insert auf den Primärschlüssel. Senden zwei Instanzen denselben Request gleichzeitig,
+ * schlägt der Insert der zweiten fehl und sie erhält die gespeicherte Antwort oder
+ * {@link IdempotenteAntwort#IN_BEARBEITUNG}. Abgelaufene Zeilen werden beim Reservieren ersetzt und regelmässig
+ * vom Leader gelöscht ({@code library.idempotenz.cleanup-millis}).
+ * <p>
+ * Stürzt eine Instanz während eines Requests ab, bleibt seine Reservierung ohne Antwort stehen. Solche Zeilen gelten
+ * nach {@value #SPERRE_MILLIS} ms als abgelaufen, damit der Client den Request wiederholen kann.
+ *
+ * @version 1.0.0
+ * @author Simon Fäs
+ * @see IdempotenzConfiguration
+ */
+public class DatenbankIdempotenz implements IdempotenzSpeicher {
+
+	/**
+	 * Zeit, nach der eine Reservierung ohne Antwort als abgelaufen gilt
+	 */
+	public static final long SPERRE_MILLIS = 300000;
+
+	private static final String INSERT = "INSERT INTO idempotenz (schluessel, erstellt) VALUES (?, ?)";
+	private static final String SELECT = "SELECT status, content_type, body, anfrage_hash FROM idempotenz "
+			+ "WHERE schluessel = ? AND erstellt >= ? AND (status IS NOT NULL OR erstellt >= ?)";
+	private static final String DELETE_ABGELAUFEN = "DELETE FROM idempotenz WHERE schluessel = ? "
+			+ "AND (erstellt < ? OR status IS NULL AND erstellt < ?)";
+	private static final String UPDATE = "UPDATE idempotenz SET erstellt = ?, status = ?, content_type = ?, body = ?, "
+			+ "anfrage_hash = ? WHERE schluessel = ?";
+
+	private final JdbcTemplate jdbcTemplate;
+	private final long ttlMillis;
+
+	/**
+	 * Constructor mit der Datenbank und der Gültigkeit als Parameter
+	 * @param jdbcTemplate Zugriff auf die Tabelle {@code idempotenz}
+	 * @param ttlMillis Zeit, während der eine Antwort wiederholt wird
+	 */
+	public DatenbankIdempotenz(JdbcTemplate jdbcTemplate, long ttlMillis) {
+		this.jdbcTemplate = jdbcTemplate;
+		this.ttlMillis = ttlMillis;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public IdempotenteAntwort reserviere(String schluessel) {
+		// Zweiter Versuch, nachdem eine abgelaufene Zeile gelöscht wurde
+		for (int versuch = 0; versuch < 2; versuch++) {
+			long jetzt = System.currentTimeMillis();
+			try {
+				jdbcTemplate.update(INSERT, schluessel, new Timestamp(jetzt));
+				return null;
+			} catch (DuplicateKeyException e) {
+				var gespeichert = jdbcTemplate.query(SELECT, (rs, rowNum) -> rs.getObject(1) == null
+						? IdempotenteAntwort.IN_BEARBEITUNG
+						: new IdempotenteAntwort(rs.getInt(1), rs.getString(2), rs.getBytes(3), rs.getString(4)),
+						schluessel, new Timestamp(jetzt - ttlMillis), new Timestamp(jetzt - SPERRE_MILLIS));
+				if (!gespeichert.isEmpty()) {
+					return gespeichert.get(0);
+				}
+				jdbcTemplate.update(DELETE_ABGELAUFEN, schluessel, new Timestamp(jetzt - ttlMillis),
+						new Timestamp(jetzt - SPERRE_MILLIS));
+			}
+		}
+		// Eine andere Instanz hat den Schlüssel in der Zwischenzeit neu reserviert
+		return IdempotenteAntwort.IN_BEARBEITUNG;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void speichere(String schluessel, IdempotenteAntwort antwort) {
+		jdbcTemplate.update(UPDATE, new Timestamp(System.currentTimeMillis()), antwort.status(), antwort.contentType(),
+				antwort.body(), antwort.anfrageHash(), schluessel);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void freigeben(String schluessel) {
+		jdbcTemplate.update("DELETE FROM idempotenz WHERE schluessel = ?", schluessel);
+	}
+
+	/**
+	 * Löscht abgelaufene Zeilen, nur auf dem Leader
+	 */
+	@LeaderOnly
+	@Scheduled(fixedDelayString = "${library.idempotenz.cleanup-millis:600000}",
+			initialDelayString = "${library.idempotenz.cleanup-millis:600000}")
+	public void aufraeumen() {
+		jdbcTemplate.update("DELETE FROM idempotenz WHERE erstellt < ?",
+				new Timestamp(System.currentTimeMillis() - ttlMillis));
+	}
+
+}
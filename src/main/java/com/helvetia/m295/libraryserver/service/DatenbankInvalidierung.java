@@ -0,0 +1,146 @@
+package com.helvetia.m295.libraryserver.service;
+
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import com.helvetia.m295.libraryserver.common.Invalidierung;
+
+/**
+ * Transport für Invalidierungen über die Tabelle {@code invalidierung}.
+ * Jede Invalidierung wird als Zeile eingefügt, alle Instanzen fragen die Tabelle regelmässig nach neuen Zeilen ab
+ * ({@code library.invalidierung.poll-millis}). Eine Änderung erreicht die anderen Instanzen dadurch spätestens
+ * nach diesem Intervall.
+ * <p>
+ * Gelesen wird ab der höchsten Id, bis zu der alle Zeilen verarbeitet sind. Da Ids beim Einfügen vergeben werden,
+ * kann eine kleinere Id später sichtbar werden als eine grössere. Solche Lücken werden deshalb bis zu
+ * {@value #LUECKE_MILLIS} ms lang erneut gelesen, bereits verarbeitete Zeilen werden dabei übersprungen.
+ * Alte Zeilen werden regelmässig vom Leader gelöscht ({@code library.invalidierung.retention-millis}).
+ *
+ * @version 1.0.0
+ * @author Simon Fäs
+ * @see InvalidierungConfiguration
+ */
+public class DatenbankInvalidierung implements InvalidierungTransport {
+
+	/**
+	 * Zeit, während der eine Lücke in den Ids erneut gelesen wird
+	 */
+	public static final long LUECKE_MILLIS = 10000;
+
+	private static final int LIMIT = 1000;
+	private static final String INSERT = "INSERT INTO invalidierung (quelle, typ, entitaet_id) VALUES (?, ?, ?)";
+	private static final String SELECT = "SELECT id, quelle, typ, entitaet_id FROM invalidierung WHERE id > ? "
+			+ "ORDER BY id LIMIT " + LIMIT;
+
+	private final JdbcTemplate jdbcTemplate;
+	private final long retentionMillis;
+	private final List<Empfaenger> empfaenger = new CopyOnWriteArrayList<>();
+
+	// Höchste Id, bis zu der alle Zeilen verarbeitet sind, und die verarbeiteten Zeilen danach mit dem Zeitpunkt,
+	// an dem sie gelesen wurden
+	private long bisId = -1;
+	private final TreeMap<Long, Long> verarbeitet = new TreeMap<>();
+
+	/**
+	 * Constructor mit der Datenbank und der Aufbewahrungszeit als Parameter
+	 * @param jdbcTemplate Zugriff auf die Tabelle {@code invalidierung}
+	 * @param retentionMillis Zeit, nach der Zeilen gelöscht werden
+	 */
+	public DatenbankInvalidierung(JdbcTemplate jdbcTemplate, long retentionMillis) {
+		this.jdbcTemplate = jdbcTemplate;
+		this.retentionMillis = retentionMillis;
+	}
+
+	/**
+	 * Meldet eine Instanz an. Bestehende Zeilen werden übersprungen, da die Caches beim Start leer sind.
+	 */
+	@Override
+	public synchronized void verbinde(String knoten, Consumer<Invalidierung> consumer) {
+		if (bisId < 0) {
+			bisId = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM invalidierung", Long.class);
+		}
+		empfaenger.add(new Empfaenger(knoten, consumer));
+	}
+
+	@Override
+	public void sende(String knoten, Invalidierung invalidierung) {
+		jdbcTemplate.update(INSERT, knoten, invalidierung.typ().name(), invalidierung.id());
+	}
+
+	/**
+	 * Liest neue Invalidierungen der anderen Instanzen und gibt sie an die Empfänger weiter.
+	 * Läuft auf dem eigenen Scheduler {@link SchedulingConfiguration#KOORDINATION}, damit lange Jobs die
+	 * Invalidierungen nicht verzögern.
+	 */
+	@Scheduled(fixedDelayString = "${library.invalidierung.poll-millis:1000}",
+			scheduler = SchedulingConfiguration.KOORDINATION)
+	public synchronized void abfragen() {
+		if (bisId < 0) {
+			return;
+		}
+		List<Zeile> zeilen;
+		do {
+			zeilen = jdbcTemplate.query(SELECT, (rs, i) -> new Zeile(rs.getLong(1), rs.getString(2),
+					rs.getString(3), rs.getObject(4) == null ? null : rs.getLong(4)), bisId);
+			long jetzt = System.nanoTime();
+			for (var zeile : zeilen) {
+				if (zeile.id() > bisId && verarbeitet.putIfAbsent(zeile.id(), jetzt) == null) {
+					verteile(zeile);
+				}
+			}
+			schliesseLuecken(jetzt);
+			// Weiterlesen, solange ganze Blöcke verarbeitet werden konnten
+		} while (zeilen.size() == LIMIT && bisId >= zeilen.getLast().id());
+	}
+
+	/**
+	 * Löscht Zeilen, die älter als die Aufbewahrungszeit sind. Läuft nur auf dem Leader.
+	 */
+	@LeaderOnly
+	@Scheduled(fixedDelayString = "${library.invalidierung.cleanup-millis:600000}",
+			initialDelayString = "${library.invalidierung.cleanup-millis:600000}")
+	public void aufraeumen() {
+		jdbcTemplate.update("DELETE FROM invalidierung WHERE erstellt < ?",
+				new Timestamp(System.currentTimeMillis() - retentionMillis));
+	}
+
+	/**
+	 * Verschiebt {@link #bisId} über alle lückenlos verarbeiteten Zeilen. Eine Lücke davor wird übersprungen,
+	 * wenn die Zeile danach vor mehr als {@value #LUECKE_MILLIS} ms gelesen wurde.
+	 * @param jetzt Aktueller Zeitpunkt in Nanosekunden
+	 */
+	private void schliesseLuecken(long jetzt) {
+		long luecke = TimeUnit.MILLISECONDS.toNanos(LUECKE_MILLIS);
+		while (!verarbeitet.isEmpty()) {
+			var erste = verarbeitet.firstEntry();
+			if (erste.getKey() != bisId + 1 && jetzt - erste.getValue() <= luecke) {
+				break;
+			}
+			bisId = erste.getKey();
+			verarbeitet.pollFirstEntry();
+		}
+	}
+
+	private void verteile(Zeile zeile) {
+		var invalidierung = new Invalidierung(Invalidierung.Typ.valueOf(zeile.typ()), zeile.entitaetId());
+		for (var eintrag : empfaenger) {
+			if (!eintrag.knoten().equals(zeile.quelle())) {
+				eintrag.consumer().accept(invalidierung);
+			}
+		}
+	}
+
+	private record Zeile(long id, String quelle, String typ, Long entitaetId) {
+	}
+
+	private record Empfaenger(String knoten, Consumer<Invalidierung> consumer) {
+	}
+
+}
@@ -0,0 +1,74 @@
+package com.helvetia.m295.libraryserver.service;
+
+import java.util.HashMap;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.helvetia.m295.libraryserver.common.Empfehlung;
+import com.helvetia.m295.libraryserver.common.Medium;
+import com.helvetia.m295.libraryserver.model.MediumRepository;
+
+/**
+ * Klasse um Serveranfragen rund um die Empfehlungen zu einem Medium zu bearbeiten.
+ * Die Empfehlungen kommen aus dem {@link EmpfehlungsIndex}, Titel und Autor werden mit einer Abfrage ergänzt.
+ *
+ * @version 1.0.0
+ * @author Simon Fäs
+ * @see Empfehlung
+ * @see EmpfehlungsIndex
+ */
+@RestController
+@RequestMapping(path = "/medium/{id}/empfehlungen")
+@Profile("!kiosk")
+public class EmpfehlungController {
+
+	/**
+	 * Maximale Anzahl Empfehlungen pro Anfrage
+	 */
+	public static final int MAX_LIMIT = 50;
+
+	@Autowired
+	private EmpfehlungsIndex empfehlungsIndex;
+
+	@Autowired
+	private MediumRepository mediumRepository;
+
+	/**
+	 * Gibt die Medien zurück, die Kunden zusammen mit einem Medium ausgeliehen haben.
+	 *
+	 * @param id Die ID des Mediums.
+	 * @param limit Maximale Anzahl Empfehlungen, höchstens {@value #MAX_LIMIT}.
+	 * @return Die Empfehlungen nach Anzahl Kunden absteigend, leer für unbekannte Medien.
+	 * @throws ResponseStatusException Wenn das Limit ungültig ist.
+	 */
+	@GetMapping("")
+	public @ResponseBody List<Empfehlung> getEmpfehlungen(@PathVariable("id") Long id,
+			@RequestParam(name = "limit", defaultValue = "10") int limit) {
+		if (limit < 1 || limit > MAX_LIMIT) {
+			throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid limit");
+		}
+		var empfehlungen = empfehlungsIndex.getEmpfehlungen(id, limit);
+		if (empfehlungen.isEmpty()) {
+			return List.of();
+		}
+		var medien = new HashMap<Long, Medium>();
+		mediumRepository.findAllById(empfehlungen.stream().map(Empfehlung::id).toList())
+				.forEach(medium -> medien.put(medium.getId(), medium));
+		// Medien, die seit dem letzten Aufbau gelöscht wurden, fallen weg
+		return empfehlungen.stream().filter(empfehlung -> medien.containsKey(empfehlung.id())).map(empfehlung -> {
+			var medium = medien.get(empfehlung.id());
+			return new Empfehlung(empfehlung.id(), medium.getTitel(), medium.getAutor(), empfehlung.kunden());
+		}).toList();
+	}
+
+}
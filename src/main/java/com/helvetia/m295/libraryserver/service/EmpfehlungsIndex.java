@@ -0,0 +1,532 @@
+package com.helvetia.m295.libraryserver.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.StampedLock;
+import java.util.stream.IntStream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.helvetia.m295.libraryserver.common.AusleiheEvent;
+import com.helvetia.m295.libraryserver.common.Empfehlung;
+import com.helvetia.m295.libraryserver.common.Invalidierung;
+
+/**
+ * Index im Speicher für "Kunden, die dieses Medium ausgeliehen haben, haben auch ... ausgeliehen".
+ * Pro Medium wird gezählt, wie viele Kunden es zusammen mit einem anderen Medium ausgeliehen haben. Grundlage ist die
+ * Tabelle {@code ausleihe_historie}, da eine Rückgabe die Ausleihe löscht. Pro Kunde zählen nur die letzten
+ * {@value #MAX_HISTORIE} verschiedenen Medien.
+ * <p>
+ * Die Medien-Ids liegen in einer {@link LongLongMultiMap} auf die Zeile des Mediums, jede Zeile hält Ids und Zähler
+ * der Nachbarn in primitiven Arrays. Pro Medium werden höchstens {@code library.empfehlungen.kapazitaet} Nachbarn
+ * behalten: beim Aufbau die häufigsten, danach ersetzt ein neuer Nachbar den seltensten und übernimmt dessen Zähler
+ * plus eins als Schätzung und den übernommenen Zähler als Fehler (Space-Saving, wie {@link SpaceSaving}). Der Speicher
+ * wächst so höchstens linear mit der Anzahl Medien.
+ * <p>
+ * Die Historie schreibt {@link Reservierungen} in derselben Transaktion wie die Ausleihe. Eine neue
+ * {@link AusleiheEvent Ausleihe} oder eine {@link Invalidierung.Typ#AUSLEIHE Ausleihe einer anderen Instanz} markiert
+ * den Index nur. Ein Hintergrundjob ({@code library.empfehlungen.nachziehen-millis}) zählt danach die neuen Zeilen der
+ * Historie im Speicher mit den früheren Medien ihres Kunden, ohne den Request aufzuhalten. Der Index wird beim Start
+ * und regelmässig ({@code library.empfehlungen.rebuild-millis}) parallel über alle Medien neu aufgebaut, um die
+ * Näherungen zu korrigieren und Zeilen nachzuholen, die ausser der Reihe committed wurden.
+ * Empfohlen werden nur Medien, die sicher mindestens {@code library.empfehlungen.min-kunden} Kunden zusammen
+ * ausgeliehen haben (Schätzung minus Fehler), damit die Ausleihen eines einzelnen Kunden nicht sichtbar werden.
+ *
+ * @version 1.0.0
+ * @author Simon Fäs
+ * @see EmpfehlungController
+ */
+@Component
+@Profile("!kiosk")
+public class EmpfehlungsIndex {
+
+	/**
+	 * Maximale Anzahl verschiedener Medien pro Kunde, die gezählt werden
+	 */
+	public static final int MAX_HISTORIE = 200;
+
+	private static final Logger LOG = LoggerFactory.getLogger(EmpfehlungsIndex.class);
+
+	/**
+	 * Anzahl Medien, die ein Thread beim Aufbau am Stück zählt
+	 */
+	private static final int BLOCK = 256;
+
+	private static final String SELECT_MAX = "SELECT COALESCE(MAX(id), 0) FROM ausleihe_historie";
+	private static final String SELECT = "SELECT kundenid, medienid FROM ausleihe_historie WHERE id <= ? "
+			+ "ORDER BY kundenid, id DESC";
+	private static final String SELECT_NEU = "SELECT id, kundenid, medienid FROM ausleihe_historie WHERE id > ? "
+			+ "ORDER BY id";
+	private static final String SELECT_KUNDE = "SELECT medienid FROM ausleihe_historie WHERE kundenid = ? AND id < ? "
+			+ "ORDER BY id DESC LIMIT " + MAX_HISTORIE;
+
+	private static final Comparator<Empfehlung> REIHENFOLGE = Comparator.comparingInt(Empfehlung::kunden).reversed()
+			.thenComparing(Empfehlung::id);
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Value("${library.empfehlungen.kapazitaet:20}")
+	private int kapazitaet;
+
+	@Value("${library.empfehlungen.min-kunden:2}")
+	private int minKunden;
+
+	private final StampedLock lock = new StampedLock();
+	private Daten daten = new Daten(new LongLongMultiMap(16), new Nachbarn[16], 0);
+
+	/**
+	 * Id der letzten gezählten Zeile der Historie, -1 bis zum ersten Aufbau. Wird nur mit dem Monitor dieses Objekts
+	 * gelesen und geändert.
+	 */
+	private long gezaehlt = -1;
+
+	/**
+	 * true, wenn seit dem letzten {@link #nachziehen()} eine Ausleihe dazugekommen sein kann
+	 */
+	private final AtomicBoolean offen = new AtomicBoolean();
+
+	/**
+	 * Baut den Index beim Start der Applikation auf
+	 */
+	@EventListener(ApplicationReadyEvent.class)
+	public void initialize() {
+		rebuild();
+	}
+
+	/**
+	 * Baut den Index neu aus der Historie auf und tauscht ihn auf einmal aus.
+	 */
+	@Scheduled(fixedDelayString = "${library.empfehlungen.rebuild-millis:3600000}",
+			initialDelayString = "${library.empfehlungen.rebuild-millis:3600000}")
+	public void rebuild() {
+		long start = System.nanoTime();
+		long bis = jdbcTemplate.queryForObject(SELECT_MAX, Long.class);
+		var historie = new Historie();
+		jdbcTemplate.query(SELECT, rs -> {
+			historie.fuegeHinzu(rs.getLong(1), rs.getLong(2));
+		}, bis);
+		var neu = berechne(historie);
+		synchronized (this) {
+			long stamp = lock.writeLock();
+			try {
+				daten = neu;
+			} finally {
+				lock.unlockWrite(stamp);
+			}
+			gezaehlt = bis;
+		}
+		LOG.info("Built recommendations of {} media from {} loans in {} ms", neu.anzahl, historie.anzahl,
+				TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+		// Ausleihen während des Aufbaus
+		nachziehen();
+	}
+
+	/**
+	 * Gibt die Medien zurück, die am häufigsten zusammen mit einem Medium ausgeliehen wurden
+	 * @param mediumId Id des Mediums
+	 * @param limit Maximale Anzahl Empfehlungen
+	 * @return Empfehlungen ohne Titel und Autor, nach Anzahl Kunden absteigend
+	 */
+	public List<Empfehlung> getEmpfehlungen(long mediumId, int limit) {
+		long stamp = lock.tryOptimisticRead();
+		var nachbarn = kopiere(mediumId);
+		if (!lock.validate(stamp)) {
+			stamp = lock.readLock();
+			try {
+				nachbarn = kopiere(mediumId);
+			} finally {
+				lock.unlockRead(stamp);
+			}
+		}
+		if (nachbarn == null) {
+			return List.of();
+		}
+		var empfehlungen = new ArrayList<Empfehlung>(nachbarn.size);
+		for (int i = 0; i < nachbarn.size; i++) {
+			if (nachbarn.kunden[i] - nachbarn.fehler[i] >= minKunden)
+				empfehlungen.add(new Empfehlung(nachbarn.ids[i], null, null, nachbarn.kunden[i]));
+		}
+		empfehlungen.sort(REIHENFOLGE);
+		return empfehlungen.size() > limit ? empfehlungen.subList(0, limit) : empfehlungen;
+	}
+
+	/**
+	 * Markiert eine neue Ausleihe dieser Instanz für {@link #nachziehenFallsNoetig()}
+	 * @param event Änderung der Ausleihe
+	 */
+	@EventListener
+	public void onAusleihe(AusleiheEvent event) {
+		if (event.vorher() == null && event.nachher() != null) {
+			offen.set(true);
+		}
+	}
+
+	/**
+	 * Markiert eine neue Ausleihe einer anderen Instanz für {@link #nachziehenFallsNoetig()}
+	 * @param invalidierung Das Medium, dessen Ausleihen geändert wurden
+	 */
+	@EventListener
+	public void onInvalidierung(Invalidierung invalidierung) {
+		if (invalidierung.typ() == Invalidierung.Typ.AUSLEIHE) {
+			offen.set(true);
+		}
+	}
+
+	/**
+	 * Zählt die neuen Ausleihen im Hintergrund, sofern seit dem letzten Lauf welche gemeldet wurden. Mehrere
+	 * Ausleihen zwischen zwei Läufen werden mit einer Abfrage gezählt.
+	 */
+	@Scheduled(fixedDelayString = "${library.empfehlungen.nachziehen-millis:1000}")
+	public void nachziehenFallsNoetig() {
+		if (offen.getAndSet(false)) {
+			nachziehen();
+		}
+	}
+
+	/**
+	 * Zählt die Zeilen der Historie, die seit dem Aufbau oder dem letzten Aufruf dazugekommen sind, jede mit den
+	 * früheren Medien ihres Kunden. Hat der Kunde das Medium schon einmal ausgeliehen, ändern sich die Zähler nicht.
+	 * Die Historie wird mit der Ausleihe geschrieben, hier wird nur der Index im Speicher angepasst. Da jede Zeile
+	 * einmal gezählt wird, spielt es keine Rolle, ob eine Ausleihe über ihr Event oder eine Invalidierung kommt.
+	 * Eine Zeile, die erst nach einer neueren Zeile committed wird, zählt erst der nächste Aufbau.
+	 */
+	public synchronized void nachziehen() {
+		if (gezaehlt < 0) {
+			return;
+		}
+		try {
+			var zeilen = jdbcTemplate.query(SELECT_NEU,
+					(rs, i) -> new long[] { rs.getLong(1), rs.getLong(2), rs.getLong(3) }, gezaehlt);
+			for (var zeile : zeilen) {
+				zaehle(zeile[2], jdbcTemplate.queryForList(SELECT_KUNDE, Long.class, zeile[1], zeile[0]));
+				gezaehlt = zeile[0];
+			}
+		} catch (DataAccessException e) {
+			// Die Zeilen ab gezaehlt bleiben offen, der nächste Lauf zählt sie
+			offen.set(true);
+			LOG.warn("Could not read loan history after id {}", gezaehlt, e);
+		}
+	}
+
+	private void zaehle(long mediumId, List<Long> frueher) {
+		if (frueher.contains(mediumId)) {
+			return;
+		}
+		long stamp = lock.writeLock();
+		try {
+			frueher.stream().mapToLong(Long::longValue).distinct().forEach(andere -> {
+				daten.zeile(mediumId).erhoehe(andere, kapazitaet);
+				daten.zeile(andere).erhoehe(mediumId, kapazitaet);
+			});
+		} finally {
+			lock.unlockWrite(stamp);
+		}
+	}
+
+	/**
+	 * Kopiert die Zeile eines Mediums, auch bei einem optimistischen Lesen ohne Ausnahmen
+	 */
+	private Nachbarn kopiere(long mediumId) {
+		var d = daten;
+		var zeilen = d.zeilen;
+		long zeile = d.medien.first(mediumId, -1);
+		if (zeile < 0 || zeile >= zeilen.length || zeilen[(int) zeile] == null) {
+			return null;
+		}
+		return zeilen[(int) zeile].kopie();
+	}
+
+	/**
+	 * Zählt für jedes Medium parallel die Kunden pro Nachbar und behält die häufigsten Nachbarn
+	 */
+	private Daten berechne(Historie historie) {
+		int n = historie.anzahl;
+		// Medien-Ids auf fortlaufende Indizes abbilden
+		var ids = Arrays.copyOf(historie.medien, n);
+		Arrays.parallelSort(ids);
+		int m = 0;
+		for (int i = 0; i < n; i++) {
+			if (m == 0 || ids[m - 1] != ids[i])
+				ids[m++] = ids[i];
+		}
+		int anzahlMedien = m;
+		var medium = new int[n];
+		IntStream.range(0, n).parallel()
+				.forEach(i -> medium[i] = Arrays.binarySearch(ids, 0, anzahlMedien, historie.medien[i]));
+		// Umgekehrte Zuordnung von jedem Medium auf die Kunden, die es ausgeliehen haben
+		var medienStart = new int[anzahlMedien + 1];
+		for (int i = 0; i < n; i++) {
+			medienStart[medium[i] + 1]++;
+		}
+		Arrays.parallelPrefix(medienStart, Integer::sum);
+		var medienKunden = new int[n];
+		var position = Arrays.copyOf(medienStart, anzahlMedien);
+		for (int k = 0; k < historie.kunden; k++) {
+			for (int i = historie.start[k]; i < historie.start[k + 1]; i++) {
+				medienKunden[position[medium[i]]++] = k;
+			}
+		}
+		var zeilen = new Nachbarn[Math.max(16, anzahlMedien)];
+		// Jeder Thread zählt einen Block von Medien mit einem freien Zähler, es gibt höchstens einen pro Thread
+		var freieZaehler = new ConcurrentLinkedQueue<Zaehler>();
+		IntStream.range(0, (anzahlMedien + BLOCK - 1) / BLOCK).parallel().forEach(block -> {
+			var z = freieZaehler.poll();
+			if (z == null)
+				z = new Zaehler(anzahlMedien);
+			for (int a = block * BLOCK; a < Math.min(anzahlMedien, (block + 1) * BLOCK); a++) {
+				for (int j = medienStart[a]; j < medienStart[a + 1]; j++) {
+					int k = medienKunden[j];
+					for (int i = historie.start[k]; i < historie.start[k + 1]; i++) {
+						if (medium[i] != a)
+							z.zaehle(medium[i]);
+					}
+				}
+				zeilen[a] = z.auswaehlen(ids, kapazitaet);
+			}
+			freieZaehler.offer(z);
+		});
+		var medien = new LongLongMultiMap(anzahlMedien);
+		for (int a = 0; a < anzahlMedien; a++) {
+			medien.put(ids[a], a);
+		}
+		return new Daten(medien, zeilen, anzahlMedien);
+	}
+
+	/**
+	 * Zeilen aller Medien, die Zeile eines Mediums wird über seine Id in {@link #medien} gefunden
+	 */
+	private static final class Daten {
+
+		private final LongLongMultiMap medien;
+		private Nachbarn[] zeilen;
+		private int anzahl;
+
+		private Daten(LongLongMultiMap medien, Nachbarn[] zeilen, int anzahl) {
+			this.medien = medien;
+			this.zeilen = zeilen;
+			this.anzahl = anzahl;
+		}
+
+		/**
+		 * Gibt die Zeile eines Mediums zurück und legt sie bei Bedarf an
+		 */
+		private Nachbarn zeile(long mediumId) {
+			long zeile = medien.first(mediumId, -1);
+			if (zeile >= 0) {
+				return zeilen[(int) zeile];
+			}
+			if (anzahl == zeilen.length) {
+				zeilen = Arrays.copyOf(zeilen, anzahl * 2);
+			}
+			var neu = new Nachbarn(0);
+			zeilen[anzahl] = neu;
+			medien.put(mediumId, anzahl++);
+			return neu;
+		}
+
+	}
+
+	/**
+	 * Nachbarn eines Mediums: Ids der anderen Medien, die geschätzte Anzahl Kunden und deren Überschätzung, unsortiert
+	 */
+	private static final class Nachbarn {
+
+		private long[] ids;
+		private int[] kunden;
+		private int[] fehler;
+		private int size;
+
+		private Nachbarn(int kapazitaet) {
+			ids = new long[kapazitaet];
+			kunden = new int[kapazitaet];
+			fehler = new int[kapazitaet];
+		}
+
+		/**
+		 * Zählt einen Kunden für einen Nachbarn. Ist die Zeile voll, ersetzt er den Nachbarn mit den wenigsten
+		 * Kunden und übernimmt dessen Zähler, damit neue Nachbarn nicht sofort wieder verdrängt werden. Der
+		 * übernommene Zähler wird als Fehler gemerkt, da der neue Nachbar diese Kunden nicht unbedingt hat.
+		 */
+		private void erhoehe(long id, int kapazitaet) {
+			for (int i = 0; i < size; i++) {
+				if (ids[i] == id) {
+					kunden[i]++;
+					return;
+				}
+			}
+			if (size == ids.length && size < kapazitaet) {
+				int neu = Math.min(kapazitaet, Math.max(4, size * 2));
+				ids = Arrays.copyOf(ids, neu);
+				kunden = Arrays.copyOf(kunden, neu);
+				fehler = Arrays.copyOf(fehler, neu);
+			}
+			if (size < ids.length) {
+				ids[size] = id;
+				kunden[size] = 1;
+				fehler[size++] = 0;
+				return;
+			}
+			int min = 0;
+			for (int i = 1; i < size; i++) {
+				if (kunden[i] < kunden[min])
+					min = i;
+			}
+			ids[min] = id;
+			fehler[min] = kunden[min];
+			kunden[min]++;
+		}
+
+		/**
+		 * Kopiert die Zeile, die Arrays werden nur einmal gelesen, da sie beim Vergrössern ersetzt werden
+		 */
+		private Nachbarn kopie() {
+			var i = ids;
+			var k = kunden;
+			var f = fehler;
+			var kopie = new Nachbarn(0);
+			int n = Math.min(size, Math.min(i.length, Math.min(k.length, f.length)));
+			kopie.ids = Arrays.copyOf(i, n);
+			kopie.kunden = Arrays.copyOf(k, n);
+			kopie.fehler = Arrays.copyOf(f, n);
+			kopie.size = n;
+			return kopie;
+		}
+
+	}
+
+	/**
+	 * Medien der Historie, nach Kunden gruppiert. Die Medien des Kunden k liegen von start[k] bis start[k + 1].
+	 */
+	private static final class Historie {
+
+		private long[] medien = new long[1024];
+		private int[] start = new int[256];
+		private int anzahl;
+		private int kunden;
+		private long kunde;
+
+		/**
+		 * Fügt eine Zeile hinzu, die Zeilen müssen nach Kunde und innerhalb des Kunden von neu nach alt kommen
+		 */
+		private void fuegeHinzu(long kundeId, long mediumId) {
+			if (kunden == 0 || kundeId != kunde) {
+				if (kunden + 2 > start.length) {
+					start = Arrays.copyOf(start, start.length * 2);
+				}
+				kunde = kundeId;
+				kunden++;
+				start[kunden] = anzahl;
+			}
+			int von = start[kunden - 1];
+			if (anzahl - von >= MAX_HISTORIE) {
+				return;
+			}
+			for (int i = von; i < anzahl; i++) {
+				if (medien[i] == mediumId)
+					return;
+			}
+			if (anzahl == medien.length) {
+				medien = Arrays.copyOf(medien, anzahl * 2);
+			}
+			medien[anzahl++] = mediumId;
+			start[kunden] = anzahl;
+		}
+
+	}
+
+	/**
+	 * Zähler eines Threads beim Aufbau. Gezählt wird über fortlaufende Indizes, zurückgesetzt werden nur die
+	 * berührten Einträge. Die häufigsten Nachbarn werden mit einem Min-Heap ausgewählt.
+	 */
+	private static final class Zaehler {
+
+		private final int[] anzahl;
+		private final int[] beruehrt;
+		private int anzahlBeruehrt;
+		private int[] heap = new int[16];
+
+		private Zaehler(int medien) {
+			anzahl = new int[medien];
+			beruehrt = new int[medien];
+		}
+
+		private void zaehle(int medium) {
+			if (anzahl[medium]++ == 0)
+				beruehrt[anzahlBeruehrt++] = medium;
+		}
+
+		private Nachbarn auswaehlen(long[] ids, int kapazitaet) {
+			if (heap.length < kapazitaet) {
+				heap = new int[kapazitaet];
+			}
+			int n = 0;
+			for (int j = 0; j < anzahlBeruehrt; j++) {
+				int b = beruehrt[j];
+				if (n < kapazitaet) {
+					heap[n] = b;
+					hoch(n++);
+				} else if (anzahl[b] > anzahl[heap[0]]) {
+					heap[0] = b;
+					runter(n);
+				}
+			}
+			var zeile = new Nachbarn(n);
+			for (int i = 0; i < n; i++) {
+				zeile.ids[i] = ids[heap[i]];
+				zeile.kunden[i] = anzahl[heap[i]];
+			}
+			zeile.size = n;
+			for (int j = 0; j < anzahlBeruehrt; j++) {
+				anzahl[beruehrt[j]] = 0;
+			}
+			anzahlBeruehrt = 0;
+			return zeile;
+		}
+
+		private void hoch(int i) {
+			while (i > 0 && anzahl[heap[i]] < anzahl[heap[(i - 1) / 2]]) {
+				tausche(i, (i - 1) / 2);
+				i = (i - 1) / 2;
+			}
+		}
+
+		private void runter(int n) {
+			for (int i = 0;;) {
+				int kleinster = i;
+				for (int kind = 2 * i + 1; kind <= 2 * i + 2 && kind < n; kind++) {
+					if (anzahl[heap[kind]] < anzahl[heap[kleinster]])
+						kleinster = kind;
+				}
+				if (kleinster == i) {
+					return;
+				}
+				tausche(i, kleinster);
+				i = kleinster;
+			}
+		}
+
+		private void tausche(int a, int b) {
+			int t = heap[a];
+			heap[a] = heap[b];
+			heap[b] = t;
+		}
+
+	}
+
+}
@@ -0,0 +1,98 @@
+package com.helvetia.m295.libraryserver.service;
+
+import java.nio.channels.Channels;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import com.helvetia.m295.libraryserver.common.ExportJob;
+
+/**
+ * Klasse um Serveranfragen rund um den Export des Katalogs zu bearbeiten.
+ * Ein Export wird im Hintergrund von {@link KatalogExport} erstellt und kann danach über seine Id
+ * heruntergeladen werden. Die Id ist nur auf der Instanz bekannt, die den Export gestartet hat, hinter einem Load
+ * Balancer braucht es dafür Sticky Sessions.
+ *
+ * @version 1.0.0
+ * @author Simon Fäs
+ * @see ExportJob
+ * @see KatalogExport
+ */
+@RestController
+@RequestMapping(path = "/export")
+public class ExportController {
+
+	@Autowired
+	private KatalogExport katalogExport;
+
+	/**
+	 * Startet einen Export des ganzen Katalogs als CSV. Läuft bereits ein Export, wird dieser zurückgegeben.
+	 *
+	 * @return Der gestartete oder laufende Export mit seiner Id.
+	 */
+	@PostMapping("/katalog")
+	@ResponseStatus(HttpStatus.ACCEPTED)
+	public @ResponseBody ExportJob startKatalogExport() {
+		return katalogExport.starte();
+	}
+
+	/**
+	 * Gibt einen {@link KatalogSnapshot} mit allen Medien und Adressen für Kiosk-Instanzen zurück.
+	 * Die Datei wird auf dem Kiosk unter {@code library.snapshot.file} abgelegt.
+	 *
+	 * @return Die Snapshot-Datei.
+	 */
+	@GetMapping("/snapshot")
+	public ResponseEntity<StreamingResponseBody> downloadSnapshot() {
+		return ResponseEntity.ok().contentType(MediaType.APPLICATION_OCTET_STREAM)
+				.header(HttpHeaders.CONTENT_DISPOSITION,
+						ContentDisposition.attachment().filename("katalog.snapshot").build().toString())
+				.body(out -> katalogExport.schreibeSnapshot(Channels.newChannel(out)));
+	}
+
+	/**
+	 * Gibt den Zustand eines Exports zurück.
+	 *
+	 * @param id Die Id des Exports.
+	 * @return Der Export.
+	 * @throws ResponseStatusException Wenn diese Instanz keinen Export mit dieser Id kennt.
+	 */
+	@GetMapping("/{id}")
+	public @ResponseBody ExportJob getExport(@PathVariable("id") String id) {
+		return katalogExport.getJob(id).orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND,
+				"Export not found, exports are only known to the instance that started them (sticky sessions required)"));
+	}
+
+	/**
+	 * Gibt die gzip-komprimierte CSV-Datei eines abgeschlossenen Exports zurück.
+	 *
+	 * @param id Die Id des Exports.
+	 * @return Die Datei des Exports.
+	 * @throws ResponseStatusException Wenn es keinen Export mit dieser Id gibt, er noch läuft oder fehlgeschlagen ist.
+	 */
+	@GetMapping("/{id}/download")
+	public ResponseEntity<Resource> downloadExport(@PathVariable("id") String id) {
+		var job = getExport(id);
+		switch (job.status()) {
+		case LAUFEND:
+			throw new ResponseStatusException(HttpStatus.CONFLICT, "Export is still running");
+		case FEHLER:
+			throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, job.fehler());
+		default:
+			return ResponseEntity.ok().contentType(MediaType.parseMediaType("application/gzip"))
+					.header(HttpHeaders.CONTENT_DISPOSITION,
+							ContentDisposition.attachment().filename("katalog.csv.gz").build().toString())
+					.body(new FileSystemResource(katalogExport.getDatei(job)));
+		}
+	}
+
+}
@@ -0,0 +1,38 @@
+package com.helvetia.m295.libraryserver.service;
+
+/**
+ * Gespeicherte Antwort eines Requests mit Idempotency-Key, wird bei einer Wiederholung erneut gesendet.
+ * <ul>
+ * <li>{@link #status}: HTTP-Statuscode, 0 solange der Request noch bearbeitet wird</li>
+ * <li>{@link #contentType}: Content-Type der Antwort, kann null sein</li>
+ * <li>{@link #body}: Inhalt der Antwort</li>
+ * <li>{@link #anfrageHash}: SHA-256 des Request-Inhalts, eine Wiederholung mit anderem Inhalt wird abgewiesen</li>
+ * </ul>
+ *
+ * @version 1.0.0
+ * @author Simon Fäs
+ * @see IdempotenzSpeicher
+ */
+public record IdempotenteAntwort(int status, String contentType, byte[] body, String anfrageHash) {
+
+	/**
+	 * Platzhalter für einen Request, der noch bearbeitet wird
+	 */
+	public static final IdempotenteAntwort IN_BEARBEITUNG = new IdempotenteAntwort(0, null, new byte[0], null);
+
+	/**
+	 * @return true, solange der Request mit diesem Schlüssel noch bearbeitet wird
+	 */
+	public boolean inBearbeitung() {
+		return status == 0;
+	}
+
+	/**
+	 * @param hash SHA-256 des Request-Inhalts einer Wiederholung
+	 * @return true, wenn die Wiederholung denselben Inhalt hat. Einträge ohne Hash passen zu jedem Inhalt.
+	 */
+	public boolean passtZu(String hash) {
+		return anfrageHash == null || anfrageHash.equals(hash);
+	}
+
+}
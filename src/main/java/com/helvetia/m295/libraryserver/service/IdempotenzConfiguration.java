@@ -0,0 +1,66 @@
+package com.helvetia.m295.libraryserver.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Klasse für die Konfiguration der Idempotency-Keys.
+ * <ul>
+ * <li>{@code library.idempotenz.speicher=speicher}: Antworten im Speicher der Instanz (Standard)</li>
+ * <li>{@code library.idempotenz.speicher=datenbank}: Antworten in der Tabelle {@code idempotenz}, für mehrere
+ * Instanzen</li>
+ * <li>{@code library.idempotenz.ttl-millis}: Zeit, während der eine Antwort wiederholt wird</li>
+ * <li>{@code library.idempotenz.max-eintraege}: Maximale Anzahl Antworten im Speicher</li>
+ * <li>{@code library.idempotenz.cleanup-millis}: Intervall, in dem abgelaufene Zeilen gelöscht werden</li>
+ * </ul>
+ *
+ * @version 1.0.0
+ * @author Simon Fäs
+ * @see IdempotenzFilter
+ */
+@Configuration
+public class IdempotenzConfiguration {
+
+	/**
+	 * Speicher im Speicher der Instanz
+	 * @param ttlMillis Zeit, während der eine Antwort wiederholt wird
+	 * @param maxEintraege Maximale Anzahl Antworten
+	 * @return Speicher
+	 */
+	@Bean
+	@ConditionalOnProperty(name = "library.idempotenz.speicher", havingValue = "speicher", matchIfMissing = true)
+	public SpeicherIdempotenz speicherIdempotenz(@Value("${library.idempotenz.ttl-millis:86400000}") long ttlMillis,
+			@Value("${library.idempotenz.max-eintraege:10000}") int maxEintraege) {
+		return new SpeicherIdempotenz(ttlMillis, maxEintraege);
+	}
+
+	/**
+	 * Speicher in der Datenbank
+	 * @param jdbcTemplate Zugriff auf die Tabelle {@code idempotenz}
+	 * @param ttlMillis Zeit, während der eine Antwort wiederholt wird
+	 * @return Speicher
+	 */
+	@Bean
+	@ConditionalOnProperty(name = "library.idempotenz.speicher", havingValue = "datenbank")
+	public DatenbankIdempotenz datenbankIdempotenz(JdbcTemplate jdbcTemplate,
+			@Value("${library.idempotenz.ttl-millis:86400000}") long ttlMillis) {
+		return new DatenbankIdempotenz(jdbcTemplate, ttlMillis);
+	}
+
+	/**
+	 * Registriert den {@link IdempotenzFilter} für die Ausleihen, Kunden und Medien
+	 * @param speicher Speicher für die Antworten
+	 * @return Registrierung des Filters
+	 */
+	@Bean
+	public FilterRegistrationBean<IdempotenzFilter> idempotenzFilter(IdempotenzSpeicher speicher) {
+		var registrierung = new FilterRegistrationBean<>(new IdempotenzFilter(speicher));
+		registrierung.addUrlPatterns("/ausleihe/*", "/kunde/*", "/medium/*");
+		return registrierung;
+	}
+
+}
@@ -0,0 +1,231 @@
+package com.helvetia.m295.libraryserver.service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Set;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Filter für den Header {@value #IDEMPOTENCY_KEY_HEADER} bei ändernden Requests (POST, PUT, PATCH, DELETE).
+ * Sendet ein Client einen Request mit demselben Schlüssel erneut, wird er nicht noch einmal ausgeführt, sondern
+ * die gespeicherte Antwort mit dem Header {@value #REPLAYED_HEADER} gesendet. Ein Terminal kann einen POST nach
+ * einem Timeout also wiederholen, ohne einen Kunden doppelt zu erstellen.
+ * <ul>
+ * <li>Der Schlüssel gilt pro Methode, Pfad und Client ({@link RateLimitFilter#API_KEY_HEADER})</li>
+ * <li>Mit der Antwort wird ein Hash des Request-Inhalts gespeichert. Eine Wiederholung mit anderem Inhalt wird mit
+ * 422(UNPROCESSABLE_ENTITY) abgewiesen, statt die Antwort eines anderen Requests zu senden.</li>
+ * <li>Läuft der erste Request noch, wird die Wiederholung mit 409(CONFLICT) und Retry-After abgewiesen</li>
+ * <li>Antworten mit 5xx und Exceptions werden nicht gespeichert, eine Wiederholung wird erneut ausgeführt</li>
+ * <li>Bei Fehlerantworten wird nur der Statuscode wiederholt, der Inhalt entsteht erst beim Error-Dispatch</li>
+ * </ul>
+ * Requests ohne den Header werden unverändert ausgeführt.
+ *
+ * @version 1.0.0
+ * @author Simon Fäs
+ * @see IdempotenzSpeicher
+ * @see IdempotenzConfiguration
+ */
+public class IdempotenzFilter extends OncePerRequestFilter {
+
+	/**
+	 * Header, mit dem ein Client einen Request eindeutig kennzeichnet
+	 */
+	public static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+
+	/**
+	 * Header in wiederholten Antworten
+	 */
+	public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+
+	private static final int MAX_LAENGE = 255;
+	private static final Set<String> AENDERND = Set.of("POST", "PUT", "PATCH", "DELETE");
+
+	private final IdempotenzSpeicher speicher;
+
+	/**
+	 * Constructor mit dem Speicher als Parameter
+	 * @param speicher Speicher für die Antworten
+	 */
+	public IdempotenzFilter(IdempotenzSpeicher speicher) {
+		this.speicher = speicher;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	protected boolean shouldNotFilter(HttpServletRequest request) {
+		return !AENDERND.contains(request.getMethod()) || request.getHeader(IDEMPOTENCY_KEY_HEADER) == null;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+			throws ServletException, IOException {
+		var key = request.getHeader(IDEMPOTENCY_KEY_HEADER);
+		if (key.isBlank() || key.length() > MAX_LAENGE) {
+			response.sendError(HttpStatus.BAD_REQUEST.value(), "Invalid Idempotency-Key");
+			return;
+		}
+		var schluessel = schluessel(request, key);
+		var gespeichert = speicher.reserviere(schluessel);
+		if (gespeichert != null) {
+			if (!gespeichert.inBearbeitung() && !gespeichert.passtZu(new HashRequest(request).hash())) {
+				response.sendError(HttpStatus.UNPROCESSABLE_ENTITY.value(),
+						"Idempotency-Key was already used with a different request body");
+				return;
+			}
+			wiederhole(response, gespeichert);
+			return;
+		}
+		var anfrage = new HashRequest(request);
+		var wrapper = new ContentCachingResponseWrapper(response);
+		String hash;
+		try {
+			filterChain.doFilter(anfrage, wrapper);
+			hash = anfrage.hash();
+		} catch (ServletException | IOException | RuntimeException e) {
+			speicher.freigeben(schluessel);
+			throw e;
+		}
+		if (wrapper.getStatus() >= 500) {
+			speicher.freigeben(schluessel);
+		} else {
+			speicher.speichere(schluessel, new IdempotenteAntwort(wrapper.getStatus(), wrapper.getContentType(),
+					wrapper.getContentAsByteArray(), hash));
+		}
+		wrapper.copyBodyToResponse();
+	}
+
+	/**
+	 * Sendet eine gespeicherte Antwort oder weist die Wiederholung ab, solange der erste Request noch läuft
+	 */
+	private static void wiederhole(HttpServletResponse response, IdempotenteAntwort antwort) throws IOException {
+		if (antwort.inBearbeitung()) {
+			response.setStatus(HttpStatus.CONFLICT.value());
+			response.setHeader("Retry-After", "1");
+			return;
+		}
+		response.setStatus(antwort.status());
+		response.setHeader(REPLAYED_HEADER, "true");
+		if (antwort.contentType() != null)
+			response.setContentType(antwort.contentType());
+		response.setContentLength(antwort.body().length);
+		response.getOutputStream().write(antwort.body());
+	}
+
+	/**
+	 * Bildet den Schlüssel im Speicher als SHA-256 aus Methode, Pfad, Client und Header, damit er eine feste Länge hat
+	 */
+	private static String schluessel(HttpServletRequest request, String key) {
+		var client = request.getHeader(RateLimitFilter.API_KEY_HEADER);
+		var text = request.getMethod() + ' ' + request.getRequestURI() + '\n' + (client != null ? client : "") + '\n' + key;
+		return HexFormat.of().formatHex(sha256().digest(text.getBytes(StandardCharsets.UTF_8)));
+	}
+
+	private static MessageDigest sha256() {
+		try {
+			return MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * Request, der den Hash seines Inhalts beim Lesen berechnet. Der Inhalt wird nicht zwischengespeichert, damit
+	 * auch ein grosser Bulk-Import mit konstantem Speicher durchläuft.
+	 */
+	private static class HashRequest extends HttpServletRequestWrapper {
+
+		private final MessageDigest digest = sha256();
+		private ServletInputStream inputStream;
+		private BufferedReader reader;
+
+		HashRequest(HttpServletRequest request) {
+			super(request);
+		}
+
+		@Override
+		public ServletInputStream getInputStream() throws IOException {
+			if (inputStream == null) {
+				var original = super.getInputStream();
+				inputStream = new ServletInputStream() {
+
+					@Override
+					public int read() throws IOException {
+						int b = original.read();
+						if (b >= 0)
+							digest.update((byte) b);
+						return b;
+					}
+
+					@Override
+					public int read(byte[] b, int off, int len) throws IOException {
+						int gelesen = original.read(b, off, len);
+						if (gelesen > 0)
+							digest.update(b, off, gelesen);
+						return gelesen;
+					}
+
+					@Override
+					public boolean isFinished() {
+						return original.isFinished();
+					}
+
+					@Override
+					public boolean isReady() {
+						return original.isReady();
+					}
+
+					@Override
+					public void setReadListener(ReadListener listener) {
+						original.setReadListener(listener);
+					}
+
+				};
+			}
+			return inputStream;
+		}
+
+		@Override
+		public BufferedReader getReader() throws IOException {
+			if (reader == null) {
+				var encoding = getCharacterEncoding();
+				var charset = encoding != null ? Charset.forName(encoding) : StandardCharsets.UTF_8;
+				reader = new BufferedReader(new InputStreamReader(getInputStream(), charset));
+			}
+			return reader;
+		}
+
+		/**
+		 * Liest den Rest des Inhalts, den der Controller nicht gelesen hat
+		 * @return SHA-256 des ganzen Inhalts
+		 */
+		String hash() throws IOException {
+			getInputStream().transferTo(OutputStream.nullOutputStream());
+			return HexFormat.of().formatHex(digest.digest());
+		}
+
+	}
+
+}
@@ -0,0 +1,37 @@
+package com.helvetia.m295.libraryserver.service;
+
+/**
+ * Speicher für die Antworten der Requests mit Idempotency-Key.
+ * Ein Schlüssel wird vor dem Ausführen reserviert, danach wird die Antwort gespeichert oder die Reservierung bei
+ * einem Fehler wieder freigegeben. Einträge verfallen nach einer festen Zeit.
+ *
+ * @version 1.0.0
+ * @author Simon Fäs
+ * @see IdempotenzFilter
+ * @see IdempotenzConfiguration
+ */
+public interface IdempotenzSpeicher {
+
+	/**
+	 * Reserviert einen Schlüssel, sofern es noch keinen gültigen Eintrag dafür gibt
+	 * @param schluessel Schlüssel des Requests
+	 * @return null, wenn der Schlüssel reserviert wurde und der Request ausgeführt werden soll, sonst die
+	 *         gespeicherte Antwort oder {@link IdempotenteAntwort#IN_BEARBEITUNG}
+	 */
+	IdempotenteAntwort reserviere(String schluessel);
+
+	/**
+	 * Speichert die Antwort zu einem reservierten Schlüssel
+	 * @param schluessel Schlüssel des Requests
+	 * @param antwort Antwort, die bei Wiederholungen gesendet wird
+	 */
+	void speichere(String schluessel, IdempotenteAntwort antwort);
+
+	/**
+	 * Gibt einen reservierten Schlüssel frei, ohne eine Antwort zu speichern. Eine Wiederholung wird dann erneut
+	 * ausgeführt.
+	 * @param schluessel Schlüssel des Requests
+	 */
+	void freigeben(String schluessel);
+
+}
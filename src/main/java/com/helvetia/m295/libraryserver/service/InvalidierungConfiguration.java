@@ -0,0 +1,49 @@
+package com.helvetia.m295.libraryserver.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Klasse für die Konfiguration des Transports der Invalidierungen zwischen den Instanzen.
+ * <ul>
+ * <li>{@code library.invalidierung.transport=datenbank}: Über die Tabelle {@code invalidierung} (Standard)</li>
+ * <li>{@code library.invalidierung.transport=jvm}: Zwischen Applikationskontexten in derselben JVM, für Tests</li>
+ * <li>{@code library.invalidierung.transport=keine}: Keine Verteilung, für eine einzelne Instanz oder den Kiosk</li>
+ * <li>{@code library.invalidierung.poll-millis}: Intervall, in dem die Tabelle abgefragt wird</li>
+ * <li>{@code library.invalidierung.retention-millis}: Zeit, nach der Zeilen der Tabelle gelöscht werden</li>
+ * </ul>
+ *
+ * @version 1.0.0
+ * @author Simon Fäs
+ * @see InvalidierungsBus
+ */
+@Configuration
+public class InvalidierungConfiguration {
+
+	/**
+	 * Transport über die Datenbank
+	 * @param jdbcTemplate Zugriff auf die Tabelle {@code invalidierung}
+	 * @param retentionMillis Zeit, nach der Zeilen gelöscht werden
+	 * @return Transport
+	 */
+	@Bean
+	@ConditionalOnProperty(name = "library.invalidierung.transport", havingValue = "datenbank", matchIfMissing = true)
+	public DatenbankInvalidierung datenbankInvalidierung(JdbcTemplate jdbcTemplate,
+			@Value("${library.invalidierung.retention-millis:3600000}") long retentionMillis) {
+		return new DatenbankInvalidierung(jdbcTemplate, retentionMillis);
+	}
+
+	/**
+	 * Transport innerhalb der JVM
+	 * @return Transport
+	 */
+	@Bean
+	@ConditionalOnProperty(name = "library.invalidierung.transport", havingValue = "jvm")
+	public JvmInvalidierung jvmInvalidierung() {
+		return new JvmInvalidierung();
+	}
+
+}
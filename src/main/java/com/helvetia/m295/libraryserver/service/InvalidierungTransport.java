@@ -0,0 +1,33 @@
+package com.helvetia.m295.libraryserver.service;
+
+import java.util.function.Consumer;
+
+import com.helvetia.m295.libraryserver.common.Invalidierung;
+
+/**
+ * Überträgt {@link Invalidierung}en zwischen den Instanzen der Applikation.
+ * Jede Instanz meldet sich mit einer eindeutigen Kennung an und erhält nur die Invalidierungen der anderen Instanzen.
+ *
+ * @version 1.0.0
+ * @author Simon Fäs
+ * @see InvalidierungsBus
+ * @see DatenbankInvalidierung
+ * @see JvmInvalidierung
+ */
+public interface InvalidierungTransport {
+
+	/**
+	 * Meldet eine Instanz an
+	 * @param knoten Kennung der Instanz
+	 * @param empfaenger Erhält die Invalidierungen der anderen Instanzen
+	 */
+	void verbinde(String knoten, Consumer<Invalidierung> empfaenger);
+
+	/**
+	 * Sendet eine Invalidierung an alle anderen Instanzen
+	 * @param knoten Kennung der sendenden Instanz
+	 * @param invalidierung Zu verwerfendes Objekt
+	 */
+	void sende(String knoten, Invalidierung invalidierung);
+
+}
@@ -0,0 +1,67 @@
+package com.helvetia.m295.libraryserver.service;
+
+import java.util.UUID;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+import com.helvetia.m295.libraryserver.common.Invalidierung;
+
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Verteilt Invalidierungen von Caches an die anderen Instanzen der Applikation.
+ * Die Controller verwerfen ihre eigenen Caches nach einer Änderung selbst und melden die Änderung mit
+ * {@link #publiziere(Invalidierung.Typ, Long)}. Invalidierungen anderer Instanzen werden als {@link Invalidierung}
+ * Event publiziert, auf das die Caches mit einem {@link org.springframework.context.event.EventListener} reagieren.
+ * <p>
+ * Der Transport wird mit {@code library.invalidierung.transport} gewählt, siehe {@link InvalidierungConfiguration}.
+ * Ohne Transport werden keine Invalidierungen verteilt.
+ *
+ * @version 1.0.0
+ * @author Simon Fäs
+ * @see Invalidierung
+ * @see InvalidierungTransport
+ */
+@Component
+public class InvalidierungsBus {
+
+	private final String knoten = UUID.randomUUID().toString();
+
+	@Autowired(required = false)
+	private InvalidierungTransport transport;
+
+	@Autowired
+	private ApplicationEventPublisher eventPublisher;
+
+	/**
+	 * Meldet diese Instanz beim Transport an
+	 */
+	@PostConstruct
+	void verbinde() {
+		if (transport != null) {
+			transport.verbinde(knoten, eventPublisher::publishEvent);
+		}
+	}
+
+	/**
+	 * Meldet den anderen Instanzen, dass ein Objekt geändert wurde
+	 * @param typ Art des Objekts
+	 * @param id Id des Objekts, null wenn alle Objekte dieser Art betroffen sind
+	 */
+	public void publiziere(Invalidierung.Typ typ, Long id) {
+		if (transport != null) {
+			transport.sende(knoten, new Invalidierung(typ, id));
+		}
+	}
+
+	/**
+	 * Gibt die Kennung dieser Instanz zurück
+	 * @return Kennung der Instanz
+	 */
+	public String getKnoten() {
+		return knoten;
+	}
+
+}
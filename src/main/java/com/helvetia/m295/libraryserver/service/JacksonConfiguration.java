@@ -0,0 +1,36 @@
+package com.helvetia.m295.libraryserver.service;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.NativeDetector;
+
+import com.fasterxml.jackson.databind.Module;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+
+/**
+ * Klasse für Konfigurationen der JSON-Serialisierung.
+ * Registriert das {@link BlackbirdModule}, welches die Getter und Konstruktoren der Antworten
+ * (zum Beispiel {@link com.helvetia.m295.libraryserver.common.MediumDto}) über generierte Lambdas statt über Reflection
+ * aufruft. Spring Boot übernimmt jedes {@link Module} automatisch in den {@code ObjectMapper}.
+ * Im Native Image können keine Lambdas zur Laufzeit erzeugt werden, dort bleibt es bei Reflection.
+ * 
+ * @version 1.0.0
+ * @author Simon Fäs
+ */
+@Configuration
+public class JacksonConfiguration {
+
+	/**
+	 * Modul, welches die Serialisierung beschleunigt
+	 * @return Blackbird oder im Native Image ein leeres Modul
+	 */
+	@Bean
+	public Module blackbirdModule() {
+		if (NativeDetector.inNativeImage()) {
+			return new SimpleModule("blackbird-disabled");
+		}
+		return new BlackbirdModule();
+	}
+
+}
@@ -0,0 +1,52 @@
+package com.helvetia.m295.libraryserver.service;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+import com.helvetia.m295.libraryserver.common.Invalidierung;
+
+/**
+ * Transport für Invalidierungen zwischen mehreren Applikationskontexten in derselben JVM, z.B. in Tests.
+ * Alle Instanzen teilen sich eine statische Liste von Empfängern, gesendet wird direkt im Thread des Senders.
+ * Beim Schliessen des Kontexts werden seine Empfänger wieder entfernt.
+ *
+ * @version 1.0.0
+ * @author Simon Fäs
+ * @see InvalidierungConfiguration
+ */
+public class JvmInvalidierung implements InvalidierungTransport, AutoCloseable {
+
+	private static final List<Empfaenger> EMPFAENGER = new CopyOnWriteArrayList<>();
+
+	private final List<Empfaenger> eigene = new CopyOnWriteArrayList<>();
+
+	@Override
+	public void verbinde(String knoten, Consumer<Invalidierung> empfaenger) {
+		var eintrag = new Empfaenger(knoten, empfaenger);
+		eigene.add(eintrag);
+		EMPFAENGER.add(eintrag);
+	}
+
+	@Override
+	public void sende(String knoten, Invalidierung invalidierung) {
+		for (var empfaenger : EMPFAENGER) {
+			if (!empfaenger.knoten().equals(knoten)) {
+				empfaenger.consumer().accept(invalidierung);
+			}
+		}
+	}
+
+	/**
+	 * Entfernt die Empfänger dieses Kontexts
+	 */
+	@Override
+	public void close() {
+		EMPFAENGER.removeAll(eigene);
+		eigene.clear();
+	}
+
+	private record Empfaenger(String knoten, Consumer<Invalidierung> consumer) {
+	}
+
+}
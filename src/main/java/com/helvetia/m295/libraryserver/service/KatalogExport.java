@@ -0,0 +1,355 @@
+package com.helvetia.m295.libraryserver.service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.Date;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.zip.GZIPOutputStream;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.helvetia.m295.libraryserver.common.ExportJob;
+import com.helvetia.m295.libraryserver.common.ExportJob.Status;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Export des ganzen Katalogs als gzip-komprimiertes CSV, pro Medium mit dem Status der aktuellen Ausleihe.
+ * Der Id-Bereich der Medien wird in Blöcke ({@code library.export.chunk-size}) aufgeteilt. Die Blöcke werden auf
+ * einem eigenen {@link ForkJoinPool} ({@code library.export.parallelism}, standardmässig ein Thread pro Kern)
+ * parallel gelesen, formatiert und je als eigenes gzip-Member komprimiert, jeder Block in einer eigenen
+ * Read-Only-Transaktion. Die Members werden in der Reihenfolge der Ids in die Datei geschrieben; aneinandergehängte
+ * gzip-Members sind wieder eine gültige gzip-Datei. Es sind höchstens doppelt so viele Blöcke unterwegs, wie der
+ * Pool Threads hat, damit der Speicherbedarf unabhängig von der Grösse des Katalogs bleibt.
+ * Die Parallelität sollte kleiner als der Verbindungspool sein.
+ * <p>
+ * Es läuft höchstens ein Export gleichzeitig, weil jeder Export bis zu seinem Ende Lese-Verbindungen belegt.
+ * Wird während eines laufenden Exports ein weiterer gestartet, wird der laufende zurückgegeben.
+ * <p>
+ * Die Jobs und ihre Dateien kennt nur die Instanz, die den Export gestartet hat. Laufen mehrere Instanzen hinter
+ * einem Load Balancer, müssen Abfrage und Download deshalb per Sticky Session auf dieser Instanz landen; jede andere
+ * Instanz antwortet mit 404.
+ * <p>
+ * Zusätzlich wird hier der {@link KatalogSnapshot} für Kiosk-Instanzen erstellt.
+ *
+ * @version 1.0.0
+ * @author Simon Fäs
+ * @see ExportController
+ */
+@Service
+public class KatalogExport {
+
+	private static final String HEADER = "id,titel,autor,genre,altersfreigabe,isbn,standortcode,ausgeliehen,kundenid,"
+			+ "ausleihedatum,faelligam\n";
+	private static final String SELECT_MIN = "SELECT MIN(id) FROM medium";
+	private static final String SELECT_MAX = "SELECT MAX(id) FROM medium";
+	private static final String SELECT_CHUNK = "SELECT m.id, m.titel, m.autor, m.genre, m.altersfreigabe, m.isbn, "
+			+ "m.standortcode, a.kundenid, a.ausleihedatum, a.ausleihedauer FROM medium m "
+			+ "LEFT JOIN ausleihe a ON a.medienid = m.id WHERE m.id >= ? AND m.id < ? "
+			+ "ORDER BY m.id, a.ausleihedatum DESC";
+	private static final String SELECT_SNAPSHOT_MEDIEN = "SELECT id, isbn, titel, autor, genre, standortcode, "
+			+ "altersfreigabe FROM medium WHERE id > ? ORDER BY id LIMIT ?";
+	private static final String SELECT_SNAPSHOT_ADRESSEN = "SELECT id, adresse, ort, zip FROM adresse WHERE id > ? "
+			+ "ORDER BY id LIMIT ?";
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	@Value("${library.export.parallelism:0}")
+	private int parallelism;
+
+	@Value("${library.export.chunk-size:5000}")
+	private long chunkSize;
+
+	@Value("${library.export.directory:${java.io.tmpdir}/libraryserver-export}")
+	private String directory;
+
+	@Value("${library.export.retention-millis:3600000}")
+	private long retentionMillis;
+
+	private final ConcurrentHashMap<String, ExportJob> jobs = new ConcurrentHashMap<>();
+	private String laufend;
+	private ForkJoinPool pool;
+	private TransactionTemplate readOnly;
+
+	/**
+	 * Erstellt den Pool für die Exporte
+	 */
+	@PostConstruct
+	void initPool() {
+		pool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+		readOnly = new TransactionTemplate(transactionManager);
+		readOnly.setReadOnly(true);
+	}
+
+	/**
+	 * Bricht laufende Exporte beim Herunterfahren ab
+	 */
+	@PreDestroy
+	void shutdownPool() {
+		pool.shutdownNow();
+	}
+
+	/**
+	 * Startet einen neuen Export im Hintergrund, sofern nicht bereits einer läuft
+	 * @return Der gestartete oder der bereits laufende Export
+	 */
+	public synchronized ExportJob starte() {
+		if (laufend != null) {
+			return jobs.get(laufend);
+		}
+		var job = new ExportJob(UUID.randomUUID().toString(), Status.LAUFEND, new Date(), 0, null);
+		jobs.put(job.id(), job);
+		laufend = job.id();
+		pool.execute(() -> exportiere(job));
+		return job;
+	}
+
+	/**
+	 * Gibt den aktuellen Zustand eines Exports zurück
+	 * @param id Id des Exports
+	 * @return Der Export oder leer, wenn es keinen Export mit dieser Id gibt
+	 */
+	public Optional<ExportJob> getJob(String id) {
+		return Optional.ofNullable(jobs.get(id));
+	}
+
+	/**
+	 * Gibt die Datei eines Exports zurück
+	 * @param job Export
+	 * @return Pfad der gzip-komprimierten CSV-Datei
+	 */
+	public Path getDatei(ExportJob job) {
+		return Path.of(directory).resolve(job.id() + ".csv.gz");
+	}
+
+	/**
+	 * Schreibt einen {@link KatalogSnapshot} mit allen Medien und Adressen. Die Zeilen werden wie beim CSV-Export in
+	 * Blöcken von {@code library.export.chunk-size} Ids gelesen, jeder Block in einer eigenen Read-Only-Transaktion,
+	 * und direkt in den {@link KatalogSnapshot.Schreiber} übernommen, ohne Entities zu erzeugen.
+	 * @param channel Ziel des Snapshots
+	 * @throws IOException Wenn nicht geschrieben werden kann
+	 */
+	public void schreibeSnapshot(WritableByteChannel channel) throws IOException {
+		var schreiber = new KatalogSnapshot.Schreiber();
+		long letzteId = Long.MIN_VALUE;
+		do {
+			letzteId = snapshotBlock(SELECT_SNAPSHOT_MEDIEN, letzteId, rs -> schreiber.medium(rs.getLong(1),
+					rs.getObject(2, Long.class), rs.getString(3), rs.getString(4), rs.getString(5), rs.getString(6),
+					rs.getObject(7, Short.class)));
+		} while (letzteId != Long.MIN_VALUE);
+		do {
+			letzteId = snapshotBlock(SELECT_SNAPSHOT_ADRESSEN, letzteId, rs -> schreiber.adresse(rs.getLong(1),
+					rs.getString(2), rs.getString(3), rs.getString(4)));
+		} while (letzteId != Long.MIN_VALUE);
+		schreiber.schreibe(channel);
+	}
+
+	/**
+	 * Entfernt abgeschlossene Exporte und ihre Dateien nach {@code library.export.retention-millis}, jede Minute
+	 */
+	@Scheduled(fixedDelay = 60000)
+	public void entferneAlteExporte() {
+		var grenze = System.currentTimeMillis() - retentionMillis;
+		jobs.values().removeIf(job -> {
+			if (job.status() == Status.LAUFEND || job.erstellt().getTime() >= grenze) {
+				return false;
+			}
+			loesche(getDatei(job));
+			return true;
+		});
+	}
+
+	/**
+	 * Führt einen Export aus. Läuft selbst im Pool, damit die Blöcke mit {@link ForkJoinTask#fork()} im selben
+	 * Pool gestartet werden.
+	 * @param job Auszuführender Export
+	 */
+	private void exportiere(ExportJob job) {
+		var datei = getDatei(job);
+		long medien = 0;
+		try {
+			Files.createDirectories(datei.getParent());
+			var bereich = readOnly.execute(status -> new Long[] { jdbcTemplate.queryForObject(SELECT_MIN, Long.class),
+					jdbcTemplate.queryForObject(SELECT_MAX, Long.class) });
+			try (var channel = FileChannel.open(datei, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+					StandardOpenOption.TRUNCATE_EXISTING)) {
+				schreibe(channel, gzip(HEADER));
+				if (bereich[0] != null) {
+					var fenster = 2 * pool.getParallelism();
+					var laufend = new ArrayDeque<ForkJoinTask<Block>>();
+					long naechster = bereich[0];
+					long ende = bereich[1] + 1;
+					while (naechster < ende || !laufend.isEmpty()) {
+						while (naechster < ende && laufend.size() < fenster) {
+							long von = naechster;
+							long bis = Math.min(ende, von + chunkSize);
+							laufend.add(ForkJoinTask.adapt(() -> block(von, bis)).fork());
+							naechster = bis;
+						}
+						var block = laufend.poll().join();
+						schreibe(channel, block.daten());
+						medien += block.medien();
+						jobs.put(job.id(), job.mit(Status.LAUFEND, medien, null));
+					}
+				}
+			}
+			beende(job.mit(Status.FERTIG, medien, null));
+		} catch (Throwable e) {
+			// Auch bei Errors abschliessen, sonst bleibt der Export für immer LAUFEND und blockiert neue Exporte
+			loesche(datei);
+			beende(job.mit(Status.FEHLER, medien, String.valueOf(e.getMessage())));
+			if (e instanceof Error error) {
+				throw error;
+			}
+		}
+	}
+
+	/**
+	 * Hält den Endzustand eines Exports fest und gibt den Start eines neuen Exports frei
+	 * @param job Abgeschlossener Export
+	 */
+	private synchronized void beende(ExportJob job) {
+		jobs.put(job.id(), job);
+		laufend = null;
+	}
+
+	/**
+	 * Liest und formatiert die Medien eines Id-Bereichs in einer eigenen Read-Only-Transaktion
+	 * @param von Kleinste Id, inklusiv
+	 * @param bis Grösste Id, exklusiv
+	 * @return Komprimierter Block
+	 */
+	private Block block(long von, long bis) {
+		var csv = new StringBuilder();
+		var medien = readOnly.execute(status -> jdbcTemplate.query(SELECT_CHUNK, rs -> {
+			long anzahl = 0;
+			long letzteId = Long.MIN_VALUE;
+			while (rs.next()) {
+				var id = rs.getLong(1);
+				// Bei mehreren Ausleihen pro Medium gilt die neueste
+				if (id != letzteId) {
+					letzteId = id;
+					anzahl++;
+					zeile(csv, rs);
+				}
+			}
+			return anzahl;
+		}, von, bis));
+		return new Block(gzip(csv.toString()), medien);
+	}
+
+	/**
+	 * Liest die nächsten {@code library.export.chunk-size} Zeilen nach einer Id in einer eigenen
+	 * Read-Only-Transaktion
+	 * @param sql Abfrage mit der letzten Id und der Anzahl Zeilen als Parameter, die Id steht in der ersten Spalte
+	 * @param nach Letzte Id des vorherigen Blocks
+	 * @param zeile Übernimmt eine Zeile
+	 * @return Letzte Id des Blocks oder {@link Long#MIN_VALUE}, wenn es keinen ganzen Block mehr gab
+	 */
+	private long snapshotBlock(String sql, long nach, RowCallbackHandler zeile) {
+		return readOnly.execute(status -> jdbcTemplate.query(sql, rs -> {
+			long letzteId = Long.MIN_VALUE;
+			long anzahl = 0;
+			while (rs.next()) {
+				zeile.processRow(rs);
+				letzteId = rs.getLong(1);
+				anzahl++;
+			}
+			return anzahl < chunkSize ? Long.MIN_VALUE : letzteId;
+		}, nach, chunkSize));
+	}
+
+	private static void zeile(StringBuilder csv, ResultSet rs) throws SQLException {
+		var ausleihedatum = rs.getTimestamp(9);
+		var ausleihedauer = rs.getObject(10, Long.class);
+		var ausgeliehen = ausleihedatum != null;
+		var datum = ausgeliehen ? ausleihedatum.toLocalDateTime().toLocalDate() : null;
+		var faelligAm = ausgeliehen && ausleihedauer != null ? datum.plusDays(ausleihedauer) : null;
+		var werte = new Object[] { rs.getLong(1), rs.getString(2), rs.getString(3), rs.getString(4), rs.getObject(5),
+				rs.getObject(6), rs.getString(7), ausgeliehen, rs.getObject(8), datum, faelligAm };
+		for (int i = 0; i < werte.length; i++) {
+			if (i > 0) {
+				csv.append(',');
+			}
+			feld(csv, werte[i]);
+		}
+		csv.append('\n');
+	}
+
+	/**
+	 * Hängt einen Wert nach RFC 4180 an: Werte mit Komma, Anführungszeichen oder Zeilenumbruch werden in
+	 * Anführungszeichen gesetzt
+	 */
+	private static void feld(StringBuilder csv, Object wert) {
+		if (wert == null) {
+			return;
+		}
+		var text = wert.toString();
+		if (text.indexOf(',') < 0 && text.indexOf('"') < 0 && text.indexOf('\n') < 0 && text.indexOf('\r') < 0) {
+			csv.append(text);
+		} else {
+			csv.append('"').append(text.replace("\"", "\"\"")).append('"');
+		}
+	}
+
+	private static byte[] gzip(String text) {
+		var bytes = new ByteArrayOutputStream();
+		try (var gzip = new GZIPOutputStream(bytes)) {
+			gzip.write(text.getBytes(StandardCharsets.UTF_8));
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		return bytes.toByteArray();
+	}
+
+	private static void schreibe(FileChannel channel, byte[] daten) throws IOException {
+		var buffer = ByteBuffer.wrap(daten);
+		while (buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+	}
+
+	private static void loesche(Path datei) {
+		try {
+			Files.deleteIfExists(datei);
+		} catch (IOException e) {
+			// Wird beim nächsten Aufräumen nicht mehr gefunden, die Datei liegt im temporären Verzeichnis
+		}
+	}
+
+	/**
+	 * Komprimierter Block von Medien
+	 * @param daten gzip-Member mit den CSV-Zeilen
+	 * @param medien Anzahl Medien im Block
+	 */
+	private record Block(byte[] daten, long medien) {
+	}
+
+}
@@ -0,0 +1,427 @@
+package com.helvetia.m295.libraryserver.service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+
+import com.helvetia.m295.libraryserver.common.Adresse;
+import com.helvetia.m295.libraryserver.common.Medium;
+
+/**
+ * Schreibgeschützter Snapshot der Medien und Adressen in einer kompakten Binärdatei für Kiosk-Instanzen.
+ * Die Datei wird mit {@link FileChannel#map} in den Speicher abgebildet, gelesen wird direkt aus dem
+ * {@link ByteBuffer}. Der Heap enthält deshalb nur die Objekte der aktuellen Antworten, nicht den ganzen Katalog.
+ * <p>
+ * Aufbau der Datei:
+ * <ul>
+ * <li>Header: Magic, Version, Anzahl Medien, Anzahl Adressen (je 4 Bytes)</li>
+ * <li>Medien nach Id sortiert, je {@value #MEDIUM_BYTES} Bytes: id, isbn, titel, autor, genre, standortcode,
+ * altersfreigabe</li>
+ * <li>Titel-Index: Nummern der Medien, nach Titel sortiert</li>
+ * <li>Adressen nach Id sortiert, je {@value #ADRESSE_BYTES} Bytes: id, adresse, ort, zip</li>
+ * <li>ZIP-Index und Strassen-Index: Nummern der Adressen, nach ZIP bzw. Adresse sortiert</li>
+ * <li>String-Pool: Jeder Text einmal, als Länge und UTF-8-Bytes. Records enthalten nur den Offset im Pool.</li>
+ * </ul>
+ * Gesucht wird mit binärer Suche über die Records bzw. Indexe. Texte werden byteweise verglichen, Suchen
+ * unterscheiden deshalb im Gegensatz zu MySQL Gross- und Kleinschreibung.
+ *
+ * @version 1.0.0
+ * @author Simon Fäs
+ * @see SnapshotConfiguration
+ * @see KatalogExport#schreibeSnapshot
+ */
+public class KatalogSnapshot {
+
+	private static final int MAGIC = 0x4C534E50;
+	private static final int VERSION = 1;
+	private static final int HEADER_BYTES = 16;
+	private static final int MEDIUM_BYTES = 34;
+	private static final int ADRESSE_BYTES = 20;
+	private static final int KEIN_TEXT = -1;
+	private static final short KEINE_ALTERSFREIGABE = Short.MIN_VALUE;
+	private static final long KEINE_ISBN = Long.MIN_VALUE;
+
+	private final ByteBuffer buffer;
+	private final int anzahlMedien;
+	private final int anzahlAdressen;
+	private final int titelIndex;
+	private final int adressen;
+	private final int zipIndex;
+	private final int strasseIndex;
+	private final int strings;
+
+	private KatalogSnapshot(ByteBuffer buffer) {
+		if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+			throw new IllegalStateException("Not a catalogue snapshot of version " + VERSION);
+		}
+		this.buffer = buffer;
+		this.anzahlMedien = buffer.getInt(8);
+		this.anzahlAdressen = buffer.getInt(12);
+		this.titelIndex = HEADER_BYTES + anzahlMedien * MEDIUM_BYTES;
+		this.adressen = titelIndex + anzahlMedien * 4;
+		this.zipIndex = adressen + anzahlAdressen * ADRESSE_BYTES;
+		this.strasseIndex = zipIndex + anzahlAdressen * 4;
+		this.strings = strasseIndex + anzahlAdressen * 4;
+	}
+
+	/**
+	 * Bildet eine Snapshot-Datei in den Speicher ab
+	 * @param datei Pfad der Datei
+	 * @return Snapshot
+	 * @throws IOException Wenn die Datei nicht gelesen werden kann
+	 */
+	public static KatalogSnapshot oeffne(Path datei) throws IOException {
+		try (var channel = FileChannel.open(datei)) {
+			if (channel.size() > Integer.MAX_VALUE) {
+				throw new IOException("Snapshot is larger than 2 GB: " + datei);
+			}
+			return new KatalogSnapshot(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+		}
+	}
+
+	/**
+	 * Gibt ein Medium anhand seiner Id zurück
+	 * @param id Id des Mediums
+	 * @return Das Medium oder leer, wenn es nicht im Snapshot ist
+	 */
+	public Optional<Medium> findMediumById(long id) {
+		int links = 0;
+		int rechts = anzahlMedien - 1;
+		while (links <= rechts) {
+			int mitte = (links + rechts) >>> 1;
+			long wert = buffer.getLong(HEADER_BYTES + mitte * MEDIUM_BYTES);
+			if (wert < id) {
+				links = mitte + 1;
+			} else if (wert > id) {
+				rechts = mitte - 1;
+			} else {
+				return Optional.of(medium(mitte));
+			}
+		}
+		return Optional.empty();
+	}
+
+	/**
+	 * Gibt alle Medien mit dem angegebenen Titel zurück
+	 * @param titel Titel der Medien
+	 * @return Medien mit genau diesem Titel
+	 */
+	public List<Medium> findMedienByTitel(String titel) {
+		return suche(titelIndex, anzahlMedien, nr -> mediumText(nr, 16), utf8(titel), false, this::medium);
+	}
+
+	/**
+	 * Gibt alle Medien zurück
+	 * @return Alle Medien, nach Id sortiert
+	 */
+	public List<Medium> findAllMedien() {
+		return IntStream.range(0, anzahlMedien).mapToObj(this::medium).toList();
+	}
+
+	/**
+	 * Gibt alle Adressen mit dem angegebenen ZIP-Code zurück
+	 * @param zip ZIP-Code der Adressen
+	 * @return Adressen mit genau diesem ZIP-Code
+	 */
+	public List<Adresse> findAdressenByZip(String zip) {
+		return suche(zipIndex, anzahlAdressen, nr -> adresseText(nr, 16), utf8(zip), false, this::adresse);
+	}
+
+	/**
+	 * Gibt alle Adressen zurück, die mit dem angegebenen Text beginnen
+	 * @param adresse Anfang der Adresse
+	 * @return Adressen, deren Adresse mit dem Parameter beginnt
+	 */
+	public List<Adresse> findAdressenByAdresse(String adresse) {
+		return suche(strasseIndex, anzahlAdressen, nr -> adresseText(nr, 8), utf8(adresse), true, this::adresse);
+	}
+
+	/**
+	 * Gibt alle Adressen zurück
+	 * @return Alle Adressen, nach Id sortiert
+	 */
+	public List<Adresse> findAllAdressen() {
+		return IntStream.range(0, anzahlAdressen).mapToObj(this::adresse).toList();
+	}
+
+	/**
+	 * Sucht im Index mit binärer Suche den ersten passenden Eintrag und liest ab dort alle passenden Einträge
+	 */
+	private <T> List<T> suche(int index, int anzahl, IntToOffset text, byte[] gesucht, boolean prefix,
+			Function<Integer, T> lese) {
+		int links = 0;
+		int rechts = anzahl;
+		while (links < rechts) {
+			int mitte = (links + rechts) >>> 1;
+			if (vergleiche(text.offset(buffer.getInt(index + mitte * 4)), gesucht, false) < 0) {
+				links = mitte + 1;
+			} else {
+				rechts = mitte;
+			}
+		}
+		var resultat = new ArrayList<T>();
+		for (int i = links; i < anzahl; i++) {
+			int nr = buffer.getInt(index + i * 4);
+			if (vergleiche(text.offset(nr), gesucht, prefix) != 0) {
+				break;
+			}
+			resultat.add(lese.apply(nr));
+		}
+		return resultat;
+	}
+
+	/**
+	 * Vergleicht einen Text im Pool byteweise mit dem gesuchten Text, ohne ihn zu dekodieren
+	 * @param offset Offset des Texts im Pool oder {@link #KEIN_TEXT}
+	 * @param gesucht UTF-8-Bytes des gesuchten Texts
+	 * @param prefix true, wenn der Text nur mit dem gesuchten Text beginnen muss
+	 * @return Negativ, 0 oder positiv wie {@link Comparator#compare}
+	 */
+	private int vergleiche(int offset, byte[] gesucht, boolean prefix) {
+		if (offset == KEIN_TEXT) {
+			return -1;
+		}
+		int laenge = buffer.getInt(strings + offset);
+		int start = strings + offset + 4;
+		int n = Math.min(laenge, gesucht.length);
+		for (int i = 0; i < n; i++) {
+			int c = Byte.compareUnsigned(buffer.get(start + i), gesucht[i]);
+			if (c != 0) {
+				return c;
+			}
+		}
+		return prefix && laenge >= gesucht.length ? 0 : Integer.compare(laenge, gesucht.length);
+	}
+
+	private Medium medium(int nr) {
+		int record = HEADER_BYTES + nr * MEDIUM_BYTES;
+		long isbn = buffer.getLong(record + 8);
+		short altersfreigabe = buffer.getShort(record + 32);
+		return new Medium(buffer.getLong(record), text(mediumText(nr, 16)), text(mediumText(nr, 20)),
+				text(mediumText(nr, 24)), altersfreigabe == KEINE_ALTERSFREIGABE ? null : altersfreigabe,
+				isbn == KEINE_ISBN ? null : isbn, text(mediumText(nr, 28)));
+	}
+
+	private Adresse adresse(int nr) {
+		int record = adressen + nr * ADRESSE_BYTES;
+		return new Adresse(buffer.getLong(record), text(adresseText(nr, 8)), text(adresseText(nr, 12)),
+				text(adresseText(nr, 16)));
+	}
+
+	private int mediumText(int nr, int feld) {
+		return buffer.getInt(HEADER_BYTES + nr * MEDIUM_BYTES + feld);
+	}
+
+	private int adresseText(int nr, int feld) {
+		return buffer.getInt(adressen + nr * ADRESSE_BYTES + feld);
+	}
+
+	private String text(int offset) {
+		if (offset == KEIN_TEXT) {
+			return null;
+		}
+		var bytes = new byte[buffer.getInt(strings + offset)];
+		buffer.get(strings + offset + 4, bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Liefert zur Nummer eines Records den Offset eines seiner Texte
+	 */
+	@FunctionalInterface
+	private interface IntToOffset {
+		int offset(int nr);
+	}
+
+	/**
+	 * Schreibt einen Snapshot der angegebenen Medien und Adressen
+	 * @param medien Alle Medien
+	 * @param adressen Alle Adressen
+	 * @param channel Ziel des Snapshots
+	 * @throws IOException Wenn nicht geschrieben werden kann
+	 */
+	public static void schreibe(List<Medium> medien, List<Adresse> adressen, WritableByteChannel channel)
+			throws IOException {
+		var schreiber = new Schreiber();
+		medien.stream().sorted(Comparator.comparing(Medium::getId))
+				.forEach(medium -> schreiber.medium(medium.getId(), medium.getIsbn(), medium.getTitel(),
+						medium.getAutor(), medium.getGenre(), medium.getStandortcode(), medium.getAltersfreigabe()));
+		adressen.stream().sorted(Comparator.comparing(Adresse::getId)).forEach(adresse -> schreiber
+				.adresse(adresse.getId(), adresse.getAdresse(), adresse.getOrt(), adresse.getZip()));
+		schreiber.schreibe(channel);
+	}
+
+	/**
+	 * Baut einen Snapshot Zeile für Zeile auf, z.B. direkt aus einem {@link java.sql.ResultSet}. Es werden nur die
+	 * Records und der String-Pool gehalten, also ungefähr so viel wie die fertige Datei, keine Entities.
+	 * Medien und Adressen müssen je nach Id aufsteigend übergeben werden.
+	 */
+	public static class Schreiber {
+
+		private final StringPool pool = new StringPool();
+		private ByteBuffer medien = ByteBuffer.allocate(1024 * MEDIUM_BYTES);
+		private ByteBuffer adressen = ByteBuffer.allocate(1024 * ADRESSE_BYTES);
+		private long letztesMedium = Long.MIN_VALUE;
+		private long letzteAdresse = Long.MIN_VALUE;
+
+		/**
+		 * Fügt ein Medium hinzu
+		 * @param id Id, grösser als die des vorherigen Mediums
+		 * @param isbn ISBN oder null
+		 * @param titel Titel oder null
+		 * @param autor Autor oder null
+		 * @param genre Genre oder null
+		 * @param standortcode Standortcode oder null
+		 * @param altersfreigabe Altersfreigabe oder null
+		 */
+		public void medium(long id, Long isbn, String titel, String autor, String genre, String standortcode,
+				Short altersfreigabe) {
+			if (id <= letztesMedium) {
+				throw new IllegalArgumentException("Media must be added in ascending id order");
+			}
+			letztesMedium = id;
+			medien = platz(medien, MEDIUM_BYTES);
+			medien.putLong(id);
+			medien.putLong(isbn == null ? KEINE_ISBN : isbn);
+			medien.putInt(pool.offset(titel));
+			medien.putInt(pool.offset(autor));
+			medien.putInt(pool.offset(genre));
+			medien.putInt(pool.offset(standortcode));
+			medien.putShort(altersfreigabe == null ? KEINE_ALTERSFREIGABE : altersfreigabe);
+		}
+
+		/**
+		 * Fügt eine Adresse hinzu
+		 * @param id Id, grösser als die der vorherigen Adresse
+		 * @param adresse Adresse oder null
+		 * @param ort Ort oder null
+		 * @param zip ZIP-Code oder null
+		 */
+		public void adresse(long id, String adresse, String ort, String zip) {
+			if (id <= letzteAdresse) {
+				throw new IllegalArgumentException("Addresses must be added in ascending id order");
+			}
+			letzteAdresse = id;
+			adressen = platz(adressen, ADRESSE_BYTES);
+			adressen.putLong(id);
+			adressen.putInt(pool.offset(adresse));
+			adressen.putInt(pool.offset(ort));
+			adressen.putInt(pool.offset(zip));
+		}
+
+		/**
+		 * Schreibt den Snapshot mit allen hinzugefügten Medien und Adressen
+		 * @param channel Ziel des Snapshots
+		 * @throws IOException Wenn nicht geschrieben werden kann
+		 */
+		public void schreibe(WritableByteChannel channel) throws IOException {
+			int anzahlMedien = medien.position() / MEDIUM_BYTES;
+			int anzahlAdressen = adressen.position() / ADRESSE_BYTES;
+			var strings = pool.bytes.toByteArray();
+			var header = ByteBuffer.allocate(HEADER_BYTES).putInt(MAGIC).putInt(VERSION).putInt(anzahlMedien)
+					.putInt(anzahlAdressen);
+			KatalogSnapshot.schreibe(channel, header.flip());
+			KatalogSnapshot.schreibe(channel, medien.flip());
+			KatalogSnapshot.schreibe(channel,
+					index(strings, anzahlMedien, nr -> medien.getInt(nr * MEDIUM_BYTES + 16)));
+			KatalogSnapshot.schreibe(channel, adressen.flip());
+			KatalogSnapshot.schreibe(channel,
+					index(strings, anzahlAdressen, nr -> adressen.getInt(nr * ADRESSE_BYTES + 16)));
+			KatalogSnapshot.schreibe(channel,
+					index(strings, anzahlAdressen, nr -> adressen.getInt(nr * ADRESSE_BYTES + 8)));
+			KatalogSnapshot.schreibe(channel, ByteBuffer.wrap(strings));
+		}
+
+		/**
+		 * Vergrössert den Puffer auf das Doppelte, wenn der nächste Record nicht mehr Platz hat
+		 */
+		private static ByteBuffer platz(ByteBuffer buffer, int bytes) {
+			if (buffer.remaining() >= bytes) {
+				return buffer;
+			}
+			var neu = ByteBuffer.allocate(Math.max(buffer.capacity() * 2, buffer.capacity() + bytes));
+			return neu.put(buffer.flip());
+		}
+
+	}
+
+	/**
+	 * Gibt die Nummern der Records zurück, sortiert nach den UTF-8-Bytes des Texts im Pool. Fehlende Texte kommen
+	 * zuerst, gleiche Texte bleiben in der Reihenfolge der Ids.
+	 */
+	private static ByteBuffer index(byte[] strings, int anzahl, IntToOffset text) {
+		Comparator<Integer> vergleich = (a, b) -> vergleiche(strings, text.offset(a), text.offset(b));
+		var out = ByteBuffer.allocate(anzahl * 4);
+		IntStream.range(0, anzahl).boxed().sorted(vergleich).forEach(out::putInt);
+		return out.flip();
+	}
+
+	private static int vergleiche(byte[] strings, int a, int b) {
+		if (a == b) {
+			return 0;
+		}
+		if (a == KEIN_TEXT || b == KEIN_TEXT) {
+			return a == KEIN_TEXT ? -1 : 1;
+		}
+		return Arrays.compareUnsigned(strings, a + 4, a + 4 + laenge(strings, a), strings, b + 4,
+				b + 4 + laenge(strings, b));
+	}
+
+	private static int laenge(byte[] strings, int offset) {
+		return (strings[offset] & 0xFF) << 24 | (strings[offset + 1] & 0xFF) << 16 | (strings[offset + 2] & 0xFF) << 8
+				| strings[offset + 3] & 0xFF;
+	}
+
+	private static void schreibe(WritableByteChannel channel, ByteBuffer buffer) throws IOException {
+		while (buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+	}
+
+	private static byte[] utf8(String text) {
+		return text == null ? null : text.getBytes(StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Pool, in dem jeder Text nur einmal gespeichert wird
+	 */
+	private static class StringPool {
+
+		private final HashMap<String, Integer> offsets = new HashMap<>();
+		private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		private final DataOutputStream out = new DataOutputStream(bytes);
+
+		private int offset(String text) {
+			if (text == null) {
+				return KEIN_TEXT;
+			}
+			return offsets.computeIfAbsent(text, t -> {
+				int offset = bytes.size();
+				try {
+					var utf8 = utf8(t);
+					out.writeInt(utf8.length);
+					out.write(utf8);
+				} catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+				return offset;
+			});
+		}
+
+	}
+
+}
@@ -0,0 +1,107 @@
+package com.helvetia.m295.libraryserver.service;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Normalisierung von Namen und phonetischer Code nach der Kölner Phonetik.
+ * Die Kölner Phonetik ist auf deutsche Namen ausgelegt: Meier, Meyer, Maier und Mayr erhalten alle den Code 67.
+ * <p>
+ * Namen werden vor dem Codieren normalisiert: Kleinbuchstaben, Umlaute als ae, oe, ue, ß als ss und andere
+ * Akzente entfernt. Die Umschreibung der Umlaute ändert den Code nicht, da Vokale ausser am Anfang wegfallen.
+ *
+ * @version 1.0.0
+ * @author Simon Fäs
+ * @see KundenSuchindex
+ */
+public final class KoelnerPhonetik {
+
+	private KoelnerPhonetik() {}
+
+	/**
+	 * Zerlegt einen Namen in normalisierte Wörter, getrennt an allen Zeichen ausser Buchstaben
+	 * @param name Name, zum Beispiel "Müller-Lüdenscheidt"
+	 * @return Normalisierte Wörter, zum Beispiel "mueller" und "luedenscheidt"
+	 */
+	public static List<String> woerter(String name) {
+		var woerter = new ArrayList<String>(2);
+		if (name == null) {
+			return woerter;
+		}
+		var normalisiert = normalisiere(name);
+		int start = -1;
+		for (int i = 0; i <= normalisiert.length(); i++) {
+			boolean buchstabe = i < normalisiert.length() && normalisiert.charAt(i) >= 'a' && normalisiert.charAt(i) <= 'z';
+			if (buchstabe && start < 0) {
+				start = i;
+			} else if (!buchstabe && start >= 0) {
+				woerter.add(normalisiert.substring(start, i));
+				start = -1;
+			}
+		}
+		return woerter;
+	}
+
+	/**
+	 * Normalisiert einen Namen für den Vergleich
+	 * @param name Name
+	 * @return Name in Kleinbuchstaben mit umschriebenen Umlauten und ohne Akzente
+	 */
+	public static String normalisiere(String name) {
+		var klein = name.toLowerCase(Locale.ROOT).replace("ä", "ae").replace("ö", "oe").replace("ü", "ue")
+				.replace("ß", "ss");
+		return Normalizer.normalize(klein, Normalizer.Form.NFD).replaceAll("\\p{M}", "");
+	}
+
+	/**
+	 * Berechnet den Code eines normalisierten Wortes
+	 * @param wort Wort aus {@link #woerter(String)}
+	 * @return Code aus den Ziffern 0 bis 8, leer wenn das Wort keine codierbaren Buchstaben enthält
+	 */
+	public static String code(String wort) {
+		var roh = new StringBuilder(wort.length() + 1);
+		for (int i = 0; i < wort.length(); i++) {
+			char c = wort.charAt(i);
+			char vor = i > 0 ? wort.charAt(i - 1) : 0;
+			char nach = i + 1 < wort.length() ? wort.charAt(i + 1) : 0;
+			switch (c) {
+			case 'a', 'e', 'i', 'j', 'o', 'u', 'y' -> roh.append('0');
+			case 'b' -> roh.append('1');
+			case 'p' -> roh.append(nach == 'h' ? '3' : '1');
+			case 'd', 't' -> roh.append(nach == 'c' || nach == 's' || nach == 'z' ? '8' : '2');
+			case 'f', 'v', 'w' -> roh.append('3');
+			case 'g', 'k', 'q' -> roh.append('4');
+			case 'c' -> roh.append(i == 0
+					? (istEiner(nach, "ahkloqrux") ? '4' : '8')
+					: (istEiner(nach, "ahkoqux") && vor != 's' && vor != 'z' ? '4' : '8'));
+			case 'x' -> roh.append(vor == 'c' || vor == 'k' || vor == 'q' ? "8" : "48");
+			case 'l' -> roh.append('5');
+			case 'm', 'n' -> roh.append('6');
+			case 'r' -> roh.append('7');
+			case 's', 'z' -> roh.append('8');
+			default -> {
+				// h und andere Zeichen werden nicht codiert
+			}
+			}
+		}
+		var code = new StringBuilder(roh.length());
+		for (int i = 0; i < roh.length(); i++) {
+			char ziffer = roh.charAt(i);
+			if (i > 0 && ziffer == roh.charAt(i - 1)) {
+				continue;
+			}
+			if (ziffer == '0' && i > 0) {
+				continue;
+			}
+			code.append(ziffer);
+		}
+		return code.toString();
+	}
+
+	private static boolean istEiner(char c, String zeichen) {
+		return c != 0 && zeichen.indexOf(c) >= 0;
+	}
+
+}
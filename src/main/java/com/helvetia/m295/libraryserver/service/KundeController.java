@@ -1,9 +1,17 @@
 package com.helvetia.m295.libraryserver.service;
 
+import java.util.Date;
 import java.util.List;
 import java.util.NoSuchElementException;
+import java.util.Optional;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -12,15 +20,24 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseBody;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.server.ResponseStatusException;
 
 import com.helvetia.m295.libraryserver.common.Adresse;
+import com.helvetia.m295.libraryserver.common.Invalidierung;
 import com.helvetia.m295.libraryserver.common.Kunde;
+import com.helvetia.m295.libraryserver.common.KundeDto;
+import com.helvetia.m295.libraryserver.common.KundeEvent;
+import com.helvetia.m295.libraryserver.common.KundeTreffer;
+import com.helvetia.m295.libraryserver.common.KundenAusleihen;
 import com.helvetia.m295.libraryserver.model.AdresseRepository;
+import com.helvetia.m295.libraryserver.model.AusleiheRepository;
 import com.helvetia.m295.libraryserver.model.KundeRepository;
 
+import jakarta.annotation.PostConstruct;
+
 
 /**
  * Klasse um Serveranfragen rund um die Entity Kunde zu bearbeiten.
@@ -32,6 +49,7 @@ import com.helvetia.m295.libraryserver.model.KundeRepository;
  */
 @RestController
 @RequestMapping(path = "/kunde")
+@Profile("!kiosk")
 public class KundeController {
 
 	@Autowired
@@ -40,31 +58,107 @@ public class KundeController {
 	@Autowired
 	private AdresseRepository adresseRepository;
 
+	@Autowired
+	private AusleiheRepository ausleiheRepository;
+
+	@Autowired
+	private ApplicationEventPublisher eventPublisher;
+
+	@Autowired
+	private AusleiheIndex ausleiheIndex;
+
+	@Autowired
+	private KundenSuchindex kundenSuchindex;
+
+	@Autowired
+	private InvalidierungsBus invalidierungsBus;
+
+	@Value("${library.singleflight.ttl-millis:0}")
+	private long singleFlightTtlMillis;
+
+	private SingleFlight<Long, Optional<KundeDto>> kundeById;
+	private SingleFlight<String, List<KundeDto>> kundenByNachname;
+
+	/**
+	 * Initialisiert die Single-Flight-Gruppen, welche gleichzeitige identische Abfragen zusammenfassen
+	 */
+	@PostConstruct
+	void initSingleFlight() {
+		kundeById = new SingleFlight<>(singleFlightTtlMillis);
+		kundenByNachname = new SingleFlight<>(singleFlightTtlMillis);
+	}
+
 	/**
 	 * Gibt einen Kunden basierend auf der angegebenen ID zurück.
+	 * Gleichzeitige Abfragen derselben ID werden zu einer Datenbankabfrage zusammengefasst.
 	 *
 	 * @param id Die ID des Kunden, der abgerufen werden soll.
 	 * @return Der Kunde, der der angegebenen ID entspricht.
 	 * @throws ResponseStatusException Wenn nichts gefunden wurde.
 	 */
 	@GetMapping("/{id}")
-	public @ResponseBody Kunde getKundeById(@PathVariable("id") Long id) {
+	public @ResponseBody KundeDto getKundeById(@PathVariable("id") Long id) {
 		try {
-			return kundeRepository.findById(id).get();
+			return kundeById.get(id, () -> kundeRepository.findById(id).map(KundeDto::von)).get();
 		} catch (NoSuchElementException e) {
 			throw new ResponseStatusException(HttpStatus.NOT_FOUND);
 		}
 	}
 
+	/**
+	 * Gibt die Ausleihen eines Kunden seitenweise zurück, zusammen mit der Anzahl laufender und überfälliger Ausleihen.
+	 * Der Aufwand hängt nur von der Anzahl Ausleihen des Kunden ab, nicht von der Grösse des Katalogs.
+	 *
+	 * @param id Die ID des Kunden.
+	 * @param seite Nummer der Seite, beginnend bei 0.
+	 * @param groesse Anzahl Ausleihen pro Seite, zwischen 1 und 100.
+	 * @return Die Ausleihübersicht des Kunden.
+	 * @throws ResponseStatusException Wenn der Kunde nicht existiert oder die Seitenangaben ungültig sind.
+	 */
+	@GetMapping("/{id}/ausleihen")
+	public @ResponseBody KundenAusleihen getAusleihenByKunde(@PathVariable("id") Long id,
+			@RequestParam(name = "seite", defaultValue = "0") int seite,
+			@RequestParam(name = "groesse", defaultValue = "20") int groesse) {
+		if (seite < 0 || groesse < 1 || groesse > 100) {
+			throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid page");
+		}
+		if (!kundeRepository.existsById(id)) {
+			throw new ResponseStatusException(HttpStatus.NOT_FOUND);
+		}
+		var zaehler = ausleiheRepository.findZaehlerByKundeId(id, new Date());
+		var ausleihen = ausleiheRepository.findUebersichtByKundeId(id, PageRequest.of(seite, groesse));
+		return new KundenAusleihen(id, zaehler.aktiv(), zaehler.ueberfaellig(), seite, groesse, ausleihen);
+	}
+
 	/**
 	 * Gibt eine Liste von Kunden basierend auf dem angegebenen Nachnamen zurück.
+	 * Gleichzeitige Abfragen desselben Nachnamens werden zu einer Datenbankabfrage zusammengefasst.
 	 *
 	 * @param nachname Der Nachname, nach dem Kunden gesucht werden sollen.
 	 * @return Eine Liste von Kunden mit dem angegebenen Nachnamen.
 	 */
 	@GetMapping("/nachname/{nachname}")
-	public @ResponseBody List<Kunde> getKundeByNachname(@PathVariable("nachname") String nachname) {
-		return kundeRepository.findByNachname(nachname);
+	public @ResponseBody List<KundeDto> getKundeByNachname(@PathVariable("nachname") String nachname) {
+		return kundenByNachname.get(nachname, () -> KundeDto.von(kundeRepository.findByNachname(nachname)));
+	}
+
+	/**
+	 * Sucht Kunden über ihren Vor- und Nachnamen. Jedes Wort der Suche muss ein Wort des Namens treffen,
+	 * entweder als Präfix oder mit ähnlichem Klang ("Meier" findet auch "Meyer" und "Mayr").
+	 *
+	 * @param q Ein oder mehrere Wörter, zum Beispiel "Hans Mei".
+	 * @param limit Maximale Anzahl Treffer, zwischen 1 und 100.
+	 * @return Die Treffer, die besten zuerst.
+	 * @throws ResponseStatusException Wenn die Suche leer oder die Anzahl ungültig ist.
+	 * @see KundenSuchindex
+	 */
+	@GetMapping("/search")
+	public @ResponseBody List<KundeTreffer> searchKunden(@RequestParam("q") String q,
+			@RequestParam(name = "limit", defaultValue = "20") int limit) {
+		if (q.isBlank() || limit < 1 || limit > 100) {
+			throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid search");
+		}
+		return kundenSuchindex.suche(q, limit);
 	}
 
 	/**
@@ -74,8 +168,8 @@ public class KundeController {
 	 * @return Die Liste von Kunden, die mit der angegebenen Adresse übereinstimmen.
 	 */
 	@GetMapping("/adresse/{adresse}")
-	public @ResponseBody List<Kunde> getKundeByAdresse(@PathVariable String adresse) {
-		return kundeRepository.findByAdresseAdresse(adresse);
+	public @ResponseBody List<KundeDto> getKundeByAdresse(@PathVariable String adresse) {
+		return KundeDto.von(kundeRepository.findByAdresseAdresse(adresse));
 	}
 
 	/**
@@ -106,6 +200,7 @@ public class KundeController {
 
 		if (kunde.isPresent()) {
 			original = kunde.get();
+			var vorher = new Kunde(original);
 			if (!original.getAdresse().equals(data.getAdresse()) && data.getAdresse() != null) {
 				var list = adresseRepository.findByAdresseAndZip(data.getAdresse().getAdresse(), data.getAdresse().getZip());
 				if(list.size() == 0) {
@@ -118,7 +213,10 @@ public class KundeController {
 				original.setEmail(data.getEmail());
 
 			original.setAdresse(adresseRepository.save(original.getAdresse()));
-			return kundeRepository.save(original);
+			var saved = kundeRepository.save(original);
+			invalidate(id);
+			eventPublisher.publishEvent(new KundeEvent(vorher, saved));
+			return saved;
 		} else {
 			return supportAddKunde(data);
 		}
@@ -133,10 +231,8 @@ public class KundeController {
 	 * @throws ResponseStatusException Wenn die gesendeten Daten unvollständig sind.
 	 */
 	private Kunde supportAddKunde(Kunde data) {
-		if (data.getAdresse().getAdresse() == null || data.getAdresse().getOrt() == null
-				|| data.getAdresse().getZip() == null || data.getEmail() == null || data.getVorname() == null
-				|| data.getNachname() == null || data.getGeburtstag() == null) {
-			throw new ResponseStatusException(HttpStatus.BAD_REQUEST , "Sent data is incomplete");
+		if (!Validierung.istVollstaendig(data)) {
+			throw new ResponseStatusException(HttpStatus.BAD_REQUEST , Validierung.UNVOLLSTAENDIG);
 		}
 		var adresse = adresseRepository.findByAdresseAndZip(data.getAdresse().getAdresse(), data.getAdresse().getZip());
 		if (adresse.isEmpty()) {
@@ -144,17 +240,69 @@ public class KundeController {
 		} else {
 			data.setAdresse(adresse.getFirst());
 		}
-		return kundeRepository.save(data);
+		var saved = kundeRepository.save(data);
+		invalidate(data.getId());
+		eventPublisher.publishEvent(KundeEvent.erstellt(saved));
+		return saved;
 	}
 
 	/**
 	 * Löscht einen Kunden anhand seiner ID.
+	 * Hat der Kunde laufende Ausleihen, wird 409(CONFLICT) zurückgeschickt. Der {@link AusleiheIndex} dieser Instanz
+	 * kann hinter den anderen Instanzen zurückliegen und ist deshalb nur ein Hinweis: Meldet er Ausleihen, wird das in
+	 * der Datenbank geprüft, sonst entscheidet der Fremdschlüssel der Ausleihe beim Löschen.
 	 *
 	 * @param id Die ID des zu löschenden Kunden.
+	 * @throws ResponseStatusException Wenn der Kunde noch Medien ausgeliehen hat.
 	 */
 	@DeleteMapping("/{id}")
 	public @ResponseBody void deleteKunde(@PathVariable Long id) {
-		kundeRepository.deleteById(id);
+		if (ausleiheIndex.getAnzahlAusleihen(id) > 0 && ausleiheRepository.existsByKundeId(id)) {
+			throw new ResponseStatusException(HttpStatus.CONFLICT);
+		}
+		var kunde = kundeRepository.findById(id);
+		try {
+			kundeRepository.deleteById(id);
+		} catch (DataIntegrityViolationException e) {
+			throw new ResponseStatusException(HttpStatus.CONFLICT);
+		}
+		invalidate(id);
+		kunde.ifPresent(geloescht -> eventPublisher.publishEvent(KundeEvent.geloescht(geloescht)));
+	}
+
+	/**
+	 * Übernimmt die Änderung eines Kunden auf einer anderen Instanz
+	 *
+	 * @param invalidierung Der geänderte Kunde.
+	 */
+	@EventListener
+	public void onInvalidierung(Invalidierung invalidierung) {
+		if (invalidierung.typ() == Invalidierung.Typ.KUNDE)
+			verwirf(invalidierung.id());
+	}
+
+	/**
+	 * Verwirft die Single-Flight-Resultate, welche von einer Änderung am Kunden betroffen sein können,
+	 * und meldet die Änderung den anderen Instanzen
+	 *
+	 * @param id Die ID des geänderten Kunden.
+	 */
+	private void invalidate(Long id) {
+		verwirf(id);
+		invalidierungsBus.publiziere(Invalidierung.Typ.KUNDE, id);
+	}
+
+	/**
+	 * Verwirft die Single-Flight-Resultate, welche von einer Änderung am Kunden betroffen sein können
+	 *
+	 * @param id Die ID des geänderten Kunden, null wenn alle Kunden betroffen sind.
+	 */
+	private void verwirf(Long id) {
+		if (id != null)
+			kundeById.invalidate(id);
+		else
+			kundeById.invalidateAll();
+		kundenByNachname.invalidateAll();
 	}
 
 }
@@ -0,0 +1,477 @@
+package com.helvetia.m295.libraryserver.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Consumer;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.helvetia.m295.libraryserver.common.Invalidierung;
+import com.helvetia.m295.libraryserver.common.Kunde;
+import com.helvetia.m295.libraryserver.common.KundeEvent;
+import com.helvetia.m295.libraryserver.common.KundeTreffer;
+
+/**
+ * Suchindex über Vor- und Nachnamen der Kunden im Speicher.
+ * Jedes Wort eines Namens wird normalisiert in einer sortierten Map (exakte Treffer und Präfixe) und mit seinem Code
+ * nach {@link KoelnerPhonetik} in einer Hash-Map (ähnlich klingende Schreibweisen) abgelegt.
+ * <p>
+ * Jedes Wort der Suche muss ein Wort des Namens treffen. Pro Wort gibt es Punkte: 3 für einen exakten Treffer,
+ * 2 für ein Präfix und 1 für denselben phonetischen Code. Treffer auf dem Nachnamen zählen einen Punkt mehr.
+ * Kandidaten werden über das seltenste Wort der Suche gesammelt und sofort gegen alle anderen Wörter geprüft, die
+ * Id-Listen aller Wörter werden also geschnitten, bevor begrenzt wird. Bewertet werden höchstens
+ * {@value #MAX_KANDIDATEN} passende Kunden, damit auch kurze Präfixe bei vielen Kunden schnell bleiben.
+ * <p>
+ * Der Index wird beim Start aus der Datenbank aufgebaut und danach über die {@link KundeEvent}s nachgeführt.
+ * Kunden, die auf einer anderen Instanz geändert wurden, werden nach ihrer {@link Invalidierung} neu gelesen.
+ * Zur Sicherheit wird der Index regelmässig neu aufgebaut ({@code library.kunden-suche.rebuild-millis}). Änderungen
+ * während des Aufbaus werden gepuffert und vor dem Austausch auf den neuen Index angewendet, sonst würde der
+ * Austausch sie verwerfen.
+ *
+ * @version 1.0.0
+ * @author Simon Fäs
+ * @see KundeController#searchKunden(String, int)
+ */
+@Component
+@Profile("!kiosk")
+public class KundenSuchindex {
+
+	/**
+	 * Maximale Anzahl passender Kunden, unter denen pro Suche die besten Treffer ausgewählt werden
+	 */
+	public static final int MAX_KANDIDATEN = 1000;
+
+	private static final String SELECT = "SELECT id, vorname, nachname FROM kunde";
+	private static final String SELECT_ALLE = SELECT + " ORDER BY id";
+
+	private static final Comparator<KundeTreffer> REIHENFOLGE = Comparator.comparingInt(KundeTreffer::punkte).reversed()
+			.thenComparing(KundeTreffer::nachname, Comparator.nullsLast(Comparator.naturalOrder()))
+			.thenComparing(KundeTreffer::vorname, Comparator.nullsLast(Comparator.naturalOrder()))
+			.thenComparing(KundeTreffer::id);
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	private final StampedLock lock = new StampedLock();
+	private Daten daten = new Daten();
+
+	/**
+	 * Änderungen seit dem Beginn des laufenden Aufbaus, null wenn kein Aufbau läuft. Wird nur mit dem Lock gelesen
+	 * und geändert.
+	 */
+	private List<Consumer<Daten>> puffer;
+
+	/**
+	 * Baut den Index beim Start der Applikation auf
+	 */
+	@EventListener(ApplicationReadyEvent.class)
+	public void initialize() {
+		rebuild();
+	}
+
+	/**
+	 * Baut den Index neu aus der Datenbank auf und tauscht ihn auf einmal aus. Die Kunden werden nach Id gelesen,
+	 * damit die sortierten Id-Listen nur anhängen.
+	 */
+	@Scheduled(fixedDelayString = "${library.kunden-suche.rebuild-millis:600000}",
+			initialDelayString = "${library.kunden-suche.rebuild-millis:600000}")
+	public synchronized void rebuild() {
+		long stamp = lock.writeLock();
+		try {
+			puffer = new ArrayList<>();
+		} finally {
+			lock.unlockWrite(stamp);
+		}
+		var neu = new Daten();
+		try {
+			jdbcTemplate.query(SELECT_ALLE, rs -> {
+				neu.fuegeHinzu(rs.getLong(1), rs.getString(2), rs.getString(3));
+			});
+		} catch (RuntimeException e) {
+			stamp = lock.writeLock();
+			try {
+				puffer = null;
+			} finally {
+				lock.unlockWrite(stamp);
+			}
+			throw e;
+		}
+		stamp = lock.writeLock();
+		try {
+			// Änderungen während des Lesens nachholen, entfernen und neu hinzufügen ist auch doppelt korrekt
+			puffer.forEach(aenderung -> aenderung.accept(neu));
+			puffer = null;
+			daten = neu;
+		} finally {
+			lock.unlockWrite(stamp);
+		}
+	}
+
+	/**
+	 * Führt den Index nach einer Änderung eines Kunden nach
+	 * @param event Änderung des Kunden
+	 */
+	@EventListener
+	public void onKunde(KundeEvent event) {
+		aendere(d -> {
+			if (event.vorher() != null && event.vorher().getId() != null) {
+				d.entferne(event.vorher().getId());
+			}
+			Kunde nachher = event.nachher();
+			if (nachher != null && nachher.getId() != null) {
+				d.entferne(nachher.getId());
+				d.fuegeHinzu(nachher.getId(), nachher.getVorname(), nachher.getNachname());
+			}
+		});
+	}
+
+	/**
+	 * Liest einen Kunden neu, der auf einer anderen Instanz geändert wurde
+	 * @param invalidierung Der geänderte Kunde
+	 */
+	@EventListener
+	public void onInvalidierung(Invalidierung invalidierung) {
+		if (invalidierung.typ() != Invalidierung.Typ.KUNDE) {
+			return;
+		}
+		if (invalidierung.id() == null) {
+			rebuild();
+			return;
+		}
+		long id = invalidierung.id();
+		var namen = jdbcTemplate.query(SELECT + " WHERE id = ?",
+				(rs, i) -> new String[] { rs.getString(2), rs.getString(3) }, id);
+		aendere(d -> {
+			d.entferne(id);
+			if (!namen.isEmpty()) {
+				d.fuegeHinzu(id, namen.getFirst()[0], namen.getFirst()[1]);
+			}
+		});
+	}
+
+	/**
+	 * Wendet eine Änderung auf den Index an und puffert sie für einen laufenden Aufbau
+	 */
+	private void aendere(Consumer<Daten> aenderung) {
+		long stamp = lock.writeLock();
+		try {
+			aenderung.accept(daten);
+			if (puffer != null) {
+				puffer.add(aenderung);
+			}
+		} finally {
+			lock.unlockWrite(stamp);
+		}
+	}
+
+	/**
+	 * Sucht Kunden über Präfixe und ähnlich klingende Schreibweisen ihres Vor- und Nachnamens
+	 * @param suche Ein oder mehrere Wörter, zum Beispiel "Hans Meyer"
+	 * @param anzahl Maximale Anzahl Treffer
+	 * @return Treffer, die besten zuerst
+	 */
+	public List<KundeTreffer> suche(String suche, int anzahl) {
+		var woerter = KoelnerPhonetik.woerter(suche);
+		if (woerter.isEmpty()) {
+			return List.of();
+		}
+		var codes = woerter.stream().map(KoelnerPhonetik::code).toList();
+		long stamp = lock.readLock();
+		try {
+			return daten.suche(woerter, codes, anzahl);
+		} finally {
+			lock.unlockRead(stamp);
+		}
+	}
+
+	/**
+	 * Gibt die Anzahl Kunden im Index zurück
+	 * @return Anzahl Kunden
+	 */
+	public int size() {
+		long stamp = lock.readLock();
+		try {
+			return daten.kunden.size();
+		} finally {
+			lock.unlockRead(stamp);
+		}
+	}
+
+	/**
+	 * Inhalt des Index, wird nur mit dem Lock gelesen und geändert
+	 */
+	private static final class Daten {
+
+		private final TreeMap<String, Ids> woerter = new TreeMap<>();
+		private final Map<String, Ids> codes = new HashMap<>();
+		private final Map<Long, Eintrag> kunden = new HashMap<>();
+
+		private void fuegeHinzu(long id, String vorname, String nachname) {
+			var eintrag = new Eintrag(vorname, nachname, woerter(vorname), woerter(nachname));
+			kunden.put(id, eintrag);
+			for (int i = 0; i < eintrag.woerter.length; i++) {
+				woerter.computeIfAbsent(eintrag.woerter[i], k -> new Ids()).add(id);
+				codes.computeIfAbsent(eintrag.codes[i], k -> new Ids()).add(id);
+			}
+		}
+
+		private void entferne(long id) {
+			var eintrag = kunden.remove(id);
+			if (eintrag == null) {
+				return;
+			}
+			for (int i = 0; i < eintrag.woerter.length; i++) {
+				entferne(woerter, eintrag.woerter[i], id);
+				entferne(codes, eintrag.codes[i], id);
+			}
+		}
+
+		private static void entferne(Map<String, Ids> map, String key, long id) {
+			var ids = map.get(key);
+			if (ids != null && ids.remove(id) && ids.anzahl == 0) {
+				map.remove(key);
+			}
+		}
+
+		/**
+		 * Normalisiert die Wörter eines Namens und verwendet für bereits bekannte Wörter dieselbe Instanz
+		 */
+		private String[] woerter(String name) {
+			var liste = KoelnerPhonetik.woerter(name);
+			var woerter = new String[liste.size()];
+			for (int i = 0; i < woerter.length; i++) {
+				var wort = liste.get(i);
+				var bekannt = this.woerter.ceilingKey(wort);
+				woerter[i] = wort.equals(bekannt) ? bekannt : wort;
+			}
+			return woerter;
+		}
+
+		private List<KundeTreffer> suche(List<String> suchwoerter, List<String> suchcodes, int anzahl) {
+			// Das Wort mit den wenigsten Treffern liefert die Kandidaten, die anderen Wörter filtern sie nur noch
+			int seltenstes = 0;
+			long minimum = Long.MAX_VALUE;
+			for (int i = 0; i < suchwoerter.size(); i++) {
+				long treffer = anzahlTreffer(suchwoerter.get(i), suchcodes.get(i), minimum);
+				if (treffer < minimum) {
+					minimum = treffer;
+					seltenstes = i;
+				}
+			}
+			// Zuerst der exakte Treffer, dann die Präfixe und zuletzt die Phonetik, damit bei vielen Kandidaten
+			// die besseren Treffer nicht abgeschnitten werden
+			var kandidaten = new Kandidaten(suchwoerter, suchcodes, anzahl);
+			var wort = suchwoerter.get(seltenstes);
+			var exakt = woerter.get(wort);
+			boolean offen = exakt == null || kandidaten.bewerte(exakt);
+			for (var ids : praefixe(wort)) {
+				if (!offen) {
+					break;
+				}
+				offen = kandidaten.bewerte(ids);
+			}
+			var code = codes.get(suchcodes.get(seltenstes));
+			if (offen && code != null && !suchcodes.get(seltenstes).isEmpty()) {
+				kandidaten.bewerte(code);
+			}
+			var treffer = new ArrayList<>(kandidaten.beste);
+			treffer.sort(REIHENFOLGE);
+			return treffer;
+		}
+
+		/**
+		 * Zählt die Id-Listen, die ein Wort der Suche trifft. Ids in mehreren Listen zählen mehrfach.
+		 * @param grenze Bricht ab, sobald die Anzahl diese Grenze erreicht
+		 */
+		private long anzahlTreffer(String wort, String code, long grenze) {
+			long anzahl = 0;
+			var exakt = woerter.get(wort);
+			if (exakt != null) {
+				anzahl += exakt.anzahl;
+			}
+			var phonetisch = codes.get(code);
+			if (phonetisch != null && !code.isEmpty()) {
+				anzahl += phonetisch.anzahl;
+			}
+			for (var ids : praefixe(wort)) {
+				if (anzahl >= grenze) {
+					break;
+				}
+				anzahl += ids.anzahl;
+			}
+			return anzahl;
+		}
+
+		/**
+		 * Gibt die Id-Listen der Wörter zurück, die mit dem Wort beginnen, ohne das Wort selbst
+		 */
+		private Collection<Ids> praefixe(String wort) {
+			return woerter.subMap(wort, false, wort + Character.MAX_VALUE, false).values();
+		}
+
+		/**
+		 * Bewertet Kandidaten und behält die besten Treffer, begrenzt auf {@link KundenSuchindex#MAX_KANDIDATEN}
+		 * passende Kunden
+		 */
+		private final class Kandidaten {
+
+			private final List<String> suchwoerter;
+			private final List<String> suchcodes;
+			private final int anzahl;
+			private final LongLongMultiMap gesehen = new LongLongMultiMap(64);
+			/** Die besten Treffer, der schlechteste liegt oben */
+			private final PriorityQueue<KundeTreffer> beste;
+			private int passend;
+
+			private Kandidaten(List<String> suchwoerter, List<String> suchcodes, int anzahl) {
+				this.suchwoerter = suchwoerter;
+				this.suchcodes = suchcodes;
+				this.anzahl = anzahl;
+				this.beste = new PriorityQueue<>(anzahl + 1, REIHENFOLGE.reversed());
+			}
+
+			/**
+			 * Bewertet die noch nicht gesehenen Kunden einer Id-Liste. Kunden, die nicht alle Wörter der Suche
+			 * treffen, zählen nicht zur Grenze.
+			 * @return false, wenn {@link KundenSuchindex#MAX_KANDIDATEN} passende Kunden erreicht sind
+			 */
+			private boolean bewerte(Ids ids) {
+				for (int i = 0; i < ids.anzahl && passend < MAX_KANDIDATEN; i++) {
+					long id = ids.werte[i];
+					if (!gesehen.put(id, 0)) {
+						continue;
+					}
+					var eintrag = kunden.get(id);
+					int punkte = eintrag.punkte(suchwoerter, suchcodes);
+					if (punkte == 0) {
+						continue;
+					}
+					passend++;
+					if (beste.size() == anzahl && punkte < beste.peek().punkte()) {
+						continue;
+					}
+					beste.add(new KundeTreffer(id, eintrag.vorname, eintrag.nachname, punkte));
+					if (beste.size() > anzahl) {
+						beste.poll();
+					}
+				}
+				return passend < MAX_KANDIDATEN;
+			}
+
+		}
+
+		/**
+		 * Ein Kunde im Index. Die Wörter des Vornamens stehen vor denen des Nachnamens.
+		 */
+		private static final class Eintrag {
+
+			private final String vorname;
+			private final String nachname;
+			private final String[] woerter;
+			private final String[] codes;
+			private final int ersterNachname;
+
+			private Eintrag(String vorname, String nachname, String[] vornamen, String[] nachnamen) {
+				this.vorname = vorname;
+				this.nachname = nachname;
+				this.woerter = Arrays.copyOf(vornamen, vornamen.length + nachnamen.length);
+				System.arraycopy(nachnamen, 0, woerter, vornamen.length, nachnamen.length);
+				this.ersterNachname = vornamen.length;
+				this.codes = new String[woerter.length];
+				for (int i = 0; i < woerter.length; i++) {
+					codes[i] = KoelnerPhonetik.code(woerter[i]);
+				}
+			}
+
+			/**
+			 * Bewertet den Kunden, 0 wenn ein Wort der Suche kein Wort des Namens trifft
+			 */
+			private int punkte(List<String> suchwoerter, List<String> suchcodes) {
+				int summe = 0;
+				for (int s = 0; s < suchwoerter.size(); s++) {
+					int beste = 0;
+					for (int i = 0; i < woerter.length; i++) {
+						int punkte;
+						if (woerter[i].equals(suchwoerter.get(s))) {
+							punkte = 3;
+						} else if (woerter[i].startsWith(suchwoerter.get(s))) {
+							punkte = 2;
+						} else if (!codes[i].isEmpty() && codes[i].equals(suchcodes.get(s))) {
+							punkte = 1;
+						} else {
+							continue;
+						}
+						if (i >= ersterNachname) {
+							punkte++;
+						}
+						beste = Math.max(beste, punkte);
+					}
+					if (beste == 0) {
+						return 0;
+					}
+					summe += beste;
+				}
+				return summe;
+			}
+
+		}
+
+	}
+
+	/**
+	 * Sortierte Menge von Kunden-Ids ohne Boxing
+	 */
+	private static final class Ids {
+
+		private long[] werte = new long[1];
+		private int anzahl;
+
+		private void add(long id) {
+			if (anzahl == 0 || werte[anzahl - 1] < id) {
+				// Beim Aufbau kommen die Ids aufsteigend
+				if (anzahl == werte.length) {
+					werte = Arrays.copyOf(werte, anzahl * 2);
+				}
+				werte[anzahl++] = id;
+				return;
+			}
+			int pos = Arrays.binarySearch(werte, 0, anzahl, id);
+			if (pos >= 0) {
+				return;
+			}
+			pos = -pos - 1;
+			if (anzahl == werte.length) {
+				werte = Arrays.copyOf(werte, anzahl * 2);
+			}
+			System.arraycopy(werte, pos, werte, pos + 1, anzahl - pos);
+			werte[pos] = id;
+			anzahl++;
+		}
+
+		private boolean remove(long id) {
+			int pos = Arrays.binarySearch(werte, 0, anzahl, id);
+			if (pos < 0) {
+				return false;
+			}
+			System.arraycopy(werte, pos + 1, werte, pos, anzahl - pos - 1);
+			anzahl--;
+			return true;
+		}
+
+	}
+
+}
@@ -0,0 +1,25 @@
+package com.helvetia.m295.libraryserver.service;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Markiert einen Hintergrundjob, der im Cluster nur auf einer Instanz laufen soll.
+ * Die Methode wird nur ausgeführt, wenn diese Instanz gemäss {@link LeaderWahl} der Leader ist, sonst wird der
+ * Aufruf übersprungen. Wird zusammen mit {@link org.springframework.scheduling.annotation.Scheduled} verwendet.
+ * Die Methode muss {@code void} zurückgeben.
+ *
+ * @version 1.0.0
+ * @author Simon Fäs
+ * @see LeaderWahl
+ * @see SchedulingConfiguration
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface LeaderOnly {
+
+}
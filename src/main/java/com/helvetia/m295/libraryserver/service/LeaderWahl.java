@@ -0,0 +1,163 @@
+package com.helvetia.m295.libraryserver.service;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Wählt über die Zeile {@value #LEASE} der Tabelle {@code lease} eine Instanz des Clusters als Leader.
+ * Die Instanz, welche die abgelaufene Lease übernimmt, ist für {@code library.leader.lease-millis} Leader und
+ * verlängert die Lease alle {@code library.leader.heartbeat-millis}. Ablaufzeiten werden mit der Uhr der Datenbank
+ * gesetzt und verglichen, die Uhren der Instanzen müssen nicht übereinstimmen.
+ * <p>
+ * Lokal gilt eine Instanz ab dem Zeitpunkt vor dem Verlängern nur für die Dauer der Lease als Leader und hört
+ * damit auf, bevor die Lease in der Datenbank abläuft. Bei jeder Übernahme wird das Fencing-Token erhöht.
+ * Jobs, die auch nach einer langen Pause nicht doppelt schreiben dürfen, prüfen es mit {@link #FENCING} in
+ * derselben Anweisung.
+ * <p>
+ * Der Heartbeat läuft auf dem eigenen Scheduler {@link SchedulingConfiguration#KOORDINATION}, ein langer Job auf
+ * dem gemeinsamen Scheduler verzögert ihn also nicht.
+ *
+ * @version 1.0.0
+ * @author Simon Fäs
+ * @see LeaderOnly
+ */
+@Component
+@Profile("!kiosk")
+public class LeaderWahl {
+
+	/**
+	 * Name der Lease für die Hintergrundjobs
+	 */
+	public static final String LEASE = "scheduler";
+
+	/**
+	 * Bedingung für Anweisungen, die nur mit dem aktuellen Fencing-Token ausgeführt werden dürfen.
+	 * Erwartet das Token aus {@link #getToken()} als Parameter.
+	 */
+	public static final String FENCING = "EXISTS (SELECT 1 FROM lease WHERE name = '" + LEASE + "' AND token = ?)";
+
+	private static final Logger LOG = LoggerFactory.getLogger(LeaderWahl.class);
+
+	private static final String UEBERNEHMEN = "UPDATE lease SET besitzer = ?, token = token + 1, "
+			+ "gueltig_bis = TIMESTAMPADD(MICROSECOND, ?, CURRENT_TIMESTAMP(6)) "
+			+ "WHERE name = ? AND (besitzer IS NULL OR gueltig_bis < CURRENT_TIMESTAMP(6))";
+	private static final String VERLAENGERN = "UPDATE lease "
+			+ "SET gueltig_bis = TIMESTAMPADD(MICROSECOND, ?, CURRENT_TIMESTAMP(6)) "
+			+ "WHERE name = ? AND besitzer = ? AND token = ? AND gueltig_bis >= CURRENT_TIMESTAMP(6)";
+	private static final String FREIGEBEN = "UPDATE lease SET besitzer = NULL WHERE name = ? AND besitzer = ? AND token = ?";
+
+	private final String knoten = UUID.randomUUID().toString();
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Value("${library.leader.lease-millis:15000}")
+	private long leaseMillis;
+
+	@Value("${library.leader.heartbeat-millis:5000}")
+	private long heartbeatMillis;
+
+	private volatile Fuehrung fuehrung;
+	private boolean beendet;
+
+	/**
+	 * Prüft, dass die Lease mehrmals verlängert werden kann, bevor sie abläuft
+	 */
+	@PostConstruct
+	void pruefeEinstellungen() {
+		if (heartbeatMillis * 2 > leaseMillis) {
+			throw new IllegalStateException("library.leader.heartbeat-millis must be at most half of lease-millis");
+		}
+	}
+
+	/**
+	 * Verlängert die Lease oder versucht, eine abgelaufene Lease zu übernehmen.
+	 */
+	@Scheduled(fixedDelayString = "${library.leader.heartbeat-millis:5000}",
+			scheduler = SchedulingConfiguration.KOORDINATION)
+	public synchronized void heartbeat() {
+		if (beendet) {
+			return;
+		}
+		long start = System.nanoTime();
+		long micros = TimeUnit.MILLISECONDS.toMicros(leaseMillis);
+		var aktuell = fuehrung;
+		try {
+			if (aktuell != null && jdbcTemplate.update(VERLAENGERN, micros, LEASE, knoten, aktuell.token()) == 1) {
+				fuehrung = new Fuehrung(aktuell.token(), start + TimeUnit.MILLISECONDS.toNanos(leaseMillis));
+				return;
+			}
+			if (aktuell != null) {
+				LOG.warn("Lost leadership with fencing token {}", aktuell.token());
+				fuehrung = null;
+			}
+			if (jdbcTemplate.update(UEBERNEHMEN, knoten, micros, LEASE) == 1) {
+				long token = jdbcTemplate.queryForObject("SELECT token FROM lease WHERE name = ?", Long.class, LEASE);
+				fuehrung = new Fuehrung(token, start + TimeUnit.MILLISECONDS.toNanos(leaseMillis));
+				LOG.info("Became leader with fencing token {}", token);
+			}
+		} catch (DataAccessException e) {
+			// Die lokale Führung läuft ohne Verlängerung von selbst ab
+			LOG.warn("Lease heartbeat failed", e);
+		}
+	}
+
+	/**
+	 * Gibt die Lease beim Herunterfahren frei, damit eine andere Instanz sie sofort übernehmen kann
+	 */
+	@PreDestroy
+	public synchronized void freigeben() {
+		var aktuell = fuehrung;
+		fuehrung = null;
+		beendet = true;
+		if (aktuell != null) {
+			try {
+				jdbcTemplate.update(FREIGEBEN, LEASE, knoten, aktuell.token());
+			} catch (DataAccessException e) {
+				LOG.warn("Releasing the lease failed", e);
+			}
+		}
+	}
+
+	/**
+	 * Prüft, ob diese Instanz der Leader ist
+	 * @return true, wenn die Lease dieser Instanz noch gültig ist
+	 */
+	public boolean istLeader() {
+		var aktuell = fuehrung;
+		return aktuell != null && System.nanoTime() - aktuell.bisNanos() < 0;
+	}
+
+	/**
+	 * Gibt das Fencing-Token der aktuellen Führung zurück
+	 * @return Token, das bei jeder Übernahme der Lease erhöht wird
+	 * @throws IllegalStateException Wenn diese Instanz nicht der Leader ist
+	 */
+	public long getToken() {
+		var aktuell = fuehrung;
+		if (aktuell == null || System.nanoTime() - aktuell.bisNanos() >= 0) {
+			throw new IllegalStateException("Not the leader");
+		}
+		return aktuell.token();
+	}
+
+	/**
+	 * Führung dieser Instanz mit Token und lokaler Ablaufzeit
+	 */
+	private record Fuehrung(long token, long bisNanos) {
+	}
+
+}
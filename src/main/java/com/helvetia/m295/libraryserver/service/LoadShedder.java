@@ -0,0 +1,81 @@
+package com.helvetia.m295.libraryserver.service;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+/**
+ * Entscheidet, ob Requests mit niedriger Priorität abgewiesen werden, um die Datenbank zu entlasten.
+ * Abgewiesen wird, wenn
+ * <ul>
+ * <li>mehr Threads auf eine Verbindung aus dem Pool warten als erlaubt, oder</li>
+ * <li>die geglättete Antwortzeit (EWMA) der Katalog-Requests über dem Schwellwert liegt.</li>
+ * </ul>
+ *
+ * @version 1.0.0
+ * @author Simon Fäs
+ * @see RateLimitFilter
+ */
+public class LoadShedder {
+
+	private static final double ALPHA = 0.1;
+
+	private final List<HikariDataSource> pools;
+	private final int maxWaitingConnections;
+	private final long maxLatencyNanos;
+	private final AtomicLong latencyBits = new AtomicLong(Double.doubleToLongBits(0));
+
+	/**
+	 * Constructor mit den Verbindungspools und Schwellwerten als Parameter
+	 * @param pools Verbindungspools, deren Warteschlange überwacht wird
+	 * @param maxWaitingConnections Maximale Anzahl Threads, die auf eine Verbindung warten dürfen
+	 * @param maxLatencyNanos Maximale geglättete Antwortzeit in Nanosekunden
+	 */
+	public LoadShedder(List<HikariDataSource> pools, int maxWaitingConnections, long maxLatencyNanos) {
+		this.pools = pools;
+		this.maxWaitingConnections = maxWaitingConnections;
+		this.maxLatencyNanos = maxLatencyNanos;
+	}
+
+	/**
+	 * Lässt die Antwortzeit eines Requests in die geglättete Antwortzeit einfliessen
+	 * @param nanos Antwortzeit in Nanosekunden
+	 */
+	public void recordLatency(long nanos) {
+		long current;
+		long updated;
+		do {
+			current = latencyBits.get();
+			updated = Double.doubleToLongBits(Double.longBitsToDouble(current) * (1 - ALPHA) + nanos * ALPHA);
+		} while (!latencyBits.compareAndSet(current, updated));
+	}
+
+	/**
+	 * Gibt die geglättete Antwortzeit zurück
+	 * @return Antwortzeit in Nanosekunden
+	 */
+	public long getLatencyNanos() {
+		return (long) Double.longBitsToDouble(latencyBits.get());
+	}
+
+	/**
+	 * Prüft, ob das System überlastet ist
+	 * @return true, wenn Requests mit niedriger Priorität abgewiesen werden sollen
+	 */
+	public boolean isOverloaded() {
+		return getLatencyNanos() > maxLatencyNanos || getWaitingConnections() > maxWaitingConnections;
+	}
+
+	private int getWaitingConnections() {
+		int waiting = 0;
+		for (var pool : pools) {
+			var mxBean = pool.getHikariPoolMXBean();
+			if (mxBean != null) {
+				waiting += mxBean.getThreadsAwaitingConnection();
+			}
+		}
+		return waiting;
+	}
+
+}
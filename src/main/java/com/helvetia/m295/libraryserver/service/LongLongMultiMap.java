@@ -0,0 +1,183 @@
+package com.helvetia.m295.libraryserver.service;
+
+import java.util.Arrays;
+import java.util.function.LongConsumer;
+
+/**
+ * Hashtabelle von primitiven long-Schlüsseln auf einen oder mehrere long-Werte, ohne Boxing.
+ * Schlüssel und Wert liegen abwechselnd im selben Array, Kollisionen werden mit linearem Sondieren aufgelöst.
+ * Da nur nach dem Schlüssel gehasht wird, liegen alle Paare eines Schlüssels in derselben Sondierungsfolge.
+ * Beim Entfernen werden die nachfolgenden Paare zurückgeschoben (Backward-Shift), es gibt deshalb keine Grabsteine.
+ * Die Tabelle ist höchstens halb voll, Abfragen allozieren keinen Speicher.
+ * <p>
+ * {@link Long#MIN_VALUE} ist als Schlüssel nicht erlaubt. Die Klasse ist nicht threadsicher.
+ * Abfragen brechen nach einem Durchlauf der Tabelle ab und sind deshalb auch bei gleichzeitigen Änderungen
+ * endlich, zum Beispiel mit {@link java.util.concurrent.locks.StampedLock#tryOptimisticRead()}.
+ *
+ * @version 1.0.0
+ * @author Simon Fäs
+ * @see AusleiheIndex
+ * @see EmpfehlungsIndex
+ */
+public class LongLongMultiMap {
+
+	private static final long FREI = Long.MIN_VALUE;
+
+	private long[] table;
+	private int size;
+
+	/**
+	 * Constructor mit der erwarteten Anzahl Paare als Parameter
+	 * @param erwartet Anzahl Paare, die ohne Vergrössern Platz haben
+	 */
+	public LongLongMultiMap(int erwartet) {
+		int kapazitaet = Integer.highestOneBit(Math.max(16, erwartet * 2 - 1)) << 1;
+		table = new long[kapazitaet * 2];
+		Arrays.fill(table, FREI);
+	}
+
+	/**
+	 * Fügt ein Paar hinzu
+	 * @param key Schlüssel
+	 * @param value Wert
+	 * @return false, wenn das Paar bereits vorhanden war
+	 */
+	public boolean put(long key, long value) {
+		if (key == FREI) {
+			throw new IllegalArgumentException("Long.MIN_VALUE is not a valid key");
+		}
+		if ((size + 1) * 4L > table.length) {
+			resize();
+		}
+		var t = table;
+		int mask = t.length / 2 - 1;
+		for (int i = slot(key, mask);; i = (i + 1) & mask) {
+			if (t[2 * i] == FREI) {
+				t[2 * i + 1] = value;
+				t[2 * i] = key;
+				size++;
+				return true;
+			}
+			if (t[2 * i] == key && t[2 * i + 1] == value) {
+				return false;
+			}
+		}
+	}
+
+	/**
+	 * Entfernt ein Paar
+	 * @param key Schlüssel
+	 * @param value Wert
+	 * @return true, wenn das Paar vorhanden war
+	 */
+	public boolean remove(long key, long value) {
+		var t = table;
+		int mask = t.length / 2 - 1;
+		for (int i = slot(key, mask), n = 0; n <= mask && t[2 * i] != FREI; i = (i + 1) & mask, n++) {
+			if (t[2 * i] == key && t[2 * i + 1] == value) {
+				shiftBack(t, i, mask);
+				size--;
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Gibt den ersten Wert eines Schlüssels zurück
+	 * @param key Schlüssel
+	 * @param missing Rückgabewert, wenn der Schlüssel nicht vorhanden ist
+	 * @return Wert oder missing
+	 */
+	public long first(long key, long missing) {
+		var t = table;
+		int mask = t.length / 2 - 1;
+		for (int i = slot(key, mask), n = 0; n <= mask && t[2 * i] != FREI; i = (i + 1) & mask, n++) {
+			if (t[2 * i] == key) {
+				return t[2 * i + 1];
+			}
+		}
+		return missing;
+	}
+
+	/**
+	 * Zählt die Werte eines Schlüssels
+	 * @param key Schlüssel
+	 * @return Anzahl Werte
+	 */
+	public int count(long key) {
+		var t = table;
+		int mask = t.length / 2 - 1;
+		int count = 0;
+		for (int i = slot(key, mask), n = 0; n <= mask && t[2 * i] != FREI; i = (i + 1) & mask, n++) {
+			if (t[2 * i] == key) {
+				count++;
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Übergibt alle Werte eines Schlüssels
+	 * @param key Schlüssel
+	 * @param consumer Empfänger der Werte
+	 */
+	public void forEach(long key, LongConsumer consumer) {
+		var t = table;
+		int mask = t.length / 2 - 1;
+		for (int i = slot(key, mask), n = 0; n <= mask && t[2 * i] != FREI; i = (i + 1) & mask, n++) {
+			if (t[2 * i] == key) {
+				consumer.accept(t[2 * i + 1]);
+			}
+		}
+	}
+
+	/**
+	 * Gibt die Anzahl Paare zurück
+	 * @return Anzahl Paare
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Schiebt die Paare nach einer Lücke zurück, deren Heimat-Slot nicht zwischen Lücke und aktueller Position liegt
+	 */
+	private static void shiftBack(long[] t, int luecke, int mask) {
+		for (int j = (luecke + 1) & mask; t[2 * j] != FREI; j = (j + 1) & mask) {
+			int heimat = slot(t[2 * j], mask);
+			boolean bleibt = luecke < j ? luecke < heimat && heimat <= j : luecke < heimat || heimat <= j;
+			if (!bleibt) {
+				t[2 * luecke] = t[2 * j];
+				t[2 * luecke + 1] = t[2 * j + 1];
+				luecke = j;
+			}
+		}
+		t[2 * luecke] = FREI;
+		t[2 * luecke + 1] = FREI;
+	}
+
+	private void resize() {
+		var alt = table;
+		var neu = new long[alt.length * 2];
+		Arrays.fill(neu, FREI);
+		int mask = neu.length / 2 - 1;
+		for (int i = 0; i < alt.length; i += 2) {
+			if (alt[i] != FREI) {
+				int j = slot(alt[i], mask);
+				while (neu[2 * j] != FREI) {
+					j = (j + 1) & mask;
+				}
+				neu[2 * j] = alt[i];
+				neu[2 * j + 1] = alt[i + 1];
+			}
+		}
+		table = neu;
+	}
+
+	private static int slot(long key, int mask) {
+		long h = key * 0x9E3779B97F4A7C15L;
+		return (int) (h ^ (h >>> 32)) & mask;
+	}
+
+}
@@ -0,0 +1,142 @@
+package com.helvetia.m295.libraryserver.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.helvetia.m295.libraryserver.common.ImportResultat;
+import com.helvetia.m295.libraryserver.common.Medium;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+
+/**
+ * Massenimport von Medien mit Upsert anhand der ISBN.
+ * Der Request wird mit {@link StreamingImport} Element für Element gelesen und in Stapeln fester Grösse
+ * ({@code library.bulk.chunk-size}) gespeichert. Jeder Stapel läuft in einer eigenen Transaktion mit
+ * <ul>
+ * <li>einer Abfrage der bereits vorhandenen ISBNs,</li>
+ * <li>einem JDBC-Batch-Update für vorhandene und einem JDBC-Batch-Insert für neue Medien.</li>
+ * </ul>
+ * Es wird JDBC statt JPA verwendet, da Hibernate Inserts mit IDENTITY-Ids nicht bündeln kann.
+ *
+ * @version 1.0.0
+ * @author Simon Fäs
+ * @see MediumController#bulkUpsertMedien
+ */
+@Service
+public class MediumBulkImport {
+
+	private static final String SELECT_ISBNS = "SELECT isbn FROM medium WHERE isbn IN (:isbns)";
+	private static final String UPDATE = "UPDATE medium SET titel = COALESCE(?, titel), autor = COALESCE(?, autor), "
+			+ "genre = COALESCE(?, genre), altersfreigabe = COALESCE(?, altersfreigabe), "
+			+ "standortcode = COALESCE(?, standortcode) WHERE isbn = ?";
+	private static final String INSERT = "INSERT INTO medium (titel, autor, genre, altersfreigabe, isbn, standortcode) "
+			+ "VALUES (?, ?, ?, ?, ?, ?)";
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	@Autowired
+	private NamedParameterJdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	@Autowired
+	private ApplicationEventPublisher eventPublisher;
+
+	@PersistenceContext
+	private EntityManager entityManager;
+
+	@Value("${library.bulk.chunk-size:1000}")
+	private int chunkSize;
+
+	@Value("${library.bulk.queue-size:2}")
+	private int queueSize;
+
+	private StreamingImport streamingImport;
+
+	/**
+	 * Initialisiert das Lesen der Uploads mit der konfigurierten Stapelgrösse
+	 */
+	@PostConstruct
+	void initStreamingImport() {
+		streamingImport = new StreamingImport(objectMapper, chunkSize, queueSize);
+	}
+
+	/**
+	 * Liest Medien aus dem Stream und speichert sie stapelweise.
+	 * Medien ohne ISBN werden abgelehnt, neue Medien zusätzlich, wenn sie nicht {@link Validierung} entsprechen.
+	 *
+	 * @param inputStream Body des Requests mit Medien
+	 * @param format JSON-Array oder NDJSON
+	 * @return Zusammenfassung des Imports
+	 * @throws IOException Wenn der Stream nicht gelesen werden kann
+	 * @throws ResponseStatusException Wenn der Body nicht dem Format entspricht
+	 */
+	public ImportResultat importiere(InputStream inputStream, StreamingImport.Format format) throws IOException {
+		var resultat = streamingImport.importiere(inputStream, format, Medium.class,
+				medium -> medium.getIsbn() == null ? "Medium without ISBN: " + medium.getTitel() : null,
+				this::speichere);
+		// Der Persistence-Context des Requests darf keine veralteten Medien halten
+		entityManager.clear();
+		eventPublisher.publishEvent(resultat);
+		return resultat;
+	}
+
+	/**
+	 * Speichert einen Stapel von Medien in einer Transaktion.
+	 * Kommt eine ISBN im selben Stapel mehrfach vor, gilt das letzte Element.
+	 *
+	 * @param batch Medien mit ISBN
+	 * @return Zusammenfassung für diesen Stapel
+	 */
+	private ImportResultat speichere(List<Medium> batch) {
+		var medien = new LinkedHashMap<Long, Medium>();
+		batch.forEach(medium -> medien.put(medium.getIsbn(), medium));
+		return new TransactionTemplate(transactionManager).execute(status -> {
+			var vorhanden = new HashSet<>(
+					jdbcTemplate.queryForList(SELECT_ISBNS, Map.of("isbns", medien.keySet()), Long.class));
+
+			var updates = new ArrayList<Object[]>();
+			var inserts = new ArrayList<Object[]>();
+			var fehler = new ArrayList<String>();
+			for (var medium : medien.values()) {
+				if (vorhanden.contains(medium.getIsbn())) {
+					updates.add(new Object[] { medium.getTitel(), medium.getAutor(), medium.getGenre(),
+							medium.getAltersfreigabe(), medium.getStandortcode(), medium.getIsbn() });
+				} else if (!Validierung.istVollstaendig(medium)) {
+					fehler.add(Validierung.UNVOLLSTAENDIG + " for ISBN " + medium.getIsbn());
+				} else {
+					inserts.add(new Object[] { medium.getTitel(), medium.getAutor(), medium.getGenre(),
+							medium.getAltersfreigabe(), medium.getIsbn(), medium.getStandortcode() });
+				}
+			}
+			var jdbc = jdbcTemplate.getJdbcTemplate();
+			if (!updates.isEmpty()) {
+				jdbc.batchUpdate(UPDATE, updates);
+			}
+			if (!inserts.isEmpty()) {
+				jdbc.batchUpdate(INSERT, inserts);
+			}
+			return new ImportResultat(inserts.size(), updates.size(), fehler.size(), fehler);
+		});
+	}
+
+}
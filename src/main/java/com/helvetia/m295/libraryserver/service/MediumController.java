@@ -1,18 +1,32 @@
 package com.helvetia.m295.libraryserver.service;
 
+import java.io.IOException;
 import java.util.List;
 import java.util.NoSuchElementException;
+import java.util.Optional;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
 
+import com.helvetia.m295.libraryserver.common.ImportResultat;
+import com.helvetia.m295.libraryserver.common.Invalidierung;
 import com.helvetia.m295.libraryserver.common.Medium;
+import com.helvetia.m295.libraryserver.common.MediumDto;
+import com.helvetia.m295.libraryserver.common.MediumEvent;
 import com.helvetia.m295.libraryserver.model.MediumRepository;
 
+import jakarta.annotation.PostConstruct;
+import jakarta.servlet.http.HttpServletRequest;
+
 /**
  * Klasse um Serveranfragen rund um die Entity Medium zu bearbeiten.
+ * Im Snapshot-Modus ({@link SnapshotConfiguration}) wird aus dem {@link KatalogSnapshot} gelesen und Änderungen
+ * werden abgelehnt.
  * 
  * @version 1.0.0
  * @author Simon Fäs
@@ -26,17 +40,52 @@ public class MediumController {
 	@Autowired
 	private MediumRepository mediumRepository;
 
+	@Autowired
+	private ApplicationEventPublisher eventPublisher;
+
+	@Autowired
+	private MediumBulkImport mediumBulkImport;
+
+	@Autowired
+	private InvalidierungsBus invalidierungsBus;
+
+	@Autowired(required = false)
+	private AusleiheIndex ausleiheIndex;
+
+	@Autowired(required = false)
+	private KatalogSnapshot snapshot;
+
+	@Value("${library.singleflight.ttl-millis:0}")
+	private long singleFlightTtlMillis;
+
+	private SingleFlight<Long, Optional<MediumDto>> mediumById;
+	private SingleFlight<String, List<MediumDto>> medienByTitel;
+
+	/**
+	 * Initialisiert die Single-Flight-Gruppen, welche gleichzeitige identische Abfragen zusammenfassen
+	 */
+	@PostConstruct
+	void initSingleFlight() {
+		mediumById = new SingleFlight<>(singleFlightTtlMillis);
+		medienByTitel = new SingleFlight<>(singleFlightTtlMillis);
+	}
+
 	/**
 	 * Gibt ein Medium basierend auf der angegebenen ID zurück.
+	 * Gleichzeitige Abfragen derselben ID werden zu einer Datenbankabfrage zusammengefasst.
+	 * Geantwortet wird mit einem {@link MediumDto}, die Entity wird nicht serialisiert.
+	 * Ob das Medium ausgeliehen ist, kommt aus dem {@link AusleiheIndex}, siehe {@link #mitStatus(MediumDto)}.
 	 *
 	 * @param id Die ID des Mediums, das abgerufen werden soll.
 	 * @return Das Medium, das der angegebenen ID entspricht.
 	 * @throws ResponseStatusException Wenn nichts gefunden wurde.
 	 */
 	@GetMapping("/{id}")
-	public @ResponseBody Medium getMediumById(@PathVariable("id") Long id) {
+	public @ResponseBody MediumDto getMediumById(@PathVariable("id") Long id) {
 		try {
-			return mediumRepository.findById(id).get();
+			if (snapshot != null)
+				return MediumDto.von(snapshot.findMediumById(id).get());
+			return mitStatus(mediumById.get(id, () -> mediumRepository.findById(id).map(MediumDto::von)).get());
 		} catch (NoSuchElementException e) {
 			throw new ResponseStatusException(HttpStatus.NOT_FOUND);
 		}
@@ -44,13 +93,16 @@ public class MediumController {
 	
 	/**
 	 * Gibt eine Liste von Medien basierend auf dem angegebenen Titel zurück.
+	 * Gleichzeitige Abfragen desselben Titels werden zu einer Datenbankabfrage zusammengefasst.
 	 *
 	 * @param titel Der Titel, nach dem Medien gesucht werden sollen.
 	 * @return Eine Liste von Medien mit dem angegebenen Titel.
 	 */
 	@GetMapping("/titel/{titel}")
-	public @ResponseBody List<Medium> getMedienByTitel(@PathVariable("titel") String titel) {
-		return mediumRepository.findByTitel(titel);
+	public @ResponseBody List<MediumDto> getMedienByTitel(@PathVariable("titel") String titel) {
+		if (snapshot != null)
+			return MediumDto.von(snapshot.findMedienByTitel(titel));
+		return mitStatus(medienByTitel.get(titel, () -> MediumDto.von(mediumRepository.findByTitel(titel))));
 	}
 
 	/**
@@ -59,8 +111,10 @@ public class MediumController {
 	 * @return Eine Liste aller Medien.
 	 */
 	@GetMapping("")
-	public @ResponseBody List<Medium> getAllMedien() {
-		return mediumRepository.findAll();
+	public @ResponseBody List<MediumDto> getAllMedien() {
+		if (snapshot != null)
+			return MediumDto.von(snapshot.findAllMedien());
+		return mitStatus(MediumDto.von(mediumRepository.findAll()));
 	}
 
 	/**
@@ -85,12 +139,13 @@ public class MediumController {
 	 */
 	@PutMapping("/{id}")
 	public @ResponseBody Medium updateMedium(@RequestBody Medium data, @PathVariable Long id) {
-		
+		pruefeSchreibbar();
 		var medium = mediumRepository.findById(id);
 		var original = data;
 		
 		if (medium.isPresent()) {
 			original = medium.get();
+			var vorher = new Medium(original);
 			Object value = data.getGenre();
 			if (value != null)
 				original.setGenre((String) value);
@@ -103,13 +158,35 @@ public class MediumController {
 			value = data.getStandortcode();
 			if (value != null)
 				original.setStandortcode((String) value);
-			return mediumRepository.save(original);
+			var saved = mediumRepository.save(original);
+			invalidate(id);
+			eventPublisher.publishEvent(new MediumEvent(vorher, saved));
+			return saved;
 		} else {
 			return supportAddMedium(data);
 		}
 
 	}
 	
+	/**
+	 * Erfasst oder aktualisiert viele Medien auf einmal anhand ihrer ISBN.
+	 * Der Body ist ein JSON-Array oder, mit Content-Type {@code application/x-ndjson}, ein Medium pro Zeile.
+	 * Er wird gestreamt verarbeitet, siehe {@link MediumBulkImport}.
+	 * Bei vorhandener ISBN werden nur die gesendeten Attribute überschrieben.
+	 *
+	 * @param request Request mit den Medien als Body.
+	 * @return Anzahl eingefügter, aktualisierter und abgelehnter Medien.
+	 * @throws IOException Wenn der Body nicht gelesen werden kann.
+	 */
+	@PutMapping("/bulk")
+	public @ResponseBody ImportResultat bulkUpsertMedien(HttpServletRequest request) throws IOException {
+		pruefeSchreibbar();
+		var resultat = mediumBulkImport.importiere(request.getInputStream(),
+				StreamingImport.Format.von(request.getContentType()));
+		invalidate(null);
+		return resultat;
+	}
+
 	/**
 	 * Methode, um ein Medium zu sichern
 	 * 
@@ -118,10 +195,14 @@ public class MediumController {
 	 * @throws ResponseStatusException Wenn die gesendeten Daten unvollständig sind.
 	 */
 	private Medium supportAddMedium(Medium data) {
-		if(data.getAutor() == null || data.getTitel() == null) {
-			throw new ResponseStatusException(HttpStatus.BAD_REQUEST , "Sent data is incomplete");
+		pruefeSchreibbar();
+		if (!Validierung.istVollstaendig(data)) {
+			throw new ResponseStatusException(HttpStatus.BAD_REQUEST , Validierung.UNVOLLSTAENDIG);
 		}
-		return mediumRepository.save(data);
+		var saved = mediumRepository.save(data);
+		invalidate(data.getId());
+		eventPublisher.publishEvent(MediumEvent.erstellt(saved));
+		return saved;
 	}
 	
 	/**
@@ -131,7 +212,72 @@ public class MediumController {
 	 */
 	@DeleteMapping("/{id}")
 	public @ResponseBody void deleteMedium(@PathVariable("id") Long id) {
+		pruefeSchreibbar();
+		var medium = mediumRepository.findById(id);
 		mediumRepository.deleteById(id);
+		invalidate(id);
+		medium.ifPresent(geloescht -> eventPublisher.publishEvent(MediumEvent.geloescht(geloescht)));
+	}
+
+	/**
+	 * Ergänzt den Ausleihestatus aus dem {@link AusleiheIndex} dieser Instanz, ohne die Datenbank abzufragen.
+	 * Eine Ausleihe auf einer anderen Instanz erscheint erst nach deren Invalidierung, für die Anzeige im Katalog
+	 * genügt das. Ob ausgeliehen werden darf, entscheidet {@link Reservierungen#leiheAus}.
+	 * 
+	 * @param medium Medium aus der Datenbank.
+	 * @return Kopie mit Ausleihestatus.
+	 */
+	private MediumDto mitStatus(MediumDto medium) {
+		return medium.mitAusgeliehen(ausleiheIndex.istAusgeliehen(medium.id()));
+	}
+
+	private List<MediumDto> mitStatus(List<MediumDto> medien) {
+		return medien.stream().map(this::mitStatus).toList();
+	}
+
+	/**
+	 * Lehnt Änderungen im Snapshot-Modus ab
+	 * 
+	 * @throws ResponseStatusException Wenn aus einem Snapshot gelesen wird.
+	 */
+	private void pruefeSchreibbar() {
+		if (snapshot != null)
+			throw new ResponseStatusException(HttpStatus.METHOD_NOT_ALLOWED, "Snapshot mode is read-only");
+	}
+
+	/**
+	 * Übernimmt die Änderung eines Mediums auf einer anderen Instanz
+	 * 
+	 * @param invalidierung Das geänderte Medium.
+	 */
+	@EventListener
+	public void onInvalidierung(Invalidierung invalidierung) {
+		if (invalidierung.typ() == Invalidierung.Typ.MEDIUM)
+			verwirf(invalidierung.id());
+	}
+
+	/**
+	 * Verwirft die Single-Flight-Resultate, welche von einer Änderung am Medium betroffen sein können,
+	 * und meldet die Änderung den anderen Instanzen
+	 * 
+	 * @param id Die ID des geänderten Mediums, null wenn alle Medien betroffen sind.
+	 */
+	private void invalidate(Long id) {
+		verwirf(id);
+		invalidierungsBus.publiziere(Invalidierung.Typ.MEDIUM, id);
+	}
+
+	/**
+	 * Verwirft die Single-Flight-Resultate, welche von einer Änderung am Medium betroffen sein können
+	 * 
+	 * @param id Die ID des geänderten Mediums, null wenn alle Medien betroffen sind.
+	 */
+	private void verwirf(Long id) {
+		if (id != null)
+			mediumById.invalidate(id);
+		else
+			mediumById.invalidateAll();
+		medienByTitel.invalidateAll();
 	}
 
 }
@@ -0,0 +1,199 @@
+package com.helvetia.m295.libraryserver.service;
+
+import java.sql.Timestamp;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongFunction;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Erzeugt im Profil {@code perf} synthetische Adressen, Kunden, Medien und Ausleihen für Lasttests.
+ * Dazu kommt eine Historie früherer Ausleihen für die Empfehlungen, in der beliebte Medien wie im Betrieb
+ * deutlich häufiger vorkommen. Die Mengen werden mit {@code library.perf.*} konfiguriert, die Daten sind mit {@code library.perf.seed}
+ * reproduzierbar. Nachnamen, Orte und Genres sind ungleich verteilt, damit Suchen und Statistiken wie im
+ * Betrieb häufige und seltene Werte sehen.
+ * <p>
+ * Die Zeilen werden mit expliziten Ids über mehrzeilige {@code INSERT ... VALUES (...), (...)} Anweisungen mit
+ * {@code library.perf.batch} Zeilen geladen. Da die Ids feststehen, können Fremdschlüssel ohne Rückfrage an die
+ * Datenbank gesetzt werden. Im MySQL-Modus von H2 und in MySQL wird der Zähler von AUTO_INCREMENT dabei
+ * nachgeführt, neue Zeilen der Applikation erhalten danach freie Ids.
+ * <p>
+ * Der Generator läuft vor den {@code ApplicationReadyEvent} Listenern, die Indizes im Speicher werden also
+ * bereits aus den erzeugten Daten aufgebaut. Enthält die Datenbank schon Medien, wird nichts erzeugt.
+ * Da eine Rückgabe die Ausleihe löscht, gibt es höchstens eine Ausleihe pro Medium.
+ *
+ * @version 1.0.0
+ * @author Simon Fäs
+ */
+@Component
+@Profile("perf")
+public class PerfDatenGenerator implements ApplicationRunner {
+
+	private static final Logger LOG = LoggerFactory.getLogger(PerfDatenGenerator.class);
+
+	private static final long TAG = TimeUnit.DAYS.toMillis(1);
+
+	private static final String[] VORNAMEN = { "Anna", "Hans", "Peter", "Maria", "Thomas", "Daniel", "Sandra",
+			"Martin", "Ursula", "Andreas", "Monika", "Christian", "Nicole", "Markus", "Barbara", "Stefan", "Ruth",
+			"Michael", "Elisabeth", "Marco", "Laura", "Luca", "Lea", "Noah", "Mia", "Leon", "Sara", "David", "Julia",
+			"Simon", "Lena", "Jonas", "Nina", "Fabian", "Sophie", "Reto", "Corinne", "Beat", "Verena", "Jürg",
+			"Käthi", "René", "Chantal", "Urs", "Heidi", "Rolf", "Esther", "Lukas", "Selina", "Matthias" };
+	private static final String[] NACHNAMEN = { "Müller", "Meier", "Schmid", "Keller", "Weber", "Huber",
+			"Schneider", "Meyer", "Steiner", "Fischer", "Gerber", "Brunner", "Baumann", "Frei", "Zimmermann", "Moser",
+			"Widmer", "Wyss", "Graf", "Roth", "Kälin", "Suter", "Baumgartner", "Bachmann", "Studer", "Bühler",
+			"Berger", "Hofmann", "Kaufmann", "Lüthi", "Maier", "Mayr", "Bosshard", "Fässler", "Schärer", "Zürcher",
+			"Ammann", "Egli", "Hess", "Marti", "Sutter", "Vogel", "Kunz", "Lehmann", "Arnold", "Bucher", "Bieri",
+			"Christen", "Odermatt", "Rüegg" };
+	private static final String[] STRASSEN = { "Bahnhofstrasse", "Hauptstrasse", "Dorfstrasse", "Kirchweg",
+			"Schulstrasse", "Zürcherstrasse", "Bernstrasse", "Seestrasse", "Gartenstrasse", "Industriestrasse",
+			"Rosenweg", "Lindenstrasse", "Birkenweg", "Poststrasse", "Oberdorfstrasse", "Feldstrasse", "Mühleweg",
+			"Sonnenbergstrasse", "Alpenstrasse", "Kreuzstrasse" };
+	private static final String[][] ORTE = { { "Zürich", "8001" }, { "Zürich", "8004" }, { "Zürich", "8050" },
+			{ "Bern", "3011" }, { "Basel", "4051" }, { "Luzern", "6003" }, { "St. Gallen", "9000" },
+			{ "Winterthur", "8400" }, { "Lausanne", "1003" }, { "Genève", "1201" }, { "Biel/Bienne", "2502" },
+			{ "Thun", "3600" }, { "Aarau", "5000" }, { "Chur", "7000" }, { "Schaffhausen", "8200" },
+			{ "Zug", "6300" }, { "Olten", "4600" }, { "Baden", "5400" }, { "Uster", "8610" }, { "Frauenfeld", "8500" } };
+	private static final String[] GENRES = { "Roman", "Krimi", "Kinderbuch", "Sachbuch", "Fantasy", "Biografie",
+			"Science-Fiction", "Kochbuch", "Reiseführer", "Comic", "Lyrik", "Geschichte" };
+	private static final String[] ADJEKTIVE = { "Die dunkle", "Die letzte", "Die verlorene", "Die stille", "Die kalte",
+			"Die geheime", "Die ferne", "Die alte", "Die rote", "Die vergessene" };
+	private static final String[] NOMEN = { "Stadt", "Insel", "Reise", "Nacht", "Grenze", "Brücke", "Erbin", "Quelle",
+			"Spur", "Zeit", "Küste", "Mühle", "Kammer", "Wahrheit", "Stimme" };
+	private static final int[] ALTERSFREIGABEN = { 0, 6, 12, 16, 18 };
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Value("${library.perf.adressen:100000}")
+	private long adressen;
+
+	@Value("${library.perf.kunden:200000}")
+	private long kunden;
+
+	@Value("${library.perf.medien:1000000}")
+	private long medien;
+
+	@Value("${library.perf.ausleihen:200000}")
+	private long ausleihen;
+
+	@Value("${library.perf.historie:1000000}")
+	private long historie;
+
+	@Value("${library.perf.batch:1000}")
+	private int batch;
+
+	@Value("${library.perf.seed:42}")
+	private long seed;
+
+	/**
+	 * Erzeugt die Daten, sofern die Datenbank noch keine Medien enthält
+	 * @param args Nicht verwendet
+	 */
+	@Override
+	public void run(ApplicationArguments args) {
+		if (jdbcTemplate.queryForObject("SELECT COUNT(*) FROM medium", Long.class) > 0) {
+			LOG.info("Database already contains media, no performance data generated");
+			return;
+		}
+		if (adressen < 1 && kunden > 0 || kunden < 1 && ausleihen + historie > 0 || batch < 1) {
+			throw new IllegalStateException("Invalid library.perf volumes");
+		}
+		if (ausleihen > medien) {
+			LOG.warn("Only one loan per medium, generating {} instead of {} loans", medien, ausleihen);
+			ausleihen = medien;
+		}
+		long jetzt = System.currentTimeMillis();
+		var random = new SplittableRandom(seed);
+		lade("adresse", "id, adresse, ort, zip", 4, adressen, id -> {
+			var ort = ORTE[schief(random, ORTE.length)];
+			return new Object[] { id, STRASSEN[random.nextInt(STRASSEN.length)] + " " + random.nextInt(1, 200), ort[0],
+					ort[1] };
+		});
+		lade("kunde", "id, vorname, nachname, geburtstag, addressid, email", 6, kunden, id -> {
+			var vorname = VORNAMEN[random.nextInt(VORNAMEN.length)];
+			var nachname = NACHNAMEN[schief(random, NACHNAMEN.length)];
+			var email = KoelnerPhonetik.normalisiere(vorname + "." + nachname) + "." + id + "@example.ch";
+			return new Object[] { id, vorname, nachname, new Timestamp(jetzt - random.nextLong(6 * 365, 90 * 365) * TAG),
+					random.nextLong(1, adressen + 1), email };
+		});
+		lade("medium", "id, titel, autor, genre, altersfreigabe, isbn, standortcode", 7, medien, id -> {
+			var titel = ADJEKTIVE[random.nextInt(ADJEKTIVE.length)] + " " + NOMEN[random.nextInt(NOMEN.length)];
+			var autor = VORNAMEN[random.nextInt(VORNAMEN.length)] + " " + NACHNAMEN[random.nextInt(NACHNAMEN.length)];
+			return new Object[] { id, titel + " " + (id % 97 + 1), autor, GENRES[schief(random, GENRES.length)],
+					ALTERSFREIGABEN[random.nextInt(ALTERSFREIGABEN.length)], 9780000000000L + id,
+					(char) ('A' + random.nextInt(26)) + String.valueOf(random.nextInt(1, 100)) };
+		});
+		// Die Schrittweite ist teilerfremd zur Anzahl Medien, so wird jedes Medium höchstens einmal ausgeliehen
+		long schritt = teilerfremd(medien, random.nextLong(1, Math.max(2, medien)));
+		lade("ausleihe", "id, ausleihedatum, ausleihedauer, kundenid, medienid", 5, ausleihen,
+				id -> new Object[] { id, new Timestamp(jetzt - random.nextLong(60 * TAG)), random.nextInt(4) == 0 ? 28L : 14L,
+						random.nextLong(1, kunden + 1), (id - 1) * schritt % medien + 1 });
+		lade("ausleihe_historie", "id, ausgeliehen, kundenid, medienid", 4, historie,
+				id -> new Object[] { id, new Timestamp(jetzt - random.nextLong(60 * TAG, 5 * 365 * TAG)),
+						random.nextLong(1, kunden + 1), schief(random, (int) medien) + 1L });
+		// Die laufenden Ausleihen gehören ebenfalls zur Historie
+		jdbcTemplate.update("INSERT INTO ausleihe_historie (ausgeliehen, kundenid, medienid) "
+				+ "SELECT ausleihedatum, kundenid, medienid FROM ausleihe ORDER BY id");
+	}
+
+	/**
+	 * Lädt eine Tabelle in mehrzeiligen Inserts mit je {@link #batch} Zeilen
+	 * @param tabelle Name der Tabelle
+	 * @param spalten Spalten, beginnend mit der Id
+	 * @param anzahlSpalten Anzahl der Spalten
+	 * @param anzahl Anzahl der Zeilen, die Ids laufen von 1 bis anzahl
+	 * @param zeile Werte einer Zeile anhand ihrer Id
+	 */
+	private void lade(String tabelle, String spalten, int anzahlSpalten, long anzahl, LongFunction<Object[]> zeile) {
+		long start = System.nanoTime();
+		var werte = "(" + "?, ".repeat(anzahlSpalten - 1) + "?)";
+		var voll = insert(tabelle, spalten, werte, batch);
+		for (long von = 1; von <= anzahl; von += batch) {
+			int zeilen = (int) Math.min(batch, anzahl - von + 1);
+			var parameter = new Object[zeilen * anzahlSpalten];
+			for (int i = 0; i < zeilen; i++) {
+				System.arraycopy(zeile.apply(von + i), 0, parameter, i * anzahlSpalten, anzahlSpalten);
+			}
+			jdbcTemplate.update(zeilen == batch ? voll : insert(tabelle, spalten, werte, zeilen), parameter);
+		}
+		LOG.info("Generated {} rows in {} in {} ms", anzahl, tabelle,
+				TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+	}
+
+	private static String insert(String tabelle, String spalten, String werte, int zeilen) {
+		var sql = new StringBuilder("INSERT INTO ").append(tabelle).append(" (").append(spalten).append(") VALUES ");
+		for (int i = 0; i < zeilen; i++) {
+			sql.append(i == 0 ? "" : ", ").append(werte);
+		}
+		return sql.toString();
+	}
+
+	/**
+	 * Wählt einen Index, bei dem kleine Indizes deutlich häufiger sind als grosse
+	 */
+	private static int schief(SplittableRandom random, int anzahl) {
+		double zufall = random.nextDouble();
+		return (int) (anzahl * zufall * zufall);
+	}
+
+	private static long teilerfremd(long anzahl, long schritt) {
+		while (ggt(anzahl, schritt) != 1) {
+			schritt++;
+		}
+		return schritt;
+	}
+
+	private static long ggt(long a, long b) {
+		return b == 0 ? a : ggt(b, a % b);
+	}
+
+}
@@ -0,0 +1,141 @@
+package com.helvetia.m295.libraryserver.service;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Klasse für die Überwachung der Verbindungspools.
+ * <ul>
+ * <li>{@code library.pool.leak-threshold-millis}: Zeit, nach der eine gehaltene Verbindung gemeldet wird</li>
+ * <li>{@code library.pool.leak-check-millis}: Abstand, in dem nach gehaltenen Verbindungen gesucht wird</li>
+ * </ul>
+ *
+ * @version 1.0.0
+ * @author Simon Fäs
+ * @see PoolMetriken
+ * @see PoolController
+ */
+@Configuration
+public class PoolConfiguration implements WebMvcConfigurer {
+
+	/**
+	 * Kennzahlen aller Verbindungspools
+	 * @param leckSchwelleMillis Zeit, nach der eine gehaltene Verbindung gemeldet wird
+	 * @return Kennzahlen
+	 */
+	@Bean
+	public PoolMetriken poolMetriken(@Value("${library.pool.leak-threshold-millis:10000}") long leckSchwelleMillis) {
+		return new PoolMetriken(leckSchwelleMillis);
+	}
+
+	/**
+	 * Setzt die {@link PoolMetriken} bei jeder {@link HikariDataSource}, bevor ihr Pool gestartet wird
+	 * @param poolMetriken Kennzahlen aller Verbindungspools
+	 * @return BeanPostProcessor
+	 */
+	@Bean
+	public static BeanPostProcessor poolMetrikenPostProcessor(ObjectProvider<PoolMetriken> poolMetriken) {
+		return new BeanPostProcessor() {
+			@Override
+			public Object postProcessAfterInitialization(Object bean, String beanName) {
+				if (bean instanceof HikariDataSource pool && pool.getMetricsTrackerFactory() == null) {
+					pool.setMetricsTrackerFactory(poolMetriken.getObject());
+				}
+				return bean;
+			}
+		};
+	}
+
+	/**
+	 * Hintergrundjob, der nach zu lange gehaltenen Verbindungen sucht
+	 * @param poolMetriken Kennzahlen aller Verbindungspools
+	 * @return Hintergrundjob
+	 */
+	@Bean
+	public LeckPruefung leckPruefung(PoolMetriken poolMetriken) {
+		return new LeckPruefung(poolMetriken);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void addInterceptors(InterceptorRegistry registry) {
+		registry.addInterceptor(new HandlerErfassung());
+	}
+
+	/**
+	 * Merkt sich während eines Requests die Controller-Methode, damit gehaltene Verbindungen zugeordnet werden können
+	 */
+	public static class HandlerErfassung implements AsyncHandlerInterceptor {
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+			if (handler instanceof HandlerMethod methode) {
+				PoolMetriken.setHandler(methode.getBeanType().getSimpleName() + "#" + methode.getMethod().getName());
+			}
+			return true;
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response,
+				Object handler) {
+			PoolMetriken.setHandler(null);
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+				Exception ex) {
+			PoolMetriken.setHandler(null);
+		}
+
+	}
+
+	/**
+	 * Hintergrundjob, der gehaltene Verbindungen der {@link PoolMetriken} meldet
+	 */
+	public static class LeckPruefung {
+
+		private final PoolMetriken poolMetriken;
+
+		/**
+		 * Constructor mit den Kennzahlen als Parameter
+		 * @param poolMetriken Kennzahlen aller Verbindungspools
+		 */
+		public LeckPruefung(PoolMetriken poolMetriken) {
+			this.poolMetriken = poolMetriken;
+		}
+
+		/**
+		 * Meldet gehaltene Verbindungen, standardmässig alle 5 Sekunden
+		 */
+		@Scheduled(fixedDelayString = "${library.pool.leak-check-millis:5000}")
+		public void pruefeLecks() {
+			poolMetriken.pruefeLecks();
+		}
+
+	}
+
+}
@@ -0,0 +1,131 @@
+package com.helvetia.m295.libraryserver.service;
+
+import java.util.List;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.helvetia.m295.libraryserver.common.PoolEinstellungen;
+import com.helvetia.m295.libraryserver.common.PoolStatistik;
+import com.zaxxer.hikari.HikariDataSource;
+
+/**
+ * Klasse um Serveranfragen rund um die Verbindungspools zu bearbeiten.
+ * Zeigt den Zustand aller Pools an und erlaubt es, Grösse und Timeouts zur Laufzeit über die
+ * {@link com.zaxxer.hikari.HikariConfigMXBean} zu ändern. Die Änderungen gelten bis zum nächsten Neustart.
+ * Die Endpunkte liegen auf dem öffentlichen Port und sind nicht authentifiziert. Ändern ist deshalb standardmässig
+ * ausgeschaltet und muss mit {@code library.pool.aenderungen=true} erlaubt werden, z.B. nur für eine Instanz
+ * hinter dem internen Load Balancer.
+ *
+ * @version 1.0.0
+ * @author Simon Fäs
+ * @see PoolStatistik
+ * @see PoolMetriken
+ */
+@RestController
+@RequestMapping(path = "/management/pool")
+public class PoolController {
+
+	@Autowired
+	private ObjectProvider<HikariDataSource> pools;
+
+	@Autowired
+	private PoolMetriken poolMetriken;
+
+	@Value("${library.pool.aenderungen:false}")
+	private boolean aenderungen;
+
+	/**
+	 * Gibt den Zustand aller Verbindungspools zurück.
+	 *
+	 * @return Zustand, Wartezeit-Histogramm, Einstellungen und gemeldete Lecks pro Pool.
+	 */
+	@GetMapping("")
+	public @ResponseBody List<PoolStatistik> getPools() {
+		return pools.orderedStream().map(poolMetriken::statistik).toList();
+	}
+
+	/**
+	 * Gibt den Zustand eines Verbindungspools zurück.
+	 *
+	 * @param name Name des Pools.
+	 * @return Zustand des Pools.
+	 * @throws ResponseStatusException Wenn es keinen Pool mit diesem Namen gibt.
+	 */
+	@GetMapping("/{name}")
+	public @ResponseBody PoolStatistik getPool(@PathVariable("name") String name) {
+		return poolMetriken.statistik(findPool(name));
+	}
+
+	/**
+	 * Ändert die Einstellungen eines Verbindungspools zur Laufzeit. Nicht gesendete Attribute bleiben unverändert.
+	 * Wird der Pool verkleinert, schliesst Hikari überzählige Verbindungen, sobald sie zurückgegeben werden.
+	 *
+	 * @param name Name des Pools.
+	 * @param data Zu ändernde Einstellungen.
+	 * @return Zustand des Pools mit den neuen Einstellungen.
+	 * @throws ResponseStatusException Wenn Änderungen nicht erlaubt sind, es keinen Pool mit diesem Namen gibt oder
+	 *                                 die Einstellungen ungültig sind.
+	 */
+	@PatchMapping("/{name}")
+	public @ResponseBody PoolStatistik updatePool(@PathVariable("name") String name,
+			@RequestBody PoolEinstellungen data) {
+		if (!aenderungen) {
+			throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Changing pools is disabled");
+		}
+		var pool = findPool(name);
+		var config = pool.getHikariConfigMXBean();
+		int maximum = data.maximumPoolSize() != null ? data.maximumPoolSize() : config.getMaximumPoolSize();
+		int minimum = data.minimumIdle() != null ? data.minimumIdle() : Math.min(config.getMinimumIdle(), maximum);
+		if (maximum < 1 || minimum < 0 || minimum > maximum) {
+			throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid pool size");
+		}
+		if (data.connectionTimeout() != null && data.connectionTimeout() < 250
+				|| data.idleTimeout() != null && data.idleTimeout() != 0 && data.idleTimeout() < 10000
+				|| data.maxLifetime() != null && data.maxLifetime() != 0 && data.maxLifetime() < 30000
+				|| data.leckSchwelle() != null && data.leckSchwelle() < 0) {
+			throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid timeout");
+		}
+		// Beim Vergrössern zuerst das Maximum setzen, beim Verkleinern zuerst das Minimum,
+		// damit minimumIdle nie über maximumPoolSize liegt
+		if (maximum >= config.getMaximumPoolSize()) {
+			config.setMaximumPoolSize(maximum);
+			config.setMinimumIdle(minimum);
+		} else {
+			config.setMinimumIdle(minimum);
+			config.setMaximumPoolSize(maximum);
+		}
+		if (data.connectionTimeout() != null)
+			config.setConnectionTimeout(data.connectionTimeout());
+		if (data.idleTimeout() != null)
+			config.setIdleTimeout(data.idleTimeout());
+		if (data.maxLifetime() != null)
+			config.setMaxLifetime(data.maxLifetime());
+		if (data.leckSchwelle() != null)
+			poolMetriken.setLeckSchwelleMillis(data.leckSchwelle());
+		return poolMetriken.statistik(pool);
+	}
+
+	/**
+	 * Sucht einen Verbindungspool anhand seines Namens
+	 *
+	 * @param name Name des Pools.
+	 * @return Der Pool.
+	 * @throws ResponseStatusException Wenn es keinen Pool mit diesem Namen gibt.
+	 */
+	private HikariDataSource findPool(String name) {
+		return pools.orderedStream().filter(pool -> name.equals(pool.getPoolName())).findFirst()
+				.orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
+	}
+
+}
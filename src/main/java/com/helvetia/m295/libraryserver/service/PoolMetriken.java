@@ -0,0 +1,277 @@
+package com.helvetia.m295.libraryserver.service;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.helvetia.m295.libraryserver.common.PoolEinstellungen;
+import com.helvetia.m295.libraryserver.common.PoolLeck;
+import com.helvetia.m295.libraryserver.common.PoolStatistik;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.IMetricsTracker;
+import com.zaxxer.hikari.metrics.MetricsTrackerFactory;
+import com.zaxxer.hikari.metrics.PoolStats;
+
+/**
+ * Sammelt Kennzahlen der Verbindungspools und erkennt Verbindungen, die zu lange gehalten werden.
+ * Wird von {@link PoolConfiguration} bei jeder {@link HikariDataSource} als {@link MetricsTrackerFactory} gesetzt.
+ * <ul>
+ * <li>Die Wartezeit auf eine Verbindung wird in einem Histogramm mit festen Grenzen gezählt.</li>
+ * <li>Pro Thread wird festgehalten, seit wann er eine Verbindung hält und welche Controller-Methode gerade läuft
+ * ({@link #setHandler(String)}). Hält ein Thread länger als die Leck-Schwelle eine Verbindung, wird die Methode
+ * gemeldet, spätestens von {@link #pruefeLecks()} und sonst bei der Rückgabe der Verbindung.</li>
+ * </ul>
+ * Hikari ruft den Tracker beim Beziehen und Zurückgeben auf dem Thread auf, der die Verbindung verwendet.
+ * Wird eine Verbindung auf einem anderen Thread zurückgegeben, bleibt sie bis zur Meldung als gehalten erfasst.
+ *
+ * @version 1.0.0
+ * @author Simon Fäs
+ * @see PoolController
+ */
+public class PoolMetriken implements MetricsTrackerFactory {
+
+	private static final Logger LOG = LoggerFactory.getLogger(PoolMetriken.class);
+
+	private static final long[] GRENZEN_MIKROS = { 100, 250, 500, 1_000, 2_500, 5_000, 10_000, 25_000, 50_000,
+			100_000, 250_000, 500_000, 1_000_000, 2_500_000, 5_000_000, 10_000_000, 30_000_000 };
+	private static final int MAX_LECKS = 50;
+	private static final ThreadLocal<String> HANDLER = new ThreadLocal<>();
+
+	private final Map<String, Tracker> tracker = new ConcurrentHashMap<>();
+	private final ArrayDeque<PoolLeck> lecks = new ArrayDeque<>();
+	private volatile long leckSchwelleMillis;
+
+	/**
+	 * Constructor mit der Leck-Schwelle als Parameter
+	 * @param leckSchwelleMillis Zeit, nach der eine gehaltene Verbindung gemeldet wird, 0 schaltet die Meldung ab
+	 */
+	public PoolMetriken(long leckSchwelleMillis) {
+		this.leckSchwelleMillis = leckSchwelleMillis;
+	}
+
+	/**
+	 * Setzt die Controller-Methode, die auf dem aktuellen Thread läuft
+	 * @param handler Name der Methode oder null, um ihn zu entfernen
+	 */
+	public static void setHandler(String handler) {
+		if (handler == null)
+			HANDLER.remove();
+		else
+			HANDLER.set(handler);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public IMetricsTracker create(String poolName, PoolStats poolStats) {
+		var neu = new Tracker(poolName);
+		tracker.put(poolName, neu);
+		return neu;
+	}
+
+	/**
+	 * Gibt die Leck-Schwelle zurück
+	 * @return Schwelle in Millisekunden, 0 wenn abgeschaltet
+	 */
+	public long getLeckSchwelleMillis() {
+		return leckSchwelleMillis;
+	}
+
+	/**
+	 * Ändert die Leck-Schwelle
+	 * @param leckSchwelleMillis Schwelle in Millisekunden, 0 schaltet die Meldung ab
+	 */
+	public void setLeckSchwelleMillis(long leckSchwelleMillis) {
+		this.leckSchwelleMillis = leckSchwelleMillis;
+	}
+
+	/**
+	 * Meldet alle Verbindungen, die länger als die Leck-Schwelle gehalten werden und noch nicht gemeldet wurden
+	 * @return Neu gemeldete Lecks
+	 */
+	public List<PoolLeck> pruefeLecks() {
+		long schwelle = leckSchwelleMillis;
+		var gemeldet = new ArrayList<PoolLeck>();
+		if (schwelle <= 0) {
+			return gemeldet;
+		}
+		long jetzt = System.currentTimeMillis();
+		for (var t : tracker.values()) {
+			for (var thread : t.halter.keySet()) {
+				t.halter.computeIfPresent(thread, (k, h) -> {
+					if (!h.gemeldet && jetzt - h.seit >= schwelle) {
+						h.gemeldet = true;
+						gemeldet.add(melde(new PoolLeck(t.pool, h.handler, new Date(h.seit), jetzt - h.seit, false)));
+					}
+					return h;
+				});
+			}
+		}
+		return gemeldet;
+	}
+
+	/**
+	 * Gibt die zuletzt gemeldeten Lecks eines Pools zurück, die neusten zuerst
+	 * @param pool Name des Pools
+	 * @return Gemeldete Lecks
+	 */
+	public List<PoolLeck> getLecks(String pool) {
+		synchronized (lecks) {
+			return lecks.stream().filter(leck -> leck.pool().equals(pool)).toList();
+		}
+	}
+
+	/**
+	 * Erstellt die Statistik eines Pools aus seinen MXBeans und den gesammelten Kennzahlen
+	 * @param dataSource Verbindungspool
+	 * @return Zustand und Einstellungen des Pools
+	 */
+	public PoolStatistik statistik(HikariDataSource dataSource) {
+		var name = dataSource.getPoolName();
+		var pool = dataSource.getHikariPoolMXBean();
+		var config = dataSource.getHikariConfigMXBean();
+		var t = name == null ? null : tracker.get(name);
+		var einstellungen = new PoolEinstellungen(config.getMaximumPoolSize(), config.getMinimumIdle(),
+				config.getConnectionTimeout(), config.getIdleTimeout(), config.getMaxLifetime(), leckSchwelleMillis);
+		return new PoolStatistik(name,
+				pool == null ? 0 : pool.getActiveConnections(),
+				pool == null ? 0 : pool.getIdleConnections(),
+				pool == null ? 0 : pool.getTotalConnections(),
+				pool == null ? 0 : pool.getThreadsAwaitingConnection(),
+				t == null ? 0 : t.bezuege(),
+				t == null ? 0 : t.timeouts.sum(),
+				t == null ? Map.of() : t.histogramm(),
+				einstellungen,
+				name == null ? List.of() : getLecks(name));
+	}
+
+	private PoolLeck melde(PoolLeck leck) {
+		if (leck.freigegeben()) {
+			LOG.warn("Connection of pool {} was held for {} ms by {}", leck.pool(), leck.gehaltenMillis(), leck.handler());
+		} else {
+			LOG.warn("Connection of pool {} has been held for {} ms by {} and was not returned yet", leck.pool(),
+					leck.gehaltenMillis(), leck.handler());
+		}
+		synchronized (lecks) {
+			if (lecks.size() == MAX_LECKS) {
+				lecks.removeLast();
+			}
+			lecks.addFirst(leck);
+		}
+		return leck;
+	}
+
+	private static int bucket(long mikros) {
+		int i = 0;
+		while (i < GRENZEN_MIKROS.length && mikros > GRENZEN_MIKROS[i]) {
+			i++;
+		}
+		return i;
+	}
+
+	private static String label(int bucket) {
+		if (bucket == GRENZEN_MIKROS.length) {
+			return "+Inf";
+		}
+		long mikros = GRENZEN_MIKROS[bucket];
+		return mikros % 1000 == 0 ? Long.toString(mikros / 1000) : Double.toString(mikros / 1000.0);
+	}
+
+	/**
+	 * Verbindungen, die ein Thread aktuell hält
+	 */
+	private static final class Halter {
+
+		private final String handler;
+		private final long seit;
+		private int anzahl = 1;
+		private boolean gemeldet;
+
+		private Halter(String handler, long seit) {
+			this.handler = handler;
+			this.seit = seit;
+		}
+
+	}
+
+	/**
+	 * Kennzahlen eines einzelnen Pools
+	 */
+	private final class Tracker implements IMetricsTracker {
+
+		private final String pool;
+		private final LongAdder[] wartezeit = new LongAdder[GRENZEN_MIKROS.length + 1];
+		private final LongAdder timeouts = new LongAdder();
+		private final Map<Thread, Halter> halter = new ConcurrentHashMap<>();
+
+		private Tracker(String pool) {
+			this.pool = pool;
+			for (int i = 0; i < wartezeit.length; i++) {
+				wartezeit[i] = new LongAdder();
+			}
+		}
+
+		@Override
+		public void recordConnectionAcquiredNanos(long elapsedAcquiredNanos) {
+			wartezeit[bucket(TimeUnit.NANOSECONDS.toMicros(elapsedAcquiredNanos))].increment();
+			var handler = HANDLER.get();
+			halter.compute(Thread.currentThread(), (thread, h) -> {
+				if (h == null) {
+					return new Halter(handler != null ? handler : thread.getName(), System.currentTimeMillis());
+				}
+				h.anzahl++;
+				return h;
+			});
+		}
+
+		@Override
+		public void recordConnectionUsageMillis(long elapsedBorrowedMillis) {
+			halter.computeIfPresent(Thread.currentThread(), (thread, h) -> {
+				if (--h.anzahl > 0) {
+					return h;
+				}
+				long gehalten = System.currentTimeMillis() - h.seit;
+				long schwelle = leckSchwelleMillis;
+				if (!h.gemeldet && schwelle > 0 && gehalten >= schwelle) {
+					melde(new PoolLeck(pool, h.handler, new Date(h.seit), gehalten, true));
+				} else if (h.gemeldet) {
+					LOG.info("Connection of pool {} held by {} was returned after {} ms", pool, h.handler, gehalten);
+				}
+				return null;
+			});
+		}
+
+		@Override
+		public void recordConnectionTimeout() {
+			timeouts.increment();
+		}
+
+		private long bezuege() {
+			long summe = 0;
+			for (var adder : wartezeit) {
+				summe += adder.sum();
+			}
+			return summe;
+		}
+
+		private Map<String, Long> histogramm() {
+			var histogramm = new LinkedHashMap<String, Long>();
+			for (int i = 0; i < wartezeit.length; i++) {
+				histogramm.put(label(i), wartezeit[i].sum());
+			}
+			return histogramm;
+		}
+
+	}
+
+}
@@ -0,0 +1,110 @@
+package com.helvetia.m295.libraryserver.service;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+/**
+ * Klasse für die Konfiguration von Rate-Limiting und Load-Shedding.
+ * <ul>
+ * <li>{@code library.ratelimit.requests-per-second}: Dauerhafte Rate pro Client</li>
+ * <li>{@code library.ratelimit.burst}: Anzahl Requests, die ein Client auf einmal senden darf</li>
+ * <li>{@code library.ratelimit.idle-millis}: Zeit, nach der unbenutzte Buckets entfernt werden</li>
+ * <li>{@code library.ratelimit.api-keys}: Kommagetrennte API-Keys, die einen eigenen Bucket erhalten</li>
+ * <li>{@code library.loadshedding.max-waiting-connections}: Erlaubte Warteschlange vor dem Verbindungspool</li>
+ * <li>{@code library.loadshedding.max-latency-millis}: Erlaubte geglättete Antwortzeit</li>
+ * </ul>
+ *
+ * @version 1.0.0
+ * @author Simon Fäs
+ * @see RateLimitFilter
+ */
+@Configuration
+public class RateLimitConfiguration {
+
+	/**
+	 * Rate-Limiter für die Katalog-Endpunkte
+	 * @param requestsPerSecond Dauerhafte Rate pro Client
+	 * @param burst Anzahl Requests, die ein Client auf einmal senden darf
+	 * @param idleMillis Zeit, nach der unbenutzte Buckets entfernt werden
+	 * @return Rate-Limiter
+	 */
+	@Bean
+	public RateLimiter rateLimiter(@Value("${library.ratelimit.requests-per-second:20}") double requestsPerSecond,
+			@Value("${library.ratelimit.burst:40}") int burst,
+			@Value("${library.ratelimit.idle-millis:600000}") long idleMillis) {
+		return new RateLimiter(requestsPerSecond, burst, idleMillis);
+	}
+
+	/**
+	 * Load-Shedder, welcher die Verbindungspools und die Antwortzeit überwacht
+	 * @param pools Alle Verbindungspools der Applikation
+	 * @param maxWaitingConnections Erlaubte Warteschlange vor dem Verbindungspool
+	 * @param maxLatencyMillis Erlaubte geglättete Antwortzeit
+	 * @return Load-Shedder
+	 */
+	@Bean
+	public LoadShedder loadShedder(ObjectProvider<HikariDataSource> pools,
+			@Value("${library.loadshedding.max-waiting-connections:5}") int maxWaitingConnections,
+			@Value("${library.loadshedding.max-latency-millis:500}") long maxLatencyMillis) {
+		return new LoadShedder(pools.orderedStream().toList(), maxWaitingConnections,
+				TimeUnit.MILLISECONDS.toNanos(maxLatencyMillis));
+	}
+
+	/**
+	 * Registriert den {@link RateLimitFilter} für alle Requests
+	 * @param rateLimiter Rate-Limiter
+	 * @param loadShedder Load-Shedder
+	 * @param apiKeys API-Keys, die einen eigenen Bucket erhalten
+	 * @return Registrierung des Filters
+	 */
+	@Bean
+	public FilterRegistrationBean<RateLimitFilter> rateLimitFilter(RateLimiter rateLimiter, LoadShedder loadShedder,
+			@Value("${library.ratelimit.api-keys:}") Set<String> apiKeys) {
+		return new FilterRegistrationBean<>(new RateLimitFilter(rateLimiter, loadShedder, apiKeys));
+	}
+
+	/**
+	 * Hintergrundjob, der regelmässig die Buckets von Clients entfernt, die keine Requests mehr senden
+	 * @param rateLimiter Rate-Limiter
+	 * @return Hintergrundjob
+	 */
+	@Bean
+	public RateLimiterEviction rateLimiterEviction(RateLimiter rateLimiter) {
+		return new RateLimiterEviction(rateLimiter);
+	}
+
+	/**
+	 * Hintergrundjob, der unbenutzte Buckets des {@link RateLimiter} entfernt
+	 */
+	public static class RateLimiterEviction {
+
+		private final RateLimiter rateLimiter;
+
+		/**
+		 * Constructor mit dem Rate-Limiter als Parameter
+		 * @param rateLimiter Rate-Limiter, dessen Buckets aufgeräumt werden
+		 */
+		public RateLimiterEviction(RateLimiter rateLimiter) {
+			this.rateLimiter = rateLimiter;
+		}
+
+		/**
+		 * Entfernt unbenutzte Buckets, jede Minute
+		 */
+		@Scheduled(fixedDelay = 60000)
+		public void evictIdle() {
+			rateLimiter.evictIdle();
+		}
+
+	}
+
+}
@@ -0,0 +1,110 @@
+package com.helvetia.m295.libraryserver.service;
+
+import java.io.IOException;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Filter für Rate-Limiting und Load-Shedding der öffentlichen Katalog-Endpunkte.
+ * Requests mit niedriger Priorität (Katalog durchsuchen) werden
+ * <ul>
+ * <li>pro Client mit dem {@link RateLimiter} begrenzt, sonst 429(TOO_MANY_REQUESTS)</li>
+ * <li>bei Überlast abgewiesen, sonst 503(SERVICE_UNAVAILABLE), siehe {@link LoadShedder}</li>
+ * </ul>
+ * Nur diese Requests fliessen in die geglättete Antwortzeit ein. Ein langer Import, ein Export oder eine grosse
+ * Rückgabe sind bewusst langsam und dürfen den Katalog nicht abschalten, solange die Datenbank Luft hat.
+ * Alle anderen Requests, insbesondere Ausleihen am Schalter, werden nie begrenzt.
+ * Der Client wird über den Header {@value #API_KEY_HEADER} identifiziert, sofern der Key konfiguriert ist
+ * ({@code library.ratelimit.api-keys}). Sonst zählt die IP-Adresse, hinter dem Load-Balancer aus den
+ * Forwarded-Headern ({@code server.forward-headers-strategy}). Ein erfundener Key umgeht die Begrenzung also nicht.
+ *
+ * @version 1.0.0
+ * @author Simon Fäs
+ */
+public class RateLimitFilter extends OncePerRequestFilter {
+
+	/**
+	 * Header, über den sich ein Client mit seinem API-Key identifiziert
+	 */
+	public static final String API_KEY_HEADER = "X-API-Key";
+
+	private final RateLimiter rateLimiter;
+	private final LoadShedder loadShedder;
+	private final Set<String> apiKeys;
+
+	/**
+	 * Constructor mit Rate-Limiter, Load-Shedder und den bekannten API-Keys als Parameter
+	 * @param rateLimiter Rate-Limiter pro Client
+	 * @param loadShedder Entscheidet über Abweisung bei Überlast
+	 * @param apiKeys API-Keys, die einen eigenen Bucket erhalten
+	 */
+	public RateLimitFilter(RateLimiter rateLimiter, LoadShedder loadShedder, Set<String> apiKeys) {
+		this.rateLimiter = rateLimiter;
+		this.loadShedder = loadShedder;
+		this.apiKeys = apiKeys.stream().filter(key -> !key.isBlank()).collect(Collectors.toUnmodifiableSet());
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+			throws ServletException, IOException {
+		if (!isLowPriority(request)) {
+			filterChain.doFilter(request, response);
+			return;
+		}
+		if (loadShedder.isOverloaded()) {
+			// Abgewiesene Requests zählen als sofort beantwortet, damit die geglättete Antwortzeit
+			// wieder sinkt, obwohl keine Katalog-Requests mehr durchkommen
+			loadShedder.recordLatency(0);
+			reject(response, HttpStatus.SERVICE_UNAVAILABLE, 1);
+			return;
+		}
+		long waitNanos = rateLimiter.tryAcquire(clientKey(request));
+		if (waitNanos > 0) {
+			reject(response, HttpStatus.TOO_MANY_REQUESTS, TimeUnit.NANOSECONDS.toSeconds(waitNanos) + 1);
+			return;
+		}
+		long start = System.nanoTime();
+		try {
+			filterChain.doFilter(request, response);
+		} finally {
+			loadShedder.recordLatency(System.nanoTime() - start);
+		}
+	}
+
+	/**
+	 * Prüft, ob ein Request zu den Katalog-Endpunkten mit niedriger Priorität gehört:
+	 * GET /medium, GET /medium/titel/{titel} und GET /adresse/strasse/{adresse}
+	 * @param request Zu prüfender Request
+	 * @return true, wenn der Request begrenzt werden darf
+	 */
+	static boolean isLowPriority(HttpServletRequest request) {
+		if (!"GET".equals(request.getMethod())) {
+			return false;
+		}
+		var path = request.getRequestURI().substring(request.getContextPath().length());
+		return path.equals("/medium") || path.startsWith("/medium/titel/") || path.startsWith("/adresse/strasse/");
+	}
+
+	private String clientKey(HttpServletRequest request) {
+		var apiKey = request.getHeader(API_KEY_HEADER);
+		return apiKey != null && apiKeys.contains(apiKey) ? "key:" + apiKey : "ip:" + request.getRemoteAddr();
+	}
+
+	private static void reject(HttpServletResponse response, HttpStatus status, long retryAfterSeconds) {
+		response.setStatus(status.value());
+		response.setHeader("Retry-After", Long.toString(retryAfterSeconds));
+	}
+
+}
@@ -0,0 +1,84 @@
+package com.helvetia.m295.libraryserver.service;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Token-Bucket Rate-Limiter pro Client-Schlüssel (IP-Adresse oder API-Key).
+ * Jeder Bucket besteht aus einem einzigen {@link AtomicLong}, der "theoretischen Ankunftszeit" des nächsten Requests
+ * (Generic Cell Rate Algorithm). Ein Request wird mit einem CAS angenommen, es gibt keine Locks.
+ * Buckets, die wieder voll sind und länger nicht verwendet wurden, werden mit {@link #evictIdle()} entfernt.
+ *
+ * @version 1.0.0
+ * @author Simon Fäs
+ * @see RateLimitFilter
+ */
+public class RateLimiter {
+
+	private final ConcurrentHashMap<String, AtomicLong> buckets = new ConcurrentHashMap<>();
+	private final long intervalNanos;
+	private final long burstNanos;
+	private final long idleNanos;
+
+	/**
+	 * Constructor mit der Konfiguration der Buckets als Parameter
+	 * @param requestsPerSecond Anzahl Requests pro Sekunde, die ein Client dauerhaft senden darf
+	 * @param burst Anzahl Requests, die ein Client auf einmal senden darf
+	 * @param idleMillis Zeit ohne Requests, nach der ein Bucket entfernt wird
+	 */
+	public RateLimiter(double requestsPerSecond, int burst, long idleMillis) {
+		if (requestsPerSecond <= 0 || burst < 1) {
+			throw new IllegalArgumentException("Rate and burst must be positive");
+		}
+		this.intervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / requestsPerSecond);
+		this.burstNanos = intervalNanos * burst;
+		this.idleNanos = TimeUnit.MILLISECONDS.toNanos(idleMillis);
+	}
+
+	/**
+	 * Versucht, für den Client ein Token zu beziehen
+	 * @param key Schlüssel des Clients
+	 * @return 0, wenn der Request erlaubt ist, sonst die Wartezeit in Nanosekunden bis zum nächsten freien Token
+	 */
+	public long tryAcquire(String key) {
+		return tryAcquire(key, System.nanoTime());
+	}
+
+	/**
+	 * Versucht, für den Client zum gegebenen Zeitpunkt ein Token zu beziehen
+	 * @param key Schlüssel des Clients
+	 * @param now Aktueller Zeitpunkt in Nanosekunden
+	 * @return 0, wenn der Request erlaubt ist, sonst die Wartezeit in Nanosekunden bis zum nächsten freien Token
+	 */
+	long tryAcquire(String key, long now) {
+		var bucket = buckets.computeIfAbsent(key, k -> new AtomicLong(now - burstNanos));
+		while (true) {
+			long tat = bucket.get();
+			long next = Math.max(tat, now - burstNanos) + intervalNanos;
+			if (next - now > 0) {
+				return next - now;
+			}
+			if (bucket.compareAndSet(tat, next)) {
+				return 0;
+			}
+		}
+	}
+
+	/**
+	 * Entfernt alle Buckets, die wieder voll sind und seit der konfigurierten Zeit nicht mehr verwendet wurden
+	 */
+	public void evictIdle() {
+		long threshold = System.nanoTime() - burstNanos - idleNanos;
+		buckets.values().removeIf(bucket -> bucket.get() - threshold < 0);
+	}
+
+	/**
+	 * Gibt die Anzahl der aktuell gehaltenen Buckets zurück
+	 * @return Anzahl Buckets
+	 */
+	public int size() {
+		return buckets.size();
+	}
+
+}
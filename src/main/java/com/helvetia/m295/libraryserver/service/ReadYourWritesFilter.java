@@ -0,0 +1,49 @@
+package com.helvetia.m295.libraryserver.service;
+
+import java.io.IOException;
+
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import com.helvetia.m295.libraryserver.model.ReadWriteRoutingDataSource;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Filter, der "Read-your-writes" pro Request aktiviert.
+ * Sendet ein Client den Header {@value #HEADER} mit dem Wert {@code true}, werden alle Lesezugriffe
+ * dieses Requests von der Primär-Datenbank bedient. So sieht ein Client unmittelbar nach einem Schreibzugriff
+ * seine eigenen Änderungen, auch wenn die Replika noch nicht nachgezogen hat.
+ *
+ * @version 1.0.0
+ * @author Simon Fäs
+ * @see ReadWriteRoutingDataSource
+ */
+public class ReadYourWritesFilter extends OncePerRequestFilter {
+
+	/**
+	 * Name des Headers, mit dem Read-your-writes angefordert wird
+	 */
+	public static final String HEADER = "X-Read-Your-Writes";
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+			throws ServletException, IOException {
+		if (!Boolean.parseBoolean(request.getHeader(HEADER))) {
+			filterChain.doFilter(request, response);
+			return;
+		}
+		ReadWriteRoutingDataSource.enableReadYourWrites();
+		try {
+			filterChain.doFilter(request, response);
+		} finally {
+			ReadWriteRoutingDataSource.clearReadYourWrites();
+		}
+	}
+
+}
@@ -0,0 +1,80 @@
+package com.helvetia.m295.libraryserver.service;
+
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.helvetia.m295.libraryserver.common.Kunde;
+import com.helvetia.m295.libraryserver.common.Reservierung;
+import com.helvetia.m295.libraryserver.common.ReservierungDto;
+
+/**
+ * Klasse um Serveranfragen rund um die Reservierungen eines Mediums zu bearbeiten.
+ * Ist ein Medium ausgeliehen, kann sich ein Kunde in die Warteschlange stellen. Bei der Rückgabe über
+ * {@link AusleiheController#deleteKunde(Long)} wird das Medium direkt an den ersten Kunden ausgeliehen.
+ *
+ * @version 1.0.0
+ * @author Simon Fäs
+ * @see Reservierung
+ * @see Reservierungen
+ */
+@RestController
+@RequestMapping(path = "/medium/{id}/reservierung")
+@Profile("!kiosk")
+public class ReservierungController {
+
+	@Autowired
+	private Reservierungen reservierungen;
+
+	/**
+	 * Gibt die Warteschlange eines Mediums zurück.
+	 *
+	 * @param id Die ID des Mediums.
+	 * @return Die Reservierungen in der Reihenfolge, in der das Medium weitergegeben wird.
+	 */
+	@GetMapping("")
+	public @ResponseBody List<ReservierungDto> getReservierungen(@PathVariable("id") Long id) {
+		return reservierungen.getWarteschlange(id);
+	}
+
+	/**
+	 * Stellt einen Kunden in die Warteschlange eines ausgeliehenen Mediums.
+	 *
+	 * @param id Die ID des Mediums.
+	 * @param data Der Kunde, von dem nur die ID verwendet wird.
+	 * @return Die Reservierung mit ihrer Position in der Warteschlange.
+	 * @throws ResponseStatusException Wenn die Daten unvollständig sind, Medium oder Kunde nicht existieren oder
+	 *                                 das Medium nicht reserviert werden kann.
+	 */
+	@PostMapping("")
+	public @ResponseBody ReservierungDto addReservierung(@PathVariable("id") Long id, @RequestBody Kunde data) {
+		if (data.getId() == null) {
+			throw new ResponseStatusException(HttpStatus.BAD_REQUEST, Validierung.UNVOLLSTAENDIG);
+		}
+		return reservierungen.reserviere(id, data.getId());
+	}
+
+	/**
+	 * Entfernt einen Kunden aus der Warteschlange eines Mediums.
+	 *
+	 * @param id Die ID des Mediums.
+	 * @param kundeId Die ID des Kunden.
+	 * @throws ResponseStatusException Wenn der Kunde nicht auf das Medium wartet.
+	 */
+	@DeleteMapping("/{kundeId}")
+	public @ResponseBody void deleteReservierung(@PathVariable("id") Long id, @PathVariable("kundeId") Long kundeId) {
+		reservierungen.storniere(id, kundeId);
+	}
+
+}
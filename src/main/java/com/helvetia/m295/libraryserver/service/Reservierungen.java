@@ -0,0 +1,460 @@
+package com.helvetia.m295.libraryserver.service;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.helvetia.m295.libraryserver.common.Ausleihe;
+import com.helvetia.m295.libraryserver.common.Invalidierung;
+import com.helvetia.m295.libraryserver.common.Medium;
+import com.helvetia.m295.libraryserver.common.Reservierung;
+import com.helvetia.m295.libraryserver.common.ReservierungDto;
+import com.helvetia.m295.libraryserver.common.Rueckgabe;
+import com.helvetia.m295.libraryserver.model.AusleiheRepository;
+import com.helvetia.m295.libraryserver.model.KundeRepository;
+import com.helvetia.m295.libraryserver.model.MediumRepository;
+import com.helvetia.m295.libraryserver.model.ReservierungRepository;
+
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Warteschlangen der Reservierungen pro Medium.
+ * Massgebend ist die Tabelle {@code reservierung}, die Warteschlangen im Speicher sind nur ein Cache für
+ * {@link #getWarteschlange(long)}. Jede Warteschlange hat ein eigenes Lock, Änderungen an verschiedenen Medien
+ * blockieren sich nicht.
+ * <p>
+ * Reservieren, Ausleihen und Zurückgeben sperren zuerst die Zeile des Mediums mit {@code SELECT ... FOR UPDATE}.
+ * Diese Vorgänge laufen deshalb pro Medium nacheinander ab, auch über mehrere Instanzen. Bei der Rückgabe
+ * ({@link #gibZurueck(long)}) werden in derselben Transaktion die Ausleihe beendet, die erste Reservierung aus der
+ * Datenbank gelesen und gelöscht und eine neue Ausleihe für diesen Kunden erstellt. Das Medium ist dadurch nie frei,
+ * wenn jemand darauf wartet, und eine Reservierung kann nur auf ein ausgeliehenes Medium erstellt werden.
+ * Jede neue Ausleihe wird in derselben Transaktion in die Historie für {@link EmpfehlungsIndex} und
+ * {@link TrendZaehler} geschrieben.
+ * <p>
+ * Jede Änderung wird den anderen Instanzen mit {@link Invalidierung.Typ#RESERVIERUNG} gemeldet, die daraufhin die
+ * Warteschlange des Mediums neu lesen. Zusätzlich wird der Cache regelmässig abgeglichen
+ * ({@code library.reservierung.rebuild-millis}). Warteschlangen, die sich während des Abgleichs ändern, übernimmt der
+ * Abgleich nicht, da er sie vor der Änderung gelesen haben kann.
+ *
+ * @version 1.0.0
+ * @author Simon Fäs
+ * @see ReservierungController
+ * @see AusleiheController#deleteKunde(Long)
+ */
+@Service
+@Profile("!kiosk")
+public class Reservierungen {
+
+	private static final String SELECT = "SELECT id, medienid, kundenid, erstellt FROM reservierung ORDER BY id";
+	private static final String SELECT_MEDIUM = "SELECT id, kundenid, erstellt FROM reservierung WHERE medienid = ? "
+			+ "ORDER BY id";
+	private static final String SPERRE = "SELECT id FROM medium WHERE id IN (:ids) ORDER BY id FOR UPDATE";
+	private static final String SELECT_NAECHSTE = "SELECT id, kundenid, erstellt FROM reservierung WHERE medienid = ? "
+			+ "ORDER BY id LIMIT 1 FOR UPDATE";
+	private static final String SELECT_WARTEND = "SELECT DISTINCT medienid FROM reservierung WHERE medienid IN (:ids)";
+	private static final String SELECT_POSITION = "SELECT COUNT(*) FROM reservierung WHERE medienid = ? AND id <= ?";
+	private static final String INSERT_HISTORIE = "INSERT INTO ausleihe_historie (kundenid, medienid) VALUES (?, ?)";
+
+	private static final RowMapper<Eintrag> EINTRAG = (rs, i) -> new Eintrag(rs.getLong(1), rs.getLong(2),
+			rs.getTimestamp(3));
+
+	@Autowired
+	private ReservierungRepository reservierungRepository;
+
+	@Autowired
+	private AusleiheRepository ausleiheRepository;
+
+	@Autowired
+	private KundeRepository kundeRepository;
+
+	@Autowired
+	private MediumRepository mediumRepository;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private NamedParameterJdbcTemplate namedJdbcTemplate;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	@Autowired
+	private InvalidierungsBus invalidierungsBus;
+
+	private final Map<Long, Warteschlange> warteschlangen = new ConcurrentHashMap<>();
+
+	/**
+	 * Medien, deren Warteschlange sich seit dem Beginn des laufenden Abgleichs geändert hat, null wenn kein Abgleich
+	 * läuft
+	 */
+	private volatile Set<Long> geaendert;
+
+	private TransactionTemplate transactionTemplate;
+
+	/**
+	 * Initialisiert die Transaktion für Reservierungen, Ausleihen und Rückgaben
+	 */
+	@PostConstruct
+	void initTransactionTemplate() {
+		transactionTemplate = new TransactionTemplate(transactionManager);
+	}
+
+	/**
+	 * Lädt die Warteschlangen beim Start der Applikation
+	 */
+	@EventListener(ApplicationReadyEvent.class)
+	public void initialize() {
+		abgleichen();
+	}
+
+	/**
+	 * Gleicht die Warteschlangen mit der Datenbank ab und übernimmt so Änderungen anderer Instanzen.
+	 */
+	@Scheduled(fixedDelayString = "${library.reservierung.rebuild-millis:60000}",
+			initialDelayString = "${library.reservierung.rebuild-millis:60000}")
+	public synchronized void abgleichen() {
+		var waehrendAbgleich = ConcurrentHashMap.<Long>newKeySet();
+		geaendert = waehrendAbgleich;
+		try {
+			var gespeichert = new HashMap<Long, List<Eintrag>>();
+			jdbcTemplate.query(SELECT, rs -> {
+				gespeichert.computeIfAbsent(rs.getLong(2), k -> new ArrayList<>())
+						.add(new Eintrag(rs.getLong(1), rs.getLong(3), rs.getTimestamp(4)));
+			});
+			var medien = new HashSet<>(gespeichert.keySet());
+			medien.addAll(warteschlangen.keySet());
+			for (var mediumId : medien) {
+				mitWarteschlange(mediumId, warteschlange -> {
+					// Mit dem Lock der Warteschlange geprüft, eine spätere Änderung kommt nach dem Abgleich
+					if (!waehrendAbgleich.contains(mediumId)) {
+						warteschlange.eintraege.clear();
+						warteschlange.eintraege.addAll(gespeichert.getOrDefault(mediumId, List.of()));
+					}
+					return null;
+				});
+			}
+		} finally {
+			geaendert = null;
+		}
+	}
+
+	/**
+	 * Liest die Warteschlange eines Mediums neu, nachdem eine andere Instanz seine Ausleihe oder Reservierungen
+	 * geändert hat
+	 * @param invalidierung Das geänderte Medium
+	 */
+	@EventListener
+	public void onInvalidierung(Invalidierung invalidierung) {
+		var typ = invalidierung.typ();
+		if ((typ != Invalidierung.Typ.RESERVIERUNG && typ != Invalidierung.Typ.AUSLEIHE)) {
+			return;
+		}
+		if (invalidierung.id() == null) {
+			abgleichen();
+			return;
+		}
+		long mediumId = invalidierung.id();
+		var gespeichert = jdbcTemplate.query(SELECT_MEDIUM, EINTRAG, mediumId);
+		aendere(mediumId, warteschlange -> {
+			warteschlange.eintraege.clear();
+			warteschlange.eintraege.addAll(gespeichert);
+			return null;
+		});
+	}
+
+	/**
+	 * Stellt einen Kunden in die Warteschlange eines ausgeliehenen Mediums
+	 * @param mediumId Id des Mediums
+	 * @param kundeId Id des Kunden
+	 * @return Die Reservierung mit ihrer Position
+	 * @throws ResponseStatusException 404 wenn Medium oder Kunde nicht existieren, 409 wenn das Medium nicht
+	 *                                 ausgeliehen ist oder der Kunde es bereits ausgeliehen oder reserviert hat
+	 */
+	public ReservierungDto reserviere(long mediumId, long kundeId) {
+		var kunde = kundeRepository.findById(kundeId);
+		if (kunde.isEmpty()) {
+			throw new ResponseStatusException(HttpStatus.NOT_FOUND);
+		}
+		var dto = transactionTemplate.execute(status -> {
+			if (sperre(List.of(mediumId)).isEmpty()) {
+				throw new ResponseStatusException(HttpStatus.NOT_FOUND);
+			}
+			var ausleihen = ausleiheRepository.findByMediumId(mediumId);
+			if (ausleihen.isEmpty()) {
+				throw new ResponseStatusException(HttpStatus.CONFLICT, "Medium is not lent out");
+			}
+			if (ausleihen.stream().anyMatch(ausleihe -> ausleihe.getKunde().getId() == kundeId)) {
+				throw new ResponseStatusException(HttpStatus.CONFLICT, "Medium is already lent or reserved");
+			}
+			var medium = mediumRepository.getReferenceById(mediumId);
+			Reservierung saved;
+			try {
+				saved = reservierungRepository.save(new Reservierung(null, kunde.get(), medium));
+			} catch (DataIntegrityViolationException e) {
+				throw new ResponseStatusException(HttpStatus.CONFLICT, "Medium is already lent or reserved");
+			}
+			int position = jdbcTemplate.queryForObject(SELECT_POSITION, Integer.class, mediumId, saved.getId());
+			return new Eintrag(saved.getId(), kundeId, saved.getErstellt()).dto(mediumId, position);
+		});
+		aendere(mediumId, warteschlange -> {
+			if (warteschlange.eintraege.stream().noneMatch(eintrag -> eintrag.id() == dto.id())) {
+				warteschlange.eintraege.addLast(new Eintrag(dto.id(), kundeId, dto.erstellt()));
+			}
+			return null;
+		});
+		invalidierungsBus.publiziere(Invalidierung.Typ.RESERVIERUNG, mediumId);
+		return dto;
+	}
+
+	/**
+	 * Gibt die Warteschlange eines Mediums aus dem Cache zurück
+	 * @param mediumId Id des Mediums
+	 * @return Reservierungen in der Reihenfolge, in der sie weitergegeben werden
+	 */
+	public List<ReservierungDto> getWarteschlange(long mediumId) {
+		if (!warteschlangen.containsKey(mediumId)) {
+			return List.of();
+		}
+		return mitWarteschlange(mediumId, warteschlange -> {
+			var dtos = new ArrayList<ReservierungDto>(warteschlange.eintraege.size());
+			for (var eintrag : warteschlange.eintraege) {
+				dtos.add(eintrag.dto(mediumId, dtos.size() + 1));
+			}
+			return dtos;
+		});
+	}
+
+	/**
+	 * Entfernt einen Kunden aus der Warteschlange eines Mediums
+	 * @param mediumId Id des Mediums
+	 * @param kundeId Id des Kunden
+	 * @throws ResponseStatusException 404 wenn der Kunde nicht auf das Medium wartet
+	 */
+	public void storniere(long mediumId, long kundeId) {
+		if (reservierungRepository.removeByMediumIdAndKundeId(mediumId, kundeId) == 0) {
+			throw new ResponseStatusException(HttpStatus.NOT_FOUND);
+		}
+		entferne(mediumId, eintrag -> eintrag.kundeId() == kundeId);
+		invalidierungsBus.publiziere(Invalidierung.Typ.RESERVIERUNG, mediumId);
+	}
+
+	/**
+	 * Speichert die Ausleihe eines freien Mediums. Warten Kunden darauf, darf nur der erste es ausleihen, seine
+	 * Reservierung wird dabei gelöscht.
+	 * @param ausleihe Ausleihe mit geladenem Kunden und Medium
+	 * @return Die gespeicherte Ausleihe
+	 * @throws ResponseStatusException 409 wenn das Medium ausgeliehen ist oder ein anderer Kunde zuerst wartet
+	 */
+	public Ausleihe leiheAus(Ausleihe ausleihe) {
+		long mediumId = ausleihe.getMedium().getId();
+		long kundeId = ausleihe.getKunde().getId();
+		var verbraucht = new HashMap<Long, Long>();
+		var saved = transactionTemplate.execute(status -> {
+			sperre(List.of(mediumId));
+			if (!ausleiheRepository.findByMediumId(mediumId).isEmpty()) {
+				throw new ResponseStatusException(HttpStatus.CONFLICT,
+						"Medium is lent out, reserve it with POST /medium/" + mediumId + "/reservierung");
+			}
+			var naechste = jdbcTemplate.query(SELECT_NAECHSTE, EINTRAG, mediumId);
+			if (!naechste.isEmpty()) {
+				if (naechste.get(0).kundeId() != kundeId) {
+					throw new ResponseStatusException(HttpStatus.CONFLICT, "Medium is reserved by another customer");
+				}
+				reservierungRepository.removeById(naechste.get(0).id());
+				verbraucht.put(mediumId, naechste.get(0).id());
+			}
+			return speichere(ausleihe);
+		});
+		entferne(verbraucht);
+		return saved;
+	}
+
+	/**
+	 * Beendet die Ausleihen eines Mediums und gibt es an den ersten wartenden Kunden weiter
+	 * @param mediumId Id des Mediums
+	 * @return Beendete Ausleihen und gegebenenfalls die neue Ausleihe
+	 */
+	public Rueckgabe gibZurueck(long mediumId) {
+		return gibZurueck(List.of(mediumId)).get(0);
+	}
+
+	/**
+	 * Gibt mehrere Medien in einer Transaktion zurück. Die Ausleihen aller Medien werden gemeinsam mit
+	 * {@link AusleiheRepository#deleteByMediumIdIn(Collection)} beendet, eine Abfrage findet die Medien mit
+	 * Warteschlange. Nur diese werden einzeln an den nächsten Kunden weitergegeben.
+	 * @param mediumIds Ids der Medien
+	 * @return Eine Rückgabe pro weitergegebenem Medium und eine für alle übrigen Medien
+	 */
+	public List<Rueckgabe> gibZurueck(Collection<Long> mediumIds) {
+		if (mediumIds.isEmpty()) {
+			return List.of();
+		}
+		var verbraucht = new HashMap<Long, Long>();
+		var rueckgaben = transactionTemplate.execute(status -> {
+			sperre(mediumIds);
+			var beendet = ausleiheRepository.deleteByMediumIdIn(mediumIds);
+			var liste = new ArrayList<Rueckgabe>();
+			var proMedium = new LinkedHashMap<Long, List<Ausleihe>>();
+			beendet.forEach(ausleihe -> proMedium.computeIfAbsent(ausleihe.getMedium().getId(), k -> new ArrayList<>())
+					.add(ausleihe));
+			var wartend = proMedium.isEmpty() ? List.<Long>of()
+					: namedJdbcTemplate.queryForList(SELECT_WARTEND, Map.of("ids", proMedium.keySet()), Long.class);
+			for (var mediumId : wartend) {
+				var ausleihen = proMedium.get(mediumId);
+				var weitergegeben = weitergeben(mediumId, ausleihen.get(0).getMedium(), verbraucht);
+				if (weitergegeben != null) {
+					proMedium.remove(mediumId);
+					liste.add(new Rueckgabe(ausleihen, weitergegeben));
+				}
+			}
+			if (!proMedium.isEmpty() || liste.isEmpty()) {
+				liste.add(new Rueckgabe(proMedium.values().stream().flatMap(List::stream).toList(), null));
+			}
+			return liste;
+		});
+		// Erst nach dem Commit aus dem Cache entfernen, damit die Warteschlange bei einem Rollback erhalten bleibt
+		entferne(verbraucht);
+		return rueckgaben;
+	}
+
+	/**
+	 * Leiht ein zurückgegebenes Medium an den ersten wartenden Kunden aus. Die Reservierung wird dafür gesperrt,
+	 * eine gleichzeitige Stornierung wartet bis zum Ende der Transaktion.
+	 * @return Neue Ausleihe oder null, wenn niemand mehr wartet
+	 */
+	private Ausleihe weitergeben(long mediumId, Medium medium, Map<Long, Long> verbraucht) {
+		var naechste = jdbcTemplate.query(SELECT_NAECHSTE, EINTRAG, mediumId);
+		if (naechste.isEmpty()) {
+			return null;
+		}
+		var eintrag = naechste.get(0);
+		reservierungRepository.removeById(eintrag.id());
+		verbraucht.put(mediumId, eintrag.id());
+		var kunde = kundeRepository.findById(eintrag.kundeId()).orElseThrow();
+		return speichere(new Ausleihe(null, kunde, medium));
+	}
+
+	/**
+	 * Speichert eine neue Ausleihe und schreibt sie in derselben Transaktion in die Tabelle
+	 * {@code ausleihe_historie}, die Historie fehlt also nie für eine gespeicherte Ausleihe
+	 */
+	private Ausleihe speichere(Ausleihe ausleihe) {
+		var saved = ausleiheRepository.save(ausleihe);
+		jdbcTemplate.update(INSERT_HISTORIE, saved.getKunde().getId(), saved.getMedium().getId());
+		return saved;
+	}
+
+	/**
+	 * Sperrt die Zeilen der Medien bis zum Ende der Transaktion, in aufsteigender Reihenfolge gegen Deadlocks
+	 * @return Ids der gesperrten Medien, gelöschte Medien fehlen
+	 */
+	private List<Long> sperre(Collection<Long> mediumIds) {
+		return namedJdbcTemplate.queryForList(SPERRE, Map.of("ids", mediumIds), Long.class);
+	}
+
+	/**
+	 * Entfernt weitergegebene Reservierungen aus dem Cache und meldet sie den anderen Instanzen
+	 * @param verbraucht Id der Reservierung pro Medium
+	 */
+	private void entferne(Map<Long, Long> verbraucht) {
+		verbraucht.forEach((mediumId, id) -> {
+			entferne(mediumId, eintrag -> eintrag.id() == id);
+			invalidierungsBus.publiziere(Invalidierung.Typ.RESERVIERUNG, mediumId);
+		});
+	}
+
+	private void entferne(long mediumId, Predicate<Eintrag> filter) {
+		// Auch ohne Warteschlange im Cache, damit ein laufender Abgleich die Reservierung nicht wieder einfügt
+		aendere(mediumId, warteschlange -> warteschlange.eintraege.removeIf(filter));
+	}
+
+	/**
+	 * Ändert die Warteschlange eines Mediums wie {@link #mitWarteschlange} und merkt sich das Medium für einen
+	 * laufenden {@link #abgleichen()}
+	 */
+	private <T> T aendere(long mediumId, Function<Warteschlange, T> aktion) {
+		return mitWarteschlange(mediumId, warteschlange -> {
+			var waehrendAbgleich = geaendert;
+			if (waehrendAbgleich != null) {
+				waehrendAbgleich.add(mediumId);
+			}
+			return aktion.apply(warteschlange);
+		});
+	}
+
+	/**
+	 * Führt eine Aktion mit dem Lock der Warteschlange eines Mediums aus.
+	 * Leere Warteschlangen werden danach entfernt, eine bereits entfernte Warteschlange wird neu angelegt.
+	 */
+	private <T> T mitWarteschlange(long mediumId, Function<Warteschlange, T> aktion) {
+		while (true) {
+			var warteschlange = warteschlangen.computeIfAbsent(mediumId, k -> new Warteschlange());
+			warteschlange.lock.lock();
+			try {
+				if (warteschlange.entfernt) {
+					continue;
+				}
+				try {
+					return aktion.apply(warteschlange);
+				} finally {
+					if (warteschlange.eintraege.isEmpty()) {
+						warteschlange.entfernt = true;
+						warteschlangen.remove(mediumId, warteschlange);
+					}
+				}
+			} finally {
+				warteschlange.lock.unlock();
+			}
+		}
+	}
+
+	/**
+	 * Warteschlange eines Mediums, wird nur mit ihrem Lock gelesen und geändert
+	 */
+	private static final class Warteschlange {
+
+		private final ReentrantLock lock = new ReentrantLock();
+		private final ArrayDeque<Eintrag> eintraege = new ArrayDeque<>();
+		private boolean entfernt;
+
+	}
+
+	/**
+	 * Reservierung in einer Warteschlange
+	 */
+	private record Eintrag(long id, long kundeId, Date erstellt) {
+
+		private ReservierungDto dto(long mediumId, int position) {
+			return new ReservierungDto(id, mediumId, kundeId, erstellt, position);
+		}
+
+	}
+
+}
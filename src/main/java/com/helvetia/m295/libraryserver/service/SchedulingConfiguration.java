@@ -0,0 +1,99 @@
+package com.helvetia.m295.libraryserver.service;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.springframework.aop.framework.autoproxy.AbstractBeanFactoryAwareAdvisingPostProcessor;
+import org.springframework.aop.support.DefaultPointcutAdvisor;
+import org.springframework.aop.support.annotation.AnnotationMatchingPointcut;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.Ordered;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+/**
+ * Klasse für Konfigurationen der Hintergrundjobs.
+ * Aktiviert die Verarbeitung von {@link org.springframework.scheduling.annotation.Scheduled} und
+ * {@link LeaderOnly}.
+ * <p>
+ * Die Jobs laufen auf zwei Schedulern: Der Heartbeat der {@link LeaderWahl} und die Abfrage der Invalidierungen
+ * haben mit {@link #KOORDINATION} einen eigenen Thread, damit ein langer Neuaufbau eines Index die Lease nie
+ * ablaufen lässt. Alle anderen Jobs teilen sich {@code library.scheduling.pool-size} Threads.
+ * 
+ * @version 1.0.0
+ * @author Simon Fäs
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfiguration {
+
+	/**
+	 * Name des Schedulers für den Heartbeat und die Abfrage der Invalidierungen
+	 */
+	public static final String KOORDINATION = "koordinationScheduler";
+
+	/**
+	 * Scheduler für alle Jobs ohne eigenen Scheduler, z.B. den Neuaufbau der Indexe
+	 * @param poolSize Anzahl Threads
+	 * @return Scheduler
+	 */
+	@Bean
+	@Primary
+	public ThreadPoolTaskScheduler taskScheduler(@Value("${library.scheduling.pool-size:4}") int poolSize) {
+		var scheduler = new ThreadPoolTaskScheduler();
+		scheduler.setPoolSize(poolSize);
+		scheduler.setThreadNamePrefix("scheduling-");
+		return scheduler;
+	}
+
+	/**
+	 * Scheduler mit einem eigenen Thread für kurze Jobs, die nicht hinter langen Jobs warten dürfen
+	 * @return Scheduler
+	 */
+	@Bean(KOORDINATION)
+	public ThreadPoolTaskScheduler koordinationScheduler() {
+		var scheduler = new ThreadPoolTaskScheduler();
+		scheduler.setPoolSize(1);
+		scheduler.setThreadNamePrefix("koordination-");
+		return scheduler;
+	}
+
+	/**
+	 * Führt die {@link LeaderOnly}-Methoden nur auf dem Leader aus
+	 * @param leaderWahl Wahl des Leaders
+	 * @return BeanPostProcessor
+	 */
+	@Bean
+	public static LeaderOnlyPostProcessor leaderOnlyPostProcessor(ObjectProvider<LeaderWahl> leaderWahl) {
+		return new LeaderOnlyPostProcessor(leaderWahl);
+	}
+
+	/**
+	 * Umhüllt Beans mit {@link LeaderOnly}-Methoden mit einem Proxy, der die Methoden nur auf dem Leader ausführt.
+	 * Läuft vor der Verarbeitung von {@link org.springframework.scheduling.annotation.Scheduled}, damit die Jobs
+	 * über den Proxy aufgerufen werden.
+	 */
+	public static class LeaderOnlyPostProcessor extends AbstractBeanFactoryAwareAdvisingPostProcessor {
+
+		/**
+		 * Constructor mit der Wahl des Leaders als Parameter
+		 * @param leaderWahl Wahl des Leaders, wird erst beim Aufruf eines Jobs geholt
+		 */
+		public LeaderOnlyPostProcessor(ObjectProvider<LeaderWahl> leaderWahl) {
+			MethodInterceptor nurLeader = invocation -> {
+				// Ohne Datenbank gibt es keine Wahl und keinen Leader
+				var wahl = leaderWahl.getIfAvailable();
+				return wahl != null && wahl.istLeader() ? invocation.proceed() : null;
+			};
+			this.advisor = new DefaultPointcutAdvisor(new AnnotationMatchingPointcut(null, LeaderOnly.class, true),
+					nurLeader);
+			setProxyTargetClass(true);
+			setBeforeExistingAdvisors(true);
+			setOrder(Ordered.HIGHEST_PRECEDENCE);
+		}
+
+	}
+
+}
@@ -0,0 +1,114 @@
+package com.helvetia.m295.libraryserver.service;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Fasst gleichzeitige, identische Abfragen zu einer einzigen zusammen (Single-Flight).
+ * Der erste Aufrufer eines Schlüssels führt die Abfrage aus, alle weiteren Aufrufer mit demselben Schlüssel
+ * warten auf dessen {@link CompletableFuture} und erhalten dasselbe Resultat.
+ * Optional wird das Resultat für eine kurze Zeit (TTL) weiterverwendet. Fehler werden nie weiterverwendet, die
+ * wartenden Aufrufer erhalten denselben Fehler, auch bei einem {@link Error}.
+ *
+ * @param <K> Typ des Schlüssels
+ * @param <V> Typ des Resultats
+ * @version 1.0.0
+ * @author Simon Fäs
+ */
+public class SingleFlight<K, V> {
+
+	private final ConcurrentHashMap<K, Flight<V>> flights = new ConcurrentHashMap<>();
+	private final long ttlNanos;
+
+	/**
+	 * Constructor mit der TTL der Resultate als Parameter
+	 * @param ttlMillis Zeit, während der ein Resultat weiterverwendet wird. 0, um nur laufende Abfragen zu teilen
+	 */
+	public SingleFlight(long ttlMillis) {
+		this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMillis);
+	}
+
+	/**
+	 * Gibt das Resultat für den Schlüssel zurück. Läuft für den Schlüssel bereits eine Abfrage, wird auf deren
+	 * Resultat gewartet, sonst wird die Abfrage mit dem Loader ausgeführt.
+	 * @param key Schlüssel der Abfrage
+	 * @param loader Führt die Abfrage aus
+	 * @return Resultat der Abfrage
+	 */
+	public V get(K key, Supplier<V> loader) {
+		var own = new Flight<V>();
+		var flight = flights.compute(key, (k, current) -> current != null && current.isValid(ttlNanos) ? current : own);
+		if (flight != own) {
+			return await(flight);
+		}
+		try {
+			var value = loader.get();
+			flight.complete(value);
+			return value;
+		} catch (Throwable e) {
+			// Auch bei Errors abschliessen, sonst warten die anderen Aufrufer für immer
+			flights.remove(key, flight);
+			flight.future.completeExceptionally(e);
+			throw e;
+		} finally {
+			if (ttlNanos == 0) {
+				flights.remove(key, flight);
+			}
+		}
+	}
+
+	/**
+	 * Verwirft das Resultat für einen Schlüssel, z.B. nach einer Änderung
+	 * @param key Schlüssel der Abfrage
+	 */
+	public void invalidate(K key) {
+		flights.remove(key);
+	}
+
+	/**
+	 * Verwirft alle Resultate
+	 */
+	public void invalidateAll() {
+		flights.clear();
+	}
+
+	private static <V> V await(Flight<V> flight) {
+		try {
+			return flight.future.join();
+		} catch (CompletionException e) {
+			if (e.getCause() instanceof RuntimeException cause) {
+				throw cause;
+			}
+			if (e.getCause() instanceof Error cause) {
+				throw cause;
+			}
+			throw e;
+		}
+	}
+
+	/**
+	 * Laufende oder abgeschlossene Abfrage eines Schlüssels
+	 */
+	private static class Flight<V> {
+
+		private final CompletableFuture<V> future = new CompletableFuture<>();
+		private volatile long completedAt;
+
+		private void complete(V value) {
+			completedAt = System.nanoTime();
+			future.complete(value);
+		}
+
+		private boolean isValid(long ttlNanos) {
+			if (!future.isDone()) {
+				return true;
+			}
+			return !future.isCompletedExceptionally() && System.nanoTime() - completedAt < ttlNanos;
+		}
+
+	}
+
+}
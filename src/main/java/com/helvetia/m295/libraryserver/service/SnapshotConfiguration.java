@@ -0,0 +1,40 @@
+package com.helvetia.m295.libraryserver.service;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+
+/**
+ * Klasse für die Konfiguration des Snapshot-Modus für Kiosk-Instanzen.
+ * Wird nur mit dem Profil {@code kiosk} aktiv, die Datei steht in {@code library.snapshot.file}.
+ * Dann lesen {@link MediumController} und {@link AdresseController} aus dem {@link KatalogSnapshot} statt aus der
+ * Datenbank und lehnen Änderungen ab. Der Snapshot wird auf dem Server mit {@code GET /export/snapshot} erstellt.
+ * <p>
+ * Beans, die nur mit der Datenbank funktionieren, sind mit {@code @Profile("!kiosk")} markiert und fehlen auf
+ * Kiosk-Instanzen ganz, z.B. {@link LeaderWahl}, die Indexe und Zähler und ihre Controller. Deren Pfade antworten
+ * dort mit 404(NOT_FOUND).
+ *
+ * @version 1.0.0
+ * @author Simon Fäs
+ * @see KatalogSnapshot
+ */
+@Configuration
+@Profile("kiosk")
+public class SnapshotConfiguration {
+
+	/**
+	 * Bildet die Snapshot-Datei in den Speicher ab
+	 * @param datei Pfad der Snapshot-Datei
+	 * @return Snapshot
+	 * @throws IOException Wenn die Datei nicht gelesen werden kann
+	 */
+	@Bean
+	public KatalogSnapshot katalogSnapshot(@Value("${library.snapshot.file}") String datei) throws IOException {
+		return KatalogSnapshot.oeffne(Path.of(datei));
+	}
+
+}
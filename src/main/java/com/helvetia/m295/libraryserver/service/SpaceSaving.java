@@ -0,0 +1,170 @@
+package com.helvetia.m295.libraryserver.service;
+
+/**
+ * Zählt die häufigsten long-Ids eines Datenstroms mit fester Anzahl Zähler (Space-Saving nach Metwally et al.).
+ * Ist eine Id nicht vorhanden und sind alle Zähler belegt, übernimmt sie den kleinsten Zähler plus eins und merkt sich
+ * dessen alten Wert als Fehler. Ein Zähler überschätzt die wirkliche Anzahl also höchstens um seinen Fehler, und jede
+ * Id, die öfter als {@link #getMinimum()} vorkam, hat sicher einen Zähler.
+ * <p>
+ * Die Zähler liegen in primitiven Arrays, ein Min-Heap über die Zähler findet den kleinsten in O(1) und ersetzt ihn
+ * in O(log k). Die Ids werden über eine {@link LongLongMultiMap} gefunden, die nie mehr als k Paare enthält.
+ * Der Speicher hängt deshalb nur von der Kapazität ab, nicht von der Anzahl verschiedener Ids.
+ * <p>
+ * {@link Long#MIN_VALUE} ist als Id nicht erlaubt. Die Klasse ist nicht threadsicher.
+ *
+ * @version 1.0.0
+ * @author Simon Fäs
+ * @see TrendZaehler
+ */
+public class SpaceSaving {
+
+	/**
+	 * Empfänger der Einträge von {@link SpaceSaving#forEach(EintragConsumer)}
+	 */
+	@FunctionalInterface
+	public interface EintragConsumer {
+
+		/**
+		 * Verarbeitet einen Eintrag
+		 * @param id Gezählte Id
+		 * @param zaehler Geschätzte Anzahl, nie kleiner als die wirkliche
+		 * @param fehler Maximale Überschätzung
+		 */
+		void accept(long id, long zaehler, long fehler);
+
+	}
+
+	private final long[] ids;
+	private final long[] zaehler;
+	private final long[] fehler;
+	private final int[] heap;
+	private final int[] position;
+	private final LongLongMultiMap index;
+	private int size;
+
+	/**
+	 * Constructor mit der Anzahl Zähler als Parameter
+	 * @param kapazitaet Anzahl Ids, die gleichzeitig gezählt werden
+	 */
+	public SpaceSaving(int kapazitaet) {
+		if (kapazitaet < 1) {
+			throw new IllegalArgumentException("Capacity must be positive");
+		}
+		ids = new long[kapazitaet];
+		zaehler = new long[kapazitaet];
+		fehler = new long[kapazitaet];
+		heap = new int[kapazitaet];
+		position = new int[kapazitaet];
+		index = new LongLongMultiMap(kapazitaet);
+	}
+
+	/**
+	 * Zählt ein Vorkommen einer Id
+	 * @param id Id
+	 */
+	public void zaehle(long id) {
+		long slot = index.first(id, -1);
+		if (slot >= 0) {
+			zaehler[(int) slot]++;
+			runter(position[(int) slot]);
+			return;
+		}
+		if (size < ids.length) {
+			int neu = size++;
+			ids[neu] = id;
+			zaehler[neu] = 1;
+			fehler[neu] = 0;
+			heap[neu] = neu;
+			position[neu] = neu;
+			index.put(id, neu);
+			hoch(neu);
+			return;
+		}
+		// Die Id übernimmt den kleinsten Zähler, der an der Wurzel des Heaps liegt
+		int kleinster = heap[0];
+		index.remove(ids[kleinster], kleinster);
+		ids[kleinster] = id;
+		fehler[kleinster] = zaehler[kleinster];
+		zaehler[kleinster]++;
+		index.put(id, kleinster);
+		runter(0);
+	}
+
+	/**
+	 * Gibt die geschätzte Anzahl einer Id zurück
+	 * @param id Id
+	 * @return Zähler der Id oder 0, wenn sie keinen Zähler hat
+	 */
+	public long getZaehler(long id) {
+		long slot = index.first(id, -1);
+		return slot >= 0 ? zaehler[(int) slot] : 0;
+	}
+
+	/**
+	 * Gibt den kleinsten Zähler zurück, solange alle Zähler belegt sind.
+	 * Eine Id ohne Zähler kam höchstens so oft vor.
+	 * @return Kleinster Zähler oder 0, wenn noch Zähler frei sind
+	 */
+	public long getMinimum() {
+		return size < ids.length ? 0 : zaehler[heap[0]];
+	}
+
+	/**
+	 * Übergibt alle Einträge in beliebiger Reihenfolge
+	 * @param consumer Empfänger der Einträge
+	 */
+	public void forEach(EintragConsumer consumer) {
+		for (int i = 0; i < size; i++) {
+			consumer.accept(ids[i], zaehler[i], fehler[i]);
+		}
+	}
+
+	/**
+	 * Entfernt alle Einträge, der Speicher bleibt belegt
+	 */
+	public void leeren() {
+		for (int i = 0; i < size; i++) {
+			index.remove(ids[i], i);
+		}
+		size = 0;
+	}
+
+	/**
+	 * Gibt die Anzahl belegter Zähler zurück
+	 * @return Anzahl gezählter Ids, höchstens die Kapazität
+	 */
+	public int size() {
+		return size;
+	}
+
+	private void hoch(int i) {
+		while (i > 0 && zaehler[heap[i]] < zaehler[heap[(i - 1) / 2]]) {
+			tausche(i, (i - 1) / 2);
+			i = (i - 1) / 2;
+		}
+	}
+
+	private void runter(int i) {
+		while (true) {
+			int kleinster = i;
+			for (int kind = 2 * i + 1; kind <= 2 * i + 2 && kind < size; kind++) {
+				if (zaehler[heap[kind]] < zaehler[heap[kleinster]])
+					kleinster = kind;
+			}
+			if (kleinster == i) {
+				return;
+			}
+			tausche(i, kleinster);
+			i = kleinster;
+		}
+	}
+
+	private void tausche(int a, int b) {
+		int t = heap[a];
+		heap[a] = heap[b];
+		heap[b] = t;
+		position[heap[a]] = a;
+		position[heap[b]] = b;
+	}
+
+}
@@ -0,0 +1,103 @@
+package com.helvetia.m295.libraryserver.service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Speicher für Idempotency-Keys im Speicher der Instanz.
+ * Die Einträge liegen in Einfügereihenfolge in einer {@link LinkedHashMap}. Da alle Einträge gleich lange gültig
+ * sind, stehen die abgelaufenen immer am Anfang und werden bei jedem Zugriff dort entfernt. Ist der Speicher voll
+ * ({@code library.idempotenz.max-eintraege}), wird der älteste Eintrag mit gespeicherter Antwort verdrängt. Laufende
+ * Requests werden nie verdrängt, sonst würde eine Wiederholung ein zweites Mal ausgeführt.
+ * <p>
+ * Wiederholungen werden nur erkannt, wenn sie dieselbe Instanz erreichen. Für mehrere Instanzen gibt es
+ * {@link DatenbankIdempotenz}.
+ *
+ * @version 1.0.0
+ * @author Simon Fäs
+ * @see IdempotenzConfiguration
+ */
+public class SpeicherIdempotenz implements IdempotenzSpeicher {
+
+	private final long ttlNanos;
+	private final Map<String, Eintrag> eintraege;
+
+	/**
+	 * Constructor mit Gültigkeit und Grösse als Parameter
+	 * @param ttlMillis Zeit, während der eine Antwort wiederholt wird
+	 * @param maxEintraege Maximale Anzahl Einträge
+	 */
+	public SpeicherIdempotenz(long ttlMillis, int maxEintraege) {
+		this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMillis);
+		this.eintraege = new LinkedHashMap<>(16, 0.75f, false) {
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, Eintrag> eldest) {
+				if (size() <= maxEintraege) {
+					return false;
+				}
+				// Den ältesten abgeschlossenen Eintrag entfernen, Reservierungen laufender Requests bleiben stehen
+				var iterator = values().iterator();
+				while (iterator.hasNext()) {
+					if (!iterator.next().antwort().inBearbeitung()) {
+						iterator.remove();
+						break;
+					}
+				}
+				return false;
+			}
+
+		};
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public synchronized IdempotenteAntwort reserviere(String schluessel) {
+		long jetzt = System.nanoTime();
+		entferneAbgelaufene(jetzt);
+		var eintrag = eintraege.get(schluessel);
+		if (eintrag != null) {
+			return eintrag.antwort();
+		}
+		eintraege.put(schluessel, new Eintrag(IdempotenteAntwort.IN_BEARBEITUNG, jetzt + ttlNanos));
+		return null;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public synchronized void speichere(String schluessel, IdempotenteAntwort antwort) {
+		// Neu einfügen, damit die Einfügereihenfolge der Ablaufreihenfolge entspricht
+		eintraege.remove(schluessel);
+		eintraege.put(schluessel, new Eintrag(antwort, System.nanoTime() + ttlNanos));
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public synchronized void freigeben(String schluessel) {
+		eintraege.remove(schluessel);
+	}
+
+	/**
+	 * @return Anzahl der Einträge
+	 */
+	public synchronized int size() {
+		return eintraege.size();
+	}
+
+	private void entferneAbgelaufene(long jetzt) {
+		var iterator = eintraege.values().iterator();
+		while (iterator.hasNext() && iterator.next().ablaufNanos() - jetzt <= 0) {
+			iterator.remove();
+		}
+	}
+
+	private record Eintrag(IdempotenteAntwort antwort, long ablaufNanos) {}
+
+}
@@ -0,0 +1,39 @@
+package com.helvetia.m295.libraryserver.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.helvetia.m295.libraryserver.common.KatalogStatistik;
+
+/**
+ * Klasse um Serveranfragen rund um die Kennzahlen des Katalogs zu bearbeiten.
+ * Die Kennzahlen werden nicht bei jeder Anfrage berechnet, sondern vom {@link StatistikZaehler} nachgeführt.
+ *
+ * @version 1.0.0
+ * @author Simon Fäs
+ * @see KatalogStatistik
+ * @see StatistikZaehler
+ */
+@RestController
+@RequestMapping(path = "/statistik")
+@Profile("!kiosk")
+public class StatistikController {
+
+	@Autowired
+	private StatistikZaehler statistikZaehler;
+
+	/**
+	 * Gibt die Kennzahlen des Katalogs zurück.
+	 *
+	 * @return Anzahl Medien pro Genre und Altersfreigabe, laufende Ausleihen pro Genre und Kunden pro ZIP-Code.
+	 */
+	@GetMapping("")
+	public @ResponseBody KatalogStatistik getStatistik() {
+		return statistikZaehler.getStatistik();
+	}
+
+}
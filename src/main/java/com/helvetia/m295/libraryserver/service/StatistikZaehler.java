@@ -0,0 +1,175 @@
+package com.helvetia.m295.libraryserver.service;
+
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.helvetia.m295.libraryserver.common.AusleiheEvent;
+import com.helvetia.m295.libraryserver.common.ImportResultat;
+import com.helvetia.m295.libraryserver.common.KatalogStatistik;
+import com.helvetia.m295.libraryserver.common.KundeEvent;
+import com.helvetia.m295.libraryserver.common.MediumEvent;
+import com.helvetia.m295.libraryserver.model.AusleiheRepository;
+import com.helvetia.m295.libraryserver.model.KundeRepository;
+import com.helvetia.m295.libraryserver.model.MediumRepository;
+
+/**
+ * Zähler für die Kennzahlen des Katalogs.
+ * Die Zähler werden beim Start mit Aggregat-Abfragen initialisiert und danach über die Events der Controller
+ * inkrementell nachgeführt. Jeder Zähler ist ein {@link LongAdder}, damit parallele Änderungen nicht um dieselbe
+ * Speicherstelle konkurrieren. Regelmässig werden die Zähler mit der Datenbank abgeglichen
+ * ({@code library.statistik.reconcile-millis}), um Änderungen anderer Instanzen oder direkt auf der DB zu übernehmen.
+ *
+ * @version 1.0.0
+ * @author Simon Fäs
+ * @see StatistikController
+ */
+@Component
+@Profile("!kiosk")
+public class StatistikZaehler {
+
+	private static final String UNBEKANNT = "unbekannt";
+
+	@Autowired
+	private MediumRepository mediumRepository;
+
+	@Autowired
+	private AusleiheRepository ausleiheRepository;
+
+	@Autowired
+	private KundeRepository kundeRepository;
+
+	private volatile Zaehlerstand stand = new Zaehlerstand();
+
+	/**
+	 * Initialisiert die Zähler beim Start der Applikation
+	 */
+	@EventListener(ApplicationReadyEvent.class)
+	public void initialize() {
+		reconcile();
+	}
+
+	/**
+	 * Gleicht die Zähler mit der Datenbank ab. Die neuen Zähler werden vollständig aufgebaut und dann
+	 * auf einmal ausgetauscht.
+	 */
+	@Scheduled(fixedDelayString = "${library.statistik.reconcile-millis:600000}",
+			initialDelayString = "${library.statistik.reconcile-millis:600000}")
+	public void reconcile() {
+		var neu = new Zaehlerstand();
+		addAll(neu.medienProGenre, mediumRepository.countGroupByGenre());
+		addAll(neu.medienProAltersfreigabe, mediumRepository.countGroupByAltersfreigabe());
+		addAll(neu.ausleihenProGenre, ausleiheRepository.countGroupByGenre());
+		addAll(neu.kundenProZip, kundeRepository.countGroupByZip());
+		stand = neu;
+	}
+
+	/**
+	 * Führt die Medien-Zähler nach einer Änderung eines Mediums nach
+	 * @param event Änderung des Mediums
+	 */
+	@EventListener
+	public void onMedium(MediumEvent event) {
+		var aktuell = stand;
+		if (event.vorher() != null) {
+			add(aktuell.medienProGenre, event.vorher().getGenre(), -1);
+			add(aktuell.medienProAltersfreigabe, event.vorher().getAltersfreigabe(), -1);
+		}
+		if (event.nachher() != null) {
+			add(aktuell.medienProGenre, event.nachher().getGenre(), 1);
+			add(aktuell.medienProAltersfreigabe, event.nachher().getAltersfreigabe(), 1);
+		}
+	}
+
+	/**
+	 * Gleicht die Zähler nach einem Massenimport ab, da dieser keine Events pro Medium publiziert
+	 * @param resultat Zusammenfassung des Imports
+	 */
+	@EventListener
+	public void onImport(ImportResultat resultat) {
+		reconcile();
+	}
+
+	/**
+	 * Führt die Ausleihe-Zähler nach einer Änderung einer Ausleihe nach
+	 * @param event Änderung der Ausleihe
+	 */
+	@EventListener
+	public void onAusleihe(AusleiheEvent event) {
+		var aktuell = stand;
+		if (event.vorher() != null && event.vorher().getMedium() != null) {
+			add(aktuell.ausleihenProGenre, event.vorher().getMedium().getGenre(), -1);
+		}
+		if (event.nachher() != null && event.nachher().getMedium() != null) {
+			add(aktuell.ausleihenProGenre, event.nachher().getMedium().getGenre(), 1);
+		}
+	}
+
+	/**
+	 * Führt die Kunden-Zähler nach einer Änderung eines Kunden nach
+	 * @param event Änderung des Kunden
+	 */
+	@EventListener
+	public void onKunde(KundeEvent event) {
+		var aktuell = stand;
+		if (event.vorher() != null && event.vorher().getAdresse() != null) {
+			add(aktuell.kundenProZip, event.vorher().getAdresse().getZip(), -1);
+		}
+		if (event.nachher() != null && event.nachher().getAdresse() != null) {
+			add(aktuell.kundenProZip, event.nachher().getAdresse().getZip(), 1);
+		}
+	}
+
+	/**
+	 * Gibt den aktuellen Stand aller Zähler zurück. Der Aufwand hängt nur von der Anzahl Genres,
+	 * Altersfreigaben und ZIP-Codes ab, nicht von der Grösse des Katalogs.
+	 * @return Kennzahlen des Katalogs
+	 */
+	public KatalogStatistik getStatistik() {
+		var aktuell = stand;
+		return new KatalogStatistik(snapshot(aktuell.medienProGenre), snapshot(aktuell.medienProAltersfreigabe),
+				snapshot(aktuell.ausleihenProGenre), snapshot(aktuell.kundenProZip));
+	}
+
+	private static void addAll(ConcurrentHashMap<String, LongAdder> zaehler, List<Object[]> anzahlen) {
+		for (var anzahl : anzahlen) {
+			add(zaehler, anzahl[0], ((Number) anzahl[1]).longValue());
+		}
+	}
+
+	private static void add(ConcurrentHashMap<String, LongAdder> zaehler, Object schluessel, long delta) {
+		var key = schluessel == null ? UNBEKANNT : schluessel.toString();
+		zaehler.computeIfAbsent(key, k -> new LongAdder()).add(delta);
+	}
+
+	private static Map<String, Long> snapshot(ConcurrentHashMap<String, LongAdder> zaehler) {
+		var resultat = new TreeMap<String, Long>();
+		zaehler.forEach((key, value) -> {
+			long summe = value.sum();
+			if (summe != 0) {
+				resultat.put(key, summe);
+			}
+		});
+		return resultat;
+	}
+
+	/**
+	 * Alle Zähler zu einem Zeitpunkt. Wird beim Abgleich als Ganzes ersetzt.
+	 */
+	private static class Zaehlerstand {
+		private final ConcurrentHashMap<String, LongAdder> medienProGenre = new ConcurrentHashMap<>();
+		private final ConcurrentHashMap<String, LongAdder> medienProAltersfreigabe = new ConcurrentHashMap<>();
+		private final ConcurrentHashMap<String, LongAdder> ausleihenProGenre = new ConcurrentHashMap<>();
+		private final ConcurrentHashMap<String, LongAdder> kundenProZip = new ConcurrentHashMap<>();
+	}
+
+}
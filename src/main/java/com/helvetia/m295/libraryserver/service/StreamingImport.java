@@ -0,0 +1,272 @@
+package com.helvetia.m295.libraryserver.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.helvetia.m295.libraryserver.common.ImportResultat;
+
+/**
+ * Liest grosse Uploads Element für Element aus dem Request, statt das ganze Array wie bei
+ * {@code @RequestBody List<...>} zuerst in den Speicher zu laden.
+ * Unterstützt werden ein JSON-Array und NDJSON (ein JSON-Objekt pro Zeile).
+ * Jedes Element wird geprüft, gültige Elemente werden zu Stapeln fester Grösse zusammengefasst und einem
+ * {@link BatchSink} übergeben. Der Sink läuft in einem eigenen Thread hinter einer beschränkten Warteschlange:
+ * Ist sie voll, liest der Request-Thread nicht weiter (Backpressure). Der Speicherbedarf hängt deshalb nur von
+ * Stapelgrösse und Länge der Warteschlange ab, nicht von der Grösse des Uploads.
+ * Stapel, die vor einem Fehler im Upload gelesen wurden, werden trotzdem geschrieben.
+ * Scheitert der Sink, auch mit einem {@link Error}, hört der Request-Thread spätestens nach
+ * {@link #WARTEN_MILLIS} auf zu lesen und gibt den Fehler weiter.
+ *
+ * @version 1.0.0
+ * @author Simon Fäs
+ * @see MediumBulkImport
+ */
+public class StreamingImport {
+
+	private static final int MAX_FEHLER = 100;
+
+	/**
+	 * Maximale Wartezeit auf einen Platz in der Warteschlange, bevor der Zustand des Schreibers erneut geprüft wird
+	 */
+	private static final long WARTEN_MILLIS = 100;
+
+	/**
+	 * Markiert das Ende des Uploads in der Warteschlange
+	 */
+	private static final List<?> ENDE = List.of();
+
+	private final ObjectMapper objectMapper;
+	private final int batchSize;
+	private final int queueSize;
+
+	/**
+	 * Format eines Uploads
+	 */
+	public enum Format {
+		/** Ein JSON-Array von Objekten */
+		JSON_ARRAY,
+		/** Ein JSON-Objekt pro Zeile */
+		NDJSON;
+
+		/**
+		 * Bestimmt das Format anhand des Content-Types eines Requests
+		 * @param contentType Content-Type des Requests, kann null sein
+		 * @return NDJSON für {@code application/x-ndjson}, sonst JSON_ARRAY
+		 */
+		public static Format von(String contentType) {
+			return contentType != null && contentType.startsWith("application/x-ndjson") ? NDJSON : JSON_ARRAY;
+		}
+	}
+
+	/**
+	 * Empfänger der gültigen Elemente
+	 * @param <T> Typ der Elemente
+	 */
+	@FunctionalInterface
+	public interface BatchSink<T> {
+
+		/**
+		 * Speichert einen Stapel von Elementen
+		 * @param batch Gültige Elemente, nie leer
+		 * @return Zusammenfassung für diesen Stapel
+		 */
+		ImportResultat schreibe(List<T> batch);
+
+	}
+
+	/**
+	 * Constructor mit ObjectMapper und Grösse der Stapel und der Warteschlange als Parameter
+	 * @param objectMapper Mapper für die Elemente
+	 * @param batchSize Anzahl Elemente pro Stapel
+	 * @param queueSize Anzahl Stapel, die gelesen, aber noch nicht geschrieben sein dürfen
+	 */
+	public StreamingImport(ObjectMapper objectMapper, int batchSize, int queueSize) {
+		this.objectMapper = objectMapper;
+		this.batchSize = batchSize;
+		this.queueSize = queueSize;
+	}
+
+	/**
+	 * Liest alle Elemente aus dem Stream und übergibt die gültigen stapelweise dem Sink
+	 *
+	 * @param <T> Typ der Elemente
+	 * @param inputStream Body des Requests
+	 * @param format Format des Bodys
+	 * @param typ Klasse der Elemente
+	 * @param validierung Gibt für ein ungültiges Element die Fehlermeldung zurück, sonst null
+	 * @param sink Empfänger der gültigen Elemente
+	 * @return Zusammenfassung des ganzen Imports
+	 * @throws IOException Wenn der Stream nicht gelesen werden kann
+	 * @throws ResponseStatusException Wenn der Body kein gültiges JSON im angegebenen Format ist
+	 */
+	public <T> ImportResultat importiere(InputStream inputStream, Format format, Class<T> typ,
+			Function<T, String> validierung, BatchSink<T> sink) throws IOException {
+		var abgelehnt = new Zaehler();
+		var queue = new ArrayBlockingQueue<List<T>>(queueSize);
+		var schreiber = new Schreiber<>(queue, sink);
+		var thread = Thread.ofVirtual().name("streaming-import").start(schreiber);
+		try {
+			var batch = new ArrayList<T>(batchSize);
+			try (var parser = objectMapper.getFactory().createParser(inputStream)) {
+				var token = parser.nextToken();
+				if (format == Format.JSON_ARRAY) {
+					if (token != JsonToken.START_ARRAY) {
+						throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Expected a JSON array");
+					}
+					token = parser.nextToken();
+				}
+				while (token == JsonToken.START_OBJECT && schreiber.fehler == null) {
+					var element = objectMapper.readValue(parser, typ);
+					var meldung = validierung.apply(element);
+					if (meldung != null) {
+						abgelehnt.ablehnen(meldung);
+					} else {
+						batch.add(element);
+						if (batch.size() >= batchSize) {
+							uebergebe(queue, batch, schreiber, thread);
+							batch = new ArrayList<>(batchSize);
+						}
+					}
+					token = parser.nextToken();
+				}
+				if (schreiber.fehler == null && token != (format == Format.JSON_ARRAY ? JsonToken.END_ARRAY : null)) {
+					throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unexpected token " + token);
+				}
+			} catch (JsonProcessingException e) {
+				throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getOriginalMessage());
+			}
+			if (!batch.isEmpty()) {
+				uebergebe(queue, batch, schreiber, thread);
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Import interrupted");
+		} finally {
+			beende(queue, schreiber, thread);
+		}
+		if (schreiber.fehler instanceof RuntimeException e) {
+			throw e;
+		}
+		if (schreiber.fehler instanceof Error e) {
+			throw e;
+		}
+		if (schreiber.fehler != null) {
+			throw new IllegalStateException("Import failed", schreiber.fehler);
+		}
+		return schreiber.zaehler.plus(abgelehnt).resultat();
+	}
+
+	/**
+	 * Legt einen Stapel in die Warteschlange. Wartet nicht weiter, sobald der Schreiber gescheitert oder beendet ist,
+	 * der Stapel wird dann verworfen.
+	 */
+	private static <T> void uebergebe(BlockingQueue<List<T>> queue, List<T> batch, Schreiber<T> schreiber,
+			Thread thread) throws InterruptedException {
+		while (!queue.offer(batch, WARTEN_MILLIS, TimeUnit.MILLISECONDS)) {
+			if (schreiber.fehler != null || !thread.isAlive()) {
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Meldet dem Schreiber das Ende des Uploads und wartet, bis alle gelesenen Stapel geschrieben sind
+	 */
+	@SuppressWarnings("unchecked")
+	private static <T> void beende(BlockingQueue<List<T>> queue, Schreiber<T> schreiber, Thread thread)
+			throws InterruptedIOException {
+		try {
+			uebergebe(queue, (List<T>) ENDE, schreiber, thread);
+			thread.join();
+		} catch (InterruptedException e) {
+			thread.interrupt();
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Import interrupted");
+		}
+	}
+
+	/**
+	 * Schreibt die Stapel aus der Warteschlange in den Sink. Nach einem Fehler werden die restlichen Stapel
+	 * nur noch verworfen, damit der Request-Thread nie auf eine volle Warteschlange wartet.
+	 * Jeder Fehler wird festgehalten, auch ein {@link Error}, damit der Request-Thread davon erfährt.
+	 */
+	private static class Schreiber<T> implements Runnable {
+
+		private final BlockingQueue<List<T>> queue;
+		private final BatchSink<T> sink;
+		private final Zaehler zaehler = new Zaehler();
+		private volatile Throwable fehler;
+
+		private Schreiber(BlockingQueue<List<T>> queue, BatchSink<T> sink) {
+			this.queue = queue;
+			this.sink = sink;
+		}
+
+		@Override
+		public void run() {
+			try {
+				for (var batch = queue.take(); batch != ENDE; batch = queue.take()) {
+					if (fehler == null) {
+						try {
+							zaehler.plus(sink.schreibe(batch));
+						} catch (Throwable e) {
+							fehler = e;
+						}
+					}
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			} catch (Throwable e) {
+				fehler = e;
+			}
+		}
+
+	}
+
+	/**
+	 * Zähler und Fehlermeldungen eines laufenden Imports
+	 */
+	private static class Zaehler {
+		private long eingefuegt;
+		private long aktualisiert;
+		private long abgelehnt;
+		private final List<String> fehler = new ArrayList<>();
+
+		private void ablehnen(String meldung) {
+			abgelehnt++;
+			if (fehler.size() < MAX_FEHLER) {
+				fehler.add(meldung);
+			}
+		}
+
+		private Zaehler plus(ImportResultat resultat) {
+			eingefuegt += resultat.eingefuegt();
+			aktualisiert += resultat.aktualisiert();
+			abgelehnt += resultat.abgelehnt();
+			resultat.fehler().stream().limit(MAX_FEHLER - fehler.size()).forEach(fehler::add);
+			return this;
+		}
+
+		private Zaehler plus(Zaehler other) {
+			return plus(other.resultat());
+		}
+
+		private ImportResultat resultat() {
+			return new ImportResultat(eingefuegt, aktualisiert, abgelehnt, List.copyOf(fehler));
+		}
+	}
+
+}
@@ -0,0 +1,71 @@
+package com.helvetia.m295.libraryserver.service;
+
+import java.util.HashMap;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.helvetia.m295.libraryserver.common.Medium;
+import com.helvetia.m295.libraryserver.common.Trend;
+import com.helvetia.m295.libraryserver.model.MediumRepository;
+
+/**
+ * Klasse um Serveranfragen rund um die meistausgeliehenen Medien zu bearbeiten.
+ * Die Anzahl Ausleihen kommt aus dem {@link TrendZaehler}, Titel und Autor werden mit einer Abfrage ergänzt.
+ *
+ * @version 1.0.0
+ * @author Simon Fäs
+ * @see Trend
+ * @see TrendZaehler
+ */
+@RestController
+@RequestMapping(path = "/medium/trending")
+@Profile("!kiosk")
+public class TrendController {
+
+	/**
+	 * Maximale Anzahl Medien pro Anfrage
+	 */
+	public static final int MAX_LIMIT = 100;
+
+	@Autowired
+	private TrendZaehler trendZaehler;
+
+	@Autowired
+	private MediumRepository mediumRepository;
+
+	/**
+	 * Gibt die Medien zurück, die im aktuellen Zeitfenster am häufigsten ausgeliehen wurden.
+	 *
+	 * @param limit Maximale Anzahl Medien, höchstens {@value #MAX_LIMIT}.
+	 * @return Die Medien nach geschätzter Anzahl Ausleihen absteigend.
+	 * @throws ResponseStatusException Wenn das Limit ungültig ist.
+	 */
+	@GetMapping("")
+	public @ResponseBody List<Trend> getTrending(@RequestParam(name = "limit", defaultValue = "10") int limit) {
+		if (limit < 1 || limit > MAX_LIMIT) {
+			throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid limit");
+		}
+		var trends = trendZaehler.getTrending(limit);
+		if (trends.isEmpty()) {
+			return List.of();
+		}
+		var medien = new HashMap<Long, Medium>();
+		mediumRepository.findAllById(trends.stream().map(Trend::id).toList())
+				.forEach(medium -> medien.put(medium.getId(), medium));
+		// Gelöschte Medien fallen weg
+		return trends.stream().filter(trend -> medien.containsKey(trend.id())).map(trend -> {
+			var medium = medien.get(trend.id());
+			return new Trend(trend.id(), medium.getTitel(), medium.getAutor(), trend.ausleihen(), trend.mindestens());
+		}).toList();
+	}
+
+}
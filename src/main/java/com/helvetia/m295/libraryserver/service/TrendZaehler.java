@@ -0,0 +1,280 @@
+package com.helvetia.m295.libraryserver.service;
+
+import java.sql.Timestamp;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.helvetia.m295.libraryserver.common.AusleiheEvent;
+import com.helvetia.m295.libraryserver.common.Invalidierung;
+import com.helvetia.m295.libraryserver.common.Trend;
+
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Zählt die am häufigsten ausgeliehenen Medien in einem gleitenden Zeitfenster ({@code library.trending.fenster-millis},
+ * standardmässig sieben Tage). Das Fenster ist in {@code library.trending.buckets} Abschnitte geteilt, jeder Abschnitt
+ * zählt mit einem {@link SpaceSaving} von {@code library.trending.kapazitaet} Zählern. Die Abschnitte liegen in einem
+ * Ring, der älteste wird geleert, sobald ein neuer beginnt. Der Speicher hängt damit nur von Abschnitten und
+ * Kapazität ab, nicht von der Grösse des Katalogs.
+ * <p>
+ * Für eine Abfrage werden die Zähler der Abschnitte im Fenster pro Medium addiert. Das Fenster umfasst den laufenden
+ * und die vorherigen Abschnitte, es ist also um bis zu einen Abschnitt kürzer als konfiguriert. Solange ein Abschnitt
+ * weniger verschiedene Medien hat als Zähler, sind seine Zähler exakt. Sonst überschätzt ein Zähler um höchstens
+ * seinen Fehler, ein Medium ohne Zähler in einem Abschnitt wird dort nicht gezählt.
+ * <p>
+ * Ein {@link AusleiheEvent} oder eine {@link Invalidierung.Typ#AUSLEIHE Ausleihe einer anderen Instanz} markiert
+ * die Zähler nur, ein Hintergrundjob ({@code library.trending.nachziehen-millis}) zählt danach die neuen Zeilen der
+ * Tabelle {@code ausleihe_historie}, ohne den Request aufzuhalten. Beim Start und regelmässig
+ * ({@code library.trending.rebuild-millis}) wird das Fenster aus der Historie neu aufgebaut.
+ *
+ * @version 1.0.0
+ * @author Simon Fäs
+ * @see TrendController
+ * @see EmpfehlungsIndex
+ */
+@Component
+@Profile("!kiosk")
+public class TrendZaehler {
+
+	private static final Logger LOG = LoggerFactory.getLogger(TrendZaehler.class);
+
+	private static final String SELECT_MAX = "SELECT COALESCE(MAX(id), 0) FROM ausleihe_historie";
+	private static final String SELECT = "SELECT medienid, ausgeliehen FROM ausleihe_historie "
+			+ "WHERE ausgeliehen >= ? AND id <= ?";
+	private static final String SELECT_NEU = "SELECT id, medienid, ausgeliehen FROM ausleihe_historie WHERE id > ? "
+			+ "ORDER BY id";
+
+	private static final Comparator<Trend> REIHENFOLGE = Comparator.comparingLong(Trend::ausleihen).reversed()
+			.thenComparing(Trend::id);
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Value("${library.trending.fenster-millis:604800000}")
+	private long fensterMillis;
+
+	@Value("${library.trending.buckets:7}")
+	private int anzahlBuckets;
+
+	@Value("${library.trending.kapazitaet:1000}")
+	private int kapazitaet;
+
+	private Fenster fenster;
+
+	/**
+	 * Eigener Monitor für {@link #nachziehen()}, damit die Abfrage der Historie {@link #getTrending} nicht blockiert
+	 */
+	private final Object nachziehenLock = new Object();
+
+	/**
+	 * Id der letzten gezählten Zeile der Historie, -1 bis zum ersten Aufbau. Wird nur mit {@link #nachziehenLock}
+	 * gelesen und geändert.
+	 */
+	private long gezaehlt = -1;
+
+	/**
+	 * true, wenn seit dem letzten {@link #nachziehen()} eine Ausleihe dazugekommen sein kann
+	 */
+	private final AtomicBoolean offen = new AtomicBoolean();
+
+	/**
+	 * Prüft die Einstellungen und legt das leere Fenster an
+	 */
+	@PostConstruct
+	void initFenster() {
+		if (anzahlBuckets < 1 || kapazitaet < 1 || fensterMillis < anzahlBuckets) {
+			throw new IllegalStateException("Invalid library.trending settings");
+		}
+		fenster = new Fenster(fensterMillis / anzahlBuckets, anzahlBuckets, kapazitaet);
+	}
+
+	/**
+	 * Baut das Fenster beim Start der Applikation auf
+	 */
+	@EventListener(ApplicationReadyEvent.class)
+	public void initialize() {
+		rebuild();
+	}
+
+	/**
+	 * Baut das Fenster neu aus der Historie auf und tauscht es auf einmal aus.
+	 */
+	@Scheduled(fixedDelayString = "${library.trending.rebuild-millis:600000}",
+			initialDelayString = "${library.trending.rebuild-millis:600000}")
+	public void rebuild() {
+		long bis = jdbcTemplate.queryForObject(SELECT_MAX, Long.class);
+		var neu = new Fenster(fensterMillis / anzahlBuckets, anzahlBuckets, kapazitaet);
+		jdbcTemplate.query(SELECT, rs -> {
+			neu.zaehle(rs.getLong(1), rs.getTimestamp(2).getTime());
+		}, new Timestamp(neu.beginn(System.currentTimeMillis())), bis);
+		synchronized (nachziehenLock) {
+			synchronized (this) {
+				fenster = neu;
+			}
+			gezaehlt = bis;
+		}
+		// Ausleihen während des Aufbaus
+		nachziehen();
+	}
+
+	/**
+	 * Zählt die Zeilen der Historie, die seit dem Aufbau oder dem letzten Aufruf dazugekommen sind, mit ihrem
+	 * Zeitpunkt in der Historie. Da jede Zeile einmal gezählt wird, spielt es keine Rolle, ob eine Ausleihe über ihr
+	 * Event oder eine Invalidierung kommt. Eine Zeile, die erst nach einer neueren Zeile committed wird, zählt erst der
+	 * nächste Aufbau.
+	 */
+	public void nachziehen() {
+		synchronized (nachziehenLock) {
+			if (gezaehlt < 0) {
+				return;
+			}
+			try {
+				jdbcTemplate.query(SELECT_NEU, rs -> {
+					zaehle(rs.getLong(2), rs.getTimestamp(3).getTime());
+					gezaehlt = rs.getLong(1);
+				}, gezaehlt);
+			} catch (DataAccessException e) {
+				// Die Zeilen ab gezaehlt bleiben offen, der nächste Lauf zählt sie
+				offen.set(true);
+				LOG.warn("Could not read loan history after id {}", gezaehlt, e);
+			}
+		}
+	}
+
+	/**
+	 * Zählt eine Ausleihe
+	 * @param mediumId Id des ausgeliehenen Mediums
+	 * @param zeitpunkt Zeitpunkt der Ausleihe in Millisekunden, ältere Ausleihen als das Fenster werden ignoriert
+	 */
+	public synchronized void zaehle(long mediumId, long zeitpunkt) {
+		fenster.zaehle(mediumId, zeitpunkt);
+	}
+
+	/**
+	 * Gibt die am häufigsten ausgeliehenen Medien im aktuellen Fenster zurück
+	 * @param limit Maximale Anzahl Medien
+	 * @return Medien ohne Titel und Autor, nach geschätzter Anzahl Ausleihen absteigend
+	 */
+	public List<Trend> getTrending(int limit) {
+		return getTrending(limit, System.currentTimeMillis());
+	}
+
+	/**
+	 * Gibt die am häufigsten ausgeliehenen Medien im Fenster zu einem Zeitpunkt zurück
+	 * @param limit Maximale Anzahl Medien
+	 * @param jetzt Zeitpunkt in Millisekunden, der im laufenden Abschnitt liegt
+	 * @return Medien ohne Titel und Autor, nach geschätzter Anzahl Ausleihen absteigend
+	 */
+	public synchronized List<Trend> getTrending(int limit, long jetzt) {
+		return fenster.beste(limit, jetzt);
+	}
+
+	/**
+	 * Markiert eine neue Ausleihe dieser Instanz für {@link #nachziehenFallsNoetig()}
+	 * @param event Änderung der Ausleihe
+	 */
+	@EventListener
+	public void onAusleihe(AusleiheEvent event) {
+		if (event.vorher() == null && event.nachher() != null) {
+			offen.set(true);
+		}
+	}
+
+	/**
+	 * Markiert eine neue Ausleihe einer anderen Instanz für {@link #nachziehenFallsNoetig()}
+	 * @param invalidierung Das Medium, dessen Ausleihen geändert wurden
+	 */
+	@EventListener
+	public void onInvalidierung(Invalidierung invalidierung) {
+		if (invalidierung.typ() == Invalidierung.Typ.AUSLEIHE) {
+			offen.set(true);
+		}
+	}
+
+	/**
+	 * Zählt die neuen Ausleihen im Hintergrund, sofern seit dem letzten Lauf welche gemeldet wurden
+	 */
+	@Scheduled(fixedDelayString = "${library.trending.nachziehen-millis:1000}")
+	public void nachziehenFallsNoetig() {
+		if (offen.getAndSet(false)) {
+			nachziehen();
+		}
+	}
+
+	/**
+	 * Ring von Abschnitten. Abschnitt i zählt die Ausleihen des Abschnitts mit der Nummer nummern[i], die Nummer ist
+	 * der Zeitpunkt geteilt durch die Länge eines Abschnitts.
+	 */
+	private static final class Fenster {
+
+		private final long bucketMillis;
+		private final SpaceSaving[] buckets;
+		private final long[] nummern;
+
+		private Fenster(long bucketMillis, int anzahl, int kapazitaet) {
+			this.bucketMillis = bucketMillis;
+			buckets = new SpaceSaving[anzahl];
+			nummern = new long[anzahl];
+			for (int i = 0; i < anzahl; i++) {
+				buckets[i] = new SpaceSaving(kapazitaet);
+			}
+			Arrays.fill(nummern, Long.MIN_VALUE);
+		}
+
+		/**
+		 * Gibt den Beginn des ältesten Abschnitts im Fenster zurück
+		 */
+		private long beginn(long jetzt) {
+			return (jetzt / bucketMillis - buckets.length + 1) * bucketMillis;
+		}
+
+		private void zaehle(long mediumId, long zeitpunkt) {
+			long nummer = zeitpunkt / bucketMillis;
+			int i = Math.floorMod(nummer, buckets.length);
+			if (nummern[i] > nummer) {
+				// Der Abschnitt ist bereits durch einen neueren ersetzt
+				return;
+			}
+			if (nummern[i] < nummer) {
+				buckets[i].leeren();
+				nummern[i] = nummer;
+			}
+			buckets[i].zaehle(mediumId);
+		}
+
+		private List<Trend> beste(int limit, long jetzt) {
+			long aktuell = jetzt / bucketMillis;
+			var summen = new HashMap<Long, long[]>();
+			for (int i = 0; i < buckets.length; i++) {
+				if (nummern[i] <= aktuell - buckets.length || nummern[i] > aktuell) {
+					continue;
+				}
+				buckets[i].forEach((id, zaehler, fehler) -> {
+					var summe = summen.computeIfAbsent(id, k -> new long[2]);
+					summe[0] += zaehler;
+					summe[1] += fehler;
+				});
+			}
+			return summen.entrySet().stream()
+					.map(e -> new Trend(e.getKey(), null, null, e.getValue()[0], e.getValue()[0] - e.getValue()[1]))
+					.sorted(REIHENFOLGE).limit(limit).toList();
+		}
+
+	}
+
+}
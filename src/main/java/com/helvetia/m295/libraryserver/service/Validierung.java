@@ -0,0 +1,46 @@
+package com.helvetia.m295.libraryserver.service;
+
+import com.helvetia.m295.libraryserver.common.Kunde;
+import com.helvetia.m295.libraryserver.common.Medium;
+
+/**
+ * Regeln, welche neue Medien und Kunden erfüllen müssen, bevor sie gespeichert werden.
+ * Die Regeln werden sowohl von den einzelnen Endpunkten der Controller als auch von Massenimporten verwendet.
+ *
+ * @version 1.0.0
+ * @author Simon Fäs
+ * @see MediumController
+ * @see KundeController
+ * @see StreamingImport
+ */
+public final class Validierung {
+
+	/**
+	 * Meldung, wenn die gesendeten Daten unvollständig sind
+	 */
+	public static final String UNVOLLSTAENDIG = "Sent data is incomplete";
+
+	private Validierung() {}
+
+	/**
+	 * Prüft, ob ein neues Medium alle benötigten Attribute hat
+	 * @param medium Zu prüfendes Medium
+	 * @return true, wenn Titel und Autor gesetzt sind
+	 */
+	public static boolean istVollstaendig(Medium medium) {
+		return medium.getAutor() != null && medium.getTitel() != null;
+	}
+
+	/**
+	 * Prüft, ob ein neuer Kunde alle benötigten Attribute hat
+	 * @param kunde Zu prüfender Kunde
+	 * @return true, wenn alle Attribute des Kunden und seiner Adresse ausser den Ids gesetzt sind
+	 */
+	public static boolean istVollstaendig(Kunde kunde) {
+		var adresse = kunde.getAdresse();
+		return adresse != null && adresse.getAdresse() != null && adresse.getOrt() != null && adresse.getZip() != null
+				&& kunde.getEmail() != null && kunde.getVorname() != null && kunde.getNachname() != null
+				&& kunde.getGeburtstag() != null;
+	}
+
+}
@@ -0,0 +1,4 @@
+-- SHA-256 of the request body, a retry with the same Idempotency-Key but another body is rejected with 422
+-- Rows written before this column existed have no hash and match any body
+
+ALTER TABLE idempotenz ADD COLUMN anfrage_hash CHAR(64);
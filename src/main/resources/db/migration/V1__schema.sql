@@ -0,0 +1,43 @@
+-- Initial schema as previously created by ddl-auto=update.
+-- Existing databases are baselined at version 1 and skip this script.
+
+CREATE TABLE IF NOT EXISTS adresse (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    adresse VARCHAR(255),
+    ort VARCHAR(255),
+    zip VARCHAR(255),
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE IF NOT EXISTS kunde (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    vorname VARCHAR(255),
+    nachname VARCHAR(255),
+    geburtstag DATETIME(6),
+    addressid BIGINT NOT NULL,
+    email VARCHAR(255),
+    PRIMARY KEY (id),
+    CONSTRAINT fk_kunde_adresse FOREIGN KEY (addressid) REFERENCES adresse (id)
+);
+
+CREATE TABLE IF NOT EXISTS medium (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    titel VARCHAR(255),
+    autor VARCHAR(255),
+    genre VARCHAR(255),
+    altersfreigabe SMALLINT,
+    isbn BIGINT,
+    standortcode VARCHAR(255),
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE IF NOT EXISTS ausleihe (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    ausleihedatum DATETIME(6) DEFAULT CURRENT_TIMESTAMP(6),
+    ausleihedauer BIGINT,
+    kundenid BIGINT NOT NULL,
+    medienid BIGINT NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT fk_ausleihe_kunde FOREIGN KEY (kundenid) REFERENCES kunde (id),
+    CONSTRAINT fk_ausleihe_medium FOREIGN KEY (medienid) REFERENCES medium (id)
+);
@@ -0,0 +1,19 @@
+-- Secondary indexes for the repository queries
+
+-- KundeRepository.findByNachname
+CREATE INDEX idx_kunde_nachname ON kunde (nachname);
+-- KundeRepository.findByAdresseId, AdresseController.deleteAdresse
+CREATE INDEX idx_kunde_addressid ON kunde (addressid);
+
+-- MediumRepository.findByTitel
+CREATE INDEX idx_medium_titel ON medium (titel);
+
+-- AdresseRepository.findByZip
+CREATE INDEX idx_adresse_zip ON adresse (zip);
+-- AdresseRepository.findByAdresse (prefix search), findByAdresseAndZip, KundeRepository.findByAdresseAdresse
+CREATE INDEX idx_adresse_adresse_zip ON adresse (adresse, zip);
+
+-- AusleiheRepository.findByMediumId, deleteByMediumId
+CREATE INDEX idx_ausleihe_medienid ON ausleihe (medienid);
+-- Loans of a customer
+CREATE INDEX idx_ausleihe_kundenid ON ausleihe (kundenid);
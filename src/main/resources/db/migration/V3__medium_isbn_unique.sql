@@ -0,0 +1,23 @@
+-- Bulk upsert of media is keyed by ISBN, media without ISBN are still allowed
+
+-- Schemas created by ddl-auto and baselined at version 1 may contain media with the same ISBN, which would make the
+-- unique index and with it the startup fail. The medium with the lowest id keeps the ISBN, the others lose it.
+-- Their former ISBN is kept in medium_isbn_konflikt for a manual check.
+CREATE TABLE medium_isbn_konflikt (
+    medienid BIGINT NOT NULL,
+    isbn BIGINT NOT NULL,
+    behalten BIGINT NOT NULL,
+    PRIMARY KEY (medienid),
+    CONSTRAINT fk_medium_isbn_konflikt_medium FOREIGN KEY (medienid) REFERENCES medium (id) ON DELETE CASCADE
+);
+
+INSERT INTO medium_isbn_konflikt (medienid, isbn, behalten)
+SELECT m.id, m.isbn, d.behalten
+FROM medium m
+JOIN (SELECT isbn, MIN(id) AS behalten FROM medium WHERE isbn IS NOT NULL GROUP BY isbn HAVING COUNT(*) > 1) d
+    ON d.isbn = m.isbn
+WHERE m.id <> d.behalten;
+
+UPDATE medium SET isbn = NULL WHERE id IN (SELECT medienid FROM medium_isbn_konflikt);
+
+CREATE UNIQUE INDEX uk_medium_isbn ON medium (isbn);
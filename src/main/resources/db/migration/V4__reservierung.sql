@@ -0,0 +1,17 @@
+-- Reservation queue for lent-out media, FIFO by id
+-- Reservations of deleted customers or media are removed with them
+
+CREATE TABLE IF NOT EXISTS reservierung (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    erstellt DATETIME(6) DEFAULT CURRENT_TIMESTAMP(6),
+    kundenid BIGINT NOT NULL,
+    medienid BIGINT NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT fk_reservierung_kunde FOREIGN KEY (kundenid) REFERENCES kunde (id) ON DELETE CASCADE,
+    CONSTRAINT fk_reservierung_medium FOREIGN KEY (medienid) REFERENCES medium (id) ON DELETE CASCADE
+);
+
+-- A customer can only wait once for the same medium
+CREATE UNIQUE INDEX uk_reservierung_medienid_kundenid ON reservierung (medienid, kundenid);
+-- Cascading delete of a customer
+CREATE INDEX idx_reservierung_kundenid ON reservierung (kundenid);
@@ -0,0 +1,14 @@
+-- Cache invalidations sent between the instances, polled by every instance
+-- Old rows are deleted by the instances after library.invalidierung.retention-millis
+
+CREATE TABLE IF NOT EXISTS invalidierung (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    erstellt DATETIME(6) DEFAULT CURRENT_TIMESTAMP(6),
+    quelle VARCHAR(36) NOT NULL,
+    typ VARCHAR(16) NOT NULL,
+    entitaet_id BIGINT,
+    PRIMARY KEY (id)
+);
+
+-- Cleanup of old rows
+CREATE INDEX idx_invalidierung_erstellt ON invalidierung (erstellt);
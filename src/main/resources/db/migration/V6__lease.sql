@@ -0,0 +1,13 @@
+-- Leases for the leader election between the instances
+-- token is the fencing token, increased whenever another instance takes over the lease
+
+CREATE TABLE IF NOT EXISTS lease (
+    name VARCHAR(64) NOT NULL,
+    besitzer VARCHAR(36),
+    token BIGINT NOT NULL DEFAULT 0,
+    gueltig_bis DATETIME(6),
+    PRIMARY KEY (name)
+);
+
+-- Lease of the background jobs annotated with @LeaderOnly
+INSERT INTO lease (name, token) VALUES ('scheduler', 0);
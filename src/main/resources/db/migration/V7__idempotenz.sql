@@ -0,0 +1,15 @@
+-- Responses of requests with an Idempotency-Key, used with library.idempotenz.speicher=datenbank
+-- The key is a hash of method, path and header value. A row without status is still in progress.
+-- Rows are deleted by the leader after library.idempotenz.ttl-millis
+
+CREATE TABLE IF NOT EXISTS idempotenz (
+    schluessel CHAR(64) NOT NULL,
+    erstellt DATETIME(6) NOT NULL,
+    status INT,
+    content_type VARCHAR(255),
+    body LONGBLOB,
+    PRIMARY KEY (schluessel)
+);
+
+-- Cleanup of expired rows
+CREATE INDEX idx_idempotenz_erstellt ON idempotenz (erstellt);
@@ -0,0 +1,21 @@
+-- Loan history for the "borrowed together" recommendations, a returned loan is deleted from ausleihe
+-- One row per new loan, rows of deleted customers or media are removed with them
+
+CREATE TABLE IF NOT EXISTS ausleihe_historie (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    ausgeliehen DATETIME(6) DEFAULT CURRENT_TIMESTAMP(6),
+    kundenid BIGINT NOT NULL,
+    medienid BIGINT NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT fk_ausleihe_historie_kunde FOREIGN KEY (kundenid) REFERENCES kunde (id) ON DELETE CASCADE,
+    CONSTRAINT fk_ausleihe_historie_medium FOREIGN KEY (medienid) REFERENCES medium (id) ON DELETE CASCADE
+);
+
+-- Latest loans of a customer, newest first
+CREATE INDEX idx_ausleihe_historie_kundenid_id ON ausleihe_historie (kundenid, id);
+-- Cascading delete of a medium
+CREATE INDEX idx_ausleihe_historie_medienid ON ausleihe_historie (medienid);
+
+-- Loans that are still running are part of the history
+INSERT INTO ausleihe_historie (ausgeliehen, kundenid, medienid)
+    SELECT ausleihedatum, kundenid, medienid FROM ausleihe ORDER BY id;
@@ -0,0 +1,3 @@
+-- Loans of the current trending window, read when the trending counters are rebuilt
+
+CREATE INDEX idx_ausleihe_historie_ausgeliehen ON ausleihe_historie (ausgeliehen);
@@ -1,7 +1,5 @@
 package com.helvetia.m295.libraryserver.controller;
 
-import java.util.ArrayList;
-import java.util.Date;
 import java.util.List;
 
 import org.junit.jupiter.api.Test;
@@ -9,6 +7,7 @@ import org.mockito.Mockito;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.context.aot.DisabledInAotMode;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 import org.springframework.test.web.servlet.result.MockMvcResultHandlers;
@@ -16,10 +15,11 @@ import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.helvetia.m295.libraryserver.common.Adresse;
-import com.helvetia.m295.libraryserver.common.Kunde;
+import com.helvetia.m295.libraryserver.common.Invalidierung;
 import com.helvetia.m295.libraryserver.model.AdresseRepository;
 import com.helvetia.m295.libraryserver.model.KundeRepository;
 import com.helvetia.m295.libraryserver.service.AdresseController;
+import com.helvetia.m295.libraryserver.service.InvalidierungsBus;
 
 /**
  * Klasse für Testfälle der Klasse {@link AdresseController}
@@ -29,6 +29,7 @@ import com.helvetia.m295.libraryserver.service.AdresseController;
  * @see AdresseController
  */
 @WebMvcTest(AdresseController.class)
+@DisabledInAotMode
 public class AdresseControllerTests {
 
 	private static final String END_POINT_PATH = "/adresse";
@@ -45,6 +46,9 @@ public class AdresseControllerTests {
 	@MockBean
 	private KundeRepository kundeRepository;
 
+	@MockBean
+	private InvalidierungsBus invalidierungsBus;
+
 	/**
 	 * Test für {@link AdresseController#getAdressenByZip(String)} <br>
 	 * Braucht: Test-Objekte, welche im Constructor generiert werden. <br>
@@ -116,10 +120,11 @@ public class AdresseControllerTests {
 	@Test
 	public void testDeleteByIdShouldReturnOK() throws Exception {
 		Long id = 1L;
-		Mockito.when(kundeRepository.findByAdresseId(id)).thenReturn(new ArrayList<Kunde>());
+		Mockito.when(kundeRepository.existsByAdresseId(id)).thenReturn(false);
 
 		mockMvc.perform(MockMvcRequestBuilders.delete(END_POINT_PATH + "/" + id).contentType("application/json"))
 				.andExpect(MockMvcResultMatchers.status().is(200)).andDo(MockMvcResultHandlers.print());
+		Mockito.verify(invalidierungsBus).publiziere(Invalidierung.Typ.ADRESSE, id);
 	}
 
 	/**
@@ -133,11 +138,7 @@ public class AdresseControllerTests {
 	@Test
 	public void testDeleteByIdShouldReturnConflict() throws Exception {
 		Long id = 1L;
-		var kunde = new Kunde(id, "Hans", "Meier", new Date(), new Adresse(1L, "Zürcherstrasse 1", "Zürich", "8008"),
-				"hans.meier@hotmail.com");
-		var list = new ArrayList<Kunde>();
-		list.add(kunde);
-		Mockito.when(kundeRepository.findByAdresseId(id)).thenReturn(list);
+		Mockito.when(kundeRepository.existsByAdresseId(id)).thenReturn(true);
 
 		mockMvc.perform(MockMvcRequestBuilders.delete(END_POINT_PATH + "/" + id).contentType("application/json"))
 				.andExpect(MockMvcResultMatchers.status().is(409)).andDo(MockMvcResultHandlers.print());
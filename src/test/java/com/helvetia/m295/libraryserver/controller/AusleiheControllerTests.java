@@ -10,10 +10,13 @@ import org.mockito.Mockito;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.context.aot.DisabledInAotMode;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 import org.springframework.test.web.servlet.result.MockMvcResultHandlers;
 import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+import org.springframework.web.server.ResponseStatusException;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.helvetia.m295.libraryserver.common.*;
@@ -21,6 +24,8 @@ import com.helvetia.m295.libraryserver.model.AusleiheRepository;
 import com.helvetia.m295.libraryserver.model.KundeRepository;
 import com.helvetia.m295.libraryserver.model.MediumRepository;
 import com.helvetia.m295.libraryserver.service.AusleiheController;
+import com.helvetia.m295.libraryserver.service.InvalidierungsBus;
+import com.helvetia.m295.libraryserver.service.Reservierungen;
 
 /**
  * Klasse für Testfälle der Klasse {@link AusleiheController}
@@ -30,6 +35,7 @@ import com.helvetia.m295.libraryserver.service.AusleiheController;
  * @see AusleiheController
  */
 @WebMvcTest(AusleiheController.class)
+@DisabledInAotMode
 public class AusleiheControllerTests {
 
 	private static final String END_POINT_PATH = "/ausleihe";
@@ -55,6 +61,12 @@ public class AusleiheControllerTests {
 	@MockBean
 	private MediumRepository mediumRepository;
 
+	@MockBean
+	private Reservierungen reservierungen;
+
+	@MockBean
+	private InvalidierungsBus invalidierungsBus;
+
 	/**
 	 * Constructor, um Test-Objekte zu initialisieren
 	 */
@@ -89,7 +101,7 @@ public class AusleiheControllerTests {
 	 * Test für {@link AusleiheController#addNewAusleihe(Ausleihe)} <br>
 	 * Braucht: Test-Objekte, welche im Constructor generiert werden. <br>
 	 * Testet: Erstellen einer Ausleihe. <br>
-	 * Erwartet: Statuscode 200 <br>
+	 * Erwartet: Statuscode 200, das Medium wird den anderen Instanzen gemeldet <br>
 	 * 
 	 * @throws Exception
 	 */
@@ -97,12 +109,12 @@ public class AusleiheControllerTests {
 	public void testPostShouldReturnCreated() throws Exception {
 		Mockito.when(mediumRepository.findById(id)).thenReturn(Optional.of(testMedium));
 		Mockito.when(kundeRepository.findById(id)).thenReturn(Optional.of(testKunde));
-		Mockito.when(ausleiheRepository.findByMediumId(id)).thenReturn(new ArrayList<Ausleihe>());
-		Mockito.when(ausleiheRepository.save(testAusleihe)).thenReturn(testAusleihe);
+		Mockito.when(reservierungen.leiheAus(Mockito.any(Ausleihe.class))).thenReturn(testAusleihe);
 
 		var json = objectMapper.writeValueAsString(testAusleihe);
 		mockMvc.perform(MockMvcRequestBuilders.post(END_POINT_PATH).contentType("application/json").content(json))
 				.andExpect(MockMvcResultMatchers.status().is(200)).andDo(MockMvcResultHandlers.print());
+		Mockito.verify(invalidierungsBus).publiziere(Invalidierung.Typ.AUSLEIHE, id);
 	}
 
 	/**
@@ -117,8 +129,6 @@ public class AusleiheControllerTests {
 	public void testPostShouldReturnBadRequest() throws Exception {
 		Mockito.when(mediumRepository.findById(id)).thenReturn(Optional.of(testMedium));
 		Mockito.when(kundeRepository.findById(id)).thenReturn(Optional.of(testKunde));
-		Mockito.when(ausleiheRepository.findByMediumId(id)).thenReturn(new ArrayList<Ausleihe>());
-		Mockito.when(ausleiheRepository.save(testAusleihe)).thenReturn(testAusleihe);
 
 		mockMvc.perform(MockMvcRequestBuilders.post(END_POINT_PATH).contentType("application/json"))
 				.andExpect(MockMvcResultMatchers.status().is(400)).andDo(MockMvcResultHandlers.print());
@@ -136,8 +146,6 @@ public class AusleiheControllerTests {
 	public void testPostShouldReturnNotFound() throws Exception {
 		Mockito.when(mediumRepository.findById(id)).thenReturn(Optional.empty());
 		Mockito.when(kundeRepository.findById(id)).thenReturn(Optional.of(testKunde));
-		Mockito.when(ausleiheRepository.findByMediumId(id)).thenReturn(new ArrayList<Ausleihe>());
-		Mockito.when(ausleiheRepository.save(testAusleihe)).thenReturn(testAusleihe);
 
 		mockMvc.perform(MockMvcRequestBuilders.post(END_POINT_PATH).contentType("application/json")
 				.content(objectMapper.writeValueAsString(testAusleihe)))
@@ -147,19 +155,17 @@ public class AusleiheControllerTests {
 	/**
 	 * Test für {@link AusleiheController#addNewAusleihe(Ausleihe)} <br>
 	 * Braucht: Test-Objekte, welche im Constructor generiert werden. <br>
-	 * Testet: Handhabung, wenn eine Ausleihe ein Medium bereits referenziert <br>
+	 * Testet: Handhabung, wenn das Medium ausgeliehen oder für einen anderen Kunden reserviert ist <br>
 	 * Erwartet: Statuscode 409 <br>
 	 * 
 	 * @throws Exception
 	 */
 	@Test
 	public void testPostShouldReturnConflict() throws Exception {
-		var list = new ArrayList<Ausleihe>();
-		list.add(testAusleihe);
 		Mockito.when(mediumRepository.findById(id)).thenReturn(Optional.of(testMedium));
 		Mockito.when(kundeRepository.findById(id)).thenReturn(Optional.of(testKunde));
-		Mockito.when(ausleiheRepository.findByMediumId(id)).thenReturn(list);
-		Mockito.when(ausleiheRepository.save(testAusleihe)).thenReturn(testAusleihe);
+		Mockito.when(reservierungen.leiheAus(Mockito.any(Ausleihe.class)))
+				.thenThrow(new ResponseStatusException(HttpStatus.CONFLICT, "Medium is lent out"));
 
 		mockMvc.perform(MockMvcRequestBuilders.post(END_POINT_PATH).contentType("application/json")
 				.content(objectMapper.writeValueAsString(testAusleihe)))
@@ -192,14 +198,57 @@ public class AusleiheControllerTests {
 	 * Test für {@link AusleiheController#deleteKunde(Long)} <br>
 	 * Braucht: Test-Objekte, welche im Constructor generiert werden. <br>
 	 * Testet: Löschen einer Ausleihe anhand der Medium-Id <br>
-	 * Erwartet: Statuscode 200 <br>
+	 * Erwartet: Statuscode 200, das Medium wird den anderen Instanzen gemeldet <br>
 	 * 
 	 * @throws Exception
 	 */
 	@Test
 	public void testDeleteShouldReturnOK() throws Exception {
+		Mockito.when(reservierungen.gibZurueck(id)).thenReturn(new Rueckgabe(List.of(testAusleihe), null));
+
 		mockMvc.perform(MockMvcRequestBuilders.delete(END_POINT_PATH + "/" + id))
 				.andExpect(MockMvcResultMatchers.status().is(200)).andDo(MockMvcResultHandlers.print());
+		Mockito.verify(invalidierungsBus).publiziere(Invalidierung.Typ.AUSLEIHE, id);
+	}
+
+	/**
+	 * Test für {@link AusleiheController#deleteAusleihen(List)} <br>
+	 * Braucht: Test-Objekte, welche im Constructor generiert werden. <br>
+	 * Testet: Rückgabe mehrerer Medien auf einmal, eine Id doppelt <br>
+	 * Erwartet: Statuscode 200 mit den beendeten Ausleihen, jede Id wird einmal zurückgegeben <br>
+	 * 
+	 * @throws Exception
+	 */
+	@Test
+	public void testDeleteBatchShouldReturnOK() throws Exception {
+		Mockito.when(reservierungen.gibZurueck(List.of(1L, 2L)))
+				.thenReturn(List.of(new Rueckgabe(List.of(testAusleihe), null)));
+
+		mockMvc.perform(MockMvcRequestBuilders.delete(END_POINT_PATH + "/batch").contentType("application/json")
+				.content("[1, 2, 1]"))
+				.andExpect(MockMvcResultMatchers.status().is(200))
+				.andExpect(MockMvcResultMatchers.jsonPath("$[0].id").value(id))
+				.andDo(MockMvcResultHandlers.print());
+	}
+
+	/**
+	 * Test für {@link AusleiheController#deleteAusleihen(List)} <br>
+	 * Testet: Leere Liste und zu viele Medien <br>
+	 * Erwartet: Statuscode 400 <br>
+	 * 
+	 * @throws Exception
+	 */
+	@Test
+	public void testDeleteBatchShouldReturnBadRequest() throws Exception {
+		var zuViele = new ArrayList<Long>();
+		for (long i = 0; i <= AusleiheController.MAX_BATCH; i++) {
+			zuViele.add(i);
+		}
+
+		mockMvc.perform(MockMvcRequestBuilders.delete(END_POINT_PATH + "/batch").contentType("application/json")
+				.content("[]")).andExpect(MockMvcResultMatchers.status().is(400));
+		mockMvc.perform(MockMvcRequestBuilders.delete(END_POINT_PATH + "/batch").contentType("application/json")
+				.content(objectMapper.writeValueAsString(zuViele))).andExpect(MockMvcResultMatchers.status().is(400));
 	}
 
 }
@@ -0,0 +1,76 @@
+package com.helvetia.m295.libraryserver.controller;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+
+import com.helvetia.m295.libraryserver.service.AusleiheController;
+import com.helvetia.m295.libraryserver.service.AusleiheIndex;
+import com.helvetia.m295.libraryserver.service.KundeController;
+import com.helvetia.m295.libraryserver.service.MediumController;
+
+/**
+ * Klasse für Testfälle des {@link AusleiheIndex} mit zwei Instanzen der Applikation in derselben JVM.
+ * Die Invalidierungen laufen über die Datenbank und werden nie abgefragt, die Indizes der beiden Instanzen liegen
+ * also so weit auseinander, wie es ein langsamer Bus erlaubt.
+ *
+ * @version 1.0.0
+ * @author Simon Fäs
+ * @see AusleiheIndex
+ */
+public class AusleiheIndexTests {
+
+	/**
+	 * Test für {@link MediumController#getMediumById(Long)}, {@link AusleiheController#getAusleiheById(Long)} und
+	 * {@link KundeController#deleteKunde(Long)} <br>
+	 * Braucht: Zwei Instanzen, ein Medium und einen Kunden <br>
+	 * Testet: Ausleihe auf der ersten Instanz, danach Abfrage der Ausleihe und Löschen des Kunden auf der zweiten,
+	 * deren Index die Ausleihe nicht kennt. Danach Rückgabe auf der zweiten und Löschen auf der ersten Instanz, deren
+	 * Index die Ausleihe noch kennt. <br>
+	 * Erwartet: Im Katalog zeigt nur die erste Instanz das Medium als ausgeliehen. Die zweite Instanz findet die
+	 * Ausleihe trotzdem und lehnt das Löschen mit 409 ab, nach der Rückgabe löscht die erste Instanz den Kunden <br>
+	 *
+	 * @throws Exception Wenn ein Fehler beim Testen auftritt.
+	 */
+	@Test
+	public void testOutdatedIndexShouldNotDecide() throws Exception {
+		try (var a = starte("ausleihe_index"); var b = starte("ausleihe_index")) {
+			var jdbcTemplate = a.getBean(JdbcTemplate.class);
+			jdbcTemplate.update("INSERT INTO adresse (id, adresse, ort, zip) VALUES (1, 'Seestrasse 1', 'Zug', '6300')");
+			jdbcTemplate.update("INSERT INTO kunde (id, vorname, nachname, addressid) VALUES (1, 'Mia', 'Graf', 1)");
+			jdbcTemplate.update("INSERT INTO medium (id, titel, autor, genre) VALUES (1, 'Momo', 'Michael Ende', 'Roman')");
+			var mockMvcA = Instanzen.mockMvc(a);
+			var mockMvcB = Instanzen.mockMvc(b);
+
+			mockMvcA.perform(MockMvcRequestBuilders.post("/ausleihe").contentType("application/json")
+					.content("{\"kunde\":{\"id\":1},\"medium\":{\"id\":1}}"))
+					.andExpect(MockMvcResultMatchers.status().is(200));
+			mockMvcA.perform(MockMvcRequestBuilders.get("/medium/1"))
+					.andExpect(MockMvcResultMatchers.jsonPath("$.ausgeliehen").value(true));
+			mockMvcB.perform(MockMvcRequestBuilders.get("/medium/1"))
+					.andExpect(MockMvcResultMatchers.jsonPath("$.ausgeliehen").value(false));
+
+			mockMvcB.perform(MockMvcRequestBuilders.get("/ausleihe/1"))
+					.andExpect(MockMvcResultMatchers.status().is(200))
+					.andExpect(MockMvcResultMatchers.jsonPath("$.length()").value(1));
+			mockMvcB.perform(MockMvcRequestBuilders.delete("/kunde/1"))
+					.andExpect(MockMvcResultMatchers.status().is(409));
+
+			mockMvcB.perform(MockMvcRequestBuilders.delete("/ausleihe/1"))
+					.andExpect(MockMvcResultMatchers.status().is(200));
+			Assertions.assertTrue(a.getBean(AusleiheIndex.class).istAusgeliehen(1));
+			mockMvcA.perform(MockMvcRequestBuilders.delete("/kunde/1"))
+					.andExpect(MockMvcResultMatchers.status().is(200));
+			Assertions.assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM kunde", Long.class));
+		}
+	}
+
+	private static ConfigurableApplicationContext starte(String datenbank) {
+		return Instanzen.starte(datenbank, "library.invalidierung.transport=datenbank",
+				"library.invalidierung.poll-millis=3600000");
+	}
+
+}
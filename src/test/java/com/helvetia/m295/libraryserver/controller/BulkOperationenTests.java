@@ -0,0 +1,139 @@
+package com.helvetia.m295.libraryserver.controller;
+
+import java.util.List;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.helvetia.m295.libraryserver.common.Invalidierung;
+import com.helvetia.m295.libraryserver.model.AusleiheRepository;
+import com.helvetia.m295.libraryserver.model.KundeRepository;
+import com.helvetia.m295.libraryserver.service.AdressenBereinigung;
+import com.helvetia.m295.libraryserver.service.InvalidierungsBus;
+import com.helvetia.m295.libraryserver.service.LeaderWahl;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Klasse für Testfälle der mengenbasierten Operationen auf der H2-Datenbank.
+ * Die Anzahl Anweisungen wird mit den Hibernate-Statistiken gezählt und darf nicht von der Anzahl Zeilen abhängen.
+ *
+ * @version 1.0.0
+ * @author Simon Fäs
+ * @see AusleiheRepository#deleteByMediumIdIn(java.util.Collection)
+ * @see KundeRepository#existsByAdresseId(Long)
+ * @see AdressenBereinigung
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+@Import({ LeaderWahl.class, AdressenBereinigung.class })
+public class BulkOperationenTests {
+
+	@Autowired
+	private AusleiheRepository ausleiheRepository;
+
+	@Autowired
+	private KundeRepository kundeRepository;
+
+	@Autowired
+	private LeaderWahl leaderWahl;
+
+	@Autowired
+	private AdressenBereinigung adressenBereinigung;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private EntityManager entityManager;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	@MockBean
+	private InvalidierungsBus invalidierungsBus;
+
+	private Statistics statistik;
+
+	/**
+	 * Erstellt zwei Adressen, eine davon ohne Kunden, einen Kunden und drei ausgeliehene Medien
+	 */
+	@BeforeEach
+	public void erstelleDaten() {
+		jdbcTemplate.update("INSERT INTO adresse (id, adresse, ort, zip) VALUES (1, 'Seestrasse 1', 'Zug', '6300'), "
+				+ "(2, 'Seestrasse 2', 'Zug', '6300')");
+		jdbcTemplate.update("INSERT INTO kunde (id, vorname, nachname, addressid) VALUES (1, 'Mia', 'Graf', 1)");
+		for (int i = 1; i <= 3; i++) {
+			jdbcTemplate.update("INSERT INTO medium (id, titel, autor, genre) VALUES (?, 'Momo', 'Michael Ende', 'Roman')", i);
+			jdbcTemplate.update("INSERT INTO ausleihe (id, ausleihedauer, kundenid, medienid) VALUES (?, 14, 1, ?)", i, i);
+		}
+		entityManager.clear();
+		statistik = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		statistik.clear();
+	}
+
+	/**
+	 * Test für {@link AusleiheRepository#deleteByMediumIdIn(java.util.Collection)} <br>
+	 * Braucht: Drei ausgeliehene Medien <br>
+	 * Testet: Rückgabe von zwei Medien und einem Medium ohne Ausleihe <br>
+	 * Erwartet: Zwei Anweisungen, die Ausleihen werden samt Kunde, Adresse und Medium zurückgegeben <br>
+	 */
+	@Test
+	public void testDeleteByMediumIdInShouldUseTwoStatements() {
+		var geloescht = ausleiheRepository.deleteByMediumIdIn(List.of(1L, 2L, 99L));
+
+		Assertions.assertEquals(2, statistik.getPrepareStatementCount());
+		Assertions.assertEquals(2, geloescht.size());
+		Assertions.assertEquals("6300", geloescht.get(0).getKunde().getAdresse().getZip());
+		Assertions.assertEquals("Roman", geloescht.get(0).getMedium().getGenre());
+		Assertions.assertEquals(List.of(3L), jdbcTemplate.queryForList("SELECT medienid FROM ausleihe", Long.class));
+	}
+
+	/**
+	 * Test für {@link KundeRepository#existsByAdresseId(Long)} <br>
+	 * Testet: Adresse mit und ohne Kunden <br>
+	 * Erwartet: Eine Anweisung pro Prüfung <br>
+	 */
+	@Test
+	public void testExistsByAdresseIdShouldUseOneStatement() {
+		Assertions.assertTrue(kundeRepository.existsByAdresseId(1L));
+		Assertions.assertFalse(kundeRepository.existsByAdresseId(2L));
+		Assertions.assertEquals(2, statistik.getPrepareStatementCount());
+	}
+
+	/**
+	 * Test für {@link AdressenBereinigung#aufraeumen()} <br>
+	 * Braucht: Diese Instanz als Leader, eine Adresse ohne Kunden <br>
+	 * Testet: Zwei Läufe, dazwischen eine neue Adresse, danach ein Lauf mit veraltetem Fencing-Token <br>
+	 * Erwartet: Nur die Adresse aus dem ersten Lauf wird gelöscht, mit veraltetem Token nichts <br>
+	 */
+	@Test
+	public void testAufraeumenShouldDeleteOldAddressesWithoutCustomers() {
+		leaderWahl.heartbeat();
+		Assertions.assertTrue(leaderWahl.istLeader());
+
+		adressenBereinigung.aufraeumen();
+		jdbcTemplate.update("INSERT INTO adresse (id, adresse, ort, zip) VALUES (3, 'Seestrasse 3', 'Zug', '6300')");
+		adressenBereinigung.aufraeumen();
+		Assertions.assertEquals(List.of(1L, 3L), jdbcTemplate.queryForList("SELECT id FROM adresse ORDER BY id", Long.class));
+		Mockito.verify(invalidierungsBus).publiziere(Invalidierung.Typ.ADRESSE, null);
+
+		jdbcTemplate.update("UPDATE lease SET token = token + 1");
+		adressenBereinigung.aufraeumen();
+		Assertions.assertEquals(2, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM adresse", Long.class));
+	}
+
+}
@@ -0,0 +1,106 @@
+package com.helvetia.m295.libraryserver.controller;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.context.aot.DisabledInAotMode;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.result.MockMvcResultHandlers;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.helvetia.m295.libraryserver.common.Empfehlung;
+import com.helvetia.m295.libraryserver.common.Medium;
+import com.helvetia.m295.libraryserver.model.MediumRepository;
+import com.helvetia.m295.libraryserver.service.EmpfehlungController;
+import com.helvetia.m295.libraryserver.service.EmpfehlungsIndex;
+
+/**
+ * Klasse für Testfälle der Klasse {@link EmpfehlungController}
+ *
+ * @version 1.0.0
+ * @author Simon Fäs
+ * @see EmpfehlungController
+ */
+@WebMvcTest(EmpfehlungController.class)
+@DisabledInAotMode
+public class EmpfehlungControllerTests {
+
+	private static final String END_POINT_PATH = "/medium/1/empfehlungen";
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	@MockBean
+	private EmpfehlungsIndex empfehlungsIndex;
+
+	@MockBean
+	private MediumRepository mediumRepository;
+
+	/**
+	 * Test für {@link EmpfehlungController#getEmpfehlungen(Long, int)} <br>
+	 * Braucht: Zwei Empfehlungen im Index, eines der Medien wurde inzwischen gelöscht <br>
+	 * Testet: Abrufen der Empfehlungen mit Limit <br>
+	 * Erwartet: Statuscode 200 und die vorhandene Empfehlung mit Titel und Autor <br>
+	 *
+	 * @throws Exception Wenn ein Fehler beim Testen auftritt.
+	 */
+	@Test
+	public void testGetShouldReturnOK() throws Exception {
+		var momo = new Medium(2L, "Momo", "Michael Ende", "Roman", null, null, null);
+		Mockito.when(empfehlungsIndex.getEmpfehlungen(1L, 5))
+				.thenReturn(List.of(new Empfehlung(2L, null, null, 7), new Empfehlung(3L, null, null, 4)));
+		Mockito.when(mediumRepository.findAllById(List.of(2L, 3L))).thenReturn(List.of(momo));
+
+		mockMvc.perform(MockMvcRequestBuilders.get(END_POINT_PATH).param("limit", "5"))
+				.andExpect(MockMvcResultMatchers.status().is(200))
+				.andExpect(MockMvcResultMatchers.content()
+						.json(objectMapper.writeValueAsString(List.of(new Empfehlung(2L, "Momo", "Michael Ende", 7)))))
+				.andDo(MockMvcResultHandlers.print());
+	}
+
+	/**
+	 * Test für {@link EmpfehlungController#getEmpfehlungen(Long, int)} <br>
+	 * Testet: Medium ohne Empfehlungen <br>
+	 * Erwartet: Statuscode 200, eine leere Liste und keine Abfrage der Medien <br>
+	 *
+	 * @throws Exception Wenn ein Fehler beim Testen auftritt.
+	 */
+	@Test
+	public void testGetShouldReturnEmptyList() throws Exception {
+		Mockito.when(empfehlungsIndex.getEmpfehlungen(1L, 10)).thenReturn(List.of());
+
+		mockMvc.perform(MockMvcRequestBuilders.get(END_POINT_PATH))
+				.andExpect(MockMvcResultMatchers.status().is(200))
+				.andExpect(MockMvcResultMatchers.content().json("[]"))
+				.andDo(MockMvcResultHandlers.print());
+
+		Mockito.verifyNoInteractions(mediumRepository);
+	}
+
+	/**
+	 * Test für {@link EmpfehlungController#getEmpfehlungen(Long, int)} <br>
+	 * Testet: Limit 0 und grösser als {@link EmpfehlungController#MAX_LIMIT} <br>
+	 * Erwartet: Statuscode 400 <br>
+	 *
+	 * @throws Exception Wenn ein Fehler beim Testen auftritt.
+	 */
+	@Test
+	public void testGetShouldReturnBadRequest() throws Exception {
+		mockMvc.perform(MockMvcRequestBuilders.get(END_POINT_PATH).param("limit", "0"))
+				.andExpect(MockMvcResultMatchers.status().is(400))
+				.andDo(MockMvcResultHandlers.print());
+		mockMvc.perform(MockMvcRequestBuilders.get(END_POINT_PATH).param("limit", "51"))
+				.andExpect(MockMvcResultMatchers.status().is(400))
+				.andDo(MockMvcResultHandlers.print());
+	}
+
+}
@@ -0,0 +1,164 @@
+package com.helvetia.m295.libraryserver.controller;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.helvetia.m295.libraryserver.common.Ausleihe;
+import com.helvetia.m295.libraryserver.common.AusleiheEvent;
+import com.helvetia.m295.libraryserver.common.Empfehlung;
+import com.helvetia.m295.libraryserver.common.Invalidierung;
+import com.helvetia.m295.libraryserver.common.Kunde;
+import com.helvetia.m295.libraryserver.common.Medium;
+import com.helvetia.m295.libraryserver.service.EmpfehlungsIndex;
+
+/**
+ * Klasse für Testfälle des {@link EmpfehlungsIndex} auf der H2-Datenbank.
+ * Pro Medium werden höchstens drei Nachbarn behalten, empfohlen wird ab zwei Kunden.
+ *
+ * @version 1.0.0
+ * @author Simon Fäs
+ * @see EmpfehlungsIndex
+ */
+@JdbcTest(properties = { "library.empfehlungen.kapazitaet=3", "library.empfehlungen.min-kunden=2" })
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+@Import(EmpfehlungsIndex.class)
+public class EmpfehlungsIndexTests {
+
+	@Autowired
+	private EmpfehlungsIndex empfehlungsIndex;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	/**
+	 * Erstellt vier Kunden und sechs Medien ohne Historie
+	 */
+	@BeforeEach
+	public void erstelleDaten() {
+		jdbcTemplate.update("INSERT INTO adresse (id, adresse, ort, zip) VALUES (1, 'Seestrasse 1', 'Zug', '6300')");
+		for (int i = 1; i <= 4; i++) {
+			jdbcTemplate.update("INSERT INTO kunde (id, vorname, nachname, addressid) VALUES (?, 'Mia', 'Graf', 1)", i);
+		}
+		for (int i = 1; i <= 6; i++) {
+			jdbcTemplate.update("INSERT INTO medium (id, titel, autor, genre) VALUES (?, 'Momo', 'Michael Ende', 'Roman')", i);
+		}
+	}
+
+	/**
+	 * Test für {@link EmpfehlungsIndex#rebuild()} <br>
+	 * Braucht: Historie, in der Medium 2 von drei, Medium 3 von zwei und Medium 4 von einem Kunden mit Medium 1
+	 * ausgeliehen wurde <br>
+	 * Testet: Empfehlungen zu Medium 1 mit und ohne Limit <br>
+	 * Erwartet: Medium 2 vor Medium 3, Medium 4 wird mit nur einem Kunden nicht empfohlen <br>
+	 */
+	@Test
+	public void testRebuildShouldRankByCustomers() {
+		historie(1, 1, 2, 3);
+		historie(2, 1, 2);
+		historie(3, 1, 2, 4);
+		historie(4, 1, 3, 1);
+		empfehlungsIndex.rebuild();
+
+		Assertions.assertEquals(List.of(new Empfehlung(2L, null, null, 3), new Empfehlung(3L, null, null, 2)),
+				empfehlungsIndex.getEmpfehlungen(1, 10));
+		Assertions.assertEquals(List.of(new Empfehlung(2L, null, null, 3)), empfehlungsIndex.getEmpfehlungen(1, 1));
+		Assertions.assertEquals(List.of(new Empfehlung(1L, null, null, 3)), empfehlungsIndex.getEmpfehlungen(2, 10));
+		Assertions.assertEquals(List.of(), empfehlungsIndex.getEmpfehlungen(99, 10));
+	}
+
+	/**
+	 * Test für {@link EmpfehlungsIndex#onAusleihe(AusleiheEvent)},
+	 * {@link EmpfehlungsIndex#onInvalidierung(Invalidierung)} und {@link EmpfehlungsIndex#nachziehenFallsNoetig()} <br>
+	 * Braucht: Leerer Index <br>
+	 * Testet: Zwei Kunden leihen die Medien 1 und 2 aus, einer davon Medium 1 ein zweites Mal auf einer anderen
+	 * Instanz <br>
+	 * Erwartet: Die Events zählen erst im Hintergrundjob, das zweite Mal zählt nicht, auch nicht bei einer doppelten
+	 * Invalidierung, ein Neuaufbau aus der Historie ergibt dasselbe <br>
+	 */
+	@Test
+	public void testNewLoansShouldUpdateIndex() {
+		empfehlungsIndex.rebuild();
+		leiheAus(1, 1);
+		leiheAus(1, 2);
+		leiheAus(2, 2);
+		Assertions.assertEquals(List.of(), empfehlungsIndex.getEmpfehlungen(2, 10));
+
+		leiheAus(2, 1);
+		var erwartet = List.of(new Empfehlung(1L, null, null, 2));
+		Assertions.assertEquals(List.of(), empfehlungsIndex.getEmpfehlungen(2, 10));
+		empfehlungsIndex.nachziehenFallsNoetig();
+		Assertions.assertEquals(erwartet, empfehlungsIndex.getEmpfehlungen(2, 10));
+
+		historie(2, 1);
+		empfehlungsIndex.onInvalidierung(new Invalidierung(Invalidierung.Typ.AUSLEIHE, 1L));
+		empfehlungsIndex.onInvalidierung(new Invalidierung(Invalidierung.Typ.AUSLEIHE, 1L));
+		empfehlungsIndex.nachziehenFallsNoetig();
+		empfehlungsIndex.nachziehenFallsNoetig();
+		Assertions.assertEquals(erwartet, empfehlungsIndex.getEmpfehlungen(2, 10));
+
+		empfehlungsIndex.rebuild();
+		Assertions.assertEquals(erwartet, empfehlungsIndex.getEmpfehlungen(2, 10));
+	}
+
+	/**
+	 * Test für {@link EmpfehlungsIndex#rebuild()} und {@link EmpfehlungsIndex#onAusleihe(AusleiheEvent)} <br>
+	 * Braucht: Medium 1 mit vier Nachbarn, davon zwei mit gleich vielen Kunden <br>
+	 * Testet: Neuaufbau mit drei Plätzen pro Medium, danach zwei Ausleihen eines neuen Nachbarn <br>
+	 * Erwartet: Die zwei häufigsten Nachbarn bleiben, der neue Nachbar verdrängt den seltensten und übernimmt dessen
+	 * Zähler als Fehler. Empfohlen wird er erst, als ihn ein zweiter Kunde sicher ausgeliehen hat. <br>
+	 */
+	@Test
+	public void testFullRowShouldKeepFrequentNeighbours() {
+		historie(1, 1, 2, 3, 4, 5);
+		historie(2, 1, 2, 3, 4, 5);
+		historie(3, 1, 2, 3);
+		historie(4, 1, 2);
+		empfehlungsIndex.rebuild();
+
+		var empfehlungen = empfehlungsIndex.getEmpfehlungen(1, 10);
+		Assertions.assertEquals(3, empfehlungen.size());
+		Assertions.assertEquals(new Empfehlung(2L, null, null, 4), empfehlungen.get(0));
+		Assertions.assertEquals(new Empfehlung(3L, null, null, 3), empfehlungen.get(1));
+		Assertions.assertEquals(2, empfehlungen.get(2).kunden());
+
+		leiheAus(4, 6);
+		empfehlungsIndex.nachziehenFallsNoetig();
+		Assertions.assertEquals(List.of(new Empfehlung(2L, null, null, 4), new Empfehlung(3L, null, null, 3)),
+				empfehlungsIndex.getEmpfehlungen(1, 10));
+
+		leiheAus(3, 6);
+		empfehlungsIndex.nachziehenFallsNoetig();
+		Assertions.assertEquals(List.of(new Empfehlung(2L, null, null, 4), new Empfehlung(6L, null, null, 4),
+				new Empfehlung(3L, null, null, 3)), empfehlungsIndex.getEmpfehlungen(1, 10));
+	}
+
+	private void historie(long kundeId, long... medien) {
+		for (long mediumId : medien) {
+			jdbcTemplate.update("INSERT INTO ausleihe_historie (kundenid, medienid) VALUES (?, ?)", kundeId, mediumId);
+		}
+	}
+
+	/**
+	 * Schreibt die Ausleihe wie {@link com.helvetia.m295.libraryserver.service.Reservierungen} vor dem Event in die
+	 * Historie
+	 */
+	private void leiheAus(long kundeId, long mediumId) {
+		historie(kundeId, mediumId);
+		var kunde = new Kunde();
+		kunde.setId(kundeId);
+		var medium = new Medium();
+		medium.setId(mediumId);
+		empfehlungsIndex.onAusleihe(AusleiheEvent.erstellt(new Ausleihe(null, kunde, medium)));
+	}
+
+}
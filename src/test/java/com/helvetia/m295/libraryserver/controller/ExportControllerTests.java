@@ -0,0 +1,104 @@
+package com.helvetia.m295.libraryserver.controller;
+
+import java.util.Date;
+import java.util.Optional;
+
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.context.aot.DisabledInAotMode;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.result.MockMvcResultHandlers;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+
+import com.helvetia.m295.libraryserver.common.ExportJob;
+import com.helvetia.m295.libraryserver.common.ExportJob.Status;
+import com.helvetia.m295.libraryserver.service.ExportController;
+import com.helvetia.m295.libraryserver.service.KatalogExport;
+
+/**
+ * Klasse für Testfälle der Klasse {@link ExportController}
+ *
+ * @version 1.0.0
+ * @author Simon Fäs
+ * @see ExportController
+ */
+@WebMvcTest(ExportController.class)
+@DisabledInAotMode
+public class ExportControllerTests {
+
+	private static final String END_POINT_PATH = "/export";
+	private static final String id = "4711";
+
+	private ExportJob testJob;
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@MockBean
+	private KatalogExport katalogExport;
+
+	/**
+	 * Constructor, um Test-Objekte zu initialisieren
+	 */
+	public ExportControllerTests() {
+		this.testJob = new ExportJob(id, Status.LAUFEND, new Date(), 0, null);
+	}
+
+	/**
+	 * Test für {@link ExportController#startKatalogExport()} <br>
+	 * Braucht: Test-Objekte, welche im Constructor generiert werden. <br>
+	 * Testet: Starten eines Exports <br>
+	 * Erwartet: Statuscode 202 und die Id des Exports <br>
+	 *
+	 * @throws Exception Wenn ein Fehler beim Testen auftritt.
+	 */
+	@Test
+	public void testPostShouldReturnAccepted() throws Exception {
+		Mockito.when(katalogExport.starte()).thenReturn(testJob);
+
+		mockMvc.perform(MockMvcRequestBuilders.post(END_POINT_PATH + "/katalog"))
+				.andExpect(MockMvcResultMatchers.status().is(202))
+				.andExpect(MockMvcResultMatchers.jsonPath("$.id").value(id))
+				.andExpect(MockMvcResultMatchers.jsonPath("$.status").value("LAUFEND"))
+				.andDo(MockMvcResultHandlers.print());
+	}
+
+	/**
+	 * Test für {@link ExportController#downloadExport(String)} <br>
+	 * Braucht: Test-Objekte, welche im Constructor generiert werden. <br>
+	 * Testet: Download eines laufenden Exports <br>
+	 * Erwartet: Statuscode 409 <br>
+	 *
+	 * @throws Exception Wenn ein Fehler beim Testen auftritt.
+	 */
+	@Test
+	public void testDownloadShouldReturnConflictWhenRunning() throws Exception {
+		Mockito.when(katalogExport.getJob(id)).thenReturn(Optional.of(testJob));
+
+		mockMvc.perform(MockMvcRequestBuilders.get(END_POINT_PATH + "/" + id + "/download"))
+				.andExpect(MockMvcResultMatchers.status().is(409)).andDo(MockMvcResultHandlers.print());
+	}
+
+	/**
+	 * Test für {@link ExportController#getExport(String)} <br>
+	 * Testet: Abrufen eines Exports, den diese Instanz nicht kennt <br>
+	 * Erwartet: Statuscode 404 mit dem Hinweis auf Sticky Sessions <br>
+	 *
+	 * @throws Exception Wenn ein Fehler beim Testen auftritt.
+	 */
+	@Test
+	public void testGetShouldReturnNotFound() throws Exception {
+		Mockito.when(katalogExport.getJob(id)).thenReturn(Optional.empty());
+
+		mockMvc.perform(MockMvcRequestBuilders.get(END_POINT_PATH + "/" + id))
+				.andExpect(MockMvcResultMatchers.status().is(404))
+				.andExpect(MockMvcResultMatchers.status().reason(Matchers.containsString("sticky sessions")))
+				.andDo(MockMvcResultHandlers.print());
+	}
+
+}
@@ -0,0 +1,236 @@
+package com.helvetia.m295.libraryserver.controller;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.helvetia.m295.libraryserver.service.DatenbankIdempotenz;
+import com.helvetia.m295.libraryserver.service.IdempotenteAntwort;
+import com.helvetia.m295.libraryserver.service.IdempotenzFilter;
+import com.helvetia.m295.libraryserver.service.SpeicherIdempotenz;
+
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Klasse für Testfälle des {@link IdempotenzFilter} mit beiden Speichern.
+ * Anstelle eines Controllers zählt ein Servlet, wie oft ein Request ausgeführt wird.
+ *
+ * @version 1.0.0
+ * @author Simon Fäs
+ * @see IdempotenzFilter
+ */
+@JdbcTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+public class IdempotenzFilterTests {
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	private final AtomicInteger ausgefuehrt = new AtomicInteger();
+	private int status = 200;
+
+	/**
+	 * Test für {@link IdempotenzFilter} mit {@link SpeicherIdempotenz} <br>
+	 * Braucht: Zweimal derselbe POST mit demselben Idempotency-Key <br>
+	 * Testet: Wiederholung des Requests <br>
+	 * Erwartet: Der Request wird einmal ausgeführt, die Wiederholung erhält dieselbe Antwort <br>
+	 *
+	 * @throws Exception Wenn ein Fehler beim Testen auftritt.
+	 */
+	@Test
+	public void testRetryShouldReplayStoredResponse() throws Exception {
+		var filter = new IdempotenzFilter(new SpeicherIdempotenz(60000, 100));
+
+		var erste = perform(filter, "POST", "/kunde", "a1");
+		var zweite = perform(filter, "POST", "/kunde", "a1");
+
+		Assertions.assertEquals(1, ausgefuehrt.get());
+		Assertions.assertEquals(200, zweite.getStatus());
+		Assertions.assertEquals(erste.getContentAsString(), zweite.getContentAsString());
+		Assertions.assertEquals("application/json", zweite.getContentType());
+		Assertions.assertEquals("true", zweite.getHeader(IdempotenzFilter.REPLAYED_HEADER));
+		Assertions.assertNull(erste.getHeader(IdempotenzFilter.REPLAYED_HEADER));
+	}
+
+	/**
+	 * Test für {@link IdempotenzFilter} <br>
+	 * Braucht: Zweimal derselbe POST mit demselben Idempotency-Key, aber anderem Inhalt <br>
+	 * Testet: Wiederholung mit anderem Inhalt <br>
+	 * Erwartet: Die Wiederholung wird mit 422 abgewiesen, mit dem ursprünglichen Inhalt wird die Antwort wiederholt <br>
+	 *
+	 * @throws Exception Wenn ein Fehler beim Testen auftritt.
+	 */
+	@Test
+	public void testRetryWithOtherBodyShouldBeRejected() throws Exception {
+		var filter = new IdempotenzFilter(new SpeicherIdempotenz(60000, 100));
+
+		perform(filter, "POST", "/kunde", "a1", "{\"vorname\":\"Mia\"}");
+		var andere = perform(filter, "POST", "/kunde", "a1", "{\"vorname\":\"Lea\"}");
+		var gleiche = perform(filter, "POST", "/kunde", "a1", "{\"vorname\":\"Mia\"}");
+
+		Assertions.assertEquals(1, ausgefuehrt.get());
+		Assertions.assertEquals(422, andere.getStatus());
+		Assertions.assertEquals("true", gleiche.getHeader(IdempotenzFilter.REPLAYED_HEADER));
+	}
+
+	/**
+	 * Test für {@link IdempotenzFilter} <br>
+	 * Testet: Requests ohne Header, mit anderem Schlüssel, anderem Pfad und GET <br>
+	 * Erwartet: Jeder Request wird ausgeführt <br>
+	 *
+	 * @throws Exception Wenn ein Fehler beim Testen auftritt.
+	 */
+	@Test
+	public void testOtherRequestsShouldBeExecuted() throws Exception {
+		var filter = new IdempotenzFilter(new SpeicherIdempotenz(60000, 100));
+
+		perform(filter, "POST", "/kunde", "a1");
+		perform(filter, "POST", "/kunde", null);
+		perform(filter, "POST", "/kunde", null);
+		perform(filter, "POST", "/kunde", "a2");
+		perform(filter, "POST", "/ausleihe", "a1");
+		perform(filter, "GET", "/kunde", "a1");
+		perform(filter, "GET", "/kunde", "a1");
+
+		Assertions.assertEquals(7, ausgefuehrt.get());
+	}
+
+	/**
+	 * Test für {@link IdempotenzFilter} <br>
+	 * Braucht: Erster Request endet mit 500 <br>
+	 * Testet: Wiederholung mit demselben Schlüssel <br>
+	 * Erwartet: Die Wiederholung wird erneut ausgeführt <br>
+	 *
+	 * @throws Exception Wenn ein Fehler beim Testen auftritt.
+	 */
+	@Test
+	public void testServerErrorShouldNotBeStored() throws Exception {
+		var filter = new IdempotenzFilter(new SpeicherIdempotenz(60000, 100));
+
+		status = 500;
+		perform(filter, "POST", "/medium", "a1");
+		status = 200;
+		var zweite = perform(filter, "POST", "/medium", "a1");
+
+		Assertions.assertEquals(2, ausgefuehrt.get());
+		Assertions.assertEquals(200, zweite.getStatus());
+	}
+
+	/**
+	 * Test für {@link IdempotenzFilter} <br>
+	 * Braucht: Reservierter Schlüssel ohne Antwort <br>
+	 * Testet: Wiederholung, während der erste Request noch läuft, und ungültiger Schlüssel <br>
+	 * Erwartet: 409 mit Retry-After, 400 für den leeren Schlüssel, nichts wird ausgeführt <br>
+	 *
+	 * @throws Exception Wenn ein Fehler beim Testen auftritt.
+	 */
+	@Test
+	public void testConcurrentRetryShouldReturnConflict() throws Exception {
+		var speicher = new SpeicherIdempotenz(60000, 100);
+		var filter = new IdempotenzFilter(speicher);
+		var laufend = new IdempotenzFilter(new SpeicherIdempotenz(60000, 100) {
+
+			@Override
+			public IdempotenteAntwort reserviere(String schluessel) {
+				return IdempotenteAntwort.IN_BEARBEITUNG;
+			}
+
+		});
+
+		var response = perform(laufend, "POST", "/ausleihe", "a1");
+		Assertions.assertEquals(409, response.getStatus());
+		Assertions.assertEquals("1", response.getHeader("Retry-After"));
+		Assertions.assertEquals(400, perform(filter, "POST", "/ausleihe", " ").getStatus());
+		Assertions.assertEquals(0, ausgefuehrt.get());
+	}
+
+	/**
+	 * Test für {@link SpeicherIdempotenz} <br>
+	 * Testet: Mehr Einträge als erlaubt und abgelaufene Einträge <br>
+	 * Erwartet: Der älteste abgeschlossene Eintrag wird verdrängt, laufende Requests bleiben reserviert, abgelaufene
+	 * Einträge werden entfernt <br>
+	 */
+	@Test
+	public void testSpeicherShouldBeBoundedAndExpire() {
+		var antwort = new IdempotenteAntwort(200, null, new byte[0], null);
+		var speicher = new SpeicherIdempotenz(60000, 2);
+		speicher.reserviere("a");
+		speicher.reserviere("b");
+		speicher.speichere("b", antwort);
+		speicher.reserviere("c");
+		Assertions.assertEquals(2, speicher.size());
+		Assertions.assertTrue(speicher.reserviere("a").inBearbeitung());
+		Assertions.assertNull(speicher.reserviere("b"));
+
+		var abgelaufen = new SpeicherIdempotenz(0, 100);
+		abgelaufen.reserviere("a");
+		abgelaufen.speichere("a", antwort);
+		Assertions.assertNull(abgelaufen.reserviere("a"));
+	}
+
+	/**
+	 * Test für {@link IdempotenzFilter} mit {@link DatenbankIdempotenz} <br>
+	 * Braucht: Zwei Filter mit derselben Tabelle, wie zwei Instanzen <br>
+	 * Testet: Wiederholung über den zweiten Filter, mit demselben und mit anderem Inhalt, und Aufräumen <br>
+	 * Erwartet: Der Request wird einmal ausgeführt, mit anderem Inhalt 422, nach dem Aufräumen mit Gültigkeit 0 ist die
+	 * Tabelle leer <br>
+	 *
+	 * @throws Exception Wenn ein Fehler beim Testen auftritt.
+	 */
+	@Test
+	public void testDatenbankShouldReplayOnOtherInstance() throws Exception {
+		var a = new IdempotenzFilter(new DatenbankIdempotenz(jdbcTemplate, 60000));
+		var b = new IdempotenzFilter(new DatenbankIdempotenz(jdbcTemplate, 60000));
+
+		var erste = perform(a, "POST", "/kunde", "db1");
+		var zweite = perform(b, "POST", "/kunde", "db1");
+
+		Assertions.assertEquals(1, ausgefuehrt.get());
+		Assertions.assertEquals(erste.getContentAsString(), zweite.getContentAsString());
+		Assertions.assertEquals("true", zweite.getHeader(IdempotenzFilter.REPLAYED_HEADER));
+		Assertions.assertEquals(422, perform(b, "POST", "/kunde", "db1", "{}").getStatus());
+
+		new DatenbankIdempotenz(jdbcTemplate, 0).aufraeumen();
+		Assertions.assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM idempotenz", Long.class));
+	}
+
+	private MockHttpServletResponse perform(IdempotenzFilter filter, String method, String path, String key)
+			throws Exception {
+		return perform(filter, method, path, key, "");
+	}
+
+	private MockHttpServletResponse perform(IdempotenzFilter filter, String method, String path, String key,
+			String body) throws Exception {
+		var request = new MockHttpServletRequest(method, path);
+		request.setContent(body.getBytes(StandardCharsets.UTF_8));
+		if (key != null)
+			request.addHeader(IdempotenzFilter.IDEMPOTENCY_KEY_HEADER, key);
+		var response = new MockHttpServletResponse();
+		filter.doFilter(request, response, new MockFilterChain(new HttpServlet() {
+
+			@Override
+			protected void service(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+				resp.setStatus(status);
+				resp.setContentType("application/json");
+				resp.getWriter().write("{\"id\":" + ausgefuehrt.incrementAndGet() + "}");
+			}
+
+		}));
+		return response;
+	}
+
+}
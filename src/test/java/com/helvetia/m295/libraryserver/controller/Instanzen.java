@@ -0,0 +1,64 @@
+package com.helvetia.m295.libraryserver.controller;
+
+import java.util.ArrayList;
+
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import com.helvetia.m295.libraryserver.LibraryserverApplication;
+
+/**
+ * Klasse um für Tests mehrere Instanzen der Applikation in derselben JVM zu starten.
+ * Jede Instanz läuft mit dem Profil {@code test} auf einem freien Port. Instanzen mit demselben Namen der Datenbank
+ * teilen sich eine H2-Datenbank im Speicher, wie mehrere Instanzen mit derselben MySQL-Datenbank.
+ *
+ * @version 1.0.0
+ * @author Simon Fäs
+ */
+final class Instanzen {
+
+	private Instanzen() {
+	}
+
+	/**
+	 * Startet eine Instanz der Applikation
+	 * @param datenbank Name der H2-Datenbank im Speicher
+	 * @param eigenschaften Zusätzliche Eigenschaften als {@code name=wert}
+	 * @return Die gestartete Instanz, muss vom Test geschlossen werden
+	 */
+	static ConfigurableApplicationContext starte(String datenbank, String... eigenschaften) {
+		return starte(new SpringApplicationBuilder(LibraryserverApplication.class), datenbank, eigenschaften);
+	}
+
+	/**
+	 * Startet eine Instanz der Applikation mit weiteren Klassen oder Profilen
+	 * @param builder Builder mit den Klassen und Profilen des Tests, das Profil {@code test} wird ergänzt
+	 * @param datenbank Name der H2-Datenbank im Speicher
+	 * @param eigenschaften Zusätzliche Eigenschaften als {@code name=wert}
+	 * @return Die gestartete Instanz, muss vom Test geschlossen werden
+	 */
+	static ConfigurableApplicationContext starte(SpringApplicationBuilder builder, String datenbank,
+			String... eigenschaften) {
+		var argumente = new ArrayList<String>();
+		argumente.add("--spring.datasource.url=jdbc:h2:mem:" + datenbank
+				+ ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1");
+		argumente.add("--server.port=0");
+		for (var eigenschaft : eigenschaften) {
+			argumente.add("--" + eigenschaft);
+		}
+		return builder.profiles("test").run(argumente.toArray(String[]::new));
+	}
+
+	/**
+	 * Erstellt ein {@link MockMvc} für eine gestartete Instanz
+	 * @param instanz Die Instanz
+	 * @return MockMvc, dessen Requests diese Instanz bearbeitet
+	 */
+	static MockMvc mockMvc(ConfigurableApplicationContext instanz) {
+		return MockMvcBuilders.webAppContextSetup((WebApplicationContext) instanz).build();
+	}
+
+}
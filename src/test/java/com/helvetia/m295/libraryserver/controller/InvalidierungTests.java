@@ -0,0 +1,97 @@
+package com.helvetia.m295.libraryserver.controller;
+
+import java.util.Date;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.helvetia.m295.libraryserver.common.Adresse;
+import com.helvetia.m295.libraryserver.common.Kunde;
+import com.helvetia.m295.libraryserver.common.Medium;
+import com.helvetia.m295.libraryserver.service.DatenbankInvalidierung;
+import com.helvetia.m295.libraryserver.service.InvalidierungsBus;
+import com.helvetia.m295.libraryserver.service.JvmInvalidierung;
+
+/**
+ * Klasse für Testfälle des {@link InvalidierungsBus} mit zwei Instanzen der Applikation in derselben JVM.
+ * Beide Instanzen verwenden dieselbe H2-Datenbank und halten Resultate im Single-Flight-Cache für eine Minute.
+ * Ohne Invalidierung würde die zweite Instanz deshalb noch den alten Stand liefern.
+ *
+ * @version 1.0.0
+ * @author Simon Fäs
+ * @see InvalidierungsBus
+ */
+public class InvalidierungTests {
+
+	/**
+	 * Test für {@link JvmInvalidierung} <br>
+	 * Braucht: Zwei Instanzen mit dem Transport {@code jvm} <br>
+	 * Testet: Änderung eines Mediums und eines Kunden auf der ersten Instanz, nachdem die zweite sie gelesen hat <br>
+	 * Erwartet: Die zweite Instanz liefert sofort den neuen Stand <br>
+	 *
+	 * @throws Exception Wenn ein Fehler beim Testen auftritt.
+	 */
+	@Test
+	public void testJvmShouldInvalidateOtherInstance() throws Exception {
+		try (var a = starte("jvm", "invalidierung_jvm"); var b = starte("jvm", "invalidierung_jvm")) {
+			pruefeAenderungen(a, b, () -> {});
+		}
+	}
+
+	/**
+	 * Test für {@link DatenbankInvalidierung} <br>
+	 * Braucht: Zwei Instanzen mit dem Transport {@code datenbank} <br>
+	 * Testet: Änderung eines Mediums und eines Kunden auf der ersten Instanz, nachdem die zweite sie gelesen hat <br>
+	 * Erwartet: Die zweite Instanz liefert den neuen Stand, nachdem sie die Tabelle abgefragt hat <br>
+	 *
+	 * @throws Exception Wenn ein Fehler beim Testen auftritt.
+	 */
+	@Test
+	public void testDatenbankShouldInvalidateOtherInstanceAfterPoll() throws Exception {
+		try (var a = starte("datenbank", "invalidierung_db"); var b = starte("datenbank", "invalidierung_db")) {
+			pruefeAenderungen(a, b, () -> b.getBean(DatenbankInvalidierung.class).abfragen());
+		}
+	}
+
+	private void pruefeAenderungen(ConfigurableApplicationContext a, ConfigurableApplicationContext b,
+			Runnable abfragen) throws Exception {
+		var mockMvcA = Instanzen.mockMvc(a);
+		var mockMvcB = Instanzen.mockMvc(b);
+		var objectMapper = a.getBean(ObjectMapper.class);
+
+		var medium = new Medium(null, "Krabat", "Otfried Preussler", "Fantasy", (short) 12, null, "C1");
+		var result = mockMvcA.perform(MockMvcRequestBuilders.post("/medium").contentType("application/json")
+				.content(objectMapper.writeValueAsString(medium))).andReturn();
+		medium = objectMapper.readValue(result.getResponse().getContentAsString(), Medium.class);
+		var kunde = new Kunde(null, "Mia", "Graf", new Date(), new Adresse(null, "Rigistrasse 1", "Luzern", "6000"),
+				"mia@example.com");
+		result = mockMvcA.perform(MockMvcRequestBuilders.post("/kunde").contentType("application/json")
+				.content(objectMapper.writeValueAsString(kunde))).andReturn();
+		kunde = objectMapper.readValue(result.getResponse().getContentAsString(), Kunde.class);
+
+		mockMvcB.perform(MockMvcRequestBuilders.get("/medium/" + medium.getId()))
+				.andExpect(MockMvcResultMatchers.jsonPath("$.genre").value("Fantasy"));
+		mockMvcB.perform(MockMvcRequestBuilders.get("/kunde/" + kunde.getId()))
+				.andExpect(MockMvcResultMatchers.jsonPath("$.email").value("mia@example.com"));
+
+		mockMvcA.perform(MockMvcRequestBuilders.put("/medium/" + medium.getId()).contentType("application/json")
+				.content("{\"genre\":\"Jugendbuch\"}")).andExpect(MockMvcResultMatchers.status().is(200));
+		mockMvcA.perform(MockMvcRequestBuilders.put("/kunde/" + kunde.getId()).contentType("application/json")
+				.content("{\"email\":\"mia.graf@example.com\"}")).andExpect(MockMvcResultMatchers.status().is(200));
+		abfragen.run();
+
+		mockMvcB.perform(MockMvcRequestBuilders.get("/medium/" + medium.getId()))
+				.andExpect(MockMvcResultMatchers.jsonPath("$.genre").value("Jugendbuch"));
+		mockMvcB.perform(MockMvcRequestBuilders.get("/kunde/" + kunde.getId()))
+				.andExpect(MockMvcResultMatchers.jsonPath("$.email").value("mia.graf@example.com"));
+	}
+
+	private static ConfigurableApplicationContext starte(String transport, String datenbank) {
+		return Instanzen.starte(datenbank, "library.invalidierung.transport=" + transport,
+				"library.invalidierung.poll-millis=3600000", "library.singleflight.ttl-millis=60000");
+	}
+
+}
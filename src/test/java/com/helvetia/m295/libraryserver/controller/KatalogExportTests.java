@@ -0,0 +1,88 @@
+package com.helvetia.m295.libraryserver.controller;
+
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.helvetia.m295.libraryserver.common.Adresse;
+import com.helvetia.m295.libraryserver.common.Medium;
+import com.helvetia.m295.libraryserver.service.KatalogExport;
+import com.helvetia.m295.libraryserver.service.KatalogSnapshot;
+
+/**
+ * Klasse für Testfälle der Klasse {@link KatalogExport} auf der H2-Datenbank.
+ * Gelesen wird in Blöcken von zwei Ids.
+ *
+ * @version 1.0.0
+ * @author Simon Fäs
+ * @see KatalogExport
+ */
+@JdbcTest(properties = "library.export.chunk-size=2")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+@Import(KatalogExport.class)
+public class KatalogExportTests {
+
+	@Autowired
+	private KatalogExport katalogExport;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@TempDir
+	private Path verzeichnis;
+
+	/**
+	 * Test für {@link KatalogExport#schreibeSnapshot} <br>
+	 * Braucht: Fünf Medien mit Lücken in den Ids und vier Adressen, also mehrere und genau volle Blöcke <br>
+	 * Testet: Schreiben eines Snapshots aus der Datenbank <br>
+	 * Erwartet: Der Snapshot enthält alle Medien und Adressen mit ihren Attributen <br>
+	 *
+	 * @throws Exception Wenn ein Fehler beim Testen auftritt.
+	 */
+	@Test
+	public void testSnapshotShouldContainAllRows() throws Exception {
+		for (long id : new long[] { 1, 2, 5, 9, 10 }) {
+			jdbcTemplate.update("INSERT INTO medium (id, titel, autor, genre, altersfreigabe, isbn, standortcode) "
+					+ "VALUES (?, ?, 'Michael Ende', 'Fantasy', ?, ?, 'A1')", id, id == 5 ? "Momo" : "Band " + id,
+					id == 9 ? null : (short) 8, id == 9 ? null : 9783522202100L + id);
+		}
+		for (long id = 1; id <= 4; id++) {
+			jdbcTemplate.update("INSERT INTO adresse (id, adresse, ort, zip) VALUES (?, ?, 'Zürich', '8008')", id,
+					"Zürcherstrasse " + id);
+		}
+
+		var datei = verzeichnis.resolve("katalog.snapshot");
+		try (var channel = FileChannel.open(datei, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+			katalogExport.schreibeSnapshot(channel);
+		}
+		var snapshot = KatalogSnapshot.oeffne(datei);
+
+		Assertions.assertEquals(List.of(1L, 2L, 5L, 9L, 10L),
+				snapshot.findAllMedien().stream().map(Medium::getId).toList());
+		var momo = snapshot.findMedienByTitel("Momo");
+		Assertions.assertEquals(1, momo.size());
+		Assertions.assertEquals(5L, momo.get(0).getId());
+		Assertions.assertEquals(9783522202105L, momo.get(0).getIsbn());
+		Assertions.assertEquals((short) 8, momo.get(0).getAltersfreigabe());
+		var ohneIsbn = snapshot.findMediumById(9L).orElseThrow();
+		Assertions.assertNull(ohneIsbn.getIsbn());
+		Assertions.assertNull(ohneIsbn.getAltersfreigabe());
+		Assertions.assertEquals(List.of(1L, 2L, 3L, 4L),
+				snapshot.findAdressenByZip("8008").stream().map(Adresse::getId).sorted().toList());
+		Assertions.assertEquals(List.of(3L), snapshot.findAdressenByAdresse("Zürcherstrasse 3").stream()
+				.map(Adresse::getId).toList());
+	}
+
+}
@@ -0,0 +1,100 @@
+package com.helvetia.m295.libraryserver.controller;
+
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Optional;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.helvetia.m295.libraryserver.common.Adresse;
+import com.helvetia.m295.libraryserver.common.Medium;
+import com.helvetia.m295.libraryserver.service.KatalogSnapshot;
+
+/**
+ * Klasse für Testfälle der Klasse {@link KatalogSnapshot}
+ *
+ * @version 1.0.0
+ * @author Simon Fäs
+ * @see KatalogSnapshot
+ */
+public class KatalogSnapshotTests {
+
+	@TempDir
+	private Path verzeichnis;
+
+	/**
+	 * Test für {@link KatalogSnapshot#schreibe} und {@link KatalogSnapshot#oeffne(Path)} <br>
+	 * Testet: Schreiben und Lesen eines Snapshots mit fehlenden Attributen und Umlauten <br>
+	 * Erwartet: Alle Abfragen liefern dieselben Medien und Adressen, wie geschrieben wurden <br>
+	 *
+	 * @throws Exception Wenn ein Fehler beim Testen auftritt.
+	 */
+	@Test
+	public void testSnapshotShouldReturnWrittenCatalogue() throws Exception {
+		var hobbit = new Medium(7L, "Der Hobbit", "J.R.R Tolkien", "Fantasy", (short) 10, 9783423715676L, "A1");
+		var momo = new Medium(3L, "Momo", "Michael Ende", "Fantasy", null, null, null);
+		var momoTaschenbuch = new Medium(12L, "Momo", "Michael Ende", "Fantasy", (short) 8, 9783522202107L, "B4");
+		var zuerich = new Adresse(2L, "Zürcherstrasse 1", "Zürich", "8008");
+		var zuerich2 = new Adresse(1L, "Zürcherstrasse 10", "Zürich", "8008");
+		var bern = new Adresse(5L, "Bahnhofstrasse 10", "Bern", "3000");
+		var snapshot = schreibe(List.of(hobbit, momo, momoTaschenbuch), List.of(zuerich, zuerich2, bern));
+
+		assertMedium(hobbit, snapshot.findMediumById(7L));
+		assertMedium(momo, snapshot.findMediumById(3L));
+		Assertions.assertTrue(snapshot.findMediumById(4L).isEmpty());
+		Assertions.assertEquals(List.of(3L, 12L), snapshot.findMedienByTitel("Momo").stream().map(Medium::getId).toList());
+		Assertions.assertTrue(snapshot.findMedienByTitel("Mo").isEmpty());
+		Assertions.assertEquals(List.of(3L, 7L, 12L), snapshot.findAllMedien().stream().map(Medium::getId).toList());
+
+		Assertions.assertEquals(List.of(zuerich2, zuerich), sortiert(snapshot.findAdressenByZip("8008")));
+		Assertions.assertEquals(List.of(zuerich2, zuerich), sortiert(snapshot.findAdressenByAdresse("Zürcherstrasse 1")));
+		Assertions.assertEquals(List.of(bern), snapshot.findAdressenByAdresse("Bahnhof"));
+		Assertions.assertTrue(snapshot.findAdressenByZip("6000").isEmpty());
+		Assertions.assertEquals(3, snapshot.findAllAdressen().size());
+	}
+
+	/**
+	 * Test für {@link KatalogSnapshot#oeffne(Path)} <br>
+	 * Testet: Snapshot ohne Medien und Adressen <br>
+	 * Erwartet: Alle Abfragen liefern leere Resultate <br>
+	 *
+	 * @throws Exception Wenn ein Fehler beim Testen auftritt.
+	 */
+	@Test
+	public void testEmptySnapshotShouldReturnNothing() throws Exception {
+		var snapshot = schreibe(List.of(), List.of());
+
+		Assertions.assertTrue(snapshot.findMediumById(1L).isEmpty());
+		Assertions.assertTrue(snapshot.findMedienByTitel("Momo").isEmpty());
+		Assertions.assertTrue(snapshot.findAdressenByAdresse("Z").isEmpty());
+	}
+
+	private KatalogSnapshot schreibe(List<Medium> medien, List<Adresse> adressen) throws Exception {
+		var datei = verzeichnis.resolve("katalog.snapshot");
+		try (var channel = FileChannel.open(datei, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+			KatalogSnapshot.schreibe(medien, adressen, channel);
+		}
+		return KatalogSnapshot.oeffne(datei);
+	}
+
+	private static void assertMedium(Medium erwartet, Optional<Medium> medium) {
+		Assertions.assertTrue(medium.isPresent());
+		var gelesen = medium.get();
+		Assertions.assertEquals(erwartet.getId(), gelesen.getId());
+		Assertions.assertEquals(erwartet.getTitel(), gelesen.getTitel());
+		Assertions.assertEquals(erwartet.getAutor(), gelesen.getAutor());
+		Assertions.assertEquals(erwartet.getGenre(), gelesen.getGenre());
+		Assertions.assertEquals(erwartet.getAltersfreigabe(), gelesen.getAltersfreigabe());
+		Assertions.assertEquals(erwartet.getIsbn(), gelesen.getIsbn());
+		Assertions.assertEquals(erwartet.getStandortcode(), gelesen.getStandortcode());
+	}
+
+	private static List<Adresse> sortiert(List<Adresse> adressen) {
+		return adressen.stream().sorted((a, b) -> Long.compare(a.getId(), b.getId())).toList();
+	}
+
+}
@@ -2,13 +2,18 @@ package com.helvetia.m295.libraryserver.controller;
 
 import java.util.ArrayList;
 import java.util.Date;
+import java.util.List;
 import java.util.Optional;
 
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
 import org.mockito.Mockito;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.aot.DisabledInAotMode;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 import org.springframework.test.web.servlet.result.MockMvcResultHandlers;
@@ -16,11 +21,18 @@ import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.helvetia.m295.libraryserver.common.Adresse;
+import com.helvetia.m295.libraryserver.common.AusleiheZaehler;
 import com.helvetia.m295.libraryserver.common.Kunde;
+import com.helvetia.m295.libraryserver.common.KundeTreffer;
+import com.helvetia.m295.libraryserver.common.KundenAusleihe;
 import com.helvetia.m295.libraryserver.model.AdresseRepository;
+import com.helvetia.m295.libraryserver.model.AusleiheRepository;
 import com.helvetia.m295.libraryserver.model.KundeRepository;
 import com.helvetia.m295.libraryserver.service.AusleiheController;
+import com.helvetia.m295.libraryserver.service.AusleiheIndex;
+import com.helvetia.m295.libraryserver.service.InvalidierungsBus;
 import com.helvetia.m295.libraryserver.service.KundeController;
+import com.helvetia.m295.libraryserver.service.KundenSuchindex;
 
 /**
  * Klasse für Testfälle der Klasse {@link KundeController}
@@ -30,6 +42,7 @@ import com.helvetia.m295.libraryserver.service.KundeController;
  * @see KundeController
  */
 @WebMvcTest(KundeController.class)
+@DisabledInAotMode
 public class KundeControllerTests {
 
 	private static final String END_POINT_PATH = "/kunde";
@@ -50,6 +63,18 @@ public class KundeControllerTests {
 	@MockBean
 	private AdresseRepository adresseRepository;
 
+	@MockBean
+	private AusleiheRepository ausleiheRepository;
+
+	@MockBean
+	private AusleiheIndex ausleiheIndex;
+
+	@MockBean
+	private KundenSuchindex kundenSuchindex;
+
+	@MockBean
+	private InvalidierungsBus invalidierungsBus;
+
 	/**
 	 * Constructor, um Test-Objekte zu initialisieren
 	 */
@@ -199,4 +224,128 @@ public class KundeControllerTests {
 		mockMvc.perform(MockMvcRequestBuilders.delete(END_POINT_PATH + "/" + id).contentType("application/json"))
 				.andExpect(MockMvcResultMatchers.status().is(200)).andDo(MockMvcResultHandlers.print());
 	}
+
+	/**
+	 * Test für {@link KundeController#deleteKunde(Long)} <br>
+	 * Testet: Löschen eines Kunden mit laufenden Ausleihen laut Index und Datenbank <br>
+	 * Erwartet: Statuscode 409 und der Kunde wird nicht gelöscht <br>
+	 * 
+	 * @throws Exception
+	 */
+	@Test
+	public void testDeleteShouldReturnConflictWhenLending() throws Exception {
+		Mockito.when(ausleiheIndex.getAnzahlAusleihen(id)).thenReturn(2);
+		Mockito.when(ausleiheRepository.existsByKundeId(id)).thenReturn(true);
+
+		mockMvc.perform(MockMvcRequestBuilders.delete(END_POINT_PATH + "/" + id).contentType("application/json"))
+				.andExpect(MockMvcResultMatchers.status().is(409)).andDo(MockMvcResultHandlers.print());
+		Mockito.verify(kundeRepository, Mockito.never()).deleteById(id);
+	}
+
+	/**
+	 * Test für {@link KundeController#deleteKunde(Long)} <br>
+	 * Testet: Löschen eines Kunden, dessen Ausleihen nur der Index noch kennt <br>
+	 * Erwartet: Statuscode 200 und der Kunde wird gelöscht <br>
+	 * 
+	 * @throws Exception
+	 */
+	@Test
+	public void testDeleteShouldIgnoreOutdatedIndex() throws Exception {
+		Mockito.when(ausleiheIndex.getAnzahlAusleihen(id)).thenReturn(2);
+
+		mockMvc.perform(MockMvcRequestBuilders.delete(END_POINT_PATH + "/" + id).contentType("application/json"))
+				.andExpect(MockMvcResultMatchers.status().is(200)).andDo(MockMvcResultHandlers.print());
+		Mockito.verify(kundeRepository).deleteById(id);
+	}
+
+	/**
+	 * Test für {@link KundeController#deleteKunde(Long)} <br>
+	 * Testet: Löschen eines Kunden, dessen Ausleihe der Index noch nicht kennt <br>
+	 * Erwartet: Statuscode 409, da der Fremdschlüssel der Ausleihe das Löschen verhindert <br>
+	 * 
+	 * @throws Exception
+	 */
+	@Test
+	public void testDeleteShouldReturnConflictOnForeignKey() throws Exception {
+		Mockito.doThrow(new DataIntegrityViolationException("fk_ausleihe_kunde")).when(kundeRepository).deleteById(id);
+
+		mockMvc.perform(MockMvcRequestBuilders.delete(END_POINT_PATH + "/" + id).contentType("application/json"))
+				.andExpect(MockMvcResultMatchers.status().is(409)).andDo(MockMvcResultHandlers.print());
+	}
+
+	/**
+	 * Test für {@link KundeController#getAusleihenByKunde(Long, int, int)} <br>
+	 * Braucht: Test-Objekte, welche im Constructor generiert werden. <br>
+	 * Testet: Abrufen der Ausleihübersicht eines Kunden <br>
+	 * Erwartet: Statuscode 200, die Anzahl laufender und überfälliger Ausleihen und die Ausleihen der Seite <br>
+	 * 
+	 * @throws Exception
+	 */
+	@Test
+	public void testGetAusleihenShouldReturnOK() throws Exception {
+		var ausleihe = new KundenAusleihe(3L, 7L, "Lord of the Rings", new Date(0), 14L);
+		Mockito.when(kundeRepository.existsById(id)).thenReturn(true);
+		Mockito.when(ausleiheRepository.findZaehlerByKundeId(ArgumentMatchers.eq(id), ArgumentMatchers.any()))
+				.thenReturn(new AusleiheZaehler(1L, 1L));
+		Mockito.when(ausleiheRepository.findUebersichtByKundeId(id, PageRequest.of(0, 20))).thenReturn(List.of(ausleihe));
+
+		mockMvc.perform(MockMvcRequestBuilders.get(END_POINT_PATH + "/" + id + "/ausleihen"))
+				.andExpect(MockMvcResultMatchers.status().is(200))
+				.andExpect(MockMvcResultMatchers.jsonPath("$.aktiv").value(1))
+				.andExpect(MockMvcResultMatchers.jsonPath("$.ueberfaellig").value(1))
+				.andExpect(MockMvcResultMatchers.jsonPath("$.ausleihen[0].titel").value("Lord of the Rings"))
+				.andExpect(MockMvcResultMatchers.jsonPath("$.ausleihen[0].faelligAm").value(14L * 24 * 60 * 60 * 1000))
+				.andDo(MockMvcResultHandlers.print());
+	}
+
+	/**
+	 * Test für {@link KundeController#getAusleihenByKunde(Long, int, int)} <br>
+	 * Braucht: Test-Objekte, welche im Constructor generiert werden. <br>
+	 * Testet: Abrufen der Ausleihübersicht eines nicht existenten Kunden <br>
+	 * Erwartet: Statuscode 404 <br>
+	 * 
+	 * @throws Exception
+	 */
+	@Test
+	public void testGetAusleihenShouldReturnNotFound() throws Exception {
+		Mockito.when(kundeRepository.existsById(id)).thenReturn(false);
+
+		mockMvc.perform(MockMvcRequestBuilders.get(END_POINT_PATH + "/" + id + "/ausleihen"))
+				.andExpect(MockMvcResultMatchers.status().is(404)).andDo(MockMvcResultHandlers.print());
+	}
+
+	/**
+	 * Test für {@link KundeController#searchKunden(String, int)} <br>
+	 * Braucht: Test-Objekte, welche im Constructor generiert werden. <br>
+	 * Testet: Suche nach einem ähnlich klingenden Namen <br>
+	 * Erwartet: Statuscode 200 und die Treffer aus dem Suchindex <br>
+	 * 
+	 * @throws Exception
+	 */
+	@Test
+	public void testSearchShouldReturnOK() throws Exception {
+		Mockito.when(kundenSuchindex.suche("hans meyer", 5))
+				.thenReturn(List.of(new KundeTreffer(id, testKunde.getVorname(), testKunde.getNachname(), 6)));
+
+		mockMvc.perform(MockMvcRequestBuilders.get(END_POINT_PATH + "/search").param("q", "hans meyer").param("limit", "5"))
+				.andExpect(MockMvcResultMatchers.status().is(200))
+				.andExpect(MockMvcResultMatchers.jsonPath("$[0].id").value(id))
+				.andExpect(MockMvcResultMatchers.jsonPath("$[0].nachname").value("Meier"))
+				.andExpect(MockMvcResultMatchers.jsonPath("$[0].punkte").value(6))
+				.andDo(MockMvcResultHandlers.print());
+	}
+
+	/**
+	 * Test für {@link KundeController#searchKunden(String, int)} <br>
+	 * Testet: Suche mit einer zu grossen Anzahl Treffer <br>
+	 * Erwartet: Statuscode 400 <br>
+	 * 
+	 * @throws Exception
+	 */
+	@Test
+	public void testSearchShouldReturnBadRequest() throws Exception {
+		mockMvc.perform(MockMvcRequestBuilders.get(END_POINT_PATH + "/search").param("q", "meier").param("limit", "1000"))
+				.andExpect(MockMvcResultMatchers.status().is(400)).andDo(MockMvcResultHandlers.print());
+	}
+
 }
@@ -0,0 +1,157 @@
+package com.helvetia.m295.libraryserver.controller;
+
+import java.sql.ResultSet;
+import java.util.Date;
+import java.util.List;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.helvetia.m295.libraryserver.common.Adresse;
+import com.helvetia.m295.libraryserver.common.Kunde;
+import com.helvetia.m295.libraryserver.common.KundeEvent;
+import com.helvetia.m295.libraryserver.common.KundeTreffer;
+import com.helvetia.m295.libraryserver.service.KoelnerPhonetik;
+import com.helvetia.m295.libraryserver.service.KundenSuchindex;
+
+/**
+ * Klasse für Testfälle der Klassen {@link KundenSuchindex} und {@link KoelnerPhonetik}.
+ * Der Index wird direkt über {@link KundeEvent}s befüllt, ohne Datenbank. Für den Aufbau liefert ein Mock die
+ * Zeilen.
+ *
+ * @version 1.0.0
+ * @author Simon Fäs
+ * @see KundenSuchindex
+ */
+public class KundenSuchindexTests {
+
+	private final Adresse adresse = new Adresse(1L, "Zürcherstrasse 1", "Zürich", "8008");
+
+	/**
+	 * Test für {@link KoelnerPhonetik#code(String)} <br>
+	 * Testet: Codes bekannter Beispiele der Kölner Phonetik <br>
+	 * Erwartet: Dieselben Codes wie in der Beschreibung des Verfahrens <br>
+	 */
+	@Test
+	public void testCodeShouldMatchKnownExamples() {
+		Assertions.assertEquals(List.of("mueller", "luedenscheidt"), KoelnerPhonetik.woerter("Müller-Lüdenscheidt"));
+		Assertions.assertEquals("657", KoelnerPhonetik.code("mueller"));
+		Assertions.assertEquals("52682", KoelnerPhonetik.code("luedenscheidt"));
+		Assertions.assertEquals("17863", KoelnerPhonetik.code("breschnew"));
+		Assertions.assertEquals("3412", KoelnerPhonetik.code("wikipedia"));
+		for (var name : new String[] { "Meier", "Meyer", "Maier", "Mayr" }) {
+			Assertions.assertEquals("67", KoelnerPhonetik.code(KoelnerPhonetik.woerter(name).getFirst()));
+		}
+	}
+
+	/**
+	 * Test für {@link KundenSuchindex#suche(String, int)} <br>
+	 * Braucht: Vier Kunden, die über Events in den Index kommen <br>
+	 * Testet: Suche nach exaktem Namen, Präfix und ähnlich klingendem Namen <br>
+	 * Erwartet: Der exakte Treffer zuerst, danach ähnlich klingende Namen und Präfixe, ohne Kunden mit anderem Vornamen <br>
+	 */
+	@Test
+	public void testSucheShouldRankExactBeforePhonetic() {
+		var index = new KundenSuchindex();
+		index.onKunde(KundeEvent.erstellt(kunde(1L, "Hans", "Meier")));
+		index.onKunde(KundeEvent.erstellt(kunde(2L, "Hans", "Mayr")));
+		index.onKunde(KundeEvent.erstellt(kunde(3L, "Hansjörg", "Meyer")));
+		index.onKunde(KundeEvent.erstellt(kunde(4L, "Peter", "Meier")));
+
+		var treffer = index.suche("hans meier", 10);
+		Assertions.assertEquals(List.of(1L, 2L, 3L), treffer.stream().map(KundeTreffer::id).toList());
+		Assertions.assertEquals(7, treffer.getFirst().punkte());
+
+		Assertions.assertEquals(List.of(4L), index.suche("pet", 10).stream().map(KundeTreffer::id).toList());
+		Assertions.assertEquals(2, index.suche("MEIER", 2).size());
+	}
+
+	/**
+	 * Test für {@link KundenSuchindex#onKunde(KundeEvent)} <br>
+	 * Braucht: Ein Kunde, der umbenannt und danach gelöscht wird <br>
+	 * Testet: Nachführen des Index bei Änderungen <br>
+	 * Erwartet: Nur der aktuelle Name wird gefunden, nach dem Löschen nichts mehr <br>
+	 */
+	@Test
+	public void testOnKundeShouldFollowChanges() {
+		var index = new KundenSuchindex();
+		var vorher = kunde(1L, "Anna", "Schmid");
+		var nachher = kunde(1L, "Anna", "Keller");
+		index.onKunde(KundeEvent.erstellt(vorher));
+		index.onKunde(new KundeEvent(vorher, nachher));
+
+		Assertions.assertTrue(index.suche("schmid", 10).isEmpty());
+		Assertions.assertEquals(1, index.suche("kel", 10).size());
+		Assertions.assertEquals(1, index.size());
+
+		index.onKunde(KundeEvent.geloescht(nachher));
+		Assertions.assertTrue(index.suche("keller", 10).isEmpty());
+		Assertions.assertEquals(0, index.size());
+	}
+
+	/**
+	 * Test für {@link KundenSuchindex#suche(String, int)} <br>
+	 * Braucht: Mehr als {@link KundenSuchindex#MAX_KANDIDATEN} Kunden mit Nachname Müller und mit Vorname Anna, aber
+	 * nur je eine Anna Müller mit der grössten bzw. kleinsten Id <br>
+	 * Testet: Suche nach dem seltenen und dem längeren häufigen Wort, danach nach zwei häufigen Wörtern <br>
+	 * Erwartet: Die Anna Müller werden gefunden, obwohl jedes einzelne Wort die Grenze überschreitet <br>
+	 */
+	@Test
+	public void testSucheShouldIntersectWordsBeforeLimit() {
+		var index = new KundenSuchindex();
+		for (long id = 2; id <= 1501; id++) {
+			index.onKunde(KundeEvent.erstellt(kunde(id, "Peter", "Müller")));
+		}
+		index.onKunde(KundeEvent.erstellt(kunde(5000L, "Anna", "Müller")));
+		Assertions.assertEquals(List.of(5000L), index.suche("Anna Müller", 10).stream().map(KundeTreffer::id).toList());
+
+		for (long id = 2001; id <= 3500; id++) {
+			index.onKunde(KundeEvent.erstellt(kunde(id, "Anna", "Keller")));
+		}
+		index.onKunde(KundeEvent.erstellt(kunde(1L, "Anna", "Müller")));
+		Assertions.assertEquals(List.of(1L, 5000L),
+				index.suche("Anna Müller", 10).stream().map(KundeTreffer::id).toList());
+		Assertions.assertEquals(10, index.suche("Müller", 10).size());
+	}
+
+	/**
+	 * Test für {@link KundenSuchindex#rebuild()} <br>
+	 * Braucht: Eine Abfrage, die einen veralteten Namen liefert, während ein Kunde umbenannt und einer erstellt wird <br>
+	 * Testet: Aufbau mit Änderungen während des Lesens <br>
+	 * Erwartet: Der neue Index enthält die Änderungen, nicht den veralteten Namen <br>
+	 *
+	 * @throws Exception Wenn ein Fehler beim Testen auftritt.
+	 */
+	@Test
+	public void testRebuildShouldKeepChangesDuringRead() throws Exception {
+		var index = new KundenSuchindex();
+		var jdbcTemplate = Mockito.mock(JdbcTemplate.class);
+		ReflectionTestUtils.setField(index, "jdbcTemplate", jdbcTemplate);
+		var zeile = Mockito.mock(ResultSet.class);
+		Mockito.when(zeile.getLong(1)).thenReturn(1L);
+		Mockito.when(zeile.getString(2)).thenReturn("Anna");
+		Mockito.when(zeile.getString(3)).thenReturn("Schmid");
+		Mockito.doAnswer(invocation -> {
+			index.onKunde(new KundeEvent(kunde(1L, "Anna", "Schmid"), kunde(1L, "Anna", "Keller")));
+			index.onKunde(KundeEvent.erstellt(kunde(2L, "Hans", "Meier")));
+			invocation.getArgument(1, RowCallbackHandler.class).processRow(zeile);
+			return null;
+		}).when(jdbcTemplate).query(Mockito.anyString(), Mockito.any(RowCallbackHandler.class));
+
+		index.rebuild();
+
+		Assertions.assertTrue(index.suche("schmid", 10).isEmpty());
+		Assertions.assertEquals(List.of(1L), index.suche("keller", 10).stream().map(KundeTreffer::id).toList());
+		Assertions.assertEquals(List.of(2L), index.suche("meier", 10).stream().map(KundeTreffer::id).toList());
+		Assertions.assertEquals(2, index.size());
+	}
+
+	private Kunde kunde(Long id, String vorname, String nachname) {
+		return new Kunde(id, vorname, nachname, new Date(), adresse, vorname.toLowerCase() + "@example.com");
+	}
+
+}
@@ -0,0 +1,185 @@
+package com.helvetia.m295.libraryserver.controller;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+import com.helvetia.m295.libraryserver.LibraryserverApplication;
+import com.helvetia.m295.libraryserver.service.LeaderOnly;
+import com.helvetia.m295.libraryserver.service.LeaderWahl;
+import com.helvetia.m295.libraryserver.service.SchedulingConfiguration;
+
+/**
+ * Klasse für Testfälle der Klasse {@link LeaderWahl} mit zwei Instanzen der Applikation in derselben JVM.
+ * Beide Instanzen verwenden dieselbe H2-Datenbank und damit dieselbe Lease.
+ *
+ * @version 1.0.0
+ * @author Simon Fäs
+ * @see LeaderWahl
+ * @see LeaderOnly
+ */
+public class LeaderWahlTests {
+
+	private static final AtomicInteger AUSFUEHRUNGEN = new AtomicInteger();
+
+	/**
+	 * Test für {@link LeaderOnly} <br>
+	 * Braucht: Zwei Instanzen mit demselben Job <br>
+	 * Testet: Aufruf des Jobs auf beiden Instanzen <br>
+	 * Erwartet: Genau eine Instanz ist Leader und nur dort wird der Job ausgeführt <br>
+	 *
+	 * @throws Exception Wenn ein Fehler beim Testen auftritt.
+	 */
+	@Test
+	public void testLeaderOnlyShouldRunOnce() throws Exception {
+		try (var a = starte("leader_einmal"); var b = starte("leader_einmal")) {
+			var leader = warteAufLeader(a, b);
+			Assertions.assertNotEquals(a.getBean(LeaderWahl.class).istLeader(), b.getBean(LeaderWahl.class).istLeader());
+
+			AUSFUEHRUNGEN.set(0);
+			a.getBean(Zaehljob.class).laufe();
+			b.getBean(Zaehljob.class).laufe();
+			Assertions.assertEquals(1, AUSFUEHRUNGEN.get());
+			Assertions.assertTrue(leader.getBean(LeaderWahl.class).istLeader());
+		}
+	}
+
+	/**
+	 * Test für {@link LeaderWahl#heartbeat()} und {@link LeaderWahl#freigeben()} <br>
+	 * Braucht: Zwei Instanzen, der Leader wird heruntergefahren <br>
+	 * Testet: Übernahme der Lease durch die andere Instanz <br>
+	 * Erwartet: Die andere Instanz wird Leader mit einem höheren Fencing-Token, das alte Token ist ungültig <br>
+	 *
+	 * @throws Exception Wenn ein Fehler beim Testen auftritt.
+	 */
+	@Test
+	public void testLeaseShouldBeTakenOverWithNewToken() throws Exception {
+		var a = starte("leader_uebernahme");
+		try (var b = starte("leader_uebernahme")) {
+			var leader = warteAufLeader(a, b);
+			var folger = leader == a ? b : a;
+			long alt = leader.getBean(LeaderWahl.class).getToken();
+
+			leader.close();
+			warteAufLeader(folger);
+			long neu = folger.getBean(LeaderWahl.class).getToken();
+			Assertions.assertTrue(neu > alt);
+
+			var jdbcTemplate = folger.getBean(JdbcTemplate.class);
+			var sql = "SELECT COUNT(*) FROM lease WHERE " + LeaderWahl.FENCING;
+			Assertions.assertEquals(0, jdbcTemplate.queryForObject(sql, Integer.class, alt));
+			Assertions.assertEquals(1, jdbcTemplate.queryForObject(sql, Integer.class, neu));
+			folger.close();
+		} finally {
+			a.close();
+		}
+	}
+
+	/**
+	 * Test für {@link LeaderWahl#heartbeat()} <br>
+	 * Braucht: Zwei Instanzen, der Heartbeat des Leaders bleibt stehen wie bei einer langen Pause <br>
+	 * Testet: Übernahme der abgelaufenen Lease ohne Freigabe <br>
+	 * Erwartet: Die andere Instanz wird Leader mit einem höheren Token, der alte Leader hält sich nicht mehr für den
+	 * Leader und kann die neue Lease auch beim Herunterfahren nicht freigeben <br>
+	 *
+	 * @throws Exception Wenn ein Fehler beim Testen auftritt.
+	 */
+	@Test
+	public void testExpiredLeaseShouldBeTakenOver() throws Exception {
+		try (var a = starte("leader_ablauf"); var b = starte("leader_ablauf")) {
+			var leader = warteAufLeader(a, b);
+			var folger = leader == a ? b : a;
+			long alt = leader.getBean(LeaderWahl.class).getToken();
+
+			pausiere(leader);
+			warteAufLeader(folger);
+			long neu = folger.getBean(LeaderWahl.class).getToken();
+			Assertions.assertTrue(neu > alt);
+			Assertions.assertFalse(leader.getBean(LeaderWahl.class).istLeader());
+			Assertions.assertThrows(IllegalStateException.class, () -> leader.getBean(LeaderWahl.class).getToken());
+
+			leader.close();
+			Thread.sleep(1000);
+			Assertions.assertTrue(folger.getBean(LeaderWahl.class).istLeader());
+			Assertions.assertEquals(neu, folger.getBean(LeaderWahl.class).getToken());
+		}
+	}
+
+	/**
+	 * Test für {@link LeaderWahl#FENCING} <br>
+	 * Braucht: Zwei Instanzen, der Heartbeat des Leaders bleibt stehen und die andere Instanz übernimmt. Eine Adresse
+	 * ohne Kunden. <br>
+	 * Testet: Gefenctes DELETE wie in {@link com.helvetia.m295.libraryserver.service.AdressenBereinigung} mit dem
+	 * Token des alten und des neuen Leaders <br>
+	 * Erwartet: Mit dem alten Token wird nichts gelöscht, mit dem neuen die Adresse <br>
+	 *
+	 * @throws Exception Wenn ein Fehler beim Testen auftritt.
+	 */
+	@Test
+	public void testFencedDeleteShouldRejectStaleToken() throws Exception {
+		try (var a = starte("leader_fencing"); var b = starte("leader_fencing")) {
+			var leader = warteAufLeader(a, b);
+			var folger = leader == a ? b : a;
+			long alt = leader.getBean(LeaderWahl.class).getToken();
+			pausiere(leader);
+			warteAufLeader(folger);
+			long neu = folger.getBean(LeaderWahl.class).getToken();
+
+			var jdbcTemplate = leader.getBean(JdbcTemplate.class);
+			jdbcTemplate.update("INSERT INTO adresse (id, adresse, ort, zip) VALUES (4711, 'Seestrasse 1', 'Zug', '6300')");
+			var delete = "DELETE FROM adresse WHERE id = 4711 AND " + LeaderWahl.FENCING;
+			Assertions.assertEquals(0, jdbcTemplate.update(delete, alt));
+			Assertions.assertEquals(1, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM adresse WHERE id = 4711",
+					Integer.class));
+			Assertions.assertEquals(1, folger.getBean(JdbcTemplate.class).update(delete, neu));
+		}
+	}
+
+	/**
+	 * Hält den Heartbeat einer Instanz an, wie bei einer langen GC-Pause
+	 */
+	private static void pausiere(ConfigurableApplicationContext instanz) {
+		instanz.getBean(SchedulingConfiguration.KOORDINATION, ThreadPoolTaskScheduler.class).shutdown();
+	}
+
+	private static ConfigurableApplicationContext warteAufLeader(ConfigurableApplicationContext... instanzen)
+			throws InterruptedException {
+		for (int i = 0; i < 200; i++) {
+			for (var instanz : instanzen) {
+				if (instanz.isActive() && instanz.getBean(LeaderWahl.class).istLeader()) {
+					return instanz;
+				}
+			}
+			Thread.sleep(50);
+		}
+		return Assertions.fail("No leader elected");
+	}
+
+	private static ConfigurableApplicationContext starte(String datenbank) {
+		return Instanzen.starte(new SpringApplicationBuilder(LibraryserverApplication.class, Zaehljob.class), datenbank,
+				"library.leader.lease-millis=3000", "library.leader.heartbeat-millis=500");
+	}
+
+	/**
+	 * Job, der nur auf dem Leader laufen darf. Wird nur in diesem Test registriert.
+	 */
+	public static class Zaehljob {
+
+		/**
+		 * Zählt die Ausführungen
+		 */
+		@LeaderOnly
+		@Scheduled(fixedDelay = 3600000, initialDelay = 3600000)
+		public void laufe() {
+			AUSFUEHRUNGEN.incrementAndGet();
+		}
+
+	}
+
+}
@@ -0,0 +1,209 @@
+package com.helvetia.m295.libraryserver.controller;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.zip.GZIPInputStream;
+
+import org.junit.jupiter.api.Assertions;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.result.MockMvcResultHandlers;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.helvetia.m295.libraryserver.LibraryserverApplication;
+import com.helvetia.m295.libraryserver.common.Adresse;
+import com.helvetia.m295.libraryserver.common.Kunde;
+import com.helvetia.m295.libraryserver.common.Medium;
+
+/**
+ * Klasse für Testfälle der ganzen Applikation {@link LibraryserverApplication}.
+ * Im Gegensatz zu den Controller-Tests werden keine Mocks verwendet, sondern eine H2-Datenbank.
+ * Die Tests laufen deshalb auch im Native Image ({@code ./gradlew -Pnative nativeTest}).
+ *
+ * @version 1.0.0
+ * @author Simon Fäs
+ * @see LibraryserverApplication
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+public class LibraryserverApplicationTests {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	/**
+	 * Test für {@link com.helvetia.m295.libraryserver.service.KundeController} und
+	 * {@link com.helvetia.m295.libraryserver.service.AdresseController} <br>
+	 * Testet: Erfassen eines Kunden und Abrufen über Id, Nachname und ZIP-Code der Adresse <br>
+	 * Erwartet: Statuscode 200 und der erfasste Kunde bzw. seine Adresse <br>
+	 *
+	 * @throws Exception Wenn ein Fehler beim Testen auftritt.
+	 */
+	@Test
+	public void testKundeAndAdresseShouldReturnOK() throws Exception {
+		var kunde = addKunde("Anna", "Huber", "Bahnhofstrasse 10", "3000");
+
+		mockMvc.perform(MockMvcRequestBuilders.get("/kunde/" + kunde.getId()))
+				.andExpect(MockMvcResultMatchers.status().is(200))
+				.andExpect(MockMvcResultMatchers.jsonPath("$.nachname").value("Huber"))
+				.andDo(MockMvcResultHandlers.print());
+		mockMvc.perform(MockMvcRequestBuilders.get("/kunde/nachname/Huber"))
+				.andExpect(MockMvcResultMatchers.status().is(200))
+				.andExpect(MockMvcResultMatchers.jsonPath("$[0].vorname").value("Anna"))
+				.andDo(MockMvcResultHandlers.print());
+		mockMvc.perform(MockMvcRequestBuilders.get("/adresse/zip/3000"))
+				.andExpect(MockMvcResultMatchers.status().is(200))
+				.andExpect(MockMvcResultMatchers.jsonPath("$[0].adresse").value("Bahnhofstrasse 10"))
+				.andDo(MockMvcResultHandlers.print());
+	}
+
+	/**
+	 * Test für {@link com.helvetia.m295.libraryserver.service.MediumController} <br>
+	 * Testet: Erfassen eines Mediums und Abrufen über Id und Titel <br>
+	 * Erwartet: Statuscode 200 und das erfasste Medium <br>
+	 *
+	 * @throws Exception Wenn ein Fehler beim Testen auftritt.
+	 */
+	@Test
+	public void testMediumShouldReturnOK() throws Exception {
+		var medium = addMedium("Der Hobbit");
+
+		mockMvc.perform(MockMvcRequestBuilders.get("/medium/" + medium.getId()))
+				.andExpect(MockMvcResultMatchers.status().is(200))
+				.andExpect(MockMvcResultMatchers.jsonPath("$.titel").value("Der Hobbit"))
+				.andDo(MockMvcResultHandlers.print());
+		mockMvc.perform(MockMvcRequestBuilders.get("/medium/titel/Der Hobbit"))
+				.andExpect(MockMvcResultMatchers.status().is(200))
+				.andExpect(MockMvcResultMatchers.jsonPath("$[0].id").value(medium.getId()))
+				.andDo(MockMvcResultHandlers.print());
+	}
+
+	/**
+	 * Test für {@link com.helvetia.m295.libraryserver.service.AusleiheController} <br>
+	 * Testet: Ausleihen eines Mediums und erneutes Ausleihen desselben Mediums <br>
+	 * Erwartet: Statuscode 200 für die erste Ausleihe, 409 für die zweite <br>
+	 *
+	 * @throws Exception Wenn ein Fehler beim Testen auftritt.
+	 */
+	@Test
+	public void testAusleiheShouldReturnConflictWhenLentOut() throws Exception {
+		var kunde = addKunde("Beat", "Keller", "Seestrasse 5", "6000");
+		var medium = addMedium("Momo");
+		var ausleihe = "{\"kunde\":{\"id\":" + kunde.getId() + "},\"medium\":{\"id\":" + medium.getId() + "}}";
+
+		mockMvc.perform(MockMvcRequestBuilders.post("/ausleihe").contentType("application/json").content(ausleihe))
+				.andExpect(MockMvcResultMatchers.status().is(200)).andDo(MockMvcResultHandlers.print());
+		mockMvc.perform(MockMvcRequestBuilders.get("/ausleihe/" + medium.getId()))
+				.andExpect(MockMvcResultMatchers.status().is(200))
+				.andExpect(MockMvcResultMatchers.jsonPath("$[0].kunde.id").value(kunde.getId()))
+				.andDo(MockMvcResultHandlers.print());
+		mockMvc.perform(MockMvcRequestBuilders.post("/ausleihe").contentType("application/json").content(ausleihe))
+				.andExpect(MockMvcResultMatchers.status().is(409)).andDo(MockMvcResultHandlers.print());
+	}
+
+	/**
+	 * Test für {@link com.helvetia.m295.libraryserver.service.ExportController} <br>
+	 * Testet: Export des Katalogs mit einem ausgeliehenen Medium und Download der Datei <br>
+	 * Erwartet: Statuscode 202 beim Start, danach eine gzip-Datei mit Header und dem ausgeliehenen Medium <br>
+	 *
+	 * @throws Exception Wenn ein Fehler beim Testen auftritt.
+	 */
+	@Test
+	public void testKatalogExportShouldContainLentMedium() throws Exception {
+		var kunde = addKunde("Cla", "Caduff", "Via Maistra 3", "7500");
+		var medium = addMedium("Krabat, Band 1");
+		mockMvc.perform(MockMvcRequestBuilders.post("/ausleihe").contentType("application/json")
+				.content("{\"kunde\":{\"id\":" + kunde.getId() + "},\"medium\":{\"id\":" + medium.getId() + "}}"))
+				.andExpect(MockMvcResultMatchers.status().is(200));
+
+		var start = mockMvc.perform(MockMvcRequestBuilders.post("/export/katalog"))
+				.andExpect(MockMvcResultMatchers.status().is(202)).andReturn();
+		var id = objectMapper.readTree(start.getResponse().getContentAsString()).get("id").asText();
+		var status = "LAUFEND";
+		for (int i = 0; i < 100 && status.equals("LAUFEND"); i++) {
+			Thread.sleep(50);
+			var result = mockMvc.perform(MockMvcRequestBuilders.get("/export/" + id)).andReturn();
+			status = objectMapper.readTree(result.getResponse().getContentAsString()).get("status").asText();
+		}
+		Assertions.assertEquals("FERTIG", status);
+
+		var download = mockMvc.perform(MockMvcRequestBuilders.get("/export/" + id + "/download"))
+				.andExpect(MockMvcResultMatchers.status().is(200)).andReturn();
+		try (var gzip = new GZIPInputStream(new ByteArrayInputStream(download.getResponse().getContentAsByteArray()))) {
+			var csv = new String(gzip.readAllBytes(), StandardCharsets.UTF_8);
+			Assertions.assertTrue(csv.startsWith("id,titel,autor,"), csv);
+			Assertions.assertTrue(csv.contains(medium.getId() + ",\"Krabat, Band 1\",Unbekannt,Fantasy,10,,B2,true,"
+					+ kunde.getId() + ","), csv);
+		}
+	}
+
+	/**
+	 * Test für {@link com.helvetia.m295.libraryserver.service.ReservierungController} <br>
+	 * Testet: Zwei Kunden reservieren ein ausgeliehenes Medium, danach wird es zurückgegeben <br>
+	 * Erwartet: Das Medium wird an den ersten wartenden Kunden ausgeliehen, der zweite rückt nach vorne <br>
+	 *
+	 * @throws Exception Wenn ein Fehler beim Testen auftritt.
+	 */
+	@Test
+	public void testRueckgabeShouldLendToFirstReservation() throws Exception {
+		var ausleiher = addKunde("Rita", "Frei", "Alpenstrasse 2", "6300");
+		var erster = addKunde("Urs", "Berger", "Alpenstrasse 4", "6300");
+		var zweiter = addKunde("Lea", "Steiner", "Alpenstrasse 6", "6300");
+		var medium = addMedium("Heidi");
+		var ausleihe = "{\"kunde\":{\"id\":" + ausleiher.getId() + "},\"medium\":{\"id\":" + medium.getId() + "}}";
+		var reservierung = "/medium/" + medium.getId() + "/reservierung";
+
+		mockMvc.perform(MockMvcRequestBuilders.post(reservierung).contentType("application/json")
+				.content("{\"id\":" + erster.getId() + "}")).andExpect(MockMvcResultMatchers.status().is(409));
+		mockMvc.perform(MockMvcRequestBuilders.post("/ausleihe").contentType("application/json").content(ausleihe))
+				.andExpect(MockMvcResultMatchers.status().is(200));
+		mockMvc.perform(MockMvcRequestBuilders.post(reservierung).contentType("application/json")
+				.content("{\"id\":" + erster.getId() + "}")).andExpect(MockMvcResultMatchers.status().is(200))
+				.andExpect(MockMvcResultMatchers.jsonPath("$.position").value(1));
+		mockMvc.perform(MockMvcRequestBuilders.post(reservierung).contentType("application/json")
+				.content("{\"id\":" + zweiter.getId() + "}")).andExpect(MockMvcResultMatchers.status().is(200))
+				.andExpect(MockMvcResultMatchers.jsonPath("$.position").value(2));
+
+		mockMvc.perform(MockMvcRequestBuilders.delete("/ausleihe/" + medium.getId()))
+				.andExpect(MockMvcResultMatchers.status().is(200));
+
+		mockMvc.perform(MockMvcRequestBuilders.get("/ausleihe/" + medium.getId()))
+				.andExpect(MockMvcResultMatchers.status().is(200))
+				.andExpect(MockMvcResultMatchers.jsonPath("$[0].kunde.id").value(erster.getId()))
+				.andDo(MockMvcResultHandlers.print());
+		mockMvc.perform(MockMvcRequestBuilders.get(reservierung)).andExpect(MockMvcResultMatchers.status().is(200))
+				.andExpect(MockMvcResultMatchers.jsonPath("$.length()").value(1))
+				.andExpect(MockMvcResultMatchers.jsonPath("$[0].kundeId").value(zweiter.getId()))
+				.andExpect(MockMvcResultMatchers.jsonPath("$[0].position").value(1));
+	}
+
+	private Kunde addKunde(String vorname, String nachname, String strasse, String zip) throws Exception {
+		var kunde = new Kunde(null, vorname, nachname, new Date(), new Adresse(null, strasse, "Bern", zip),
+				vorname.toLowerCase() + "@example.com");
+		var result = mockMvc.perform(MockMvcRequestBuilders.post("/kunde").contentType("application/json")
+				.content(objectMapper.writeValueAsString(kunde))).andExpect(MockMvcResultMatchers.status().is(200))
+				.andReturn();
+		return objectMapper.readValue(result.getResponse().getContentAsString(), Kunde.class);
+	}
+
+	private Medium addMedium(String titel) throws Exception {
+		var medium = new Medium(null, titel, "Unbekannt", "Fantasy", (short) 10, null, "B2");
+		var result = mockMvc.perform(MockMvcRequestBuilders.post("/medium").contentType("application/json")
+				.content(objectMapper.writeValueAsString(medium))).andExpect(MockMvcResultMatchers.status().is(200))
+				.andReturn();
+		return objectMapper.readValue(result.getResponse().getContentAsString(), Medium.class);
+	}
+
+}
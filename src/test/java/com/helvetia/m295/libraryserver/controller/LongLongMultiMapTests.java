@@ -0,0 +1,64 @@
+package com.helvetia.m295.libraryserver.controller;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import com.helvetia.m295.libraryserver.service.LongLongMultiMap;
+
+/**
+ * Klasse für Testfälle der Klasse {@link LongLongMultiMap}
+ *
+ * @version 1.0.0
+ * @author Simon Fäs
+ * @see LongLongMultiMap
+ */
+public class LongLongMultiMapTests {
+
+	/**
+	 * Test für {@link LongLongMultiMap#put(long, long)} und {@link LongLongMultiMap#remove(long, long)} <br>
+	 * Testet: Zufällige Änderungen mit wenigen Schlüsseln, damit viele Kollisionen und Vergrösserungen entstehen <br>
+	 * Erwartet: Nach jeder Änderung dieselben Werte wie eine {@link HashMap} von Sets <br>
+	 */
+	@Test
+	public void testRandomChangesShouldMatchHashMap() {
+		var map = new LongLongMultiMap(4);
+		var erwartet = new HashMap<Long, Set<Long>>();
+		var random = new Random(42);
+		for (int i = 0; i < 20000; i++) {
+			long key = random.nextInt(200);
+			long value = random.nextInt(20);
+			var werte = erwartet.computeIfAbsent(key, k -> new HashSet<>());
+			if (random.nextInt(3) == 0) {
+				Assertions.assertEquals(werte.remove(value), map.remove(key, value));
+			} else {
+				Assertions.assertEquals(werte.add(value), map.put(key, value));
+			}
+			var gelesen = new HashSet<Long>();
+			map.forEach(key, gelesen::add);
+			Assertions.assertEquals(werte, gelesen);
+			Assertions.assertEquals(werte.size(), map.count(key));
+		}
+		Assertions.assertEquals(erwartet.values().stream().mapToInt(Set::size).sum(), map.size());
+	}
+
+	/**
+	 * Test für {@link LongLongMultiMap#first(long, long)} <br>
+	 * Testet: Abfrage eines vorhandenen und eines entfernten Schlüssels <br>
+	 * Erwartet: Der Wert bzw. der Rückgabewert für fehlende Schlüssel <br>
+	 */
+	@Test
+	public void testFirstShouldReturnMissingAfterRemove() {
+		var map = new LongLongMultiMap(16);
+		map.put(7L, 70L);
+		Assertions.assertEquals(70L, map.first(7L, -1L));
+		Assertions.assertTrue(map.remove(7L, 70L));
+		Assertions.assertEquals(-1L, map.first(7L, -1L));
+		Assertions.assertThrows(IllegalArgumentException.class, () -> map.put(Long.MIN_VALUE, 1L));
+	}
+
+}
@@ -4,19 +4,25 @@ import java.util.List;
 import java.util.Optional;
 
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
 import org.mockito.Mockito;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.context.aot.DisabledInAotMode;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 import org.springframework.test.web.servlet.result.MockMvcResultHandlers;
 import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.helvetia.m295.libraryserver.common.ImportResultat;
 import com.helvetia.m295.libraryserver.common.Medium;
 import com.helvetia.m295.libraryserver.model.MediumRepository;
 import com.helvetia.m295.libraryserver.service.AusleiheController;
+import com.helvetia.m295.libraryserver.service.AusleiheIndex;
+import com.helvetia.m295.libraryserver.service.InvalidierungsBus;
+import com.helvetia.m295.libraryserver.service.MediumBulkImport;
 import com.helvetia.m295.libraryserver.service.MediumController;
 
 /**
@@ -27,6 +33,7 @@ import com.helvetia.m295.libraryserver.service.MediumController;
  * @see MediumController
  */
 @WebMvcTest(MediumController.class)
+@DisabledInAotMode
 public class MediumControllerTests {
 
 	private static final String END_POINT_PATH = "/medium";
@@ -43,6 +50,15 @@ public class MediumControllerTests {
 	@MockBean
 	private MediumRepository mediumRepository;
 
+	@MockBean
+	private MediumBulkImport mediumBulkImport;
+
+	@MockBean
+	private InvalidierungsBus invalidierungsBus;
+
+	@MockBean
+	private AusleiheIndex ausleiheIndex;
+
 	/**
 	 * Constructor, um Test-Objekte zu initialisieren
 	 */
@@ -54,8 +70,8 @@ public class MediumControllerTests {
 	/**
 	 * Test für {@link MediumController#getMediumById(Long)} <br>
 	 * Braucht: Test-Objekte, welche im Constructor generiert werden. <br>
-	 * Testet: Abrufen eines Mediums anhand seiner ID <br>
-	 * Erwartet: Statuscode 200 und ein Medium <br>
+	 * Testet: Abrufen eines ausgeliehenen Mediums anhand seiner ID <br>
+	 * Erwartet: Statuscode 200 und ein Medium mit Ausleihestatus aus dem Index <br>
 	 * 
 	 * @throws Exception Wenn ein Fehler beim Testen auftritt.
 	 */
@@ -63,10 +79,12 @@ public class MediumControllerTests {
 	public void testGetIdShouldReturnOK() throws Exception {
 
 		Mockito.when(mediumRepository.findById(id)).thenReturn(Optional.of(testMedium));
+		Mockito.when(ausleiheIndex.istAusgeliehen(id)).thenReturn(true);
 
 		mockMvc.perform(MockMvcRequestBuilders.get(END_POINT_PATH + "/" + id).contentType("application/json"))
 				.andExpect(MockMvcResultMatchers.status().is(200))
 				.andExpect(MockMvcResultMatchers.content().json(objectMapper.writeValueAsString(testMedium)))
+				.andExpect(MockMvcResultMatchers.jsonPath("$.ausgeliehen").value(true))
 				.andDo(MockMvcResultHandlers.print());
 	}
 	
@@ -111,7 +129,7 @@ public class MediumControllerTests {
 	 * Test für {@link MediumController#getAllMedien()} <br>
 	 * Braucht: Test-Objekte, welche im Constructor generiert werden. <br>
 	 * Testet: Abrufen aller Medien  <br>
-	 * Erwartet: Statuscode 200 und eine Liste von Medien <br>
+	 * Erwartet: Statuscode 200 und eine Liste von Medien, die laut Index nicht ausgeliehen sind <br>
 	 * 
 	 * @throws Exception Wenn ein Fehler beim Testen auftritt.
 	 */
@@ -123,6 +141,7 @@ public class MediumControllerTests {
 		mockMvc.perform(MockMvcRequestBuilders.get(END_POINT_PATH).contentType("application/json"))
 				.andExpect(MockMvcResultMatchers.status().is(200))
 				.andExpect(MockMvcResultMatchers.content().json(objectMapper.writeValueAsString(List.of(testMedium))))
+				.andExpect(MockMvcResultMatchers.jsonPath("$[0].ausgeliehen").value(false))
 				.andDo(MockMvcResultHandlers.print());
 	}
 
@@ -179,4 +198,24 @@ public class MediumControllerTests {
 				.andExpect(MockMvcResultMatchers.status().is(200)).andDo(MockMvcResultHandlers.print());
 	}
 
+	/**
+	 * Test für {@link MediumController#bulkUpsertMedien(jakarta.servlet.http.HttpServletRequest)} <br>
+	 * Braucht: Test-Objekte, welche im Constructor generiert werden. <br>
+	 * Testet: Massenimport von Medien <br>
+	 * Erwartet: Statuscode 200 und die Zusammenfassung des Imports <br>
+	 * 
+	 * @throws Exception Wenn ein Fehler beim Testen auftritt.
+	 */
+	@Test
+	public void testBulkPutShouldReturnOK() throws Exception {
+		var resultat = new ImportResultat(1, 0, 0, List.of());
+		Mockito.when(mediumBulkImport.importiere(ArgumentMatchers.any(), ArgumentMatchers.any())).thenReturn(resultat);
+
+		mockMvc.perform(MockMvcRequestBuilders.put(END_POINT_PATH + "/bulk").contentType("application/json")
+				.content(objectMapper.writeValueAsString(List.of(testMedium))))
+				.andExpect(MockMvcResultMatchers.status().is(200))
+				.andExpect(MockMvcResultMatchers.content().json(objectMapper.writeValueAsString(resultat)))
+				.andDo(MockMvcResultHandlers.print());
+	}
+
 }
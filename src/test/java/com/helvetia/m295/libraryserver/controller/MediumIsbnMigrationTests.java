@@ -0,0 +1,54 @@
+package com.helvetia.m295.libraryserver.controller;
+
+import java.util.List;
+import java.util.Map;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+/**
+ * Klasse für Testfälle der Migration {@code V3__medium_isbn_unique.sql} auf einer eigenen H2-Datenbank.
+ * Das Schema wird zuerst nur bis Version 2 migriert, damit Medien mit gleicher ISBN eingefügt werden können, wie sie
+ * in Schemas aus ddl-auto vorkommen.
+ *
+ * @version 1.0.0
+ * @author Simon Fäs
+ */
+public class MediumIsbnMigrationTests {
+
+	/**
+	 * Test für {@code V3__medium_isbn_unique.sql} <br>
+	 * Braucht: Zwei ISBNs, die je mehrfach vorkommen, und ein Medium mit eindeutiger ISBN <br>
+	 * Testet: Migration auf die neueste Version <br>
+	 * Erwartet: Die Migration gelingt, das Medium mit der kleinsten Id behält die ISBN, die anderen sind im Konflikt
+	 * festgehalten, und gleiche ISBNs werden danach abgelehnt <br>
+	 */
+	@Test
+	public void testMigrationShouldResolveDuplicateIsbns() {
+		var dataSource = new DriverManagerDataSource(
+				"jdbc:h2:mem:isbn;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1", "sa", "");
+		Flyway.configure().dataSource(dataSource).target("2").load().migrate();
+		var jdbcTemplate = new JdbcTemplate(dataSource);
+		var medien = Map.of(1L, 9783522202107L, 2L, 9783423715676L, 3L, 9783522202107L, 4L, 9783522202107L, 5L,
+				9783423715676L, 6L, 9783453317796L);
+		medien.forEach((id, isbn) -> jdbcTemplate.update(
+				"INSERT INTO medium (id, titel, autor, isbn) VALUES (?, 'Momo', 'Michael Ende', ?)", id, isbn));
+
+		Flyway.configure().dataSource(dataSource).load().migrate();
+
+		Assertions.assertEquals(List.of(1L, 2L, 6L),
+				jdbcTemplate.queryForList("SELECT id FROM medium WHERE isbn IS NOT NULL ORDER BY id", Long.class));
+		Assertions.assertEquals(9783522202107L,
+				jdbcTemplate.queryForObject("SELECT isbn FROM medium WHERE id = 1", Long.class));
+		Assertions.assertEquals(List.of(Map.of("medienid", 3L, "isbn", 9783522202107L, "behalten", 1L),
+				Map.of("medienid", 4L, "isbn", 9783522202107L, "behalten", 1L),
+				Map.of("medienid", 5L, "isbn", 9783423715676L, "behalten", 2L)),
+				jdbcTemplate.queryForList("SELECT medienid, isbn, behalten FROM medium_isbn_konflikt ORDER BY medienid"));
+		Assertions.assertThrows(RuntimeException.class, () -> jdbcTemplate
+				.update("INSERT INTO medium (titel, autor, isbn) VALUES ('Momo', 'Michael Ende', 9783522202107)"));
+	}
+
+}
@@ -0,0 +1,78 @@
+package com.helvetia.m295.libraryserver.controller;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+
+import com.helvetia.m295.libraryserver.LibraryserverApplication;
+import com.helvetia.m295.libraryserver.service.PerfDatenGenerator;
+
+/**
+ * Klasse für Testfälle des {@link PerfDatenGenerator} im Profil {@code perf} mit kleinen Mengen.
+ * Die Stapelgrösse ist so gewählt, dass jede Tabelle mit einem unvollständigen letzten Stapel endet.
+ *
+ * @version 1.0.0
+ * @author Simon Fäs
+ * @see PerfDatenGenerator
+ */
+public class PerfDatenGeneratorTests {
+
+	/**
+	 * Test für {@link PerfDatenGenerator#run} <br>
+	 * Braucht: Leere Datenbank, mehr Ausleihen als Medien konfiguriert <br>
+	 * Testet: Start im Profil {@code perf} und anschliessendes Erstellen eines Mediums über die API <br>
+	 * Erwartet: Alle Zeilen samt Historie erzeugt, jedes Medium höchstens einmal ausgeliehen, das neue Medium erhält
+	 * eine freie Id <br>
+	 *
+	 * @throws Exception Wenn ein Fehler beim Testen auftritt.
+	 */
+	@Test
+	public void testGeneratorShouldLoadConfiguredVolumes() throws Exception {
+		try (var context = starte("perf_daten")) {
+			var jdbcTemplate = context.getBean(JdbcTemplate.class);
+			Assertions.assertEquals(20, zaehle(jdbcTemplate, "SELECT COUNT(*) FROM adresse"));
+			Assertions.assertEquals(40, zaehle(jdbcTemplate, "SELECT COUNT(*) FROM kunde"));
+			Assertions.assertEquals(50, zaehle(jdbcTemplate, "SELECT COUNT(*) FROM medium"));
+			Assertions.assertEquals(50, zaehle(jdbcTemplate, "SELECT COUNT(*) FROM ausleihe"));
+			Assertions.assertEquals(50, zaehle(jdbcTemplate, "SELECT COUNT(DISTINCT medienid) FROM ausleihe"));
+			Assertions.assertEquals(150, zaehle(jdbcTemplate, "SELECT COUNT(*) FROM ausleihe_historie"));
+			Assertions.assertEquals(0, zaehle(jdbcTemplate,
+					"SELECT COUNT(*) FROM kunde k LEFT JOIN adresse a ON a.id = k.addressid WHERE a.id IS NULL"));
+
+			Instanzen.mockMvc(context)
+					.perform(MockMvcRequestBuilders.post("/medium").contentType("application/json")
+							.content("{\"titel\":\"Krabat\",\"autor\":\"Otfried Preussler\",\"genre\":\"Fantasy\","
+									+ "\"altersfreigabe\":12,\"standortcode\":\"C1\"}"))
+					.andExpect(MockMvcResultMatchers.status().is(200))
+					.andExpect(MockMvcResultMatchers.jsonPath("$.id").value(51));
+		}
+	}
+
+	/**
+	 * Test für {@link PerfDatenGenerator#run} <br>
+	 * Braucht: Datenbank, die bereits Medien enthält <br>
+	 * Testet: Zweiter Start auf derselben Datenbank <br>
+	 * Erwartet: Es werden keine weiteren Daten erzeugt <br>
+	 */
+	@Test
+	public void testGeneratorShouldSkipExistingData() {
+		try (var erster = starte("perf_zweimal"); var zweiter = starte("perf_zweimal")) {
+			Assertions.assertEquals(50, zaehle(zweiter.getBean(JdbcTemplate.class), "SELECT COUNT(*) FROM medium"));
+		}
+	}
+
+	private static long zaehle(JdbcTemplate jdbcTemplate, String sql) {
+		return jdbcTemplate.queryForObject(sql, Long.class);
+	}
+
+	private static ConfigurableApplicationContext starte(String datenbank) {
+		return Instanzen.starte(new SpringApplicationBuilder(LibraryserverApplication.class).profiles("perf"), datenbank,
+				"library.perf.adressen=20", "library.perf.kunden=40", "library.perf.medien=50",
+				"library.perf.ausleihen=60", "library.perf.historie=100", "library.perf.batch=7");
+	}
+
+}
@@ -0,0 +1,147 @@
+package com.helvetia.m295.libraryserver.controller;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.context.aot.DisabledInAotMode;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.result.MockMvcResultHandlers;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+
+import com.helvetia.m295.libraryserver.service.PoolController;
+import com.zaxxer.hikari.HikariConfigMXBean;
+import com.zaxxer.hikari.HikariDataSource;
+
+/**
+ * Klasse für Testfälle der Klasse {@link PoolController}, Änderungen sind erlaubt
+ *
+ * @version 1.0.0
+ * @author Simon Fäs
+ * @see PoolController
+ */
+@WebMvcTest(controllers = PoolController.class, properties = "library.pool.aenderungen=true")
+@DisabledInAotMode
+public class PoolControllerTests {
+
+	private static final String END_POINT_PATH = "/management/pool";
+	private static final String name = "primary";
+
+	private HikariConfigMXBean config = Mockito.mock(HikariConfigMXBean.class);
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private PoolController poolController;
+
+	@MockBean
+	private HikariDataSource dataSource;
+
+	/**
+	 * Richtet den Pool-Mock mit 10 Verbindungen ein
+	 */
+	@BeforeEach
+	public void setup() {
+		Mockito.when(dataSource.getPoolName()).thenReturn(name);
+		Mockito.when(dataSource.getHikariConfigMXBean()).thenReturn(config);
+		Mockito.when(config.getMaximumPoolSize()).thenReturn(10);
+		Mockito.when(config.getMinimumIdle()).thenReturn(10);
+	}
+
+	/**
+	 * Test für {@link PoolController#getPool(String)} <br>
+	 * Testet: Abrufen eines Pools, der noch keine Verbindung geöffnet hat <br>
+	 * Erwartet: Statuscode 200 mit den Einstellungen und einem leeren Histogramm <br>
+	 *
+	 * @throws Exception Wenn ein Fehler beim Testen auftritt.
+	 */
+	@Test
+	public void testGetShouldReturnOK() throws Exception {
+		mockMvc.perform(MockMvcRequestBuilders.get(END_POINT_PATH + "/" + name))
+				.andExpect(MockMvcResultMatchers.status().is(200))
+				.andExpect(MockMvcResultMatchers.jsonPath("$.pool").value(name))
+				.andExpect(MockMvcResultMatchers.jsonPath("$.aktiv").value(0))
+				.andExpect(MockMvcResultMatchers.jsonPath("$.einstellungen.maximumPoolSize").value(10))
+				.andDo(MockMvcResultHandlers.print());
+	}
+
+	/**
+	 * Test für {@link PoolController#getPool(String)} <br>
+	 * Testet: Abrufen eines unbekannten Pools <br>
+	 * Erwartet: Statuscode 404 <br>
+	 *
+	 * @throws Exception Wenn ein Fehler beim Testen auftritt.
+	 */
+	@Test
+	public void testGetShouldReturnNotFound() throws Exception {
+		mockMvc.perform(MockMvcRequestBuilders.get(END_POINT_PATH + "/replica"))
+				.andExpect(MockMvcResultMatchers.status().is(404))
+				.andDo(MockMvcResultHandlers.print());
+	}
+
+	/**
+	 * Test für {@link PoolController#updatePool} <br>
+	 * Testet: Verkleinern des Pools und Ändern des Timeouts <br>
+	 * Erwartet: Statuscode 200, zuerst wird minimumIdle und danach maximumPoolSize gesetzt <br>
+	 *
+	 * @throws Exception Wenn ein Fehler beim Testen auftritt.
+	 */
+	@Test
+	public void testPatchShouldResizePool() throws Exception {
+		mockMvc.perform(MockMvcRequestBuilders.patch(END_POINT_PATH + "/" + name).contentType("application/json")
+				.content("{\"maximumPoolSize\":5,\"minimumIdle\":2,\"connectionTimeout\":2000}"))
+				.andExpect(MockMvcResultMatchers.status().is(200))
+				.andDo(MockMvcResultHandlers.print());
+
+		var reihenfolge = Mockito.inOrder(config);
+		reihenfolge.verify(config).setMinimumIdle(2);
+		reihenfolge.verify(config).setMaximumPoolSize(5);
+		Mockito.verify(config).setConnectionTimeout(2000L);
+	}
+
+	/**
+	 * Test für {@link PoolController#updatePool} <br>
+	 * Testet: Ändern mit minimumIdle über maximumPoolSize <br>
+	 * Erwartet: Statuscode 400, der Pool wird nicht geändert <br>
+	 *
+	 * @throws Exception Wenn ein Fehler beim Testen auftritt.
+	 */
+	@Test
+	public void testPatchShouldReturnBadRequest() throws Exception {
+		mockMvc.perform(MockMvcRequestBuilders.patch(END_POINT_PATH + "/" + name).contentType("application/json")
+				.content("{\"maximumPoolSize\":5,\"minimumIdle\":8}"))
+				.andExpect(MockMvcResultMatchers.status().is(400))
+				.andDo(MockMvcResultHandlers.print());
+
+		Mockito.verify(config, Mockito.never()).setMaximumPoolSize(Mockito.anyInt());
+	}
+
+	/**
+	 * Test für {@link PoolController#updatePool} <br>
+	 * Braucht: {@code library.pool.aenderungen=false} wie in der Standardkonfiguration <br>
+	 * Testet: Verkleinern des Pools <br>
+	 * Erwartet: Statuscode 403, der Pool wird nicht geändert <br>
+	 *
+	 * @throws Exception Wenn ein Fehler beim Testen auftritt.
+	 */
+	@Test
+	public void testPatchShouldReturnForbiddenWhenDisabled() throws Exception {
+		ReflectionTestUtils.setField(poolController, "aenderungen", false);
+		try {
+			mockMvc.perform(MockMvcRequestBuilders.patch(END_POINT_PATH + "/" + name).contentType("application/json")
+					.content("{\"maximumPoolSize\":5}"))
+					.andExpect(MockMvcResultMatchers.status().is(403))
+					.andDo(MockMvcResultHandlers.print());
+		} finally {
+			ReflectionTestUtils.setField(poolController, "aenderungen", true);
+		}
+
+		Mockito.verify(config, Mockito.never()).setMaximumPoolSize(Mockito.anyInt());
+	}
+
+}
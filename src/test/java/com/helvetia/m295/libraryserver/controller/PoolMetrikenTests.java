@@ -0,0 +1,111 @@
+package com.helvetia.m295.libraryserver.controller;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import com.helvetia.m295.libraryserver.service.PoolMetriken;
+import com.zaxxer.hikari.HikariConfigMXBean;
+import com.zaxxer.hikari.HikariDataSource;
+
+/**
+ * Klasse für Testfälle der Klasse {@link PoolMetriken}
+ *
+ * @version 1.0.0
+ * @author Simon Fäs
+ * @see PoolMetriken
+ */
+public class PoolMetrikenTests {
+
+	/**
+	 * Entfernt die Controller-Methode vom Test-Thread
+	 */
+	@AfterEach
+	public void cleanup() {
+		PoolMetriken.setHandler(null);
+	}
+
+	/**
+	 * Test für {@link PoolMetriken#statistik(HikariDataSource)} <br>
+	 * Testet: Drei Bezüge mit unterschiedlicher Wartezeit und ein Timeout <br>
+	 * Erwartet: Die Bezüge liegen in den passenden Klassen des Histogramms <br>
+	 */
+	@Test
+	public void testHistogramShouldCountAcquisitions() {
+		var metriken = new PoolMetriken(0);
+		var tracker = metriken.create("primary", null);
+		tracker.recordConnectionAcquiredNanos(TimeUnit.MICROSECONDS.toNanos(50));
+		tracker.recordConnectionAcquiredNanos(TimeUnit.MILLISECONDS.toNanos(3));
+		tracker.recordConnectionAcquiredNanos(TimeUnit.SECONDS.toNanos(60));
+		tracker.recordConnectionTimeout();
+
+		var statistik = metriken.statistik(pool("primary"));
+
+		Assertions.assertEquals(3, statistik.bezuege());
+		Assertions.assertEquals(1, statistik.timeouts());
+		Assertions.assertEquals(1L, statistik.wartezeitMillis().get("0.1"));
+		Assertions.assertEquals(1L, statistik.wartezeitMillis().get("5"));
+		Assertions.assertEquals(1L, statistik.wartezeitMillis().get("+Inf"));
+		Assertions.assertEquals(0L, statistik.wartezeitMillis().get("1"));
+	}
+
+	/**
+	 * Test für {@link PoolMetriken#pruefeLecks()} <br>
+	 * Testet: Eine Verbindung wird von einer Controller-Methode länger als die Leck-Schwelle gehalten <br>
+	 * Erwartet: Das Leck wird genau einmal mit der Controller-Methode gemeldet <br>
+	 *
+	 * @throws Exception Wenn ein Fehler beim Testen auftritt.
+	 */
+	@Test
+	public void testLeakShouldReportHandler() throws Exception {
+		var metriken = new PoolMetriken(20);
+		var tracker = metriken.create("primary", null);
+		PoolMetriken.setHandler("MediumController#getAllMedien");
+		tracker.recordConnectionAcquiredNanos(1000);
+		Assertions.assertTrue(metriken.pruefeLecks().isEmpty());
+
+		Thread.sleep(40);
+		var lecks = metriken.pruefeLecks();
+
+		Assertions.assertEquals(1, lecks.size());
+		Assertions.assertEquals("MediumController#getAllMedien", lecks.getFirst().handler());
+		Assertions.assertFalse(lecks.getFirst().freigegeben());
+		Assertions.assertTrue(metriken.pruefeLecks().isEmpty());
+		tracker.recordConnectionUsageMillis(40);
+		Assertions.assertEquals(1, metriken.getLecks("primary").size());
+	}
+
+	/**
+	 * Test für {@link PoolMetriken#getLecks(String)} <br>
+	 * Testet: Eine Verbindung wird zu lange gehalten und vor der nächsten Prüfung zurückgegeben <br>
+	 * Erwartet: Das Leck wird bei der Rückgabe gemeldet, ohne Controller-Methode mit dem Namen des Threads <br>
+	 *
+	 * @throws Exception Wenn ein Fehler beim Testen auftritt.
+	 */
+	@Test
+	public void testLeakShouldBeReportedOnReturn() throws Exception {
+		var metriken = new PoolMetriken(20);
+		var tracker = metriken.create("primary", null);
+		tracker.recordConnectionAcquiredNanos(1000);
+		Thread.sleep(40);
+		tracker.recordConnectionUsageMillis(40);
+
+		var lecks = metriken.getLecks("primary");
+
+		Assertions.assertEquals(1, lecks.size());
+		Assertions.assertEquals(Thread.currentThread().getName(), lecks.getFirst().handler());
+		Assertions.assertTrue(lecks.getFirst().freigegeben());
+		Assertions.assertTrue(metriken.pruefeLecks().isEmpty());
+	}
+
+	private static HikariDataSource pool(String name) {
+		var pool = Mockito.mock(HikariDataSource.class);
+		Mockito.when(pool.getPoolName()).thenReturn(name);
+		Mockito.when(pool.getHikariConfigMXBean()).thenReturn(Mockito.mock(HikariConfigMXBean.class));
+		return pool;
+	}
+
+}
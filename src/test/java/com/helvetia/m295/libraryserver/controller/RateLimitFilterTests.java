@@ -0,0 +1,167 @@
+package com.helvetia.m295.libraryserver.controller;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import com.helvetia.m295.libraryserver.service.LoadShedder;
+import com.helvetia.m295.libraryserver.service.RateLimitFilter;
+import com.helvetia.m295.libraryserver.service.RateLimiter;
+
+/**
+ * Klasse für Testfälle der Klassen {@link RateLimitFilter} und {@link RateLimiter}
+ *
+ * @version 1.0.0
+ * @author Simon Fäs
+ * @see RateLimitFilter
+ */
+public class RateLimitFilterTests {
+
+	/**
+	 * Test für {@link RateLimitFilter} <br>
+	 * Testet: Mehr Katalog-Requests eines Clients als der Burst erlaubt <br>
+	 * Erwartet: Statuscode 429 mit Retry-After, sobald der Burst aufgebraucht ist <br>
+	 *
+	 * @throws Exception Wenn ein Fehler beim Testen auftritt.
+	 */
+	@Test
+	public void testCatalogueShouldReturnTooManyRequests() throws Exception {
+		var filter = new RateLimitFilter(new RateLimiter(1, 2, 60000), new LoadShedder(List.of(), 5, Long.MAX_VALUE),
+				Set.of());
+
+		Assertions.assertEquals(200, perform(filter, "GET", "/medium").getStatus());
+		Assertions.assertEquals(200, perform(filter, "GET", "/medium/titel/Momo").getStatus());
+		var response = perform(filter, "GET", "/medium");
+		Assertions.assertEquals(429, response.getStatus());
+		Assertions.assertNotNull(response.getHeader("Retry-After"));
+	}
+
+	/**
+	 * Test für {@link RateLimitFilter} <br>
+	 * Testet: Ausleihen eines Clients, dessen Katalog-Requests begrenzt werden <br>
+	 * Erwartet: Ausleihen werden nie begrenzt <br>
+	 *
+	 * @throws Exception Wenn ein Fehler beim Testen auftritt.
+	 */
+	@Test
+	public void testCheckoutShouldNotBeLimited() throws Exception {
+		var filter = new RateLimitFilter(new RateLimiter(1, 1, 60000), new LoadShedder(List.of(), 5, Long.MAX_VALUE),
+				Set.of());
+
+		perform(filter, "GET", "/medium");
+		Assertions.assertEquals(429, perform(filter, "GET", "/adresse/strasse/See").getStatus());
+		for (int i = 0; i < 10; i++) {
+			Assertions.assertEquals(200, perform(filter, "POST", "/ausleihe").getStatus());
+		}
+	}
+
+	/**
+	 * Test für {@link RateLimitFilter} <br>
+	 * Testet: Katalog-Request bei zu hoher Antwortzeit <br>
+	 * Erwartet: Statuscode 503 für den Katalog, Ausleihen werden weiterhin angenommen <br>
+	 *
+	 * @throws Exception Wenn ein Fehler beim Testen auftritt.
+	 */
+	@Test
+	public void testOverloadShouldReturnServiceUnavailable() throws Exception {
+		var loadShedder = new LoadShedder(List.of(), 5, TimeUnit.MILLISECONDS.toNanos(100));
+		for (int i = 0; i < 50; i++) {
+			loadShedder.recordLatency(TimeUnit.SECONDS.toNanos(1));
+		}
+		var filter = new RateLimitFilter(new RateLimiter(100, 100, 60000), loadShedder, Set.of());
+
+		Assertions.assertEquals(503, perform(filter, "GET", "/medium").getStatus());
+		Assertions.assertEquals(200, perform(filter, "POST", "/ausleihe").getStatus());
+	}
+
+	/**
+	 * Test für {@link RateLimitFilter} und {@link LoadShedder#recordLatency(long)} <br>
+	 * Testet: Ein langsamer Bulk-Import und danach ein Katalog-Request <br>
+	 * Erwartet: Nur der Katalog-Request fliesst in die geglättete Antwortzeit ein, der Katalog bleibt offen <br>
+	 *
+	 * @throws Exception Wenn ein Fehler beim Testen auftritt.
+	 */
+	@Test
+	public void testSlowImportShouldNotShedCatalogue() throws Exception {
+		var loadShedder = new LoadShedder(List.of(), 5, TimeUnit.MILLISECONDS.toNanos(100));
+		var filter = new RateLimitFilter(new RateLimiter(100, 100, 60000), loadShedder, Set.of());
+
+		var request = new MockHttpServletRequest("PUT", "/medium/bulk");
+		filter.doFilter(request, new MockHttpServletResponse(), (req, res) -> {
+			try {
+				Thread.sleep(300);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		});
+		Assertions.assertEquals(0, loadShedder.getLatencyNanos());
+
+		Assertions.assertEquals(200, perform(filter, "GET", "/medium").getStatus());
+		Assertions.assertTrue(loadShedder.getLatencyNanos() > 0);
+		Assertions.assertFalse(loadShedder.isOverloaded());
+	}
+
+	/**
+	 * Test für {@link RateLimitFilter} <br>
+	 * Braucht: Ein Client mit konfiguriertem API-Key <br>
+	 * Testet: Katalog-Requests mit dem bekannten Key und mit je einem neuen, unbekannten Key von derselben Adresse <br>
+	 * Erwartet: Der bekannte Key hat einen eigenen Bucket, die unbekannten Keys teilen den Bucket der Adresse und
+	 * werden nach dem Burst begrenzt <br>
+	 *
+	 * @throws Exception Wenn ein Fehler beim Testen auftritt.
+	 */
+	@Test
+	public void testUnknownApiKeyShouldCountByAddress() throws Exception {
+		var filter = new RateLimitFilter(new RateLimiter(1, 2, 60000), new LoadShedder(List.of(), 5, Long.MAX_VALUE),
+				Set.of("ausleihe-terminal"));
+
+		Assertions.assertEquals(200, perform(filter, "GET", "/medium", "erfunden-1").getStatus());
+		Assertions.assertEquals(200, perform(filter, "GET", "/medium", "erfunden-2").getStatus());
+		Assertions.assertEquals(429, perform(filter, "GET", "/medium", "erfunden-3").getStatus());
+		Assertions.assertEquals(429, perform(filter, "GET", "/medium").getStatus());
+		Assertions.assertEquals(200, perform(filter, "GET", "/medium", "ausleihe-terminal").getStatus());
+	}
+
+	/**
+	 * Test für {@link RateLimiter#evictIdle()} <br>
+	 * Testet: Aufräumen der Buckets ohne Wartezeit <br>
+	 * Erwartet: Kein Bucket bleibt übrig <br>
+	 */
+	@Test
+	public void testEvictIdleShouldRemoveBuckets() {
+		var rateLimiter = new RateLimiter(1000, 1, 0);
+		rateLimiter.tryAcquire("ip:127.0.0.1");
+		Assertions.assertEquals(1, rateLimiter.size());
+
+		Assertions.assertTimeoutPreemptively(Duration.ofSeconds(5), () -> {
+			while (rateLimiter.size() > 0) {
+				rateLimiter.evictIdle();
+				Thread.sleep(5);
+			}
+		});
+	}
+
+	private static MockHttpServletResponse perform(RateLimitFilter filter, String method, String path)
+			throws Exception {
+		return perform(filter, method, path, null);
+	}
+
+	private static MockHttpServletResponse perform(RateLimitFilter filter, String method, String path, String apiKey)
+			throws Exception {
+		var request = new MockHttpServletRequest(method, path);
+		if (apiKey != null) {
+			request.addHeader(RateLimitFilter.API_KEY_HEADER, apiKey);
+		}
+		var response = new MockHttpServletResponse();
+		filter.doFilter(request, response, new MockFilterChain());
+		return response;
+	}
+
+}
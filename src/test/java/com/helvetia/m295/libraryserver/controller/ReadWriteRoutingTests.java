@@ -0,0 +1,106 @@
+package com.helvetia.m295.libraryserver.controller;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.helvetia.m295.libraryserver.model.ReadWriteRoutingDataSource;
+import com.helvetia.m295.libraryserver.service.DataSourceConfiguration;
+
+/**
+ * Klasse für Testfälle der Klasse {@link ReadWriteRoutingDataSource}.
+ * Verwendet zwei In-Memory H2-Datenbanken, welche sich durch den Inhalt der Tabelle {@code herkunft} unterscheiden.
+ *
+ * @version 1.0.0
+ * @author Simon Fäs
+ * @see ReadWriteRoutingDataSource
+ * @see DataSourceConfiguration
+ */
+public class ReadWriteRoutingTests {
+
+	private JdbcTemplate jdbcTemplate;
+	private TransactionTemplate readOnlyTemplate;
+	private TransactionTemplate readWriteTemplate;
+
+	/**
+	 * Constructor, um die beiden Datenbanken und die routende DataSource zu initialisieren
+	 */
+	public ReadWriteRoutingTests() {
+		var primary = createDatabase("primary");
+		var replica = createDatabase("replica");
+		var routing = DataSourceConfiguration.routingDataSource(primary, replica);
+		var transactionManager = new DataSourceTransactionManager(routing);
+
+		this.jdbcTemplate = new JdbcTemplate(routing);
+		this.readWriteTemplate = new TransactionTemplate(transactionManager);
+		this.readOnlyTemplate = new TransactionTemplate(transactionManager);
+		this.readOnlyTemplate.setReadOnly(true);
+	}
+
+	/**
+	 * Setzt Read-your-writes nach jedem Test zurück
+	 */
+	@AfterEach
+	public void clearReadYourWrites() {
+		ReadWriteRoutingDataSource.clearReadYourWrites();
+	}
+
+	/**
+	 * Testet: Lesen in einer readOnly-Transaktion <br>
+	 * Erwartet: Die Abfrage wird von der Replika beantwortet <br>
+	 */
+	@Test
+	public void testReadOnlyShouldUseReplica() {
+		Assertions.assertEquals("replica", readOnlyTemplate.execute(status -> herkunft()));
+	}
+
+	/**
+	 * Testet: Lesen in einer schreibenden Transaktion <br>
+	 * Erwartet: Die Abfrage wird von der Primär-Datenbank beantwortet <br>
+	 */
+	@Test
+	public void testReadWriteShouldUsePrimary() {
+		Assertions.assertEquals("primary", readWriteTemplate.execute(status -> herkunft()));
+	}
+
+	/**
+	 * Testet: Lesen ohne Transaktion <br>
+	 * Erwartet: Die Abfrage wird von der Primär-Datenbank beantwortet <br>
+	 */
+	@Test
+	public void testWithoutTransactionShouldUsePrimary() {
+		Assertions.assertEquals("primary", herkunft());
+	}
+
+	/**
+	 * Testet: Lesen in einer readOnly-Transaktion mit aktivem Read-your-writes <br>
+	 * Erwartet: Die Abfrage wird von der Primär-Datenbank beantwortet und sieht den eigenen Schreibzugriff <br>
+	 */
+	@Test
+	public void testReadYourWritesShouldUsePrimary() {
+		ReadWriteRoutingDataSource.enableReadYourWrites();
+		readWriteTemplate.executeWithoutResult(status -> jdbcTemplate.update("UPDATE herkunft SET name = 'primary-neu'"));
+
+		Assertions.assertEquals("primary-neu", readOnlyTemplate.execute(status -> herkunft()));
+	}
+
+	private String herkunft() {
+		return jdbcTemplate.queryForObject("SELECT name FROM herkunft", String.class);
+	}
+
+	private static DataSource createDatabase(String name) {
+		var dataSource = new DriverManagerDataSource("jdbc:h2:mem:routing-" + name + ";DB_CLOSE_DELAY=-1", "sa", "");
+		var template = new JdbcTemplate(dataSource);
+		template.execute("DROP TABLE IF EXISTS herkunft");
+		template.execute("CREATE TABLE herkunft (name VARCHAR(20))");
+		template.update("INSERT INTO herkunft VALUES (?)", name);
+		return dataSource;
+	}
+
+}
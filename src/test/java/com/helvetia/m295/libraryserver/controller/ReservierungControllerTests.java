@@ -0,0 +1,139 @@
+package com.helvetia.m295.libraryserver.controller;
+
+import java.util.Date;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.context.aot.DisabledInAotMode;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.result.MockMvcResultHandlers;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.helvetia.m295.libraryserver.common.ReservierungDto;
+import com.helvetia.m295.libraryserver.service.ReservierungController;
+import com.helvetia.m295.libraryserver.service.Reservierungen;
+
+/**
+ * Klasse für Testfälle der Klasse {@link ReservierungController}
+ *
+ * @version 1.0.0
+ * @author Simon Fäs
+ * @see ReservierungController
+ */
+@WebMvcTest(ReservierungController.class)
+@DisabledInAotMode
+public class ReservierungControllerTests {
+
+	private static final String END_POINT_PATH = "/medium/1/reservierung";
+	private static final Long id = 1L;
+
+	private ReservierungDto testReservierung;
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	@MockBean
+	private Reservierungen reservierungen;
+
+	/**
+	 * Constructor, um Test-Objekte zu initialisieren
+	 */
+	public ReservierungControllerTests() {
+		this.testReservierung = new ReservierungDto(7L, id, 2L, new Date(), 1);
+	}
+
+	/**
+	 * Test für {@link ReservierungController#addReservierung} <br>
+	 * Braucht: Test-Objekte, welche im Constructor generiert werden. <br>
+	 * Testet: Reservieren eines ausgeliehenen Mediums <br>
+	 * Erwartet: Statuscode 200 und die Reservierung mit Position <br>
+	 *
+	 * @throws Exception Wenn ein Fehler beim Testen auftritt.
+	 */
+	@Test
+	public void testPostShouldReturnOK() throws Exception {
+		Mockito.when(reservierungen.reserviere(id, 2L)).thenReturn(testReservierung);
+
+		mockMvc.perform(MockMvcRequestBuilders.post(END_POINT_PATH).contentType("application/json").content("{\"id\":2}"))
+				.andExpect(MockMvcResultMatchers.status().is(200))
+				.andExpect(MockMvcResultMatchers.content().json(objectMapper.writeValueAsString(testReservierung)))
+				.andDo(MockMvcResultHandlers.print());
+	}
+
+	/**
+	 * Test für {@link ReservierungController#addReservierung} <br>
+	 * Testet: Reservieren ohne Id des Kunden <br>
+	 * Erwartet: Statuscode 400 <br>
+	 *
+	 * @throws Exception Wenn ein Fehler beim Testen auftritt.
+	 */
+	@Test
+	public void testPostShouldReturnBadRequest() throws Exception {
+		mockMvc.perform(MockMvcRequestBuilders.post(END_POINT_PATH).contentType("application/json").content("{}"))
+				.andExpect(MockMvcResultMatchers.status().is(400))
+				.andDo(MockMvcResultHandlers.print());
+	}
+
+	/**
+	 * Test für {@link ReservierungController#addReservierung} <br>
+	 * Testet: Reservieren eines Mediums, das nicht ausgeliehen ist <br>
+	 * Erwartet: Statuscode 409 <br>
+	 *
+	 * @throws Exception Wenn ein Fehler beim Testen auftritt.
+	 */
+	@Test
+	public void testPostShouldReturnConflict() throws Exception {
+		Mockito.when(reservierungen.reserviere(id, 2L))
+				.thenThrow(new ResponseStatusException(HttpStatus.CONFLICT, "Medium is not lent out"));
+
+		mockMvc.perform(MockMvcRequestBuilders.post(END_POINT_PATH).contentType("application/json").content("{\"id\":2}"))
+				.andExpect(MockMvcResultMatchers.status().is(409))
+				.andDo(MockMvcResultHandlers.print());
+	}
+
+	/**
+	 * Test für {@link ReservierungController#getReservierungen(Long)} <br>
+	 * Braucht: Test-Objekte, welche im Constructor generiert werden. <br>
+	 * Testet: Abrufen der Warteschlange eines Mediums <br>
+	 * Erwartet: Statuscode 200 und eine Liste von Reservierungen <br>
+	 *
+	 * @throws Exception Wenn ein Fehler beim Testen auftritt.
+	 */
+	@Test
+	public void testGetShouldReturnOK() throws Exception {
+		Mockito.when(reservierungen.getWarteschlange(id)).thenReturn(List.of(testReservierung));
+
+		mockMvc.perform(MockMvcRequestBuilders.get(END_POINT_PATH))
+				.andExpect(MockMvcResultMatchers.status().is(200))
+				.andExpect(MockMvcResultMatchers.content().json(objectMapper.writeValueAsString(List.of(testReservierung))))
+				.andDo(MockMvcResultHandlers.print());
+	}
+
+	/**
+	 * Test für {@link ReservierungController#deleteReservierung(Long, Long)} <br>
+	 * Testet: Stornieren einer Reservierung <br>
+	 * Erwartet: Statuscode 200 und die Reservierung wird storniert <br>
+	 *
+	 * @throws Exception Wenn ein Fehler beim Testen auftritt.
+	 */
+	@Test
+	public void testDeleteShouldReturnOK() throws Exception {
+		mockMvc.perform(MockMvcRequestBuilders.delete(END_POINT_PATH + "/2"))
+				.andExpect(MockMvcResultMatchers.status().is(200))
+				.andDo(MockMvcResultHandlers.print());
+
+		Mockito.verify(reservierungen).storniere(id, 2L);
+	}
+
+}
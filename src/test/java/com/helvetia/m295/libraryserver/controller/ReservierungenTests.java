@@ -0,0 +1,185 @@
+package com.helvetia.m295.libraryserver.controller;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.helvetia.m295.libraryserver.service.AusleiheController;
+import com.helvetia.m295.libraryserver.service.Reservierungen;
+
+/**
+ * Klasse für Testfälle der Klasse {@link Reservierungen} auf der H2-Datenbank, teilweise mit zwei Instanzen der
+ * Applikation in derselben JVM. Die Warteschlangen im Speicher werden nur beim Start abgeglichen, eine Instanz kennt
+ * die Reservierungen der anderen also nur aus der Datenbank.
+ * Es gibt ein Medium und drei Kunden, Kunde 1 leiht das Medium aus, Kunde 2 reserviert es.
+ *
+ * @version 1.0.0
+ * @author Simon Fäs
+ * @see Reservierungen
+ */
+public class ReservierungenTests {
+
+	/**
+	 * Test für {@link Reservierungen#gibZurueck(long)} <br>
+	 * Braucht: Zwei Instanzen, Kunde 2 reserviert das ausgeliehene Medium auf der zweiten Instanz <br>
+	 * Testet: Rückgabe auf der ersten Instanz <br>
+	 * Erwartet: Das Medium wird an Kunde 2 weitergegeben, die Reservierung ist gelöscht und die neue Ausleihe steht in
+	 * der Historie <br>
+	 */
+	@Test
+	public void testGibZurueckShouldHandOverReservationOfOtherInstance() {
+		try (var a = Instanzen.starte("reservierung_weitergabe"); var b = Instanzen.starte("reservierung_weitergabe")) {
+			var jdbcTemplate = erstelleDaten(a);
+			Assertions.assertEquals(1, b.getBean(Reservierungen.class).reserviere(1, 2).position());
+
+			var rueckgabe = a.getBean(Reservierungen.class).gibZurueck(1);
+			Assertions.assertEquals(1, rueckgabe.beendet().size());
+			Assertions.assertEquals(2L, rueckgabe.weitergegeben().getKunde().getId());
+			Assertions.assertEquals(List.of(2L), kundenMitAusleihe(jdbcTemplate));
+			Assertions.assertEquals(0, anzahlReservierungen(jdbcTemplate));
+			Assertions.assertEquals(List.of(2L), kundenInHistorie(jdbcTemplate));
+		}
+	}
+
+	/**
+	 * Test für {@link Reservierungen#gibZurueck(long)} <br>
+	 * Braucht: Ausgeliehenes Medium ohne Reservierung <br>
+	 * Testet: Rückgabe des Mediums und danach eines nicht ausgeliehenen Mediums <br>
+	 * Erwartet: Die Ausleihe ist beendet und nicht weitergegeben, die zweite Rückgabe beendet nichts <br>
+	 */
+	@Test
+	public void testGibZurueckWithoutReservationShouldFreeMedium() {
+		try (var a = Instanzen.starte("reservierung_ohne")) {
+			var jdbcTemplate = erstelleDaten(a);
+			var reservierungen = a.getBean(Reservierungen.class);
+
+			var rueckgabe = reservierungen.gibZurueck(1);
+			Assertions.assertEquals(1, rueckgabe.beendet().size());
+			Assertions.assertNull(rueckgabe.weitergegeben());
+			Assertions.assertEquals(List.of(), kundenMitAusleihe(jdbcTemplate));
+
+			rueckgabe = reservierungen.gibZurueck(1);
+			Assertions.assertEquals(List.of(), rueckgabe.beendet());
+			Assertions.assertNull(rueckgabe.weitergegeben());
+		}
+	}
+
+	/**
+	 * Test für {@link AusleiheController#addNewAusleihe} und {@link Reservierungen#leiheAus} <br>
+	 * Braucht: Freies Medium mit einer Reservierung von Kunde 2, die nur in der Datenbank steht <br>
+	 * Testet: Ausleihe durch Kunde 3 und danach durch Kunde 2 <br>
+	 * Erwartet: Kunde 3 erhält 409, Kunde 2 leiht das Medium aus, seine Reservierung wird gelöscht und die Ausleihe
+	 * steht in der Historie <br>
+	 *
+	 * @throws Exception Wenn ein Fehler beim Testen auftritt.
+	 */
+	@Test
+	public void testLeiheAusShouldRespectReservation() throws Exception {
+		try (var a = Instanzen.starte("reservierung_leihe")) {
+			var jdbcTemplate = erstelleDaten(a);
+			jdbcTemplate.update("DELETE FROM ausleihe");
+			jdbcTemplate.update("INSERT INTO reservierung (kundenid, medienid) VALUES (2, 1)");
+			var mockMvc = Instanzen.mockMvc(a);
+
+			leiheAus(mockMvc, 3).andExpect(MockMvcResultMatchers.status().is(409));
+			Assertions.assertEquals(List.of(), kundenMitAusleihe(jdbcTemplate));
+
+			leiheAus(mockMvc, 2).andExpect(MockMvcResultMatchers.status().is(200));
+			Assertions.assertEquals(List.of(2L), kundenMitAusleihe(jdbcTemplate));
+			Assertions.assertEquals(0, anzahlReservierungen(jdbcTemplate));
+			Assertions.assertEquals(List.of(2L), kundenInHistorie(jdbcTemplate));
+		}
+	}
+
+	/**
+	 * Test für {@link Reservierungen#reserviere(long, long)} und {@link Reservierungen#gibZurueck(long)} <br>
+	 * Braucht: Zwei Instanzen <br>
+	 * Testet: Wiederholt gleichzeitige Reservierung auf der zweiten und Rückgabe auf der ersten Instanz <br>
+	 * Erwartet: Nie bleibt eine Reservierung auf einem freien Medium liegen. Entweder wird die Reservierung
+	 * weitergegeben oder sie wird abgelehnt, weil das Medium bereits frei ist. <br>
+	 *
+	 * @throws Exception Wenn ein Fehler beim Testen auftritt.
+	 */
+	@Test
+	public void testReserveAndReturnShouldNeverLeaveReservationOnFreeMedium() throws Exception {
+		try (var a = Instanzen.starte("reservierung_wettlauf"); var b = Instanzen.starte("reservierung_wettlauf")) {
+			var jdbcTemplate = erstelleDaten(a);
+			jdbcTemplate.update("DELETE FROM ausleihe");
+			for (int i = 0; i < 50; i++) {
+				jdbcTemplate.update("INSERT INTO ausleihe (ausleihedauer, kundenid, medienid) VALUES (14, 1, 1)");
+				var start = new CyclicBarrier(2);
+				var reserviert = CompletableFuture.supplyAsync(() -> {
+					warte(start);
+					try {
+						b.getBean(Reservierungen.class).reserviere(1, 2);
+						return true;
+					} catch (ResponseStatusException e) {
+						Assertions.assertEquals(409, e.getStatusCode().value());
+						return false;
+					}
+				});
+				var zurueck = CompletableFuture.runAsync(() -> {
+					warte(start);
+					a.getBean(Reservierungen.class).gibZurueck(1);
+				});
+				zurueck.get(10, TimeUnit.SECONDS);
+
+				Assertions.assertEquals(0, anzahlReservierungen(jdbcTemplate));
+				Assertions.assertEquals(reserviert.get(10, TimeUnit.SECONDS) ? List.of(2L) : List.of(),
+						kundenMitAusleihe(jdbcTemplate));
+				jdbcTemplate.update("DELETE FROM ausleihe");
+			}
+		}
+	}
+
+	/**
+	 * Erstellt ein Medium, drei Kunden und die Ausleihe des Mediums durch Kunde 1
+	 */
+	private static JdbcTemplate erstelleDaten(ConfigurableApplicationContext instanz) {
+		var jdbcTemplate = instanz.getBean(JdbcTemplate.class);
+		jdbcTemplate.update("INSERT INTO adresse (id, adresse, ort, zip) VALUES (1, 'Seestrasse 1', 'Zug', '6300')");
+		for (int i = 1; i <= 3; i++) {
+			jdbcTemplate.update("INSERT INTO kunde (id, vorname, nachname, addressid) VALUES (?, 'Mia', 'Graf', 1)", i);
+		}
+		jdbcTemplate.update("INSERT INTO medium (id, titel, autor, genre) VALUES (1, 'Momo', 'Michael Ende', 'Roman')");
+		jdbcTemplate.update("INSERT INTO ausleihe (ausleihedauer, kundenid, medienid) VALUES (14, 1, 1)");
+		return jdbcTemplate;
+	}
+
+	private static ResultActions leiheAus(MockMvc mockMvc, long kundeId) throws Exception {
+		return mockMvc.perform(MockMvcRequestBuilders.post("/ausleihe").contentType("application/json")
+				.content("{\"kunde\":{\"id\":" + kundeId + "},\"medium\":{\"id\":1}}"));
+	}
+
+	private static List<Long> kundenMitAusleihe(JdbcTemplate jdbcTemplate) {
+		return jdbcTemplate.queryForList("SELECT kundenid FROM ausleihe ORDER BY id", Long.class);
+	}
+
+	private static List<Long> kundenInHistorie(JdbcTemplate jdbcTemplate) {
+		return jdbcTemplate.queryForList("SELECT kundenid FROM ausleihe_historie ORDER BY id", Long.class);
+	}
+
+	private static long anzahlReservierungen(JdbcTemplate jdbcTemplate) {
+		return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM reservierung", Long.class);
+	}
+
+	private static void warte(CyclicBarrier start) {
+		try {
+			start.await(10, TimeUnit.SECONDS);
+		} catch (Exception e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+}
@@ -0,0 +1,472 @@
+package com.helvetia.m295.libraryserver.controller;
+
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.OutputStream;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Proxy;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Bean;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.helvetia.m295.libraryserver.common.Ausleihe;
+import com.helvetia.m295.libraryserver.common.ExportJob.Status;
+import com.helvetia.m295.libraryserver.common.Invalidierung;
+import com.helvetia.m295.libraryserver.model.AdresseRepository;
+import com.helvetia.m295.libraryserver.model.AusleiheRepository;
+import com.helvetia.m295.libraryserver.model.KundeRepository;
+import com.helvetia.m295.libraryserver.model.MediumRepository;
+import com.helvetia.m295.libraryserver.model.ReservierungRepository;
+import com.helvetia.m295.libraryserver.service.DatenbankIdempotenz;
+import com.helvetia.m295.libraryserver.service.DatenbankInvalidierung;
+import com.helvetia.m295.libraryserver.service.EmpfehlungsIndex;
+import com.helvetia.m295.libraryserver.service.IdempotenteAntwort;
+import com.helvetia.m295.libraryserver.service.KatalogExport;
+import com.helvetia.m295.libraryserver.service.LeaderWahl;
+import com.helvetia.m295.libraryserver.service.MediumBulkImport;
+import com.helvetia.m295.libraryserver.service.Reservierungen;
+import com.helvetia.m295.libraryserver.service.StreamingImport;
+import com.helvetia.m295.libraryserver.service.TrendZaehler;
+
+/**
+ * Klasse für Testfälle des Datenbankschemas aus den Flyway-Migrationen.
+ * Die Repositories und die Services mit {@link JdbcTemplate} werden mit Beispieldaten aufgerufen. Die DataSource
+ * zeichnet dabei jede Anweisung auf, die Hibernate und die JDBC-Templates wirklich ausführen, mit den gebundenen
+ * Werten anstelle der Parameter, so wie Connector/J sie an MySQL schickt. Für jede aufgezeichnete Abfrage wird auf
+ * der H2-Datenbank ein EXPLAIN ausgeführt. Der Test schlägt fehl, sobald eine Abfrage die ganze Tabelle liest.
+ * Ausgenommen sind {@code findAll()}, die Statistiken mit {@code GROUP BY} und der Aufbau der Indizes im Speicher,
+ * da sie die ganze Tabelle lesen sollen.
+ *
+ * @version 1.0.0
+ * @author Simon Fäs
+ * @see AdresseRepository
+ * @see AusleiheRepository
+ * @see KundeRepository
+ * @see MediumRepository
+ * @see ReservierungRepository
+ */
+@SpringBootTest(properties = {
+		"spring.datasource.url=jdbc:h2:mem:schema_index;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+		"library.leader.lease-millis=3600000", "library.leader.heartbeat-millis=1800000",
+		"library.empfehlungen.nachziehen-millis=3600000", "library.trending.nachziehen-millis=3600000" })
+@ActiveProfiles("test")
+public class SchemaIndexTests {
+
+	/**
+	 * Repository-Methoden, die die ganze Tabelle lesen sollen oder nur andere Methoden aufrufen
+	 */
+	private static final Set<String> AUSGENOMMEN = Set.of(
+			"AdresseRepository.findAll",
+			"AusleiheRepository.findAll",
+			"AusleiheRepository.countGroupByGenre",
+			"AusleiheRepository.deleteByMediumIdIn",
+			"AusleiheRepository.deleteByMediumId",
+			"KundeRepository.findAll",
+			"KundeRepository.countGroupByZip",
+			"MediumRepository.findAll",
+			"MediumRepository.countGroupByGenre",
+			"MediumRepository.countGroupByAltersfreigabe");
+
+	/**
+	 * Aufgezeichnete Anweisungen, nur während eines Aufrufs aus {@link #aufrufe()}
+	 */
+	private static final List<Anweisung> ANWEISUNGEN = new CopyOnWriteArrayList<>();
+
+	/**
+	 * Name des laufenden Aufrufs, null wenn nichts aufgezeichnet wird
+	 */
+	private static volatile String aufruf;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private ApplicationEventPublisher eventPublisher;
+
+	@Autowired
+	private AdresseRepository adresseRepository;
+
+	@Autowired
+	private AusleiheRepository ausleiheRepository;
+
+	@Autowired
+	private KundeRepository kundeRepository;
+
+	@Autowired
+	private MediumRepository mediumRepository;
+
+	@Autowired
+	private ReservierungRepository reservierungRepository;
+
+	@Autowired
+	private Reservierungen reservierungen;
+
+	@Autowired
+	private EmpfehlungsIndex empfehlungsIndex;
+
+	@Autowired
+	private TrendZaehler trendZaehler;
+
+	@Autowired
+	private MediumBulkImport mediumBulkImport;
+
+	@Autowired
+	private KatalogExport katalogExport;
+
+	@Autowired
+	private LeaderWahl leaderWahl;
+
+	@Autowired
+	private DatenbankInvalidierung datenbankInvalidierung;
+
+	/**
+	 * Testet: Ausführungspläne aller Anweisungen, welche die Aufrufe aus {@link #aufrufe()} ausführen <br>
+	 * Erwartet: Jeder Aufruf führt eine Abfrage aus und keine Abfrage verwendet einen Table-Scan <br>
+	 *
+	 * @throws Exception Wenn ein Fehler beim Testen auftritt.
+	 */
+	@Test
+	public void testQueriesShouldUseIndexes() throws Exception {
+		jdbcTemplate.update("INSERT INTO adresse (id, adresse, ort, zip) VALUES (1, 'Zürcherstrasse 1', 'Zürich', '8008')");
+		jdbcTemplate.update("INSERT INTO kunde (id, vorname, nachname, addressid) VALUES (1, 'Anna', 'Meier', 1)");
+		jdbcTemplate.update("INSERT INTO kunde (id, vorname, nachname, addressid) VALUES (2, 'Ben', 'Meier', 1)");
+		jdbcTemplate.update("INSERT INTO medium (id, titel, autor, genre, isbn) "
+				+ "VALUES (1, 'Momo', 'Michael Ende', 'Roman', 9783522202107)");
+		jdbcTemplate.update("INSERT INTO medium (id, titel, autor, genre, isbn) "
+				+ "VALUES (2, 'Lord of the Rings', 'J. R. R. Tolkien', 'Fantasy', 9783608938289)");
+		jdbcTemplate.update("INSERT INTO ausleihe (kundenid, medienid, ausleihedauer) VALUES (1, 1, 14)");
+		jdbcTemplate.update("INSERT INTO idempotenz (schluessel, erstellt) "
+				+ "VALUES ('abgelaufen', TIMESTAMP '2000-01-01 00:00:00')");
+		// Ohne Besitzer muss der Heartbeat die Lease übernehmen
+		jdbcTemplate.update("UPDATE lease SET besitzer = NULL");
+
+		for (var eintrag : aufrufe().entrySet()) {
+			aufruf = eintrag.getKey();
+			try {
+				eintrag.getValue().ausfuehren();
+			} finally {
+				aufruf = null;
+			}
+		}
+
+		for (var name : aufrufe().keySet()) {
+			var abfragen = ANWEISUNGEN.stream().filter(anweisung -> anweisung.aufruf().equals(name))
+					.map(Anweisung::sql).filter(SchemaIndexTests::istAbfrage).toList();
+			Assertions.assertFalse(abfragen.isEmpty(), name + " hat keine Abfrage ausgeführt");
+			for (var sql : abfragen) {
+				var plan = jdbcTemplate.queryForObject("EXPLAIN " + sql, String.class);
+				// MIN, MAX und COUNT(*) ohne Bedingung liest H2 direkt aus dem Index
+				Assertions.assertFalse(plan.contains("tableScan") && !plan.contains("direct lookup"),
+						name + " liest die ganze Tabelle: " + plan);
+			}
+		}
+	}
+
+	/**
+	 * Testet: Methoden der Repositories <br>
+	 * Erwartet: Jede Methode wird in {@link #aufrufe()} aufgerufen oder ist ausgenommen <br>
+	 */
+	@Test
+	public void testAllRepositoryMethodsShouldBeChecked() {
+		var aufrufe = aufrufe();
+		for (var repository : List.of(AdresseRepository.class, AusleiheRepository.class, KundeRepository.class,
+				MediumRepository.class, ReservierungRepository.class)) {
+			for (var methode : repository.getDeclaredMethods()) {
+				if (!Modifier.isPublic(methode.getModifiers()) || methode.isSynthetic()) {
+					continue;
+				}
+				var name = repository.getSimpleName() + "." + methode.getName();
+				Assertions.assertTrue(aufrufe.containsKey(name) || AUSGENOMMEN.contains(name),
+						name + " fehlt in SchemaIndexTests");
+			}
+		}
+	}
+
+	/**
+	 * Aufrufe der Repositories und der Services mit {@link JdbcTemplate}, in der Reihenfolge, in der sie ausgeführt
+	 * werden. Die Services werden so aufgerufen, dass jede ihrer Abfragen mindestens einmal läuft.
+	 * @return Aufruf pro Name
+	 */
+	private Map<String, Aufruf> aufrufe() {
+		var aufrufe = new LinkedHashMap<String, Aufruf>();
+		aufrufe.put("AdresseRepository.findByZip", () -> adresseRepository.findByZip("8008"));
+		aufrufe.put("AdresseRepository.findByAdresse", () -> adresseRepository.findByAdresse("Zürcherstrasse"));
+		aufrufe.put("AdresseRepository.findByAdresseAndZip",
+				() -> adresseRepository.findByAdresseAndZip("Zürcherstrasse 1", "8008"));
+		aufrufe.put("KundeRepository.findByNachname", () -> kundeRepository.findByNachname("Meier"));
+		aufrufe.put("KundeRepository.findByAdresseId", () -> kundeRepository.findByAdresseId(1L));
+		aufrufe.put("KundeRepository.existsByAdresseId", () -> kundeRepository.existsByAdresseId(1L));
+		aufrufe.put("KundeRepository.findByAdresseAdresse",
+				() -> kundeRepository.findByAdresseAdresse("Zürcherstrasse 1"));
+		aufrufe.put("MediumRepository.findByTitel", () -> mediumRepository.findByTitel("Momo"));
+		aufrufe.put("AusleiheRepository.findByMediumId", () -> ausleiheRepository.findByMediumId(1L));
+		aufrufe.put("AusleiheRepository.findByMediumIdIn",
+				() -> ausleiheRepository.findByMediumIdIn(List.of(1L, 2L, 3L)));
+		aufrufe.put("AusleiheRepository.existsByKundeId", () -> ausleiheRepository.existsByKundeId(1L));
+		aufrufe.put("AusleiheRepository.removeByIdIn", () -> ausleiheRepository.removeByIdIn(List.of(-1L, -2L)));
+		aufrufe.put("AusleiheRepository.findUebersichtByKundeId",
+				() -> ausleiheRepository.findUebersichtByKundeId(1L, PageRequest.of(0, 20)));
+		aufrufe.put("AusleiheRepository.findZaehlerByKundeId",
+				() -> ausleiheRepository.findZaehlerByKundeId(1L, new Date()));
+		aufrufe.put("ReservierungRepository.removeById", () -> reservierungRepository.removeById(-1L));
+		aufrufe.put("ReservierungRepository.removeByMediumIdAndKundeId",
+				() -> reservierungRepository.removeByMediumIdAndKundeId(-1L, -1L));
+		// Kunde 2 wartet auf Medium 1, bei der Rückgabe wird es an ihn weitergegeben
+		aufrufe.put("Reservierungen.reserviere", () -> reservierungen.reserviere(1, 2));
+		aufrufe.put("Reservierungen.gibZurueck", () -> reservierungen.gibZurueck(List.of(1L, 2L)));
+		aufrufe.put("Reservierungen.leiheAus", () -> reservierungen.leiheAus(new Ausleihe(null,
+				kundeRepository.findById(1L).orElseThrow(), mediumRepository.findById(2L).orElseThrow())));
+		aufrufe.put("Invalidierung", () -> {
+			eventPublisher.publishEvent(new Invalidierung(Invalidierung.Typ.AUSLEIHE, 1L));
+			eventPublisher.publishEvent(new Invalidierung(Invalidierung.Typ.KUNDE, 1L));
+		});
+		aufrufe.put("EmpfehlungsIndex.nachziehen", () -> empfehlungsIndex.nachziehen());
+		aufrufe.put("TrendZaehler.rebuild", () -> trendZaehler.rebuild());
+		aufrufe.put("MediumBulkImport.importiere", () -> mediumBulkImport.importiere(new ByteArrayInputStream(
+				"[{\"isbn\":9783522202107,\"titel\":\"Momo\"}]".getBytes(StandardCharsets.UTF_8)),
+				StreamingImport.Format.JSON_ARRAY));
+		aufrufe.put("KatalogExport.starte", () -> {
+			var job = katalogExport.starte();
+			while (katalogExport.getJob(job.id()).orElseThrow().status() == Status.LAUFEND) {
+				Thread.sleep(10);
+			}
+		});
+		aufrufe.put("KatalogExport.schreibeSnapshot",
+				() -> katalogExport.schreibeSnapshot(Channels.newChannel(OutputStream.nullOutputStream())));
+		aufrufe.put("LeaderWahl.heartbeat", () -> leaderWahl.heartbeat());
+		// Läuft nur auf dem Leader, also nach dem Heartbeat
+		aufrufe.put("DatenbankInvalidierung", () -> {
+			datenbankInvalidierung.abfragen();
+			datenbankInvalidierung.aufraeumen();
+		});
+		aufrufe.put("DatenbankIdempotenz", () -> {
+			var idempotenz = new DatenbankIdempotenz(jdbcTemplate, 86400000);
+			idempotenz.reserviere("k");
+			idempotenz.reserviere("k");
+			idempotenz.reserviere("abgelaufen");
+			idempotenz.speichere("k", new IdempotenteAntwort(200, "application/json", new byte[] { '{', '}' }, null));
+			idempotenz.freigeben("abgelaufen");
+			idempotenz.aufraeumen();
+		});
+		return aufrufe;
+	}
+
+	/**
+	 * Prüft, ob H2 für eine Anweisung einen Ausführungsplan zeigen kann. Die Statistiken mit {@code GROUP BY}, z.B.
+	 * nach einem Import, sollen die ganze Tabelle lesen.
+	 */
+	private static boolean istAbfrage(String sql) {
+		var anweisung = sql.strip().toLowerCase(Locale.ROOT);
+		return (anweisung.startsWith("select") || anweisung.startsWith("update") || anweisung.startsWith("delete"))
+				&& !anweisung.contains(" group by ");
+	}
+
+	/**
+	 * Hält eine Anweisung mit ihren Werten fest, sofern gerade ein Aufruf läuft. Die Hintergrundjobs auf den
+	 * Schedulern werden nicht aufgezeichnet.
+	 */
+	private static void zeichneAuf(String sql, Map<Integer, Object> parameter) {
+		var name = aufruf;
+		var thread = Thread.currentThread().getName();
+		if (name != null && sql != null && !thread.startsWith("scheduling-") && !thread.startsWith("koordination-")) {
+			ANWEISUNGEN.add(new Anweisung(name, mitWerten(sql, parameter)));
+		}
+	}
+
+	/**
+	 * Ersetzt die Parameter einer Anweisung durch ihre Werte als SQL-Literale
+	 */
+	private static String mitWerten(String sql, Map<Integer, Object> parameter) {
+		var ergebnis = new StringBuilder(sql.length());
+		boolean text = false;
+		int index = 0;
+		for (char zeichen : sql.toCharArray()) {
+			if (zeichen == '\'') {
+				text = !text;
+			}
+			if (zeichen == '?' && !text) {
+				ergebnis.append(literal(parameter.get(++index)));
+			} else {
+				ergebnis.append(zeichen);
+			}
+		}
+		return ergebnis.toString();
+	}
+
+	private static String literal(Object wert) {
+		if (wert == null) {
+			return "NULL";
+		}
+		if (wert instanceof Number || wert instanceof Boolean) {
+			return wert.toString();
+		}
+		if (wert instanceof Date datum) {
+			return "TIMESTAMP '" + new Timestamp(datum.getTime()) + "'";
+		}
+		if (wert instanceof byte[] bytes) {
+			return "X'" + HexFormat.of().formatHex(bytes) + "'";
+		}
+		return "'" + wert.toString().replace("'", "''") + "'";
+	}
+
+	/**
+	 * Aufruf eines Repositories oder Services
+	 */
+	@FunctionalInterface
+	private interface Aufruf {
+
+		void ausfuehren() throws Exception;
+
+	}
+
+	/**
+	 * Ausgeführte Anweisung mit den Werten anstelle der Parameter
+	 */
+	private record Anweisung(String aufruf, String sql) {
+	}
+
+	/**
+	 * Ersetzt die DataSource der Applikation durch eine, welche die Anweisungen aller Verbindungen aufzeichnet
+	 */
+	@TestConfiguration
+	static class AufzeichnungConfiguration {
+
+		/**
+		 * DataSource aus {@code spring.datasource.*}, deren Verbindungen die Anweisungen aufzeichnen
+		 * @param properties Verbindungsdaten
+		 * @return Aufzeichnende DataSource
+		 */
+		@Bean
+		public DataSource dataSource(DataSourceProperties properties) {
+			return proxy(new Weitergabe(properties.initializeDataSourceBuilder().build()) {
+				@Override
+				Object nachher(Method methode, Object[] argumente, Object resultat) {
+					return resultat instanceof Connection verbindung ? verbindung(verbindung) : resultat;
+				}
+			}, DataSource.class, Closeable.class);
+		}
+
+		private static Connection verbindung(Connection verbindung) {
+			return proxy(new Weitergabe(verbindung) {
+				@Override
+				Object nachher(Method methode, Object[] argumente, Object resultat) {
+					if (!(resultat instanceof Statement statement)) {
+						return resultat;
+					}
+					// prepareStatement und prepareCall erhalten das SQL, createStatement erst beim Ausführen
+					var sql = argumente != null && argumente.length > 0 && argumente[0] instanceof String text ? text
+							: null;
+					return proxy(new Aufzeichner(statement, sql), methode.getReturnType());
+				}
+			}, Connection.class);
+		}
+
+		@SuppressWarnings("unchecked")
+		private static <T> T proxy(InvocationHandler handler, Class<T> typ, Class<?>... weitere) {
+			var typen = new Class<?>[weitere.length + 1];
+			typen[0] = typ;
+			System.arraycopy(weitere, 0, typen, 1, weitere.length);
+			return (T) Proxy.newProxyInstance(SchemaIndexTests.class.getClassLoader(), typen, handler);
+		}
+
+	}
+
+	/**
+	 * Gibt alle Aufrufe an ein JDBC-Objekt weiter. Gleich ist ein Proxy nur sich selbst, damit Spring die
+	 * Verbindung einer laufenden Transaktion wiedererkennt.
+	 */
+	private static class Weitergabe implements InvocationHandler {
+
+		private final Object ziel;
+
+		Weitergabe(Object ziel) {
+			this.ziel = ziel;
+		}
+
+		@Override
+		public Object invoke(Object proxy, Method methode, Object[] argumente) throws Throwable {
+			if (methode.getName().equals("equals") && methode.getParameterCount() == 1) {
+				return proxy == argumente[0];
+			}
+			if (methode.getName().equals("hashCode") && methode.getParameterCount() == 0) {
+				return System.identityHashCode(proxy);
+			}
+			vorher(methode, argumente);
+			try {
+				return nachher(methode, argumente, methode.invoke(ziel, argumente));
+			} catch (InvocationTargetException e) {
+				throw e.getCause();
+			}
+		}
+
+		void vorher(Method methode, Object[] argumente) {
+		}
+
+		Object nachher(Method methode, Object[] argumente, Object resultat) {
+			return resultat;
+		}
+
+	}
+
+	/**
+	 * Zeichnet die Anweisungen eines Statements mit den zuletzt gesetzten Parametern auf
+	 */
+	private static final class Aufzeichner extends Weitergabe {
+
+		private final String sql;
+		private final Map<Integer, Object> parameter = new HashMap<>();
+
+		Aufzeichner(Statement statement, String sql) {
+			super(statement);
+			this.sql = sql;
+		}
+
+		@Override
+		void vorher(Method methode, Object[] argumente) {
+			var name = methode.getName();
+			var anzahl = argumente == null ? 0 : argumente.length;
+			if (name.startsWith("set") && anzahl >= 2 && argumente[0] instanceof Integer index) {
+				parameter.put(index, name.equals("setNull") ? null : argumente[1]);
+			} else if (name.equals("clearParameters")) {
+				parameter.clear();
+			} else if ((name.startsWith("execute") && !name.endsWith("Batch")) || name.equals("addBatch")) {
+				// Statement übergibt das SQL beim Ausführen, PreparedStatement hat es beim Erstellen erhalten
+				if (anzahl > 0 && argumente[0] instanceof String anweisung) {
+					zeichneAuf(anweisung, Map.of());
+				} else {
+					zeichneAuf(sql, parameter);
+				}
+			}
+		}
+
+	}
+
+}
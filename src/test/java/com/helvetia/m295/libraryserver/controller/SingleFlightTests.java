@@ -0,0 +1,221 @@
+package com.helvetia.m295.libraryserver.controller;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import com.helvetia.m295.libraryserver.service.SingleFlight;
+
+/**
+ * Klasse für Testfälle der Klasse {@link SingleFlight}
+ *
+ * @version 1.0.0
+ * @author Simon Fäs
+ * @see SingleFlight
+ */
+public class SingleFlightTests {
+
+	/**
+	 * Test für {@link SingleFlight#get(Object, java.util.function.Supplier)} <br>
+	 * Testet: Viele gleichzeitige Abfragen mit demselben Schlüssel <br>
+	 * Erwartet: Die Abfrage wird genau einmal ausgeführt und alle Aufrufer erhalten das Resultat <br>
+	 *
+	 * @throws Exception Wenn ein Fehler beim Testen auftritt.
+	 */
+	@Test
+	public void testConcurrentGetShouldLoadOnce() throws Exception {
+		// Mit TTL erhalten auch Aufrufer, die erst nach dem Abschluss starten, dasselbe Resultat
+		var singleFlight = new SingleFlight<String, String>(60000);
+		var loads = new AtomicInteger();
+		var started = new CountDownLatch(1);
+		var release = new CountDownLatch(1);
+		ExecutorService executor = Executors.newFixedThreadPool(64);
+		try {
+			var results = new ArrayList<Future<String>>();
+			results.add(executor.submit(() -> singleFlight.get("Momo", () -> {
+				loads.incrementAndGet();
+				started.countDown();
+				await(release);
+				return "Resultat";
+			})));
+			Assertions.assertTrue(started.await(5, TimeUnit.SECONDS));
+			for (int i = 0; i < 50; i++) {
+				results.add(executor.submit(() -> singleFlight.get("Momo", () -> {
+					loads.incrementAndGet();
+					return "Zweite Abfrage";
+				})));
+			}
+			Thread.sleep(100);
+			release.countDown();
+			for (var result : results) {
+				Assertions.assertEquals("Resultat", result.get(5, TimeUnit.SECONDS));
+			}
+			Assertions.assertEquals(1, loads.get());
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	/**
+	 * Test für {@link SingleFlight#get(Object, java.util.function.Supplier)} <br>
+	 * Testet: Aufeinanderfolgende Abfragen ohne TTL und mit TTL <br>
+	 * Erwartet: Ohne TTL wird jedes Mal abgefragt, mit TTL nur bis zur Invalidierung einmal <br>
+	 */
+	@Test
+	public void testTtlShouldReuseResultUntilInvalidated() {
+		var loads = new AtomicInteger();
+		var withoutTtl = new SingleFlight<Long, Integer>(0);
+		withoutTtl.get(1L, loads::incrementAndGet);
+		withoutTtl.get(1L, loads::incrementAndGet);
+		Assertions.assertEquals(2, loads.get());
+
+		var withTtl = new SingleFlight<Long, Integer>(60000);
+		Assertions.assertEquals(3, withTtl.get(1L, loads::incrementAndGet));
+		Assertions.assertEquals(3, withTtl.get(1L, loads::incrementAndGet));
+		withTtl.invalidate(1L);
+		Assertions.assertEquals(4, withTtl.get(1L, loads::incrementAndGet));
+	}
+
+	/**
+	 * Test für {@link SingleFlight#get(Object, java.util.function.Supplier)} <br>
+	 * Testet: Abfrage, die einen Fehler wirft <br>
+	 * Erwartet: Der Fehler wird weitergegeben und nicht weiterverwendet <br>
+	 */
+	@Test
+	public void testFailureShouldNotBeCached() {
+		var singleFlight = new SingleFlight<Long, String>(60000);
+		Assertions.assertThrows(IllegalStateException.class, () -> singleFlight.get(1L, () -> {
+			throw new IllegalStateException();
+		}));
+		Assertions.assertEquals("OK", singleFlight.get(1L, () -> "OK"));
+	}
+
+	/**
+	 * Test für {@link SingleFlight#get(Object, java.util.function.Supplier)} <br>
+	 * Braucht: Ohne TTL wie in den Controllern ({@code library.singleflight.ttl-millis=0}) <br>
+	 * Testet: Viele Aufrufer mit demselben Schlüssel, die warten, während die erste Abfrage läuft <br>
+	 * Erwartet: Die Abfrage wird genau einmal ausgeführt und alle Aufrufer erhalten das Resultat <br>
+	 *
+	 * @throws Exception Wenn ein Fehler beim Testen auftritt.
+	 */
+	@Test
+	public void testConcurrentGetWithoutTtlShouldLoadOnce() throws Exception {
+		var singleFlight = new SingleFlight<String, String>(0);
+		var loads = new AtomicInteger();
+		var started = new CountDownLatch(1);
+		var release = new CountDownLatch(1);
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		try {
+			var first = executor.submit(() -> singleFlight.get("Momo", () -> {
+				loads.incrementAndGet();
+				started.countDown();
+				await(release);
+				return "Resultat";
+			}));
+			Assertions.assertTrue(started.await(5, TimeUnit.SECONDS));
+			var results = new AtomicReferenceArray<Object>(50);
+			var threads = starteWartende(results, () -> singleFlight.get("Momo", () -> {
+				loads.incrementAndGet();
+				return "Zweite Abfrage";
+			}));
+			release.countDown();
+			Assertions.assertEquals("Resultat", first.get(5, TimeUnit.SECONDS));
+			for (int i = 0; i < threads.size(); i++) {
+				threads.get(i).join(5000);
+				Assertions.assertEquals("Resultat", results.get(i));
+			}
+			Assertions.assertEquals(1, loads.get());
+			// Ohne TTL wird nach dem Abschluss neu abgefragt
+			Assertions.assertEquals("Neu", singleFlight.get("Momo", () -> "Neu"));
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	/**
+	 * Test für {@link SingleFlight#get(Object, java.util.function.Supplier)} <br>
+	 * Braucht: Wartende Aufrufer, während die erste Abfrage läuft <br>
+	 * Testet: Die Abfrage wirft einen {@link Error} statt einer RuntimeException <br>
+	 * Erwartet: Alle Aufrufer erhalten den Fehler und keiner wartet für immer, die nächste Abfrage wird ausgeführt <br>
+	 *
+	 * @throws Exception Wenn ein Fehler beim Testen auftritt.
+	 */
+	@Test
+	public void testFailingLoaderShouldReleaseWaiters() throws Exception {
+		var singleFlight = new SingleFlight<String, String>(0);
+		var started = new CountDownLatch(1);
+		var release = new CountDownLatch(1);
+		var fehler = new AssertionError("Abfrage fehlgeschlagen");
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		try {
+			var first = executor.submit(() -> singleFlight.get("Momo", () -> {
+				started.countDown();
+				await(release);
+				throw fehler;
+			}));
+			Assertions.assertTrue(started.await(5, TimeUnit.SECONDS));
+			var results = new AtomicReferenceArray<Object>(20);
+			var threads = starteWartende(results, () -> singleFlight.get("Momo", () -> "Zweite Abfrage"));
+			release.countDown();
+			var e = Assertions.assertThrows(ExecutionException.class,
+					() -> first.get(5, TimeUnit.SECONDS));
+			Assertions.assertSame(fehler, e.getCause());
+			for (int i = 0; i < threads.size(); i++) {
+				threads.get(i).join(5000);
+				Assertions.assertFalse(threads.get(i).isAlive());
+				Assertions.assertSame(fehler, results.get(i));
+			}
+			Assertions.assertEquals("OK", singleFlight.get("Momo", () -> "OK"));
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	/**
+	 * Startet pro Platz in den Resultaten einen Thread mit der Abfrage und wartet, bis alle Threads auf das Resultat
+	 * der laufenden Abfrage warten. Ein Thread legt sein Resultat oder seinen Fehler in seinen Platz.
+	 */
+	private static List<Thread> starteWartende(AtomicReferenceArray<Object> results,
+			Supplier<String> abfrage) throws InterruptedException {
+		var threads = new ArrayList<Thread>();
+		for (int i = 0; i < results.length(); i++) {
+			int platz = i;
+			var thread = new Thread(() -> {
+				try {
+					results.set(platz, abfrage.get());
+				} catch (Throwable e) {
+					results.set(platz, e);
+				}
+			});
+			thread.setDaemon(true);
+			thread.start();
+			threads.add(thread);
+		}
+		long ende = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+		while (threads.stream().anyMatch(t -> t.getState() != Thread.State.WAITING)) {
+			Assertions.assertTrue(System.nanoTime() < ende, "Threads warten nicht auf die laufende Abfrage");
+			Thread.sleep(5);
+		}
+		return threads;
+	}
+
+	private static void await(CountDownLatch latch) {
+		try {
+			latch.await(5, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+}
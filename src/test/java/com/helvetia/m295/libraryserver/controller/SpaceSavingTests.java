@@ -0,0 +1,101 @@
+package com.helvetia.m295.libraryserver.controller;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import com.helvetia.m295.libraryserver.service.SpaceSaving;
+
+/**
+ * Klasse für Testfälle der Klasse {@link SpaceSaving}
+ *
+ * @version 1.0.0
+ * @author Simon Fäs
+ * @see SpaceSaving
+ */
+public class SpaceSavingTests {
+
+	/**
+	 * Test für {@link SpaceSaving#zaehle(long)} <br>
+	 * Testet: Zufällige Ids, höchstens so viele verschiedene wie Zähler <br>
+	 * Erwartet: Dieselben Anzahlen wie eine {@link HashMap}, ohne Fehler <br>
+	 */
+	@Test
+	public void testFewIdsShouldBeExact() {
+		var spaceSaving = new SpaceSaving(50);
+		var erwartet = new HashMap<Long, Long>();
+		var random = new Random(42);
+		for (int i = 0; i < 5000; i++) {
+			long id = random.nextInt(50) + 1;
+			spaceSaving.zaehle(id);
+			erwartet.merge(id, 1L, Long::sum);
+		}
+		Assertions.assertEquals(erwartet.size(), spaceSaving.size());
+		spaceSaving.forEach((id, zaehler, fehler) -> {
+			Assertions.assertEquals(erwartet.get(id), zaehler);
+			Assertions.assertEquals(0, fehler);
+		});
+		Assertions.assertEquals(0, spaceSaving.getZaehler(99));
+	}
+
+	/**
+	 * Test für {@link SpaceSaving#zaehle(long)} <br>
+	 * Testet: Ungleich verteilte Ids, viel mehr verschiedene als Zähler <br>
+	 * Erwartet: Jeder Zähler liegt zwischen der wirklichen Anzahl und dieser plus Fehler, jede Id mit mehr als dem
+	 * Minimum hat einen Zähler und die Zähler ergeben zusammen die Anzahl Vorkommen <br>
+	 */
+	@Test
+	public void testSkewedStreamShouldKeepGuarantees() {
+		var spaceSaving = new SpaceSaving(20);
+		var erwartet = new HashMap<Long, Long>();
+		var random = new Random(42);
+		for (int i = 0; i < 20000; i++) {
+			double zufall = random.nextDouble();
+			long id = (long) (500 * zufall * zufall * zufall) + 1;
+			spaceSaving.zaehle(id);
+			erwartet.merge(id, 1L, Long::sum);
+		}
+		Assertions.assertEquals(20, spaceSaving.size());
+		var gezaehlt = new HashMap<Long, Long>();
+		spaceSaving.forEach((id, zaehler, fehler) -> {
+			long wirklich = erwartet.get(id);
+			Assertions.assertTrue(zaehler >= wirklich && zaehler - fehler <= wirklich);
+			gezaehlt.put(id, zaehler);
+		});
+		Assertions.assertEquals(20000, gezaehlt.values().stream().mapToLong(Long::longValue).sum());
+		for (Map.Entry<Long, Long> e : erwartet.entrySet()) {
+			if (e.getValue() > spaceSaving.getMinimum())
+				Assertions.assertTrue(gezaehlt.containsKey(e.getKey()), "Missing id " + e.getKey());
+		}
+	}
+
+	/**
+	 * Test für {@link SpaceSaving#leeren()} <br>
+	 * Braucht: Volle Zähler <br>
+	 * Testet: Leeren und erneutes Zählen <br>
+	 * Erwartet: Keine alten Einträge, neue Ids werden exakt gezählt <br>
+	 */
+	@Test
+	public void testLeerenShouldRemoveAllEntries() {
+		var spaceSaving = new SpaceSaving(2);
+		spaceSaving.zaehle(1);
+		spaceSaving.zaehle(2);
+		spaceSaving.zaehle(3);
+		Assertions.assertEquals(2, spaceSaving.getZaehler(3));
+
+		spaceSaving.leeren();
+		Assertions.assertEquals(0, spaceSaving.size());
+		Assertions.assertEquals(0, spaceSaving.getZaehler(3));
+		Assertions.assertEquals(0, spaceSaving.getMinimum());
+		spaceSaving.zaehle(3);
+		spaceSaving.zaehle(4);
+		spaceSaving.zaehle(4);
+		Assertions.assertEquals(1, spaceSaving.getZaehler(3));
+		Assertions.assertEquals(2, spaceSaving.getZaehler(4));
+		Assertions.assertEquals(1, spaceSaving.getMinimum());
+	}
+
+}
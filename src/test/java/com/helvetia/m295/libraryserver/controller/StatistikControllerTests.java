@@ -0,0 +1,98 @@
+package com.helvetia.m295.libraryserver.controller;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.aot.DisabledInAotMode;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.result.MockMvcResultHandlers;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+
+import com.helvetia.m295.libraryserver.common.Ausleihe;
+import com.helvetia.m295.libraryserver.common.AusleiheEvent;
+import com.helvetia.m295.libraryserver.common.Medium;
+import com.helvetia.m295.libraryserver.common.MediumEvent;
+import com.helvetia.m295.libraryserver.model.AusleiheRepository;
+import com.helvetia.m295.libraryserver.model.KundeRepository;
+import com.helvetia.m295.libraryserver.model.MediumRepository;
+import com.helvetia.m295.libraryserver.service.StatistikController;
+import com.helvetia.m295.libraryserver.service.StatistikZaehler;
+
+/**
+ * Klasse für Testfälle der Klassen {@link StatistikController} und {@link StatistikZaehler}
+ *
+ * @version 1.0.0
+ * @author Simon Fäs
+ * @see StatistikController
+ */
+@WebMvcTest(StatistikController.class)
+@Import(StatistikZaehler.class)
+@DisabledInAotMode
+public class StatistikControllerTests {
+
+	private static final String END_POINT_PATH = "/statistik";
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private StatistikZaehler statistikZaehler;
+
+	@Autowired
+	private ApplicationEventPublisher eventPublisher;
+
+	@MockBean
+	private MediumRepository mediumRepository;
+
+	@MockBean
+	private AusleiheRepository ausleiheRepository;
+
+	@MockBean
+	private KundeRepository kundeRepository;
+
+	/**
+	 * Test für {@link StatistikController#getStatistik()} <br>
+	 * Testet: Initialisierung aus den Aggregat-Abfragen und Nachführen über Events <br>
+	 * Erwartet: Statuscode 200 und die nachgeführten Zähler <br>
+	 *
+	 * @throws Exception Wenn ein Fehler beim Testen auftritt.
+	 */
+	@Test
+	public void testGetShouldReturnIncrementalCounts() throws Exception {
+		Mockito.when(mediumRepository.countGroupByGenre()).thenReturn(rows("Fantasy", 2L));
+		Mockito.when(mediumRepository.countGroupByAltersfreigabe()).thenReturn(rows((short) 13, 2L));
+		Mockito.when(ausleiheRepository.countGroupByGenre()).thenReturn(rows("Fantasy", 1L));
+		Mockito.when(kundeRepository.countGroupByZip()).thenReturn(rows("8008", 5L));
+		statistikZaehler.reconcile();
+
+		var krimi = new Medium(3L, "Der Richter und sein Henker", "Dürrenmatt", "Krimi", (short) 12, null, "C1");
+		var fantasy = new Medium(1L, "Lord of the Rings", "J.R.R Tolkien", "Fantasy", (short) 13, null, "A1");
+		eventPublisher.publishEvent(MediumEvent.erstellt(krimi));
+		eventPublisher.publishEvent(MediumEvent.geloescht(fantasy));
+		eventPublisher.publishEvent(AusleiheEvent.erstellt(new Ausleihe(7L, null, krimi)));
+
+		mockMvc.perform(MockMvcRequestBuilders.get(END_POINT_PATH))
+				.andExpect(MockMvcResultMatchers.status().is(200))
+				.andExpect(MockMvcResultMatchers.jsonPath("$.medienProGenre.Fantasy").value(1))
+				.andExpect(MockMvcResultMatchers.jsonPath("$.medienProGenre.Krimi").value(1))
+				.andExpect(MockMvcResultMatchers.jsonPath("$.medienProAltersfreigabe['12']").value(1))
+				.andExpect(MockMvcResultMatchers.jsonPath("$.ausleihenProGenre.Krimi").value(1))
+				.andExpect(MockMvcResultMatchers.jsonPath("$.kundenProZip['8008']").value(5))
+				.andDo(MockMvcResultHandlers.print());
+	}
+
+	private static List<Object[]> rows(Object schluessel, Long anzahl) {
+		var rows = new ArrayList<Object[]>();
+		rows.add(new Object[] { schluessel, anzahl });
+		return rows;
+	}
+
+}
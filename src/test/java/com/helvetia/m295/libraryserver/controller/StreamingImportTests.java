@@ -0,0 +1,157 @@
+package com.helvetia.m295.libraryserver.controller;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.helvetia.m295.libraryserver.common.ImportResultat;
+import com.helvetia.m295.libraryserver.common.Medium;
+import com.helvetia.m295.libraryserver.service.StreamingImport;
+import com.helvetia.m295.libraryserver.service.StreamingImport.Format;
+import com.helvetia.m295.libraryserver.service.Validierung;
+
+/**
+ * Klasse für Testfälle der Klasse {@link StreamingImport}
+ *
+ * @version 1.0.0
+ * @author Simon Fäs
+ * @see StreamingImport
+ */
+public class StreamingImportTests {
+
+	private final ObjectMapper objectMapper = new ObjectMapper();
+
+	/**
+	 * Test für {@link StreamingImport#importiere} <br>
+	 * Testet: Import eines JSON-Arrays und von NDJSON mit einem unvollständigen Medium <br>
+	 * Erwartet: Gültige Medien werden in Stapeln übergeben, das unvollständige wird abgelehnt <br>
+	 *
+	 * @throws Exception Wenn ein Fehler beim Testen auftritt.
+	 */
+	@Test
+	public void testImportShouldRejectIncompleteElements() throws Exception {
+		var streamingImport = new StreamingImport(objectMapper, 2, 1);
+		var array = "[" + medium("Momo") + "," + medium("Der Hobbit") + ",{\"titel\":\"Ohne Autor\"},"
+				+ medium("Dune") + "]";
+		var ndjson = medium("Momo") + "\n" + medium("Der Hobbit") + "\n{\"titel\":\"Ohne Autor\"}\n" + medium("Dune");
+
+		for (var upload : List.of(new Object[] { array, Format.JSON_ARRAY }, new Object[] { ndjson, Format.NDJSON })) {
+			var batches = new AtomicInteger();
+			var resultat = streamingImport.importiere(stream((String) upload[0]), (Format) upload[1], Medium.class,
+					medium -> Validierung.istVollstaendig(medium) ? null : Validierung.UNVOLLSTAENDIG, batch -> {
+						batches.incrementAndGet();
+						return new ImportResultat(batch.size(), 0, 0, List.of());
+					});
+			Assertions.assertEquals(3, resultat.eingefuegt());
+			Assertions.assertEquals(1, resultat.abgelehnt());
+			Assertions.assertEquals(List.of(Validierung.UNVOLLSTAENDIG), resultat.fehler());
+			Assertions.assertEquals(2, batches.get());
+		}
+	}
+
+	/**
+	 * Test für {@link StreamingImport#importiere} <br>
+	 * Testet: Import, während der Sink blockiert <br>
+	 * Erwartet: Es werden nur so viele Elemente gelesen, wie in Stapel und Warteschlange passen <br>
+	 *
+	 * @throws Exception Wenn ein Fehler beim Testen auftritt.
+	 */
+	@Test
+	public void testSlowSinkShouldStopReading() throws Exception {
+		var streamingImport = new StreamingImport(objectMapper, 10, 1);
+		var upload = new StringBuilder();
+		for (int i = 0; i < 1000; i++) {
+			upload.append(medium("Band " + i)).append('\n');
+		}
+		var gelesen = new AtomicInteger();
+		var release = new CountDownLatch(1);
+		var executor = Executors.newSingleThreadExecutor();
+		try {
+			var resultat = executor.submit(() -> streamingImport.importiere(stream(upload.toString()), Format.NDJSON,
+					Medium.class, medium -> {
+						gelesen.incrementAndGet();
+						return null;
+					}, batch -> {
+						await(release);
+						return new ImportResultat(batch.size(), 0, 0, List.of());
+					}));
+			Thread.sleep(200);
+			// Ein Stapel im Sink, einer in der Warteschlange und einer, der auf Platz wartet
+			Assertions.assertTrue(gelesen.get() <= 30, "Gelesene Elemente: " + gelesen.get());
+			release.countDown();
+			Assertions.assertEquals(1000, resultat.get(5, TimeUnit.SECONDS).eingefuegt());
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	/**
+	 * Test für {@link StreamingImport#importiere} <br>
+	 * Braucht: Grosser Upload, Warteschlange mit einem Platz <br>
+	 * Testet: Der Sink wirft beim ersten Stapel einen {@link Error} <br>
+	 * Erwartet: Der Import bricht mit diesem Fehler ab, statt auf einen Platz in der Warteschlange zu warten <br>
+	 *
+	 * @throws Exception Wenn ein Fehler beim Testen auftritt.
+	 */
+	@Test
+	public void testFailingSinkShouldAbortImport() throws Exception {
+		var streamingImport = new StreamingImport(objectMapper, 10, 1);
+		var upload = new StringBuilder();
+		for (int i = 0; i < 1000; i++) {
+			upload.append(medium("Band " + i)).append('\n');
+		}
+		var fehler = new OutOfMemoryError("Sink");
+		var executor = Executors.newSingleThreadExecutor();
+		try {
+			var resultat = executor.submit(() -> streamingImport.importiere(stream(upload.toString()), Format.NDJSON,
+					Medium.class, medium -> null, batch -> {
+						throw fehler;
+					}));
+			var exception = Assertions.assertThrows(ExecutionException.class, () -> resultat.get(5, TimeUnit.SECONDS));
+			Assertions.assertSame(fehler, exception.getCause());
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	/**
+	 * Test für {@link StreamingImport#importiere} <br>
+	 * Testet: Import eines Objekts statt eines JSON-Arrays <br>
+	 * Erwartet: Statuscode 400 <br>
+	 */
+	@Test
+	public void testImportShouldRejectNonArray() {
+		var streamingImport = new StreamingImport(objectMapper, 2, 1);
+		var exception = Assertions.assertThrows(ResponseStatusException.class,
+				() -> streamingImport.importiere(stream(medium("Momo")), Format.JSON_ARRAY, Medium.class,
+						medium -> null, batch -> new ImportResultat(batch.size(), 0, 0, List.of())));
+		Assertions.assertEquals(400, exception.getStatusCode().value());
+	}
+
+	private static String medium(String titel) {
+		return "{\"titel\":\"" + titel + "\",\"autor\":\"Unbekannt\",\"isbn\":" + Math.abs(titel.hashCode()) + "}";
+	}
+
+	private static ByteArrayInputStream stream(String upload) {
+		return new ByteArrayInputStream(upload.getBytes(StandardCharsets.UTF_8));
+	}
+
+	private static void await(CountDownLatch latch) {
+		try {
+			latch.await(5, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+}
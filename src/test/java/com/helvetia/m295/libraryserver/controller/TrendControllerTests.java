@@ -0,0 +1,87 @@
+package com.helvetia.m295.libraryserver.controller;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.context.aot.DisabledInAotMode;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.result.MockMvcResultHandlers;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.helvetia.m295.libraryserver.common.Medium;
+import com.helvetia.m295.libraryserver.common.Trend;
+import com.helvetia.m295.libraryserver.model.MediumRepository;
+import com.helvetia.m295.libraryserver.service.TrendController;
+import com.helvetia.m295.libraryserver.service.TrendZaehler;
+
+/**
+ * Klasse für Testfälle der Klasse {@link TrendController}
+ *
+ * @version 1.0.0
+ * @author Simon Fäs
+ * @see TrendController
+ */
+@WebMvcTest(TrendController.class)
+@DisabledInAotMode
+public class TrendControllerTests {
+
+	private static final String END_POINT_PATH = "/medium/trending";
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	@MockBean
+	private TrendZaehler trendZaehler;
+
+	@MockBean
+	private MediumRepository mediumRepository;
+
+	/**
+	 * Test für {@link TrendController#getTrending(int)} <br>
+	 * Braucht: Zwei Medien im Zähler, eines davon wurde inzwischen gelöscht <br>
+	 * Testet: Abrufen mit Standard-Limit <br>
+	 * Erwartet: Statuscode 200 und das vorhandene Medium mit Titel und Autor <br>
+	 *
+	 * @throws Exception Wenn ein Fehler beim Testen auftritt.
+	 */
+	@Test
+	public void testGetShouldReturnOK() throws Exception {
+		var momo = new Medium(2L, "Momo", "Michael Ende", "Roman", null, null, null);
+		Mockito.when(trendZaehler.getTrending(10))
+				.thenReturn(List.of(new Trend(2L, null, null, 12, 10), new Trend(3L, null, null, 4, 4)));
+		Mockito.when(mediumRepository.findAllById(List.of(2L, 3L))).thenReturn(List.of(momo));
+
+		mockMvc.perform(MockMvcRequestBuilders.get(END_POINT_PATH))
+				.andExpect(MockMvcResultMatchers.status().is(200))
+				.andExpect(MockMvcResultMatchers.content()
+						.json(objectMapper.writeValueAsString(List.of(new Trend(2L, "Momo", "Michael Ende", 12, 10)))))
+				.andDo(MockMvcResultHandlers.print());
+	}
+
+	/**
+	 * Test für {@link TrendController#getTrending(int)} <br>
+	 * Testet: Limit 0 und grösser als {@link TrendController#MAX_LIMIT} <br>
+	 * Erwartet: Statuscode 400 <br>
+	 *
+	 * @throws Exception Wenn ein Fehler beim Testen auftritt.
+	 */
+	@Test
+	public void testGetShouldReturnBadRequest() throws Exception {
+		mockMvc.perform(MockMvcRequestBuilders.get(END_POINT_PATH).param("limit", "0"))
+				.andExpect(MockMvcResultMatchers.status().is(400))
+				.andDo(MockMvcResultHandlers.print());
+		mockMvc.perform(MockMvcRequestBuilders.get(END_POINT_PATH).param("limit", "101"))
+				.andExpect(MockMvcResultMatchers.status().is(400))
+				.andDo(MockMvcResultHandlers.print());
+	}
+
+}
@@ -0,0 +1,138 @@
+package com.helvetia.m295.libraryserver.controller;
+
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.helvetia.m295.libraryserver.common.Ausleihe;
+import com.helvetia.m295.libraryserver.common.AusleiheEvent;
+import com.helvetia.m295.libraryserver.common.Invalidierung;
+import com.helvetia.m295.libraryserver.common.Kunde;
+import com.helvetia.m295.libraryserver.common.Medium;
+import com.helvetia.m295.libraryserver.common.Trend;
+import com.helvetia.m295.libraryserver.service.TrendZaehler;
+
+/**
+ * Klasse für Testfälle des {@link TrendZaehler} auf der H2-Datenbank.
+ * Das Fenster von sieben Tagen ist in Tage geteilt, pro Tag gibt es nur zwei Zähler.
+ *
+ * @version 1.0.0
+ * @author Simon Fäs
+ * @see TrendZaehler
+ */
+@JdbcTest(properties = { "library.trending.fenster-millis=604800000", "library.trending.buckets=7",
+		"library.trending.kapazitaet=2" })
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+@Import(TrendZaehler.class)
+public class TrendZaehlerTests {
+
+	private static final long TAG = TimeUnit.DAYS.toMillis(1);
+
+	@Autowired
+	private TrendZaehler trendZaehler;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	/**
+	 * Test für {@link TrendZaehler#getTrending(int, long)} <br>
+	 * Braucht: Ausleihen an Tag 0, 3 und 6 <br>
+	 * Testet: Abfrage an Tag 6 und 7, danach eine Ausleihe an Tag 7 und eine verspätete an Tag 0 <br>
+	 * Erwartet: An Tag 7 fallen die Ausleihen von Tag 0 aus dem Fenster, die verspätete Ausleihe wird ignoriert <br>
+	 */
+	@Test
+	public void testOldBucketsShouldLeaveWindow() {
+		trendZaehler.rebuild();
+		zaehle(1, 0, 3);
+		zaehle(2, 3 * TAG, 2);
+		zaehle(3, 6 * TAG, 1);
+		Assertions.assertEquals(List.of(trend(1, 3, 3), trend(2, 2, 2), trend(3, 1, 1)),
+				trendZaehler.getTrending(10, 6 * TAG));
+		Assertions.assertEquals(List.of(trend(1, 3, 3)), trendZaehler.getTrending(1, 6 * TAG));
+		Assertions.assertEquals(List.of(trend(2, 2, 2), trend(3, 1, 1)), trendZaehler.getTrending(10, 7 * TAG));
+
+		zaehle(4, 7 * TAG + 1, 1);
+		zaehle(1, 0, 1);
+		Assertions.assertEquals(List.of(trend(2, 2, 2), trend(3, 1, 1), trend(4, 1, 1)),
+				trendZaehler.getTrending(10, 7 * TAG));
+	}
+
+	/**
+	 * Test für {@link TrendZaehler#getTrending(int, long)} <br>
+	 * Braucht: Drei Medien am selben Tag, aber nur zwei Zähler <br>
+	 * Testet: Das seltenste Medium zuletzt <br>
+	 * Erwartet: Das letzte Medium übernimmt den kleinsten Zähler, die sichere Anzahl bleibt bei einer Ausleihe <br>
+	 */
+	@Test
+	public void testFullBucketShouldOverestimate() {
+		trendZaehler.rebuild();
+		zaehle(1, TAG, 5);
+		zaehle(2, TAG, 3);
+		zaehle(3, TAG, 1);
+		Assertions.assertEquals(List.of(trend(1, 5, 5), trend(3, 4, 1)), trendZaehler.getTrending(10, TAG));
+	}
+
+	/**
+	 * Test für {@link TrendZaehler#rebuild()}, {@link TrendZaehler#onAusleihe(AusleiheEvent)},
+	 * {@link TrendZaehler#onInvalidierung(Invalidierung)} und {@link TrendZaehler#nachziehenFallsNoetig()} <br>
+	 * Braucht: Historie mit Ausleihen von heute und vor 30 Tagen <br>
+	 * Testet: Neuaufbau, danach eine neue Ausleihe dieser und eine einer anderen Instanz <br>
+	 * Erwartet: Nur die Ausleihen im Fenster zählen, die neuen Ausleihen kommen im Hintergrundjob je einmal dazu <br>
+	 */
+	@Test
+	public void testRebuildShouldReadRecentHistory() {
+		jdbcTemplate.update("INSERT INTO adresse (id, adresse, ort, zip) VALUES (1, 'Seestrasse 1', 'Zug', '6300')");
+		jdbcTemplate.update("INSERT INTO kunde (id, vorname, nachname, addressid) VALUES (1, 'Mia', 'Graf', 1)");
+		for (int i = 1; i <= 3; i++) {
+			jdbcTemplate.update("INSERT INTO medium (id, titel, autor, genre) VALUES (?, 'Momo', 'Michael Ende', 'Roman')", i);
+		}
+		long jetzt = System.currentTimeMillis();
+		historie(1, jetzt);
+		historie(1, jetzt);
+		historie(2, jetzt);
+		historie(3, jetzt - 30 * TAG);
+		trendZaehler.rebuild();
+		Assertions.assertEquals(List.of(trend(1, 2, 2), trend(2, 1, 1)), trendZaehler.getTrending(10));
+
+		var medium = new Medium();
+		medium.setId(2L);
+		historie(2, jetzt);
+		trendZaehler.onAusleihe(AusleiheEvent.erstellt(new Ausleihe(null, new Kunde(), medium)));
+		Assertions.assertEquals(List.of(trend(1, 2, 2), trend(2, 1, 1)), trendZaehler.getTrending(10));
+		trendZaehler.nachziehenFallsNoetig();
+		Assertions.assertEquals(List.of(trend(1, 2, 2), trend(2, 2, 2)), trendZaehler.getTrending(10));
+
+		historie(3, jetzt);
+		trendZaehler.onInvalidierung(new Invalidierung(Invalidierung.Typ.AUSLEIHE, 3L));
+		trendZaehler.onInvalidierung(new Invalidierung(Invalidierung.Typ.AUSLEIHE, 3L));
+		trendZaehler.nachziehenFallsNoetig();
+		trendZaehler.nachziehenFallsNoetig();
+		Assertions.assertEquals(List.of(trend(1, 2, 2), trend(2, 2, 2), trend(3, 1, 1)), trendZaehler.getTrending(10));
+	}
+
+	private void zaehle(long mediumId, long zeitpunkt, int anzahl) {
+		for (int i = 0; i < anzahl; i++) {
+			trendZaehler.zaehle(mediumId, zeitpunkt);
+		}
+	}
+
+	private void historie(long mediumId, long zeitpunkt) {
+		jdbcTemplate.update("INSERT INTO ausleihe_historie (ausgeliehen, kundenid, medienid) VALUES (?, 1, ?)",
+				new Timestamp(zeitpunkt), mediumId);
+	}
+
+	private static Trend trend(long id, long ausleihen, long mindestens) {
+		return new Trend(id, null, null, ausleihen, mindestens);
+	}
+
+}